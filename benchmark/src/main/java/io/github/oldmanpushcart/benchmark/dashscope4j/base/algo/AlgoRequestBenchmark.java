@@ -0,0 +1,64 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.base.algo;
+
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 算法请求构造基准测试
+ * <p>度量{@code AlgoRequestImpl.newHttpRequest}序列化请求报文并构造HTTP请求的开销</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlgoRequestBenchmark {
+
+    /**
+     * 对话中的消息数量
+     */
+    @Param({"2", "50"})
+    public int messages;
+
+    private ChatRequest chatRequest;
+    private EmbeddingRequest embeddingRequest;
+
+    @Setup
+    public void setup() {
+        final var history = new ArrayList<Message>();
+        history.add(Message.ofSystem("你是一个乐于助人的助手。"));
+        for (int index = 1; index < messages; index++) {
+            history.add(index % 2 == 1
+                    ? Message.ofUser("这是第%d轮用户提问，请详细回答。".formatted(index))
+                    : Message.ofAi("这是第%d轮助手回答，内容较长。".formatted(index).repeat(8)));
+        }
+        chatRequest = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_PLUS)
+                .messages(history)
+                .build();
+        embeddingRequest = EmbeddingRequest.newBuilder()
+                .model(EmbeddingModel.TEXT_EMBEDDING_V2)
+                .documents("这是一段需要向量化的文本。".repeat(16))
+                .build();
+    }
+
+    @Benchmark
+    public HttpRequest chat() {
+        return chatRequest.newHttpRequest();
+    }
+
+    @Benchmark
+    public HttpRequest embedding() {
+        return embeddingRequest.newHttpRequest();
+    }
+
+}
@@ -0,0 +1,86 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内整个客户端的基准测试
+ * <p>
+ * 通过{@link HttpTransport#inProcess(HttpTransport.Handler)}直接应答，不经过网络，
+ * 度量一次对话请求在客户端内部的全部开销：序列化请求、限流与度量、发送、解码应答和SSE事件流。
+ * 调用方线程直接完成整个请求，多线程运行(-t)可以观察客户端的并发扩展性。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InProcessClientBenchmark {
+
+    /**
+     * 流式应答的事件数
+     */
+    @Param({"16"})
+    public int events;
+
+    private DashScopeClient asyncClient;
+    private DashScopeClient flowClient;
+    private ChatRequest request;
+
+    @Setup
+    public void setup() {
+        request = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_PLUS)
+                .user("hello")
+                .build();
+
+        final var asyncReply = HttpTransport.Reply.ofString(200, "application/json", result("应答", "stop"));
+        asyncClient = newClient(CompletableFuture.completedFuture(asyncReply));
+
+        final var chunks = new ArrayList<String>(events);
+        for (int index = 0; index < events; index++) {
+            final var finish = index == events - 1 ? "stop" : "null";
+            chunks.add("id:%d\nevent:result\n:HTTP_STATUS/200\ndata:%s\n\n".formatted(index + 1, result("应答", finish)));
+        }
+        flowClient = newClient(CompletableFuture.completedFuture(HttpTransport.Reply.ofChunks(200, "text/event-stream", chunks)));
+    }
+
+    private static DashScopeClient newClient(CompletableFuture<HttpTransport.Reply> reply) {
+        return DashScopeClient.newBuilder()
+                .ak("benchmark")
+                .executor(Runnable::run)
+                .transport(HttpTransport.inProcess((request, body) -> reply))
+                .build();
+    }
+
+    private static String result(String text, String finish) {
+        return """
+                {"request_id":"benchmark","output":{"choices":[{"finish_reason":"%s","message":{"role":"assistant","content":"%s"}}]},"usage":{"input_tokens":1,"output_tokens":1}}"""
+                .formatted(finish, text);
+    }
+
+    @Benchmark
+    public ChatResponse async() {
+        return asyncClient.chat(request).async().join();
+    }
+
+    @Benchmark
+    public Void flow() {
+        return flowClient.chat(request).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, response -> {
+                }))
+                .join();
+    }
+
+}
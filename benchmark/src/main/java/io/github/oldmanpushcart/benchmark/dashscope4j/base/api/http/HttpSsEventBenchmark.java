@@ -0,0 +1,108 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.base.api.http;
+
+import io.github.oldmanpushcart.benchmark.dashscope4j.util.BlackholeSubscriber;
+import io.github.oldmanpushcart.benchmark.dashscope4j.util.IterablePublisher;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEvent;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEventDecoder;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEventProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE解码基准测试
+ * <p>对比旧版拷贝式SSE转换器与增量解码器解码一次完整流式对话的开销，以及经过{@link HttpSsEventProcessor}的完整流处理开销</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpSsEventBenchmark {
+
+    /**
+     * 流式对话的事件数
+     */
+    @Param({"200"})
+    public int events;
+
+    /**
+     * HTTP数据块大小
+     */
+    @Param({"512", "16384"})
+    public int chunk;
+
+    private List<List<ByteBuffer>> chunks;
+
+    @Setup
+    public void setup() {
+        final var stream = new StringBuilder();
+        final var text = new StringBuilder();
+        for (int index = 1; index <= events; index++) {
+            text.append("这是第").append(index).append("个词元。");
+            stream.append("id:").append(index).append('\n')
+                    .append("event:result").append('\n')
+                    .append(":HTTP_STATUS/200").append('\n')
+                    .append("data:{\"output\":{\"choices\":[{\"message\":{\"content\":\"")
+                    .append(text)
+                    .append("\",\"role\":\"assistant\"},\"finish_reason\":\"null\"}]},")
+                    .append("\"usage\":{\"total_tokens\":").append(index + 10)
+                    .append(",\"input_tokens\":10,\"output_tokens\":").append(index)
+                    .append("},\"request_id\":\"f7a5a7a0-6c3b-9c2e-8d2a-5d1f0e3c2b1a\"}").append('\n')
+                    .append('\n');
+        }
+
+        // 模拟HTTP客户端每次交付一组数据块
+        final var bytes = stream.toString().getBytes(StandardCharsets.UTF_8);
+        chunks = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunk) {
+            final var length = Math.min(chunk, bytes.length - offset);
+            chunks.add(List.of(ByteBuffer.wrap(bytes, offset, length).slice().asReadOnlyBuffer()));
+        }
+    }
+
+    private static List<ByteBuffer> duplicate(List<ByteBuffer> buffers) {
+        final var duplicates = new ArrayList<ByteBuffer>(buffers.size());
+        for (final var buffer : buffers) {
+            duplicates.add(buffer.duplicate());
+        }
+        return duplicates;
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        final var transformer = new LegacyHttpSsEventTransformer(StandardCharsets.UTF_8, 10240);
+        for (final var buffers : chunks) {
+            for (final HttpSsEvent event : transformer.apply(duplicate(buffers))) {
+                bh.consume(event);
+            }
+        }
+    }
+
+    @Benchmark
+    public void decoder(Blackhole bh) {
+        final var decoder = new HttpSsEventDecoder(StandardCharsets.UTF_8);
+        for (final var buffers : chunks) {
+            for (final HttpSsEvent event : decoder.decode(duplicate(buffers))) {
+                bh.consume(event);
+            }
+        }
+    }
+
+    @Benchmark
+    public long processor(Blackhole bh) {
+        final var duplicates = new ArrayList<List<ByteBuffer>>(chunks.size());
+        for (final var buffers : chunks) {
+            duplicates.add(duplicate(buffers));
+        }
+        final var processor = HttpSsEventProcessor.fromByteBuffers(StandardCharsets.UTF_8);
+        return BlackholeSubscriber.drain(processor.transform(new IterablePublisher<>(duplicates)), bh);
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.base.api.http;
+
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEvent;
+import io.github.oldmanpushcart.internal.dashscope4j.util.FeatureDetection;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 旧版SSE转换器
+ * <p>保留1.2.1版本中{@code HttpSsEventProcessor.fromByteBuffers(charset, size)}的实现，作为基准测试的对照组</p>
+ */
+public class LegacyHttpSsEventTransformer implements Function<List<ByteBuffer>, List<HttpSsEvent>> {
+
+    private final FeatureDetection detection = new FeatureDetection(new byte[]{'\n', '\n'});
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final Charset charset;
+    private final byte[] bytes;
+
+    public LegacyHttpSsEventTransformer(Charset charset, int size) {
+        this.charset = charset;
+        this.bytes = new byte[size];
+    }
+
+    @Override
+    public List<HttpSsEvent> apply(List<ByteBuffer> buffers) {
+        final var events = new LinkedList<HttpSsEvent>();
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                final var length = Math.min(buffer.remaining(), bytes.length);
+                buffer.get(bytes, 0, length);
+                var offset = 0;
+                while (true) {
+                    final var position = detection.screening(bytes, offset, length - offset);
+                    if (position == -1) {
+                        output.write(bytes, offset, length - offset);
+                        break;
+                    } else {
+                        output.write(bytes, offset, position - offset);
+                        offset = position + 1;
+                        try {
+                            final var body = output.toString(charset).trim();
+                            events.add(HttpSsEvent.parse(body));
+                        } finally {
+                            output.reset();
+                        }
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+}
@@ -0,0 +1,359 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.chat;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFn;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基准测试用的对话函数
+ * <p>20个函数共用4种参数结构，模拟一个注册了较多工具的对话请求；函数名称取自类注解，因此每个函数各占一个类</p>
+ */
+public class BenchmarkFunctions {
+
+    /**
+     * @return 全部函数
+     */
+    public static List<ChatFunction<?, ?>> all() {
+        return List.of(
+                new Function01(),
+                new Function02(),
+                new Function03(),
+                new Function04(),
+                new Function05(),
+                new Function06(),
+                new Function07(),
+                new Function08(),
+                new Function09(),
+                new Function10(),
+                new Function11(),
+                new Function12(),
+                new Function13(),
+                new Function14(),
+                new Function15(),
+                new Function16(),
+                new Function17(),
+                new Function18(),
+                new Function19(),
+                new Function20()
+        );
+    }
+
+    private static CompletableFuture<Result> done(String message) {
+        return CompletableFuture.completedFuture(new Result(true, message));
+    }
+
+    public record Item(
+
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("item id")
+            String id,
+
+            @JsonPropertyDescription("item weight")
+            double weight
+
+    ) {
+
+    }
+
+    public record Result(boolean success, String message) {
+
+    }
+
+    /**
+     * 查询参数：字符串、字符串列表、对象列表和整数
+     */
+    public record Query(
+
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("the name to query")
+            String name,
+
+            @JsonPropertyDescription("the tags to filter")
+            List<String> tags,
+
+            @JsonPropertyDescription("the items to process")
+            List<Item> items,
+
+            @JsonPropertyDescription("max results")
+            int limit
+
+    ) {
+
+    }
+
+    /**
+     * 过滤参数：枚举、区间和映射
+     */
+    public record Filter(
+
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("the field to filter")
+            String field,
+
+            @JsonPropertyDescription("the filter operator")
+            Operator operator,
+
+            @JsonPropertyDescription("the lower bound")
+            double min,
+
+            @JsonPropertyDescription("the upper bound")
+            double max,
+
+            @JsonPropertyDescription("the extra options")
+            Map<String, String> options
+
+    ) {
+
+        public enum Operator {
+            EQ, NE, GT, LT, BETWEEN
+        }
+
+    }
+
+    /**
+     * 批量参数：嵌套对象
+     */
+    public record Batch(
+
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("the batch id")
+            String id,
+
+            @JsonPropertyDescription("the primary item")
+            Item primary,
+
+            @JsonPropertyDescription("the secondary items")
+            List<Item> secondary,
+
+            @JsonPropertyDescription("whether to run in parallel")
+            boolean parallel
+
+    ) {
+
+    }
+
+    /**
+     * 更新参数：数组和时间戳
+     */
+    public record Update(
+
+            @JsonProperty(required = true)
+            @JsonPropertyDescription("the ids to update")
+            String[] ids,
+
+            @JsonPropertyDescription("the new values")
+            long[] values,
+
+            @JsonPropertyDescription("the update time in millis")
+            long timestamp
+
+    ) {
+
+    }
+
+    @ChatFn(name = "function_01", description = "benchmark function 01")
+    public static class Function01 implements ChatFunction<Query, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Query request) {
+            return done(request.name());
+        }
+
+    }
+
+    @ChatFn(name = "function_02", description = "benchmark function 02")
+    public static class Function02 implements ChatFunction<Query, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Query request) {
+            return done(request.name());
+        }
+
+    }
+
+    @ChatFn(name = "function_03", description = "benchmark function 03")
+    public static class Function03 implements ChatFunction<Query, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Query request) {
+            return done(request.name());
+        }
+
+    }
+
+    @ChatFn(name = "function_04", description = "benchmark function 04")
+    public static class Function04 implements ChatFunction<Query, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Query request) {
+            return done(request.name());
+        }
+
+    }
+
+    @ChatFn(name = "function_05", description = "benchmark function 05")
+    public static class Function05 implements ChatFunction<Query, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Query request) {
+            return done(request.name());
+        }
+
+    }
+
+    @ChatFn(name = "function_06", description = "benchmark function 06")
+    public static class Function06 implements ChatFunction<Filter, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Filter request) {
+            return done(request.field());
+        }
+
+    }
+
+    @ChatFn(name = "function_07", description = "benchmark function 07")
+    public static class Function07 implements ChatFunction<Filter, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Filter request) {
+            return done(request.field());
+        }
+
+    }
+
+    @ChatFn(name = "function_08", description = "benchmark function 08")
+    public static class Function08 implements ChatFunction<Filter, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Filter request) {
+            return done(request.field());
+        }
+
+    }
+
+    @ChatFn(name = "function_09", description = "benchmark function 09")
+    public static class Function09 implements ChatFunction<Filter, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Filter request) {
+            return done(request.field());
+        }
+
+    }
+
+    @ChatFn(name = "function_10", description = "benchmark function 10")
+    public static class Function10 implements ChatFunction<Filter, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Filter request) {
+            return done(request.field());
+        }
+
+    }
+
+    @ChatFn(name = "function_11", description = "benchmark function 11")
+    public static class Function11 implements ChatFunction<Batch, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Batch request) {
+            return done(request.id());
+        }
+
+    }
+
+    @ChatFn(name = "function_12", description = "benchmark function 12")
+    public static class Function12 implements ChatFunction<Batch, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Batch request) {
+            return done(request.id());
+        }
+
+    }
+
+    @ChatFn(name = "function_13", description = "benchmark function 13")
+    public static class Function13 implements ChatFunction<Batch, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Batch request) {
+            return done(request.id());
+        }
+
+    }
+
+    @ChatFn(name = "function_14", description = "benchmark function 14")
+    public static class Function14 implements ChatFunction<Batch, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Batch request) {
+            return done(request.id());
+        }
+
+    }
+
+    @ChatFn(name = "function_15", description = "benchmark function 15")
+    public static class Function15 implements ChatFunction<Batch, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Batch request) {
+            return done(request.id());
+        }
+
+    }
+
+    @ChatFn(name = "function_16", description = "benchmark function 16")
+    public static class Function16 implements ChatFunction<Update, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Update request) {
+            return done(String.join(",", request.ids()));
+        }
+
+    }
+
+    @ChatFn(name = "function_17", description = "benchmark function 17")
+    public static class Function17 implements ChatFunction<Update, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Update request) {
+            return done(String.join(",", request.ids()));
+        }
+
+    }
+
+    @ChatFn(name = "function_18", description = "benchmark function 18")
+    public static class Function18 implements ChatFunction<Update, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Update request) {
+            return done(String.join(",", request.ids()));
+        }
+
+    }
+
+    @ChatFn(name = "function_19", description = "benchmark function 19")
+    public static class Function19 implements ChatFunction<Update, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Update request) {
+            return done(String.join(",", request.ids()));
+        }
+
+    }
+
+    @ChatFn(name = "function_20", description = "benchmark function 20")
+    public static class Function20 implements ChatFunction<Update, Result> {
+
+        @Override
+        public CompletableFuture<Result> call(Update request) {
+            return done(String.join(",", request.ids()));
+        }
+
+    }
+
+}
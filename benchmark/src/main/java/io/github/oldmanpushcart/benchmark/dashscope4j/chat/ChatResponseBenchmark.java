@@ -0,0 +1,76 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.chat;
+
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 对话应答解码基准测试
+ * <p>使用固定的应答报文，度量{@code OutputJsonDeserializer}在文本、消息和工具调用三种应答格式下的解码开销</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatResponseBenchmark {
+
+    /**
+     * 应答格式
+     */
+    @Param({"text", "message", "tool_calls"})
+    public String format;
+
+    private String body;
+    private byte[] bytes;
+    private Function<String, ChatResponse> deserializer;
+    private ChatRequest request;
+
+    @Setup
+    public void setup() {
+        final var text = "这是一段用于基准测试的应答文本。".repeat(64);
+        body = switch (format) {
+            case "text" -> """
+                    {"output":{"finish_reason":"stop","text":"%s"},\
+                    "usage":{"total_tokens":1034,"output_tokens":1024,"input_tokens":10},\
+                    "request_id":"f7a5a7a0-6c3b-9c2e-8d2a-5d1f0e3c2b1a"}\
+                    """.formatted(text);
+            case "message" -> """
+                    {"output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"%s"}}]},\
+                    "usage":{"total_tokens":1034,"output_tokens":1024,"input_tokens":10},\
+                    "request_id":"f7a5a7a0-6c3b-9c2e-8d2a-5d1f0e3c2b1a"}\
+                    """.formatted(text);
+            case "tool_calls" -> """
+                    {"output":{"choices":[{"finish_reason":"tool_calls","message":{"role":"assistant","content":"",\
+                    "tool_calls":[{"type":"function","function":{"name":"query_score","arguments":"{\\"name\\":\\"张三\\"}"}}]}}]},\
+                    "usage":{"total_tokens":40,"output_tokens":30,"input_tokens":10},\
+                    "request_id":"f7a5a7a0-6c3b-9c2e-8d2a-5d1f0e3c2b1a"}\
+                    """;
+            default -> throw new IllegalArgumentException("unknown format: %s".formatted(format));
+        };
+        bytes = body.getBytes(StandardCharsets.UTF_8);
+        request = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_PLUS)
+                .user("hello")
+                .build();
+        deserializer = request.responseDeserializer();
+    }
+
+    @Benchmark
+    public ChatResponse string() {
+        return deserializer.apply(body);
+    }
+
+    @Benchmark
+    public ChatResponse stream() {
+        return request.responseStreamDeserializer(StandardCharsets.UTF_8).apply(new ByteArrayInputStream(bytes));
+    }
+
+}
@@ -0,0 +1,83 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.chat;
+
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.internal.dashscope4j.chat.FunctionTool;
+import io.github.oldmanpushcart.internal.dashscope4j.util.JacksonUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话函数工具序列化基准测试
+ * <p>对比每次序列化都重新生成json-schema的旧实现与随函数工具缓存json-schema后，序列化一个注册了20个函数的对话请求的开销</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FunctionToolBenchmark {
+
+    private ChatRequest request;
+    private List<FunctionTool> tools;
+
+    @Setup
+    public void setup() {
+        request = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_PLUS)
+                .user("查询张三的成绩")
+                .functions(BenchmarkFunctions.all())
+                .build();
+
+        // 构造一次HTTP请求以确定消息格式
+        request.newHttpRequest();
+
+        tools = BenchmarkFunctions.all().stream()
+                .map(FunctionTool::of)
+                .toList();
+    }
+
+    /**
+     * 旧实现：每次序列化都重新生成、序列化和修正全部函数的json-schema
+     *
+     * @return 请求报文
+     */
+    @Benchmark
+    public String legacy() {
+        final var legacyTools = new ArrayList<Map<String, Object>>(tools.size());
+        for (final var tool : tools) {
+            final var function = new LinkedHashMap<String, Object>();
+            function.put("name", tool.meta().name());
+            function.put("description", tool.meta().description());
+            function.put("parameters", JacksonUtils.schema(tool.meta().parameterTs().type()));
+            final var legacyTool = new LinkedHashMap<String, Object>();
+            legacyTool.put("type", "function");
+            legacyTool.put("function", function);
+            legacyTools.add(legacyTool);
+        }
+        final var parameters = new LinkedHashMap<>(request.option().export());
+        parameters.put("tools", legacyTools);
+        final var body = new LinkedHashMap<String, Object>();
+        body.put("model", request.model());
+        body.put("input", request.input());
+        body.put("parameters", parameters);
+        return JacksonUtils.toJson(body);
+    }
+
+    /**
+     * 缓存实现：json-schema随函数工具缓存，序列化时直接输出
+     *
+     * @return 请求报文
+     */
+    @Benchmark
+    public String cached() {
+        return JacksonUtils.toJson(request);
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.chat;
+
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatOptions;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 增量输出基准测试
+ * <p>
+ * 模拟一次生成{@code tokens}个token的流式对话，每个token一个SSE事件，每次调用按顺序处理下一个事件，即度量平均每个token的解码开销：
+ * {@code full}为全量输出，每个事件都带有截至目前的全部文本；
+ * {@code incremental}为增量输出，每个事件只带新增的token，通过{@link ChatResponse.Accumulator}累加，最后一个事件时拼接出完整应答。
+ * </p>
+ * <p>全量输出的单token开销随{@code tokens}线性增长，增量输出应基本保持不变</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalChatResponseBenchmark {
+
+    /**
+     * 生成的token数量
+     */
+    @Param({"256", "1024", "4096"})
+    public int tokens;
+
+    private List<String> fullEvents;
+    private List<String> incrementalEvents;
+    private Function<String, ChatResponse> deserializer;
+    private ChatResponse.Accumulator accumulator;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        final var token = "应答";
+        final var text = new StringBuilder();
+        fullEvents = new ArrayList<>(tokens);
+        incrementalEvents = new ArrayList<>(tokens);
+        for (int index = 0; index < tokens; index++) {
+            final var finish = index == tokens - 1 ? "stop" : "null";
+            text.append(token);
+            fullEvents.add(event(finish, text.toString(), index + 1));
+            incrementalEvents.add(event(finish, token, index + 1));
+        }
+        deserializer = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_PLUS)
+                .option(ChatOptions.ENABLE_INCREMENTAL_OUTPUT, true)
+                .user("hello")
+                .build()
+                .responseDeserializer();
+    }
+
+    private static String event(String finish, String content, int outputTokens) {
+        return """
+                {"output":{"choices":[{"finish_reason":"%s","message":{"role":"assistant","content":"%s"}}]},\
+                "usage":{"total_tokens":%d,"output_tokens":%d,"input_tokens":10},\
+                "request_id":"f7a5a7a0-6c3b-9c2e-8d2a-5d1f0e3c2b1a"}\
+                """.formatted(finish, content, outputTokens + 10, outputTokens);
+    }
+
+    @Benchmark
+    public ChatResponse full() {
+        final var response = deserializer.apply(fullEvents.get(cursor));
+        cursor = (cursor + 1) % tokens;
+        return response;
+    }
+
+    @Benchmark
+    public ChatResponse incremental() {
+        if (0 == cursor) {
+            accumulator = ChatResponse.newAccumulator();
+        }
+        final var response = accumulator.accept(deserializer.apply(incrementalEvents.get(cursor)));
+        cursor = (cursor + 1) % tokens;
+        return 0 == cursor ? response.result() : null;
+    }
+
+}
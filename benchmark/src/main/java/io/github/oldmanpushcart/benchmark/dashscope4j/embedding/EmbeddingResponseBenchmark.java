@@ -0,0 +1,72 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.embedding;
+
+import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 向量应答解码基准测试
+ * <p>使用固定的应答报文，度量{@code EmbeddingResponseImpl}从字符串和字节流两种方式解码的开销</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddingResponseBenchmark {
+
+    /**
+     * 应答中的向量数量
+     */
+    @Param({"1", "25"})
+    public int documents;
+
+    private String body;
+    private byte[] bytes;
+    private EmbeddingRequest request;
+
+    @Setup
+    public void setup() {
+        final var random = new Random(42);
+        final var json = new StringBuilder("{\"output\":{\"embeddings\":[");
+        for (int index = 0; index < documents; index++) {
+            if (index > 0) {
+                json.append(',');
+            }
+            json.append("{\"text_index\":").append(index).append(",\"embedding\":[");
+            for (int dimension = 0; dimension < EmbeddingModel.TEXT_EMBEDDING_V2.dimension(); dimension++) {
+                if (dimension > 0) {
+                    json.append(',');
+                }
+                json.append(random.nextGaussian() / 10);
+            }
+            json.append("]}");
+        }
+        json.append("]},\"usage\":{\"total_tokens\":").append(documents * 8)
+                .append("},\"request_id\":\"f7a5a7a0-6c3b-9c2e-8d2a-5d1f0e3c2b1a\"}");
+        body = json.toString();
+        bytes = body.getBytes(StandardCharsets.UTF_8);
+        request = EmbeddingRequest.newBuilder()
+                .model(EmbeddingModel.TEXT_EMBEDDING_V2)
+                .documents("hello")
+                .build();
+    }
+
+    @Benchmark
+    public EmbeddingResponse string() {
+        return request.responseDeserializer().apply(body);
+    }
+
+    @Benchmark
+    public EmbeddingResponse stream() {
+        return request.responseStreamDeserializer(StandardCharsets.UTF_8).apply(new ByteArrayInputStream(bytes));
+    }
+
+}
@@ -0,0 +1,62 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.util;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.Flow;
+
+/**
+ * 黑洞订阅器
+ * <p>一次性请求全部元素并交给{@link Blackhole}消费，返回消费的元素数量</p>
+ *
+ * @param <T> 元素类型
+ */
+public class BlackholeSubscriber<T> implements Flow.Subscriber<T> {
+
+    private final Blackhole bh;
+    private long count;
+    private boolean completed;
+
+    public BlackholeSubscriber(Blackhole bh) {
+        this.bh = bh;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(T item) {
+        count++;
+        bh.consume(item);
+    }
+
+    @Override
+    public void onError(Throwable ex) {
+        throw new IllegalStateException("benchmark flow failed!", ex);
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+    }
+
+    /**
+     * 订阅发布器并等待完成
+     * <p>要求发布器同步完成</p>
+     *
+     * @param publisher 发布器
+     * @param bh        黑洞
+     * @param <T>       元素类型
+     * @return 消费的元素数量
+     */
+    public static <T> long drain(Flow.Publisher<T> publisher, Blackhole bh) {
+        final var subscriber = new BlackholeSubscriber<T>(bh);
+        publisher.subscribe(subscriber);
+        if (!subscriber.completed) {
+            throw new IllegalStateException("benchmark flow not completed synchronously!");
+        }
+        return subscriber.count;
+    }
+
+}
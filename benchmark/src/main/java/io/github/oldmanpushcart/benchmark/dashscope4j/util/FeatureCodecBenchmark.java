@@ -0,0 +1,37 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.util;
+
+import io.github.oldmanpushcart.internal.dashscope4j.util.FeatureCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feature编解码基准测试
+ * <p>度量解析HTTP头参数(如{@code Content-Type})时{@link FeatureCodec#toMap(String)}的开销</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeatureCodecBenchmark {
+
+    private final FeatureCodec codec = new FeatureCodec(';', '=');
+
+    /**
+     * 待解析的Feature字符串，即{@code Content-Type}中MIME之后的参数部分
+     */
+    @Param({
+            "charset=UTF-8",
+            "charset=UTF-8;boundary=----dashscope4j;q=0.9;version=1.2.2"
+    })
+    public String feature;
+
+    @Benchmark
+    public Map<String, String> toMap() {
+        return codec.toMap(feature);
+    }
+
+}
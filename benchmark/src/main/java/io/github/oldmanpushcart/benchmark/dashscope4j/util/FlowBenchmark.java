@@ -0,0 +1,78 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.util;
+
+import io.github.oldmanpushcart.dashscope4j.util.TransformFlowProcessor;
+import io.github.oldmanpushcart.internal.dashscope4j.util.JoinFlowPublisher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 流处理基准测试
+ * <p>度量{@link TransformFlowProcessor}和{@link JoinFlowPublisher}在同步发布器上的逐元素开销，以直接消费发布器为基线</p>
+ * <p>{@code legacy*}为{@link LegacyTransformFlowProcessor}的对照组，{@code expand}每个元素转换出8个结果，模拟一个数据块解码出多个SSE事件</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlowBenchmark {
+
+    /**
+     * 流中的元素数量
+     */
+    @Param({"1000"})
+    public int items;
+
+    private List<Integer> source;
+    private List<List<Integer>> expanded;
+
+    @Setup
+    public void setup() {
+        source = IntStream.range(0, items).boxed().toList();
+        expanded = source.stream()
+                .map(i -> IntStream.range(0, 8).mapToObj(j -> i).toList())
+                .toList();
+    }
+
+    @Benchmark
+    public long baseline(Blackhole bh) {
+        return BlackholeSubscriber.drain(new IterablePublisher<>(source), bh);
+    }
+
+    @Benchmark
+    public long transform(Blackhole bh) {
+        return BlackholeSubscriber.drain(TransformFlowProcessor.transform(new IterablePublisher<>(source), List::of), bh);
+    }
+
+    @Benchmark
+    public long legacy(Blackhole bh) {
+        return BlackholeSubscriber.drain(LegacyTransformFlowProcessor.transform(new IterablePublisher<>(source), List::of), bh);
+    }
+
+    @Benchmark
+    public long expand(Blackhole bh) {
+        return BlackholeSubscriber.drain(TransformFlowProcessor.transform(new IterablePublisher<>(source), expanded::get), bh);
+    }
+
+    @Benchmark
+    public long legacyExpand(Blackhole bh) {
+        return BlackholeSubscriber.drain(LegacyTransformFlowProcessor.transform(new IterablePublisher<>(source), expanded::get), bh);
+    }
+
+    @Benchmark
+    public long join(Blackhole bh) {
+        final var publisher = new JoinFlowPublisher<>(
+                new IterablePublisher<>(source),
+                (a, b) -> b,
+                last -> CompletableFuture.completedFuture(null)
+        );
+        return BlackholeSubscriber.drain(publisher, bh);
+    }
+
+}
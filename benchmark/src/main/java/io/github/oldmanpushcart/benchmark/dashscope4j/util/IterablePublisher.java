@@ -0,0 +1,67 @@
+package io.github.oldmanpushcart.benchmark.dashscope4j.util;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+
+/**
+ * 同步发布器
+ * <p>在订阅端请求的线程上同步发布集合中的元素，重入的请求只累加需求，由外层循环继续发布，避免递归过深</p>
+ *
+ * @param <T> 元素类型
+ */
+public class IterablePublisher<T> implements Flow.Publisher<T> {
+
+    private final Iterable<T> items;
+
+    public IterablePublisher(Iterable<T> items) {
+        this.items = items;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        final var iterator = items.iterator();
+        subscriber.onSubscribe(new Subscription<>(iterator, subscriber));
+    }
+
+    private static class Subscription<T> implements Flow.Subscription {
+
+        private final Iterator<T> iterator;
+        private final Flow.Subscriber<? super T> subscriber;
+        private long demand;
+        private boolean emitting;
+        private boolean done;
+
+        Subscription(Iterator<T> iterator, Flow.Subscriber<? super T> subscriber) {
+            this.iterator = iterator;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            if (emitting) {
+                return;
+            }
+            emitting = true;
+            try {
+                while (!done && demand > 0 && iterator.hasNext()) {
+                    demand--;
+                    subscriber.onNext(iterator.next());
+                }
+                if (!done && !iterator.hasNext()) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            } finally {
+                emitting = false;
+            }
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+    }
+
+}
@@ -1,7 +1,15 @@
 package io.github.oldmanpushcart.dashscope4j;
 
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiKeyPool;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ConnectionPool;
+import io.github.oldmanpushcart.dashscope4j.base.api.EndpointPolicy;
+import io.github.oldmanpushcart.dashscope4j.base.api.HedgePolicy;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.base.api.RateLimit;
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
 import io.github.oldmanpushcart.dashscope4j.base.task.Task;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
@@ -9,9 +17,12 @@ import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingRequest;
 import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingResponse;
 import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageRequest;
 import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageResponse;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
+import io.github.oldmanpushcart.dashscope4j.metrics.SimpleApiMetrics;
 import io.github.oldmanpushcart.dashscope4j.util.Buildable;
 import io.github.oldmanpushcart.internal.dashscope4j.DashScopeClientImpl;
 
+import java.net.URI;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -75,6 +86,17 @@ public interface DashScopeClient {
          */
         Builder ak(String ak);
 
+        /**
+         * 设置AK池
+         * <p>每次请求从池中选出负载最低的AK，与{@link #ak(String)}后设置的生效</p>
+         *
+         * @param akPool AK池，必须由{@link ApiKeyPool#of(String...)}或{@link ApiKeyPool#newBuilder()}构建
+         * @return this
+         * @throws IllegalArgumentException AK池不是由上述方法构建
+         * @since 1.2.2
+         */
+        Builder akPool(ApiKeyPool akPool);
+
         /**
          * 设置线程池
          *
@@ -91,6 +113,157 @@ public interface DashScopeClient {
          */
         Builder connectTimeout(Duration connectTimeout);
 
+        /**
+         * 设置请求超时
+         * <p>请求未设置{@link ApiRequest#timeout()}时生效；流式请求的超时覆盖整条事件流</p>
+         *
+         * @param timeout 请求超时
+         * @return this
+         * @since 1.2.2
+         */
+        Builder timeout(Duration timeout);
+
+        /**
+         * 设置首字节超时
+         * <p>从发出请求到收到应答头的最大等待时间</p>
+         *
+         * @param firstByteTimeout 首字节超时
+         * @return this
+         * @since 1.2.2
+         */
+        Builder firstByteTimeout(Duration firstByteTimeout);
+
+        /**
+         * 设置空闲超时
+         * <p>流式请求中等待下一个事件(包括第一个事件)的最大时间</p>
+         *
+         * @param idleTimeout 空闲超时
+         * @return this
+         * @since 1.2.2
+         */
+        Builder idleTimeout(Duration idleTimeout);
+
+        /**
+         * 设置任务轮询的全局每秒预算
+         * <p>客户端内所有未完结任务的查询共享此预算，超出预算的查询会顺延；默认不限制</p>
+         *
+         * @param pollsPerSecond 每秒最多发出的任务查询数
+         * @return this
+         * @since 1.2.2
+         */
+        Builder taskPollsPerSecond(int pollsPerSecond);
+
+        /**
+         * 设置模型的限流
+         * <p>
+         * 对该模型的请求在客户端内做准入控制，超出限制的请求异步排队等待，不占用线程；
+         * 多次设置同一模型时以最后一次为准，未设置限流的模型不受影响
+         * </p>
+         *
+         * @param model 模型名称，与{@link Model#name()}一致
+         * @param limit 限流配置
+         * @return this
+         * @since 1.2.2
+         */
+        Builder rateLimit(String model, RateLimit limit);
+
+        /**
+         * 设置模型的限流
+         *
+         * @param model 模型
+         * @param limit 限流配置
+         * @return this
+         * @see #rateLimit(String, RateLimit)
+         * @since 1.2.2
+         */
+        default Builder rateLimit(Model model, RateLimit limit) {
+            return rateLimit(model.name(), limit);
+        }
+
+        /**
+         * 设置限流排队超时
+         * <p>请求等待限流许可超过此时间时以{@link ApiTimeoutException.Phase#QUEUE}超时失败；默认一直等待</p>
+         *
+         * @param queueTimeout 排队超时
+         * @return this
+         * @since 1.2.2
+         */
+        Builder rateLimitQueueTimeout(Duration queueTimeout);
+
+        /**
+         * 设置重试策略
+         * <p>失败的请求按策略自动重试，每次重试都重新经过限流；默认不重试</p>
+         *
+         * @param retryPolicy 重试策略
+         * @return this
+         * @since 1.2.2
+         */
+        Builder retryPolicy(RetryPolicy retryPolicy);
+
+        /**
+         * 设置对冲策略
+         * <p>只作用于对话的异步请求({@code chat(request).async()})，按模型分别统计耗时；默认不对冲</p>
+         *
+         * @param hedgePolicy 对冲策略
+         * @return this
+         * @since 1.2.2
+         */
+        Builder hedgePolicy(HedgePolicy hedgePolicy);
+
+        /**
+         * 设置度量
+         * <p>按模型和请求方式回调请求数、失败、耗时、字节数和用量；可以使用内置的{@link SimpleApiMetrics}，默认不度量</p>
+         *
+         * @param metrics 度量
+         * @return this
+         * @since 1.2.2
+         */
+        Builder metrics(ApiMetrics metrics);
+
+        /**
+         * 设置HTTP传输
+         * <p>默认使用JDK的HTTP客户端；设置后{@link #connectTimeout(Duration)}不再生效，由传输自行决定</p>
+         *
+         * @param transport HTTP传输
+         * @return this
+         * @since 1.2.2
+         */
+        Builder transport(HttpTransport transport);
+
+        /**
+         * 设置服务根地址
+         * <p>默认为{@code https://dashscope.aliyuncs.com}，模型和任务在此地址下的请求都改写到新的根地址，可用于私有网关或本地的模拟服务</p>
+         * <p>等同于只有一个根地址的{@link #endpointPolicy(EndpointPolicy)}，两者后设置的生效</p>
+         *
+         * @param baseUri 服务根地址，例如{@code http://127.0.0.1:8080}
+         * @return this
+         * @since 1.2.2
+         */
+        default Builder baseUri(URI baseUri) {
+            return endpointPolicy(EndpointPolicy.of(baseUri));
+        }
+
+        /**
+         * 设置服务地址策略
+         * <p>在多个根地址(不同地域、私有网关、备用地址)之间按耗时和错误率路由；默认只使用{@code https://dashscope.aliyuncs.com}</p>
+         *
+         * @param endpointPolicy 服务地址策略
+         * @return this
+         * @since 1.2.2
+         */
+        Builder endpointPolicy(EndpointPolicy endpointPolicy);
+
+        /**
+         * 设置连接池
+         * <p>配置HTTP协议版本，并在{@code build()}时预热每个根地址的连接、之后定期保活；默认不预热也不保活</p>
+         *
+         * @param connectionPool 连接池，必须由{@link ConnectionPool#newBuilder()}构建
+         * @return this
+         * @throws IllegalArgumentException 连接池不是由上述方法构建
+         * @since 1.2.2
+         */
+        Builder connectionPool(ConnectionPool connectionPool);
+
     }
 
     /**
@@ -2,6 +2,8 @@ package io.github.oldmanpushcart.dashscope4j.base.api;
 
 import io.github.oldmanpushcart.dashscope4j.Ret;
 
+import java.time.Duration;
+
 /**
  * API异常
  */
@@ -10,6 +12,7 @@ public class ApiException extends RuntimeException {
     private final int status;
     private final String uuid;
     private final Ret ret;
+    private final Duration retryAfter;
 
     /**
      * 构造API异常
@@ -18,6 +21,18 @@ public class ApiException extends RuntimeException {
      * @param response 应答
      */
     public ApiException(int status, ApiResponse<?> response) {
+        this(status, response, null);
+    }
+
+    /**
+     * 构造API异常
+     *
+     * @param status     HTTP状态
+     * @param response   应答
+     * @param retryAfter 服务端要求的重试等待时间，没有要求时为{@code null}
+     * @since 1.2.2
+     */
+    public ApiException(int status, ApiResponse<?> response, Duration retryAfter) {
         super("api response error! status=%s;uuid=%s;code=%s;message=%s;".formatted(
                 status,
                 response.uuid(),
@@ -27,6 +42,7 @@ public class ApiException extends RuntimeException {
         this.status = status;
         this.uuid = response.uuid();
         this.ret = response.ret();
+        this.retryAfter = retryAfter;
     }
 
     /**
@@ -56,4 +72,15 @@ public class ApiException extends RuntimeException {
         return ret;
     }
 
+    /**
+     * 获取服务端要求的重试等待时间
+     * <p>来自应答的{@code Retry-After}头</p>
+     *
+     * @return 重试等待时间，没有要求时为{@code null}
+     * @since 1.2.2
+     */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
 }
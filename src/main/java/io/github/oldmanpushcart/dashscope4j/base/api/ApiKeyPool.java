@@ -0,0 +1,122 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.util.Buildable;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.ApiKeyPoolImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AK池
+ * <p>
+ * 一个客户端使用多个AK分摊配额：每次请求(包括每次重试)从池中选出负载最低的AK，
+ * 负载按进行中的请求数占该AK并发上限的比例计算，已达到并发、每秒请求数或每分钟令牌数上限的AK只在所有AK都饱和时才会被选中。
+ * </p>
+ * <p>
+ * 返回{@code 429}的AK冷却{@code cooldown}(服务端要求的{@code Retry-After}更长时取后者)，
+ * 返回{@code 401}、{@code 403}的AK冷却{@code authCooldown}，冷却中的AK不参与选择；所有AK都在冷却时选最早恢复的。
+ * 异步任务的轮询和取消始终使用提交任务的AK。
+ * </p>
+ * <p>AK池记录每个AK的请求数、失败和用量，可以在多个客户端之间共享，共享时状态也一并共享</p>
+ *
+ * @since 1.2.2
+ */
+public interface ApiKeyPool {
+
+    /**
+     * 获取每个AK的统计
+     *
+     * @return 按加入顺序排列的统计
+     */
+    List<KeyStats> stats();
+
+    /**
+     * 使用默认配置、不限流的AK池
+     *
+     * @param aks AK
+     * @return AK池
+     */
+    static ApiKeyPool of(String... aks) {
+        final var builder = newBuilder();
+        for (final var ak : aks) {
+            builder.key(ak);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 构建AK池
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new ApiKeyPoolImpl.Builder();
+    }
+
+    /**
+     * AK统计
+     *
+     * @param name         脱敏后的AK
+     * @param inflight     进行中的请求数
+     * @param requests     请求总数
+     * @param throttled    被限流({@code 429})的请求数
+     * @param unauthorized 鉴权失败({@code 401}、{@code 403})的请求数
+     * @param failed       其他失败的请求数
+     * @param usage        累计用量，按用量项目名称汇总
+     * @param cooldown     剩余冷却时间，不在冷却中时为{@link Duration#ZERO}
+     */
+    record KeyStats(
+            String name,
+            int inflight,
+            long requests,
+            long throttled,
+            long unauthorized,
+            long failed,
+            Map<String, Long> usage,
+            Duration cooldown
+    ) {
+
+    }
+
+    /**
+     * AK池构建器
+     */
+    interface Builder extends Buildable<ApiKeyPool, Builder> {
+
+        /**
+         * 添加不限流的AK
+         *
+         * @param ak AK
+         * @return this
+         */
+        Builder key(String ak);
+
+        /**
+         * 添加AK
+         *
+         * @param ak    AK
+         * @param limit 该AK的配额，用于判断AK是否饱和
+         * @return this
+         */
+        Builder key(String ak, RateLimit limit);
+
+        /**
+         * 设置返回{@code 429}的AK的冷却时间，默认10秒
+         *
+         * @param cooldown 冷却时间
+         * @return this
+         */
+        Builder cooldown(Duration cooldown);
+
+        /**
+         * 设置鉴权失败的AK的冷却时间，默认5分钟
+         *
+         * @param authCooldown 冷却时间
+         * @return this
+         */
+        Builder authCooldown(Duration authCooldown);
+
+    }
+
+}
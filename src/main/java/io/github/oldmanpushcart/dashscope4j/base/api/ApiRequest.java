@@ -3,7 +3,11 @@ package io.github.oldmanpushcart.dashscope4j.base.api;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.github.oldmanpushcart.dashscope4j.util.Buildable;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.http.HttpRequest;
+import java.nio.charset.Charset;
 import java.time.Duration;
 import java.util.function.Function;
 
@@ -29,6 +33,26 @@ public interface ApiRequest<R extends ApiResponse<?>> {
      */
     Function<String, R> responseDeserializer();
 
+    /**
+     * 应答序列化(字节流)
+     * <p>直接从HTTP应答的字节流中反序列化，避免将应答完整解码为字符串；</p>
+     * <p>默认实现按应答的字符集解码后回退为{@link #responseDeserializer()}</p>
+     *
+     * @param charset 应答的字符集，取自应答的{@code Content-Type}，未声明时为UTF-8
+     * @return 应答序列化
+     * @since 1.2.2
+     */
+    default Function<InputStream, R> responseStreamDeserializer(Charset charset) {
+        final var deserializer = responseDeserializer();
+        return input -> {
+            try (input) {
+                return deserializer.apply(new String(input.readAllBytes(), charset));
+            } catch (IOException cause) {
+                throw new UncheckedIOException(cause);
+            }
+        };
+    }
+
 
     /**
      * 构造器
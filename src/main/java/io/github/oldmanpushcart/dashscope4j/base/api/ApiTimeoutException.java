@@ -0,0 +1,79 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+import java.time.Duration;
+
+/**
+ * API超时异常
+ * <p>超时发生时底层的HTTP交互已经被取消，排队超时的请求则从未发出</p>
+ *
+ * @since 1.2.2
+ */
+public class ApiTimeoutException extends RuntimeException {
+
+    private final Phase phase;
+    private final Duration timeout;
+
+    /**
+     * 构造API超时异常
+     *
+     * @param phase   超时阶段
+     * @param timeout 超时时间
+     */
+    public ApiTimeoutException(Phase phase, Duration timeout) {
+        super("api timeout! phase=%s;timeout=%s;".formatted(phase, timeout));
+        this.phase = phase;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 获取超时阶段
+     *
+     * @return 超时阶段
+     */
+    public Phase phase() {
+        return phase;
+    }
+
+    /**
+     * 获取超时时间
+     *
+     * @return 超时时间
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    /**
+     * 超时阶段
+     */
+    public enum Phase {
+
+        /**
+         * 请求总超时
+         * <p>从发出请求到应答完整结束(流式应答为最后一个事件)</p>
+         */
+        TOTAL,
+
+        /**
+         * 首字节超时
+         * <p>从发出请求到收到应答头</p>
+         */
+        FIRST_BYTE,
+
+        /**
+         * 空闲超时
+         * <p>流式应答中，等待下一个SSE事件的时间</p>
+         */
+        IDLE,
+
+        /**
+         * 排队超时
+         * <p>请求发出前，在客户端内等待限流许可的时间</p>
+         *
+         * @since 1.2.2
+         */
+        QUEUE
+
+    }
+
+}
@@ -0,0 +1,124 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.util.Buildable;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.ConnectionPoolImpl;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 连接池
+ * <p>
+ * 配置客户端内置HTTP客户端的协议版本，并让每个根地址的连接保持预热：
+ * 客户端{@code build()}时向每个根地址预先建立连接(最多等待{@code warmupTimeout})，
+ * 之后每隔{@code keepAliveInterval}检查一次，闲置超过该间隔的根地址会收到保活请求，避免连接因空闲被关闭后下一个请求重新付出DNS和TLS握手的耗时。
+ * 预热和保活请求是不带AK的{@code GET /}，只为建立和保持连接，应答内容被丢弃。
+ * </p>
+ * <p>
+ * HTTP/2下同一根地址的请求复用一个连接，多建连接只会多付握手的耗时，因此只预热和保活一个连接，协商回退到HTTP/1.1时才补足其余连接；
+ * HTTP/1.1下一个连接同时只承载一个请求，{@code warmConnections}按预期并发设置。
+ * 使用自定义的{@link HttpTransport}时协议版本不生效、也无法统计新建的连接，预热和保活仍然经由该传输发出。
+ * </p>
+ * <p>连接池可以在多个客户端之间共享，每个客户端各自建立连接，统计合并；客户端不可达后其保活随之停止</p>
+ *
+ * @since 1.2.2
+ */
+public interface ConnectionPool {
+
+    /**
+     * 获取每个根地址的连接统计
+     *
+     * @return 按首次使用顺序排列的统计
+     */
+    List<EndpointStats> stats();
+
+    /**
+     * 构建连接池
+     *
+     * @return 构建器
+     */
+    static Builder newBuilder() {
+        return new ConnectionPoolImpl.Builder();
+    }
+
+    /**
+     * 根地址的连接统计
+     *
+     * @param endpoint    根地址
+     * @param version     最近一次应答协商的协议版本，尚无应答时为{@code null}
+     * @param exchanges   请求总数，包括预热和保活请求
+     * @param connections 新建的连接数，只有HTTPS的根地址可以统计，其余恒为0
+     * @param warmups     成功的预热请求数
+     * @param pings       成功的保活请求数
+     * @param failed      失败的预热和保活请求数
+     */
+    record EndpointStats(
+            URI endpoint,
+            HttpClient.Version version,
+            long exchanges,
+            long connections,
+            long warmups,
+            long pings,
+            long failed
+    ) {
+
+        /**
+         * 获取连接复用率
+         *
+         * @return 没有新建连接的请求占比；非HTTPS的根地址无法统计，返回{@link Double#NaN}
+         */
+        public double reuseRate() {
+            if (!"https".equalsIgnoreCase(endpoint.getScheme())) {
+                return Double.NaN;
+            }
+            return exchanges == 0 ? 0 : (double) Math.max(0, exchanges - connections) / exchanges;
+        }
+
+    }
+
+    /**
+     * 连接池构建器
+     */
+    interface Builder extends Buildable<ConnectionPool, Builder> {
+
+        /**
+         * 设置HTTP协议版本，默认HTTP/2
+         * <p>HTTP/2在TLS协商不支持时回退到HTTP/1.1；设为HTTP/1.1可以完全禁用HTTP/2</p>
+         *
+         * @param version 协议版本
+         * @return this
+         */
+        Builder version(HttpClient.Version version);
+
+        /**
+         * 设置每个根地址预热的连接数，默认0(不预热)
+         * <p>只在HTTP/1.1下生效；HTTP/2下大于0时只预热一个连接</p>
+         *
+         * @param warmConnections 连接数
+         * @return this
+         */
+        Builder warmConnections(int warmConnections);
+
+        /**
+         * 设置保活间隔，默认不保活
+         * <p>闲置超过此间隔的根地址会收到保活请求，HTTP/2下一个，HTTP/1.1下{@code max(1, warmConnections)}个并发</p>
+         *
+         * @param keepAliveInterval 保活间隔
+         * @return this
+         */
+        Builder keepAliveInterval(Duration keepAliveInterval);
+
+        /**
+         * 设置{@code build()}时等待预热完成的最长时间，默认5秒
+         * <p>超时或预热失败只记录日志，不影响客户端的构建</p>
+         *
+         * @param warmupTimeout 等待时间
+         * @return this
+         */
+        Builder warmupTimeout(Duration warmupTimeout);
+
+    }
+
+}
@@ -0,0 +1,214 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 服务地址策略
+ * <p>
+ * 模型和任务的请求地址都以{@code https://dashscope.aliyuncs.com}为根地址，配置后改写到列表中的某一个根地址：
+ * 每个根地址按指数加权移动平均(EWMA)统计收到应答头的耗时和错误率，请求路由到健康且耗时最低的根地址；
+ * 错误率超过{@code maxErrorRate}的根地址在{@code cooldown}内不再使用，冷却结束后先放行一个探测请求，成功后才恢复路由；
+ * 超过{@code probeInterval}没有被使用的根地址会被重新探测一次。
+ * 所有根地址都不健康时，路由到最早恢复的根地址。
+ * </p>
+ * <p>
+ * 错误包括传输失败、超时、{@code 5xx}和{@code 429}应答；
+ * 异步任务的轮询和取消始终发往提交任务的根地址。
+ * </p>
+ *
+ * @since 1.2.2
+ */
+public final class EndpointPolicy {
+
+    private final List<URI> endpoints;
+    private final double alpha;
+    private final double maxErrorRate;
+    private final Duration cooldown;
+    private final Duration probeInterval;
+
+    private EndpointPolicy(Builder builder) {
+        this.endpoints = List.copyOf(builder.endpoints);
+        this.alpha = builder.alpha;
+        this.maxErrorRate = builder.maxErrorRate;
+        this.cooldown = builder.cooldown;
+        this.probeInterval = builder.probeInterval;
+    }
+
+    /**
+     * 获取根地址列表
+     *
+     * @return 根地址列表，耗时相同时靠前者优先
+     */
+    public List<URI> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 获取EWMA的平滑系数
+     *
+     * @return 平滑系数，取值(0,1]，越大越偏重最近的请求
+     */
+    public double alpha() {
+        return alpha;
+    }
+
+    /**
+     * 获取健康根地址的错误率上限
+     *
+     * @return 错误率上限
+     */
+    public double maxErrorRate() {
+        return maxErrorRate;
+    }
+
+    /**
+     * 获取不健康根地址的冷却时间
+     *
+     * @return 冷却时间
+     */
+    public Duration cooldown() {
+        return cooldown;
+    }
+
+    /**
+     * 获取重新探测闲置根地址的间隔
+     *
+     * @return 探测间隔
+     */
+    public Duration probeInterval() {
+        return probeInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointPolicy[endpoints=%s, alpha=%s, maxErrorRate=%s, cooldown=%s, probeInterval=%s]".formatted(
+                endpoints,
+                alpha,
+                maxErrorRate,
+                cooldown,
+                probeInterval
+        );
+    }
+
+    /**
+     * 只有一个根地址的服务地址策略
+     *
+     * @param endpoint 根地址
+     * @return 服务地址策略
+     */
+    public static EndpointPolicy of(URI endpoint) {
+        return newBuilder().endpoint(endpoint).build();
+    }
+
+    /**
+     * 构建服务地址策略
+     *
+     * @return 构建器
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 服务地址策略构建器
+     */
+    public static class Builder {
+
+        private final List<URI> endpoints = new ArrayList<>();
+        private double alpha = 0.2;
+        private double maxErrorRate = 0.5;
+        private Duration cooldown = Duration.ofSeconds(10);
+        private Duration probeInterval = Duration.ofSeconds(30);
+
+        /**
+         * 添加根地址
+         *
+         * @param endpoint 根地址，例如{@code https://dashscope-intl.aliyuncs.com}
+         * @return this
+         */
+        public Builder endpoint(URI endpoint) {
+            if (null == requireNonNull(endpoint).getScheme() || null == endpoint.getRawAuthority()) {
+                throw new IllegalArgumentException("endpoint must be an absolute URI");
+            }
+            this.endpoints.add(endpoint);
+            return this;
+        }
+
+        /**
+         * 设置EWMA的平滑系数，默认0.2
+         *
+         * @param alpha 平滑系数，取值(0,1]
+         * @return this
+         */
+        public Builder alpha(double alpha) {
+            if (alpha <= 0 || alpha > 1) {
+                throw new IllegalArgumentException("alpha must be between 0 and 1");
+            }
+            this.alpha = alpha;
+            return this;
+        }
+
+        /**
+         * 设置健康根地址的错误率上限，默认0.5
+         *
+         * @param maxErrorRate 错误率上限，取值(0,1)
+         * @return this
+         */
+        public Builder maxErrorRate(double maxErrorRate) {
+            if (maxErrorRate <= 0 || maxErrorRate >= 1) {
+                throw new IllegalArgumentException("maxErrorRate must be between 0 and 1");
+            }
+            this.maxErrorRate = maxErrorRate;
+            return this;
+        }
+
+        /**
+         * 设置不健康根地址的冷却时间，默认10秒
+         * <p>冷却结束后只放行一个探测请求，探测失败再冷却一轮</p>
+         *
+         * @param cooldown 冷却时间
+         * @return this
+         */
+        public Builder cooldown(Duration cooldown) {
+            if (requireNonNull(cooldown).isNegative()) {
+                throw new IllegalArgumentException("cooldown must not be negative");
+            }
+            this.cooldown = cooldown;
+            return this;
+        }
+
+        /**
+         * 设置重新探测闲置根地址的间隔，默认30秒
+         * <p>耗时较高的根地址长时间得不到请求，其耗时统计会过时，到期后放行一个请求重新测量</p>
+         *
+         * @param probeInterval 探测间隔
+         * @return this
+         */
+        public Builder probeInterval(Duration probeInterval) {
+            if (requireNonNull(probeInterval).isNegative() || probeInterval.isZero()) {
+                throw new IllegalArgumentException("probeInterval must be positive");
+            }
+            this.probeInterval = probeInterval;
+            return this;
+        }
+
+        /**
+         * 构建
+         *
+         * @return 服务地址策略
+         */
+        public EndpointPolicy build() {
+            if (endpoints.isEmpty()) {
+                throw new IllegalArgumentException("at least one endpoint is required");
+            }
+            return new EndpointPolicy(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,196 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 对冲策略
+ * <p>
+ * 请求在一段时间内没有完成时，再发出一个相同的请求，取先成功完成者，取消另一个。
+ * 等待时间取该模型近期请求耗时的{@code percentile}分位，因此只有落在长尾上的请求才会被对冲；
+ * 对冲请求的数量不超过请求总数的{@code maxHedgeRatio}，避免费用成倍增加。
+ * </p>
+ * <p>被取消的请求可能已经在服务端产生了消耗</p>
+ *
+ * @since 1.2.2
+ */
+public final class HedgePolicy {
+
+    private final double percentile;
+    private final Duration minDelay;
+    private final double maxHedgeRatio;
+    private final int window;
+    private final int minSamples;
+
+    private HedgePolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.minDelay = builder.minDelay;
+        this.maxHedgeRatio = builder.maxHedgeRatio;
+        this.window = builder.window;
+        this.minSamples = builder.minSamples;
+    }
+
+    /**
+     * 获取对冲等待时间所取的分位
+     *
+     * @return 分位，取值(0,100)
+     */
+    public double percentile() {
+        return percentile;
+    }
+
+    /**
+     * 获取对冲等待时间的下限
+     *
+     * @return 对冲等待时间的下限
+     */
+    public Duration minDelay() {
+        return minDelay;
+    }
+
+    /**
+     * 获取对冲请求占请求总数的比例上限
+     *
+     * @return 比例上限
+     */
+    public double maxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+    /**
+     * 获取统计耗时的样本窗口大小
+     *
+     * @return 最近的请求数
+     */
+    public int window() {
+        return window;
+    }
+
+    /**
+     * 获取开始对冲前需要的最少样本数
+     *
+     * @return 最少样本数
+     */
+    public int minSamples() {
+        return minSamples;
+    }
+
+    @Override
+    public String toString() {
+        return "HedgePolicy[percentile=%s, minDelay=%s, maxHedgeRatio=%s, window=%s, minSamples=%s]".formatted(
+                percentile,
+                minDelay,
+                maxHedgeRatio,
+                window,
+                minSamples
+        );
+    }
+
+    /**
+     * 构建对冲策略
+     *
+     * @return 构建器
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 对冲策略构建器
+     */
+    public static class Builder {
+
+        private double percentile = 95;
+        private Duration minDelay = Duration.ofMillis(100);
+        private double maxHedgeRatio = 0.05;
+        private int window = 512;
+        private int minSamples = 32;
+
+        /**
+         * 设置对冲等待时间所取的分位，默认95
+         *
+         * @param percentile 分位，取值(0,100)
+         * @return this
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 100) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * 设置对冲等待时间的下限，默认100毫秒
+         *
+         * @param minDelay 对冲等待时间的下限
+         * @return this
+         */
+        public Builder minDelay(Duration minDelay) {
+            if (requireNonNull(minDelay).isNegative()) {
+                throw new IllegalArgumentException("minDelay must not be negative");
+            }
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        /**
+         * 设置对冲请求占请求总数的比例上限，默认0.05
+         * <p>每个请求积攒相应比例的对冲额度，额度用完后不再对冲，直到后续请求重新积攒</p>
+         *
+         * @param maxHedgeRatio 比例上限，取值(0,1]
+         * @return this
+         */
+        public Builder maxHedgeRatio(double maxHedgeRatio) {
+            if (maxHedgeRatio <= 0 || maxHedgeRatio > 1) {
+                throw new IllegalArgumentException("maxHedgeRatio must be between 0 and 1");
+            }
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        /**
+         * 设置统计耗时的样本窗口大小，默认512
+         *
+         * @param window 最近的请求数
+         * @return this
+         */
+        public Builder window(int window) {
+            if (window <= 0) {
+                throw new IllegalArgumentException("window must be positive");
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * 设置开始对冲前需要的最少样本数，默认32
+         * <p>样本不足时无法估计长尾，不对冲</p>
+         *
+         * @param minSamples 最少样本数
+         * @return this
+         */
+        public Builder minSamples(int minSamples) {
+            if (minSamples <= 0) {
+                throw new IllegalArgumentException("minSamples must be positive");
+            }
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * 构建
+         *
+         * @return 对冲策略
+         */
+        public HedgePolicy build() {
+            if (minSamples > window) {
+                throw new IllegalArgumentException("minSamples must not be greater than window");
+            }
+            return new HedgePolicy(this);
+        }
+
+    }
+
+}
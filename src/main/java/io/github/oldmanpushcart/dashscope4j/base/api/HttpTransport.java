@@ -0,0 +1,132 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.util.TransformFlowProcessor;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.InProcessHttpTransport;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * HTTP传输
+ * <p>
+ * 客户端的所有请求都通过传输发出，默认使用JDK的{@link HttpClient}。
+ * 请求体通过{@link HttpRequest#bodyPublisher()}以{@link ByteBuffer}发布，应答体交给{@link HttpResponse.BodyHandler}创建的订阅者以{@link ByteBuffer}接收：
+ * </p>
+ * <ul>
+ *     <li>缓冲发送：异步和任务请求使用缓冲应答体的订阅者，应答体完整接收后才完成</li>
+ *     <li>流式发送：流式请求使用发布应答体的订阅者，收到应答头即完成，应答体随后以SSE事件流到达</li>
+ * </ul>
+ * <p>
+ * 实现必须遵循{@link HttpClient#sendAsync(HttpRequest, HttpResponse.BodyHandler)}的约定：收到应答头后调用处理器创建订阅者，
+ * 把应答体下发给订阅者，以{@link HttpResponse.BodySubscriber#getBody()}完成应答；
+ * 在{@link HttpRequest#timeout()}内没有收到应答头时以{@link java.net.http.HttpTimeoutException}失败；
+ * 返回的应答被取消时尽量停止交互。
+ * </p>
+ *
+ * @since 1.2.2
+ */
+@FunctionalInterface
+public interface HttpTransport {
+
+    /**
+     * 发送请求
+     *
+     * @param request HTTP请求
+     * @param handler 应答体处理器
+     * @param <T>     应答体类型
+     * @return HTTP应答
+     */
+    <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler);
+
+    /**
+     * 基于JDK的HTTP客户端
+     *
+     * @param client HTTP客户端
+     * @return 传输
+     */
+    static HttpTransport ofHttpClient(HttpClient client) {
+        return client::sendAsync;
+    }
+
+    /**
+     * 进程内传输
+     * <p>请求不经过网络，直接交给处理器应答，用于压测和基准测试整个客户端而不受网络和服务端的影响</p>
+     *
+     * @param handler 处理器
+     * @return 传输
+     */
+    static HttpTransport inProcess(Handler handler) {
+        return new InProcessHttpTransport(handler);
+    }
+
+    /**
+     * 进程内处理器
+     */
+    @FunctionalInterface
+    interface Handler {
+
+        /**
+         * 处理请求
+         * <p>在发出请求的线程上调用，不应阻塞；需要模拟延迟时返回稍后完成的应答</p>
+         *
+         * @param request HTTP请求
+         * @param body    完整的请求体(只读)
+         * @return 应答
+         */
+        CompletableFuture<Reply> handle(HttpRequest request, ByteBuffer body);
+
+    }
+
+    /**
+     * 进程内应答
+     *
+     * @param status  HTTP状态码
+     * @param headers 应答头
+     * @param body    应答体，每个元素是一次到达的数据
+     */
+    record Reply(int status, Map<String, List<String>> headers, Flow.Publisher<List<ByteBuffer>> body) {
+
+        /**
+         * 一次性到达的应答
+         *
+         * @param status      HTTP状态码
+         * @param contentType 内容类型
+         * @param body        应答体
+         * @return 应答
+         */
+        public static Reply ofString(int status, String contentType, String body) {
+            return ofChunks(status, contentType, List.of(body));
+        }
+
+        /**
+         * 分块到达的应答
+         * <p>每一块单独下发，可以用于模拟SSE事件流；应答体每次订阅都从头下发，同一个应答可以重复使用</p>
+         *
+         * @param status      HTTP状态码
+         * @param contentType 内容类型
+         * @param chunks      应答体分块
+         * @return 应答
+         */
+        public static Reply ofChunks(int status, String contentType, List<String> chunks) {
+            final var bytes = chunks.stream()
+                    .map(chunk -> chunk.getBytes(StandardCharsets.UTF_8))
+                    .toList();
+            return new Reply(
+                    status,
+                    Map.of("content-type", List.of(contentType)),
+                    subscriber -> TransformFlowProcessor
+                            .transform(HttpRequest.BodyPublishers.ofByteArrays(bytes), (ByteBuffer buffer) -> List.of(List.of(buffer)))
+                            .subscribe(subscriber)
+            );
+        }
+
+    }
+
+}
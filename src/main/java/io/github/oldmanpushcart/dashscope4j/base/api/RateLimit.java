@@ -0,0 +1,137 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+/**
+ * 限流配置
+ * <p>
+ * 作用于单个模型的准入控制：每秒请求数、同时进行中的请求数和每分钟令牌数，未设置的项不限制。
+ * 超出限制的请求在客户端内异步排队，不占用线程，直到获得许可或排队超时。
+ * </p>
+ *
+ * @since 1.2.2
+ */
+public final class RateLimit {
+
+    private final int requestsPerSecond;
+    private final int maxConcurrency;
+    private final int tokensPerMinute;
+
+    private RateLimit(Builder builder) {
+        this.requestsPerSecond = builder.requestsPerSecond;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.tokensPerMinute = builder.tokensPerMinute;
+    }
+
+    /**
+     * 获取每秒请求数
+     *
+     * @return 每秒请求数，0表示不限制
+     */
+    public int requestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * 获取最大进行中的请求数
+     *
+     * @return 最大进行中的请求数，0表示不限制
+     */
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * 获取每分钟令牌数
+     *
+     * @return 每分钟令牌数，0表示不限制
+     */
+    public int tokensPerMinute() {
+        return tokensPerMinute;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimit[requestsPerSecond=%s, maxConcurrency=%s, tokensPerMinute=%s]".formatted(
+                requestsPerSecond,
+                maxConcurrency,
+                tokensPerMinute
+        );
+    }
+
+    /**
+     * 构建限流配置
+     *
+     * @return 构建器
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 限流配置构建器
+     */
+    public static class Builder {
+
+        private int requestsPerSecond;
+        private int maxConcurrency;
+        private int tokensPerMinute;
+
+        /**
+         * 设置每秒请求数
+         * <p>按令牌桶发放，空闲期间最多积攒1秒的请求数用于突发</p>
+         *
+         * @param requestsPerSecond 每秒请求数
+         * @return this
+         */
+        public Builder requestsPerSecond(int requestsPerSecond) {
+            if (requestsPerSecond <= 0) {
+                throw new IllegalArgumentException("requestsPerSecond must be positive");
+            }
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        /**
+         * 设置最大进行中的请求数
+         * <p>流式请求在事件流结束或被取消前都算作进行中</p>
+         *
+         * @param maxConcurrency 最大进行中的请求数
+         * @return this
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency <= 0) {
+                throw new IllegalArgumentException("maxConcurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * 设置每分钟令牌数
+         * <p>
+         * 请求发出前无法得知消耗，因此只要预算未耗尽即可发出，
+         * 应答中{@link ApiResponse#usage()}报告的消耗在请求结束后从预算中扣除，透支部分由后续的请求等待偿还
+         * </p>
+         *
+         * @param tokensPerMinute 每分钟令牌数
+         * @return this
+         */
+        public Builder tokensPerMinute(int tokensPerMinute) {
+            if (tokensPerMinute <= 0) {
+                throw new IllegalArgumentException("tokensPerMinute must be positive");
+            }
+            this.tokensPerMinute = tokensPerMinute;
+            return this;
+        }
+
+        /**
+         * 构建
+         *
+         * @return 限流配置
+         */
+        public RateLimit build() {
+            return new RateLimit(this);
+        }
+
+    }
+
+}
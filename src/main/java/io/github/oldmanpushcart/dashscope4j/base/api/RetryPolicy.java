@@ -0,0 +1,259 @@
+package io.github.oldmanpushcart.dashscope4j.base.api;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 重试策略
+ * <p>
+ * 失败的请求按指数退避加随机抖动等待后重试，服务端通过{@code Retry-After}要求的等待时间优先；
+ * 等待挂在调度器上，不占用线程。
+ * </p>
+ * <ul>
+ *     <li>异步请求：失败可重试时整体重试</li>
+ *     <li>流式请求：只在第一个事件到达之前的失败才重试，已经下发过事件的流不会重试</li>
+ *     <li>任务请求：提交任务不是幂等的，只在确定服务端没有受理(限流或连接失败)时重试</li>
+ * </ul>
+ *
+ * @since 1.2.2
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double multiplier;
+    private final double jitter;
+    private final Predicate<Throwable> retryOn;
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryOn = builder.retryOn;
+    }
+
+    /**
+     * 获取最大尝试次数
+     *
+     * @return 最大尝试次数(含首次)
+     */
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * 判断失败是否可重试
+     *
+     * @param ex 失败原因
+     * @return TRUE | FALSE
+     */
+    public boolean isRetryable(Throwable ex) {
+        return retryOn.test(unwrap(ex));
+    }
+
+    /**
+     * 计算第{@code attempt}次尝试失败后的等待时间
+     * <p>退避时间按倍数增长且不超过上限，再随机缩短至多{@code jitter}比例；服务端要求的等待时间更长时以服务端为准</p>
+     *
+     * @param attempt 已尝试次数，从1开始
+     * @param ex      失败原因
+     * @return 等待时间
+     */
+    public Duration backoff(int attempt, Throwable ex) {
+        final var exponential = initialBackoff.toNanos() * Math.pow(multiplier, attempt - 1);
+        final var capped = Math.min(exponential, maxBackoff.toNanos());
+        final var jittered = capped * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+        final var backoff = Duration.ofNanos((long) jittered);
+        return unwrap(ex) instanceof ApiException apiEx && null != apiEx.retryAfter() && apiEx.retryAfter().compareTo(backoff) > 0
+                ? apiEx.retryAfter()
+                : backoff;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy[maxAttempts=%s, initialBackoff=%s, maxBackoff=%s, multiplier=%s, jitter=%s]".formatted(
+                maxAttempts,
+                initialBackoff,
+                maxBackoff,
+                multiplier,
+                jitter
+        );
+    }
+
+    /**
+     * 默认的可重试判断
+     * <ul>
+     *     <li>{@link ApiException}：HTTP状态为429或5xx(501除外)，或结果编码为限流({@code Throttling*})、内部错误({@code InternalError*})</li>
+     *     <li>{@link IOException}：连接失败、连接被重置等传输错误</li>
+     * </ul>
+     * <p>{@link ApiTimeoutException}表示请求已耗尽自己的超时预算，不重试</p>
+     *
+     * @param ex 失败原因
+     * @return TRUE | FALSE
+     */
+    public static boolean isRetryableByDefault(Throwable ex) {
+        final var cause = unwrap(ex);
+        if (cause instanceof ApiException apiEx) {
+            final var status = apiEx.status();
+            if (status == 429 || status >= 500 && status != 501) {
+                return true;
+            }
+            final var code = null == apiEx.ret() ? null : apiEx.ret().code();
+            return null != code && (code.startsWith("Throttling") || code.startsWith("InternalError"));
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * 判断请求是否确定没有被服务端受理
+     * <p>用于非幂等的请求：只有被限流或连接未建立时，重试才不会重复执行</p>
+     *
+     * @param ex 失败原因
+     * @return TRUE | FALSE
+     */
+    public static boolean isRejected(Throwable ex) {
+        final var cause = unwrap(ex);
+        if (cause instanceof ApiException apiEx) {
+            final var code = null == apiEx.ret() ? null : apiEx.ret().code();
+            return apiEx.status() == 429 || null != code && code.startsWith("Throttling");
+        }
+        return cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException;
+    }
+
+    // 剥离异步执行的包装异常
+    private static Throwable unwrap(Throwable ex) {
+        var cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && null != cause.getCause()) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 构建重试策略
+     *
+     * @return 构建器
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 重试策略构建器
+     */
+    public static class Builder {
+
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private double multiplier = 2.0;
+        private double jitter = 0.5;
+        private Predicate<Throwable> retryOn = RetryPolicy::isRetryableByDefault;
+
+        /**
+         * 设置最大尝试次数(含首次)，默认3
+         *
+         * @param maxAttempts 最大尝试次数
+         * @return this
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * 设置首次退避时间，默认500毫秒
+         *
+         * @param initialBackoff 首次退避时间
+         * @return this
+         */
+        public Builder initialBackoff(Duration initialBackoff) {
+            if (requireNonNull(initialBackoff).isNegative()) {
+                throw new IllegalArgumentException("initialBackoff must not be negative");
+            }
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        /**
+         * 设置退避时间上限，默认10秒
+         * <p>只限制退避时间，服务端通过{@code Retry-After}要求的等待时间不受此限制</p>
+         *
+         * @param maxBackoff 退避时间上限
+         * @return this
+         */
+        public Builder maxBackoff(Duration maxBackoff) {
+            if (requireNonNull(maxBackoff).isNegative()) {
+                throw new IllegalArgumentException("maxBackoff must not be negative");
+            }
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * 设置退避倍数，默认2.0
+         *
+         * @param multiplier 退避倍数
+         * @return this
+         */
+        public Builder multiplier(double multiplier) {
+            if (multiplier < 1.0) {
+                throw new IllegalArgumentException("multiplier must be greater than or equal to 1");
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * 设置随机抖动比例，默认0.5
+         * <p>退避时间随机缩短至多此比例，避免大量请求同时重试</p>
+         *
+         * @param jitter 随机抖动比例，取值[0,1]
+         * @return this
+         */
+        public Builder jitter(double jitter) {
+            if (jitter < 0.0 || jitter > 1.0) {
+                throw new IllegalArgumentException("jitter must be between 0 and 1");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * 设置可重试判断，默认为{@link #isRetryableByDefault(Throwable)}
+         * <p>任务请求在此基础上还要求{@link #isRejected(Throwable)}</p>
+         *
+         * @param retryOn 可重试判断，参数为剥离包装后的失败原因
+         * @return this
+         */
+        public Builder retryOn(Predicate<Throwable> retryOn) {
+            this.retryOn = requireNonNull(retryOn);
+            return this;
+        }
+
+        /**
+         * 构建
+         *
+         * @return 重试策略
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+
+    }
+
+}
@@ -3,12 +3,14 @@ package io.github.oldmanpushcart.dashscope4j.base.task;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
 
 import java.time.Duration;
 import java.util.Date;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * 任务
@@ -126,6 +128,7 @@ public record Task(String id, Status status, Metrics metrics, Timing timing) {
 
     /**
      * 任务等待策略实例
+     * <p>所有策略都基于全局共享的延时调度器实现，等待期间不会占用任何线程</p>
      */
     public interface WaitStrategies {
 
@@ -136,58 +139,158 @@ public record Task(String id, Status status, Metrics metrics, Timing timing) {
          * @return 等待策略
          */
         static WaitStrategy perpetual(Duration interval) {
-            return task -> {
-                final var future = new CompletableFuture<>();
-                final var lock = new ReentrantLock();
-                final var condition = lock.newCondition();
-                lock.lock();
-                try {
-                    if (!condition.await(interval.toMillis(), TimeUnit.MILLISECONDS)) {
-                        future.complete(null);
-                    }
-                } catch (InterruptedException e) {
-                    future.cancel(true);
-                } finally {
-                    lock.unlock();
-                }
-                return future;
-            };
+            requireNonNull(interval);
+            return task -> DelayScheduler.delay(interval);
         }
 
         /**
          * 超时等待策略
+         * <p>任务从提交开始超过超时时间仍未完成，则取消本轮等待，任务将被取消</p>
          *
          * @param interval 间隔
          * @param timeout  超时
          * @return 等待策略
          */
         static WaitStrategy timeout(Duration interval, Duration timeout) {
+            requireNonNull(interval);
+            requireNonNull(timeout);
             return task -> {
-                final var future = new CompletableFuture<>();
-                final var lock = new ReentrantLock();
-                final var condition = lock.newCondition();
-                lock.lock();
-                try {
-
-                    // 检查任务是否已经过了超时时间限制
-                    if (System.currentTimeMillis() - task.timing().submit().getTime() > timeout.toMillis()) {
-                        future.cancel(true);
-                    }
-
-                    // 等待间隔时间后，完成本轮等待策略
-                    else if (!condition.await(interval.toMillis(), TimeUnit.MILLISECONDS)) {
-                        future.complete(null);
-                    }
-
-                } catch (InterruptedException e) {
+
+                // 检查任务是否已经过了超时时间限制
+                if (elapsed(task.timing().submit()).compareTo(timeout) > 0) {
+                    final var future = new CompletableFuture<Void>();
                     future.cancel(true);
-                } finally {
-                    lock.unlock();
+                    return future;
                 }
-                return future;
+
+                // 等待间隔时间后，完成本轮等待策略
+                return DelayScheduler.delay(interval);
+
+            };
+        }
+
+        /**
+         * 指数退避等待策略
+         * <p>
+         * 等待间隔从{@code initial}开始按{@code multiplier}倍增长，直至{@code max}。
+         * 策略本身不保存状态，间隔根据任务已提交的时长推算：每轮等待{@code 已提交时长 * (multiplier - 1)}，
+         * 这样每轮结束时的总时长恰好是上一轮的{@code multiplier}倍，同一个策略实例可以被多个任务共享。
+         * </p>
+         * <p>
+         * 每轮的间隔会随机缩短至多{@code jitter}比例，避免大量同时提交的任务在同一时刻集中轮询。
+         * </p>
+         *
+         * @param initial    初始间隔
+         * @param max        最大间隔，不能小于初始间隔
+         * @param multiplier 增长倍数，必须大于1
+         * @param jitter     抖动比例，取值范围[0,1]
+         * @return 等待策略
+         * @since 1.2.2
+         */
+        static WaitStrategy backoff(Duration initial, Duration max, double multiplier, double jitter) {
+            requireNonNull(initial);
+            requireNonNull(max);
+            if (initial.compareTo(max) > 0) {
+                throw new IllegalArgumentException("initial must not be greater than max");
+            }
+            if (multiplier <= 1) {
+                throw new IllegalArgumentException("multiplier must be greater than 1");
+            }
+            if (jitter < 0 || jitter > 1) {
+                throw new IllegalArgumentException("jitter must be in [0,1]");
+            }
+            return task -> {
+                final var elapsed = elapsed(task.timing().submit());
+                final var interval = clamp(multiply(elapsed, multiplier - 1), initial, max);
+                return DelayScheduler.delay(jitter(interval, jitter));
             };
         }
 
+        /**
+         * 指数退避等待策略
+         * <p>间隔按2倍增长，随机抖动比例为0.2</p>
+         *
+         * @param initial 初始间隔
+         * @param max     最大间隔
+         * @return 等待策略
+         * @see #backoff(Duration, Duration, double, double)
+         * @since 1.2.2
+         */
+        static WaitStrategy backoff(Duration initial, Duration max) {
+            return backoff(initial, max, 2.0d, 0.2d);
+        }
+
+        /**
+         * 进度感知等待策略
+         * <p>
+         * 根据{@link Metrics}中已完成的子任务数和任务运行时长估算剩余时间，在预计完成时再进行轮询；
+         * 尚无进度信息时(排队中、或还没有子任务完成)，等待已运行时长的一半，间隔逐步拉长。
+         * 最终间隔会被限制在{@code [min, max]}之间。
+         * </p>
+         *
+         * @param min 最小间隔
+         * @param max 最大间隔，不能小于最小间隔
+         * @return 等待策略
+         * @since 1.2.2
+         */
+        static WaitStrategy progress(Duration min, Duration max) {
+            requireNonNull(min);
+            requireNonNull(max);
+            if (min.compareTo(max) > 0) {
+                throw new IllegalArgumentException("min must not be greater than max");
+            }
+            return task -> {
+
+                // 任务开始运行的时间，未被调度时以提交时间为准
+                final var timing = task.timing();
+                final var elapsed = elapsed(null != timing.scheduled() ? timing.scheduled() : timing.submit());
+
+                // 有进度：按已完成子任务的平均耗时估算剩余时间
+                final var metrics = task.metrics();
+                final Duration interval;
+                if (null != metrics && metrics.total() > 0 && metrics.succeeded() + metrics.failed() > 0) {
+                    final var done = metrics.succeeded() + metrics.failed();
+                    final var remaining = Math.max(0, metrics.total() - done);
+                    interval = multiply(elapsed, (double) remaining / done);
+                }
+
+                // 无进度：等待已运行时长的一半
+                else {
+                    interval = multiply(elapsed, 0.5d);
+                }
+
+                return DelayScheduler.delay(clamp(interval, min, max));
+            };
+        }
+
+        // 计算从指定时间至今的时长，时间缺失或时钟偏差时视为0
+        private static Duration elapsed(Date since) {
+            if (null == since) {
+                return Duration.ZERO;
+            }
+            final var millis = System.currentTimeMillis() - since.getTime();
+            return millis > 0 ? Duration.ofMillis(millis) : Duration.ZERO;
+        }
+
+        private static Duration multiply(Duration duration, double factor) {
+            return Duration.ofNanos((long) Math.min(Long.MAX_VALUE, duration.toNanos() * factor));
+        }
+
+        private static Duration clamp(Duration duration, Duration min, Duration max) {
+            if (duration.compareTo(min) < 0) {
+                return min;
+            }
+            if (duration.compareTo(max) > 0) {
+                return max;
+            }
+            return duration;
+        }
+
+        // 随机缩短至多jitter比例
+        private static Duration jitter(Duration duration, double jitter) {
+            return multiply(duration, 1 - jitter * ThreadLocalRandom.current().nextDouble());
+        }
+
     }
 
     /**
@@ -4,6 +4,7 @@ import io.github.oldmanpushcart.dashscope4j.base.algo.AlgoRequest;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
 import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunction;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionRegistry;
 import io.github.oldmanpushcart.internal.dashscope4j.chat.ChatRequestBuilderImpl;
 
 import java.util.List;
@@ -53,6 +54,16 @@ public interface ChatRequest extends AlgoRequest<ChatResponse> {
          */
         Builder functions(List<ChatFunction<?,?>> functions);
 
+        /**
+         * 添加函数注册表
+         * <p>注册表中的函数已预先解析，多个请求共享同一个注册表时不会重复解析</p>
+         *
+         * @param registry 函数注册表
+         * @return 构建器
+         * @since 1.2.2
+         */
+        Builder functions(ChatFunctionRegistry registry);
+
         /**
          * 添加消息
          *
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.github.oldmanpushcart.dashscope4j.base.algo.AlgoResponse;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+import io.github.oldmanpushcart.internal.dashscope4j.chat.ChatResponseAccumulator;
 
 import java.util.List;
 
@@ -12,6 +13,16 @@ import java.util.List;
  */
 public interface ChatResponse extends AlgoResponse<ChatResponse.Output> {
 
+    /**
+     * 增量应答累加器
+     *
+     * @return 累加器
+     * @since 1.2.2
+     */
+    static Accumulator newAccumulator() {
+        return new ChatResponseAccumulator();
+    }
+
     /**
      * 对话应答数据
      */
@@ -101,4 +112,35 @@ public interface ChatResponse extends AlgoResponse<ChatResponse.Output> {
 
     }
 
+    /**
+     * 增量应答累加器
+     * <p>
+     * 开启{@link ChatOptions#ENABLE_INCREMENTAL_OUTPUT}后，流式应答的每个事件只包含本次新增的内容。
+     * 累加器按选择分别把新增的文本追加到同一个缓冲区，按序号拼接工具调用的名称和参数片段，
+     * 结束标识、用量和唯一标识取最后一个事件的值。
+     * </p>
+     * <p>累加器不是线程安全的，应在同一个订阅者中按事件顺序累加</p>
+     *
+     * @since 1.2.2
+     */
+    interface Accumulator {
+
+        /**
+         * 累加一个增量应答
+         *
+         * @param response 增量应答
+         * @return this
+         */
+        Accumulator accept(ChatResponse response);
+
+        /**
+         * 获取累加后的完整应答
+         * <p>每次调用都会重新构建，事件流结束后调用一次即可</p>
+         *
+         * @return 完整应答，没有累加过应答时为{@code null}
+         */
+        ChatResponse result();
+
+    }
+
 }
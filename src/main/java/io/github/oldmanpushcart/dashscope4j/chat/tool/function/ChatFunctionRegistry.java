@@ -0,0 +1,51 @@
+package io.github.oldmanpushcart.dashscope4j.chat.tool.function;
+
+import io.github.oldmanpushcart.internal.dashscope4j.chat.FunctionToolRegistry;
+
+import java.util.List;
+
+/**
+ * 对话函数注册表
+ * <p>
+ * 注册表在创建时一次性完成函数的反射解析和参数json-schema生成，创建后不可变、线程安全，
+ * 可以被多个对话请求共享，避免每次构建请求都重新解析函数。
+ * </p>
+ *
+ * @since 1.2.2
+ */
+public interface ChatFunctionRegistry {
+
+    /**
+     * 创建对话函数注册表
+     *
+     * @param functions 函数
+     * @return 对话函数注册表
+     */
+    static ChatFunctionRegistry of(ChatFunction<?, ?>... functions) {
+        return of(List.of(functions));
+    }
+
+    /**
+     * 创建对话函数注册表
+     *
+     * @param functions 函数
+     * @return 对话函数注册表
+     */
+    static ChatFunctionRegistry of(List<ChatFunction<?, ?>> functions) {
+        return FunctionToolRegistry.of(functions);
+    }
+
+    /**
+     * @return 注册的函数
+     */
+    List<ChatFunction<?, ?>> functions();
+
+    /**
+     * 根据函数名称获取函数
+     *
+     * @param name 函数名称
+     * @return 函数，不存在时返回{@code null}
+     */
+    ChatFunction<?, ?> function(String name);
+
+}
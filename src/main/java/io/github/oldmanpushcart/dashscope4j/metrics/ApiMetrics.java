@@ -0,0 +1,237 @@
+package io.github.oldmanpushcart.dashscope4j.metrics;
+
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * API度量
+ * <p>
+ * 客户端在请求的各个阶段回调此接口，实现方决定如何汇总：可以使用内置的{@link SimpleApiMetrics}，
+ * 也可以转交给外部的度量注册表(如Micrometer、Prometheus)。
+ * </p>
+ * <p>
+ * 回调发生在请求的热路径上(流式请求的每个事件都会回调)，实现必须线程安全、不阻塞、不抛出异常；
+ * 所有方法默认不做任何事，只需实现关心的部分。只有算法请求(带有模型)会按模型回调，任务查询只回调{@link #taskPolled()}。
+ * </p>
+ *
+ * @since 1.2.2
+ */
+public interface ApiMetrics {
+
+    /**
+     * 不记录任何度量
+     */
+    ApiMetrics NONE = new ApiMetrics() {
+    };
+
+    /**
+     * 请求发出
+     *
+     * @param key       度量键
+     * @param bytesSent 请求体字节数，未知时为-1
+     */
+    default void requestStarted(Key key, long bytesSent) {
+
+    }
+
+    /**
+     * 请求结束
+     * <p>异步请求在收到应答后结束，流式请求在事件流结束或被取消后结束，任务请求在提交后结束</p>
+     *
+     * @param key          度量键
+     * @param latencyNanos 从发出到结束的耗时(纳秒)
+     * @param ex           失败原因，成功时为{@code null}
+     */
+    default void requestCompleted(Key key, long latencyNanos, Throwable ex) {
+
+    }
+
+    /**
+     * 收到应答头
+     *
+     * @param key            度量键
+     * @param firstByteNanos 从发出到收到应答头的耗时(纳秒)
+     */
+    default void firstByte(Key key, long firstByteNanos) {
+
+    }
+
+    /**
+     * 收到流式应答的第一个事件
+     *
+     * @param key       度量键
+     * @param ttftNanos 从发出到收到第一个事件的耗时(纳秒)
+     */
+    default void firstEvent(Key key, long ttftNanos) {
+
+    }
+
+    /**
+     * 收到流式应答的后续事件
+     *
+     * @param key      度量键
+     * @param gapNanos 与上一个事件的间隔(纳秒)
+     */
+    default void nextEvent(Key key, long gapNanos) {
+
+    }
+
+    /**
+     * 收到应答数据
+     *
+     * @param key   度量键
+     * @param bytes 字节数
+     */
+    default void bytesReceived(Key key, long bytes) {
+
+    }
+
+    /**
+     * 请求的用量
+     * <p>流式请求为最后一个事件报告的累计用量</p>
+     *
+     * @param key   度量键
+     * @param usage 用量
+     */
+    default void usage(Key key, Usage usage) {
+
+    }
+
+    /**
+     * 流式请求的事件流正常结束
+     * <p>在{@link #requestCompleted(Key, long, Throwable)}之前回调；失败或被取消的事件流不回调</p>
+     *
+     * @param timing 耗时汇总
+     */
+    default void flowCompleted(FlowTiming timing) {
+
+    }
+
+    /**
+     * 查询了一次任务状态
+     */
+    default void taskPolled() {
+
+    }
+
+    /**
+     * 组合多个度量，依次回调
+     *
+     * @param metrics 度量
+     * @return 组合后的度量
+     */
+    static ApiMetrics compose(ApiMetrics... metrics) {
+        final var delegates = List.of(metrics);
+        return new ApiMetrics() {
+
+            @Override
+            public void requestStarted(Key key, long bytesSent) {
+                delegates.forEach(metrics -> metrics.requestStarted(key, bytesSent));
+            }
+
+            @Override
+            public void requestCompleted(Key key, long latencyNanos, Throwable ex) {
+                delegates.forEach(metrics -> metrics.requestCompleted(key, latencyNanos, ex));
+            }
+
+            @Override
+            public void firstByte(Key key, long firstByteNanos) {
+                delegates.forEach(metrics -> metrics.firstByte(key, firstByteNanos));
+            }
+
+            @Override
+            public void firstEvent(Key key, long ttftNanos) {
+                delegates.forEach(metrics -> metrics.firstEvent(key, ttftNanos));
+            }
+
+            @Override
+            public void nextEvent(Key key, long gapNanos) {
+                delegates.forEach(metrics -> metrics.nextEvent(key, gapNanos));
+            }
+
+            @Override
+            public void bytesReceived(Key key, long bytes) {
+                delegates.forEach(metrics -> metrics.bytesReceived(key, bytes));
+            }
+
+            @Override
+            public void usage(Key key, Usage usage) {
+                delegates.forEach(metrics -> metrics.usage(key, usage));
+            }
+
+            @Override
+            public void flowCompleted(FlowTiming timing) {
+                delegates.forEach(metrics -> metrics.flowCompleted(timing));
+            }
+
+            @Override
+            public void taskPolled() {
+                delegates.forEach(ApiMetrics::taskPolled);
+            }
+
+        };
+    }
+
+    /**
+     * 获取失败的错误编码
+     * <ul>
+     *     <li>{@link ApiException}：应答结果编码{@code Ret.code()}</li>
+     *     <li>{@link ApiTimeoutException}：{@code Timeout.}加超时阶段，如{@code Timeout.FIRST_BYTE}</li>
+     *     <li>其他：异常的类名</li>
+     * </ul>
+     *
+     * @param ex 失败原因
+     * @return 错误编码
+     */
+    static String errorCode(Throwable ex) {
+        var cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && null != cause.getCause()) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof ApiException apiEx && null != apiEx.ret()) {
+            return apiEx.ret().code();
+        }
+        if (cause instanceof ApiTimeoutException timeoutEx) {
+            return "Timeout.%s".formatted(timeoutEx.phase());
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    /**
+     * 请求方式
+     */
+    enum Mode {
+
+        /**
+         * 异步
+         */
+        ASYNC,
+
+        /**
+         * 流式
+         */
+        FLOW,
+
+        /**
+         * 任务
+         */
+        TASK
+
+    }
+
+    /**
+     * 度量键
+     *
+     * @param model 模型名称
+     * @param mode  请求方式
+     */
+    record Key(String model, Mode mode) {
+
+    }
+
+}
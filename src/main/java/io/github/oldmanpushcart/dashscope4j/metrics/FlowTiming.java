@@ -0,0 +1,89 @@
+package io.github.oldmanpushcart.dashscope4j.metrics;
+
+import io.github.oldmanpushcart.dashscope4j.Usage;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式请求的耗时汇总
+ * <p>
+ * 时刻均为{@link System#nanoTime()}的取值，只能相互比较；尚未发生的时刻为{@code 0}。
+ * 一次对话如果发生了工具调用，每一轮流式请求都会分别汇总。
+ * </p>
+ *
+ * @param key             度量键
+ * @param uuid            最后一个应答的唯一标识，没有应答时为{@code null}
+ * @param sendNanos       发出请求的时刻
+ * @param firstByteNanos  收到应答头的时刻
+ * @param firstEventNanos 收到第一个事件的时刻
+ * @param lastEventNanos  收到最后一个事件的时刻
+ * @param completeNanos   事件流结束的时刻
+ * @param events          收到的事件数
+ * @param maxGapNanos     相邻事件的最大间隔(纳秒)
+ * @param usage           最后一个应答报告的累计用量，未知时为{@code null}
+ * @since 1.2.2
+ */
+public record FlowTiming(
+        ApiMetrics.Key key,
+        String uuid,
+        long sendNanos,
+        long firstByteNanos,
+        long firstEventNanos,
+        long lastEventNanos,
+        long completeNanos,
+        int events,
+        long maxGapNanos,
+        Usage usage
+) {
+
+    /**
+     * 输出用量的项目名称
+     */
+    public static final String OUTPUT_TOKENS = "output_tokens";
+
+    /**
+     * @return 首字节耗时：从发出请求到收到应答头，未收到时为{@code null}
+     */
+    public Duration timeToFirstByte() {
+        return since(firstByteNanos);
+    }
+
+    /**
+     * @return 首个事件耗时(TTFT)：从发出请求到收到第一个事件，未收到时为{@code null}
+     */
+    public Duration timeToFirstToken() {
+        return since(firstEventNanos);
+    }
+
+    /**
+     * @return 总耗时：从发出请求到事件流结束
+     */
+    public Duration duration() {
+        return since(completeNanos);
+    }
+
+    /**
+     * @return 输出用量，用量中没有{@value #OUTPUT_TOKENS}时为0
+     */
+    public int outputTokens() {
+        return null == usage ? 0 : usage.total(item -> OUTPUT_TOKENS.equals(item.name()));
+    }
+
+    /**
+     * 每秒输出用量
+     * <p>按第一个事件到最后一个事件之间的生成阶段计算，只有一个事件时按总耗时计算</p>
+     *
+     * @return 每秒输出用量，无法计算时为0
+     */
+    public double outputTokensPerSecond() {
+        final var tokens = outputTokens();
+        final var nanos = events > 1 ? lastEventNanos - firstEventNanos : completeNanos - sendNanos;
+        return tokens <= 0 || nanos <= 0 ? 0.0 : tokens * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    private Duration since(long nanos) {
+        return 0 == nanos ? null : Duration.ofNanos(nanos - sendNanos);
+    }
+
+}
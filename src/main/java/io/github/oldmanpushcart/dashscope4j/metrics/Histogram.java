@@ -0,0 +1,159 @@
+package io.github.oldmanpushcart.dashscope4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 直方图
+ * <p>
+ * 对数-线性分桶的无锁直方图：按值的最高位分成若干段，每段再线性分成{@value #SUB_BUCKETS}个子桶，
+ * 小于{@value #SUB_BUCKETS}的值精确记录，其余值的相对误差不超过1/{@value #SUB_BUCKETS}。
+ * 记录只是对一个计数槽的原子自增，不分配对象、不加锁，可以在热路径上并发调用。
+ * </p>
+ * <p>读取的分位值是并发记录过程中的近似快照</p>
+ *
+ * @since 1.2.2
+ */
+public final class Histogram {
+
+    // 子桶数量的位数
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * 每段的子桶数量
+     */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // 段数：第0段为线性段，其余每段覆盖[2^e, 2^(e+1))
+    private static final int BUCKETS = Long.SIZE - SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值
+     *
+     * @param value 值，负数按0记录
+     */
+    public void record(long value) {
+        final var v = Math.max(0L, value);
+        counts.incrementAndGet(index(v));
+        count.increment();
+        sum.add(v);
+        if (v > max.get()) {
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    /**
+     * @return 记录的值的数量
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * @return 记录的值的总和
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return 记录的最大值
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @return 记录的值的平均值，没有记录时为0
+     */
+    public double mean() {
+        final var n = count();
+        return n == 0 ? 0.0 : (double) sum() / n;
+    }
+
+    /**
+     * 获取分位值
+     *
+     * @param percentile 分位，取值[0,100]
+     * @return 分位值，没有记录时为0
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        // 以计数槽的合计为准，避免与并发的记录不一致
+        var total = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0L;
+        }
+
+        final var target = Math.max(1L, (long) Math.ceil(percentile / 100 * total));
+        var seen = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highest(i), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * 清空
+     * <p>与并发的记录之间不保证原子性</p>
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram[count=%s, mean=%.1f, p50=%s, p90=%s, p99=%s, max=%s]".formatted(
+                count(),
+                mean(),
+                percentile(50),
+                percentile(90),
+                percentile(99),
+                max()
+        );
+    }
+
+    // 值所在的计数槽
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final var shift = exponent - SUB_BUCKET_BITS;
+        final var bucket = shift + 1;
+        final var sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return bucket * SUB_BUCKETS + sub;
+    }
+
+    // 计数槽能代表的最大值
+    private static long highest(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final var shift = index / SUB_BUCKETS - 1;
+        final var sub = index % SUB_BUCKETS;
+        final var lowest = (long) (SUB_BUCKETS + sub) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,233 @@
+package io.github.oldmanpushcart.dashscope4j.metrics;
+
+import io.github.oldmanpushcart.dashscope4j.Usage;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 内置的API度量汇总
+ * <p>按{@link ApiMetrics.Key}分别汇总计数器和{@link Histogram}，所有记录都是无锁的；读取到的是并发记录过程中的近似快照</p>
+ *
+ * @since 1.2.2
+ */
+public class SimpleApiMetrics implements ApiMetrics {
+
+    private final Map<Key, Stats> statsMap = new ConcurrentHashMap<>();
+    private final LongAdder taskPolls = new LongAdder();
+
+    private Stats of(Key key) {
+        final var stats = statsMap.get(key);
+        return null != stats ? stats : statsMap.computeIfAbsent(key, k -> new Stats());
+    }
+
+    @Override
+    public void requestStarted(Key key, long bytesSent) {
+        final var stats = of(key);
+        stats.requests.increment();
+        stats.inflight.increment();
+        if (bytesSent > 0) {
+            stats.bytesSent.add(bytesSent);
+        }
+    }
+
+    @Override
+    public void requestCompleted(Key key, long latencyNanos, Throwable ex) {
+        final var stats = of(key);
+        stats.inflight.decrement();
+        stats.latency.record(latencyNanos);
+        if (null != ex) {
+            stats.errors.computeIfAbsent(ApiMetrics.errorCode(ex), code -> new LongAdder()).increment();
+        }
+    }
+
+    @Override
+    public void firstByte(Key key, long firstByteNanos) {
+        of(key).firstByte.record(firstByteNanos);
+    }
+
+    @Override
+    public void firstEvent(Key key, long ttftNanos) {
+        of(key).firstEvent.record(ttftNanos);
+    }
+
+    @Override
+    public void nextEvent(Key key, long gapNanos) {
+        of(key).eventGap.record(gapNanos);
+    }
+
+    @Override
+    public void bytesReceived(Key key, long bytes) {
+        of(key).bytesReceived.add(bytes);
+    }
+
+    @Override
+    public void usage(Key key, Usage usage) {
+        final var stats = of(key);
+        usage.items().forEach(item -> stats.tokens.computeIfAbsent(item.name(), name -> new LongAdder()).add(item.cost()));
+    }
+
+    @Override
+    public void flowCompleted(FlowTiming timing) {
+        final var rate = timing.outputTokensPerSecond();
+        if (rate > 0) {
+            of(timing.key()).outputTokensPerSecond.record(Math.round(rate));
+        }
+    }
+
+    @Override
+    public void taskPolled() {
+        taskPolls.increment();
+    }
+
+    /**
+     * @return 已有度量的键
+     */
+    public Set<Key> keys() {
+        return Set.copyOf(statsMap.keySet());
+    }
+
+    /**
+     * 获取度量
+     *
+     * @param key 度量键
+     * @return 度量，没有记录过时为{@code null}
+     */
+    public Stats stats(Key key) {
+        return statsMap.get(key);
+    }
+
+    /**
+     * @return 任务查询次数
+     */
+    public long taskPolls() {
+        return taskPolls.sum();
+    }
+
+    /**
+     * 单个度量键的度量
+     */
+    public static class Stats {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder inflight = new LongAdder();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private final Histogram latency = new Histogram();
+        private final Histogram firstByte = new Histogram();
+        private final Histogram firstEvent = new Histogram();
+        private final Histogram eventGap = new Histogram();
+        private final Histogram outputTokensPerSecond = new Histogram();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final Map<String, LongAdder> tokens = new ConcurrentHashMap<>();
+
+        private Stats() {
+        }
+
+        /**
+         * @return 发出的请求数
+         */
+        public long requests() {
+            return requests.sum();
+        }
+
+        /**
+         * @return 进行中的请求数
+         */
+        public long inflight() {
+            return inflight.sum();
+        }
+
+        /**
+         * @return 按错误编码统计的失败数
+         * @see ApiMetrics#errorCode(Throwable)
+         */
+        public Map<String, Long> errors() {
+            return sum(errors);
+        }
+
+        /**
+         * @return 请求耗时(纳秒)
+         */
+        public Histogram latency() {
+            return latency;
+        }
+
+        /**
+         * @return 收到应答头的耗时(纳秒)
+         */
+        public Histogram firstByte() {
+            return firstByte;
+        }
+
+        /**
+         * @return 流式请求收到第一个事件的耗时(纳秒)
+         */
+        public Histogram firstEvent() {
+            return firstEvent;
+        }
+
+        /**
+         * @return 流式请求相邻事件的间隔(纳秒)
+         */
+        public Histogram eventGap() {
+            return eventGap;
+        }
+
+        /**
+         * @return 正常结束的流式请求的每秒输出用量
+         * @see FlowTiming#outputTokensPerSecond()
+         */
+        public Histogram outputTokensPerSecond() {
+            return outputTokensPerSecond;
+        }
+
+        /**
+         * @return 发出的请求体字节数
+         */
+        public long bytesSent() {
+            return bytesSent.sum();
+        }
+
+        /**
+         * @return 收到的应答字节数
+         */
+        public long bytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        /**
+         * @return 按用量项目统计的累计用量，如{@code input_tokens}、{@code output_tokens}
+         */
+        public Map<String, Long> tokens() {
+            return sum(tokens);
+        }
+
+        private static Map<String, Long> sum(Map<String, LongAdder> adders) {
+            return adders.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().sum()));
+        }
+
+        @Override
+        public String toString() {
+            return "Stats[requests=%s, inflight=%s, errors=%s, latency=%s, firstByte=%s, firstEvent=%s, eventGap=%s, outputTokensPerSecond=%s, bytesSent=%s, bytesReceived=%s, tokens=%s]".formatted(
+                    requests(),
+                    inflight(),
+                    errors(),
+                    latency,
+                    firstByte,
+                    firstEvent,
+                    eventGap,
+                    outputTokensPerSecond,
+                    bytesSent(),
+                    bytesReceived(),
+                    tokens()
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * 度量
+ * <p>客户端通过{@link io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics}报告请求的各项度量，
+ * {@link io.github.oldmanpushcart.dashscope4j.metrics.SimpleApiMetrics}是内置的汇总实现</p>
+ */
+package io.github.oldmanpushcart.dashscope4j.metrics;
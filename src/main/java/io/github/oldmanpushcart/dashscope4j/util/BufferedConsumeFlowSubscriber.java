@@ -0,0 +1,369 @@
+package io.github.oldmanpushcart.dashscope4j.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 带缓冲的消费流订阅者
+ * <p>
+ * 按{@code prefetch}批量向发布者申请数据，收到的元素放入有界队列，由消费者在指定的线程池中依次消费，
+ * 发布者的线程(如HTTP客户端的线程)不会被缓慢的消费者拖住。
+ * </p>
+ * <p>
+ * 向发布者补充申请的时机由{@link Overflow}策略决定：{@link Overflow#BLOCK}随消费补充，每消费完批量的四分之三补充一次，
+ * 未消费的元素不超过{@code prefetch}，消费者变慢时只是暂停申请；{@link Overflow#DROP_OLDEST}和{@link Overflow#ERROR}随接收补充，
+ * 发布者的下发不受消费者快慢影响，消费者跟不上时队列被填满，按策略丢弃或报错。
+ * 发布者出错或完成时，队列中已收到的元素仍会先被消费完，再结束{@link #completed()}。
+ * </p>
+ *
+ * @param <T> 元素类型
+ * @since 1.2.2
+ */
+public class BufferedConsumeFlowSubscriber<T> implements Flow.Subscriber<T> {
+
+    private final Consumer<T> consumer;
+    private final Executor executor;
+    private final int prefetch;
+    private final int limit;
+    private final Overflow overflow;
+    private final BlockingQueue<T> queue;
+    private final CompletableFuture<Void> completed = new CompletableFuture<>();
+
+    private final AtomicReference<Flow.Subscription> subscriptionRef = new AtomicReference<>();
+
+    // 保证同一时刻只有一个消费任务
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // 丢弃的元素数量
+    private final AtomicLong dropped = new AtomicLong();
+
+    // 发布者是否已结束，结束前先写入错误
+    private volatile boolean done;
+    private final AtomicReference<Throwable> errorRef = new AtomicReference<>();
+
+    // 已取消或已结束
+    private volatile boolean cancelled;
+
+    // 自上次补充以来消费的元素数量，只在消费任务中访问
+    private int consumed;
+
+    // 自上次补充以来接收的元素数量，只在onNext中访问
+    private int received;
+
+    private BufferedConsumeFlowSubscriber(Builder<T> builder) {
+        this.consumer = builder.consumer;
+        this.executor = builder.executor;
+        this.prefetch = builder.prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        this.overflow = builder.overflow;
+        this.queue = new ArrayBlockingQueue<>(builder.capacity);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        requireNonNull(subscription);
+
+        // 已有订阅时取消新的订阅
+        if (!subscriptionRef.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T item) {
+        requireNonNull(item);
+        if (cancelled) {
+            return;
+        }
+
+        switch (overflow) {
+            case BLOCK -> {
+                try {
+                    queue.put(item);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    fail(ex);
+                    return;
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(item)) {
+                    if (null != queue.poll()) {
+                        dropped.incrementAndGet();
+                    }
+                }
+            }
+            case ERROR -> {
+                if (!queue.offer(item)) {
+                    fail(new IllegalStateException("consume queue overflow! capacity=%s".formatted(capacity())));
+                    return;
+                }
+            }
+        }
+
+        // 非阻塞策略每接收补充水位数量的元素，向发布者补充同样数量的申请
+        if (overflow != Overflow.BLOCK && ++received == limit) {
+            received = 0;
+            subscriptionRef.get().request(limit);
+        }
+
+        schedule();
+    }
+
+    @Override
+    public void onError(Throwable ex) {
+        errorRef.compareAndSet(null, requireNonNull(ex));
+        done = true;
+        schedule();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        schedule();
+    }
+
+    /**
+     * 获取完成通知
+     *
+     * @return 完成通知
+     */
+    public CompletableFuture<Void> completed() {
+        return completed;
+    }
+
+    /**
+     * @return 队列中等待消费的元素数量
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * @return 队列容量
+     */
+    public int capacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    /**
+     * @return 按{@link Overflow#DROP_OLDEST}策略丢弃的元素数量
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    // 取消订阅并以错误结束
+    private void fail(Throwable ex) {
+        cancelled = true;
+        cancelUpstream();
+        completed.completeExceptionally(ex);
+        schedule();
+    }
+
+    private void cancelUpstream() {
+        final var subscription = subscriptionRef.get();
+        if (null != subscription) {
+            subscription.cancel();
+        }
+    }
+
+    // 提交消费任务，已有任务在执行时由该任务继续消费
+    private void schedule() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException ex) {
+            cancelled = true;
+            cancelUpstream();
+            queue.clear();
+            completed.completeExceptionally(ex);
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            while (true) {
+
+                // 已取消或已结束，丢弃剩余数据
+                if (cancelled) {
+                    queue.clear();
+                    return;
+                }
+
+                final var d = done;
+                final var item = queue.poll();
+
+                // 队列已消费完，发布者结束则结束消费
+                if (null == item) {
+                    if (d) {
+                        cancelled = true;
+                        final var error = errorRef.get();
+                        if (null != error) {
+                            completed.completeExceptionally(error);
+                        } else {
+                            completed.complete(null);
+                        }
+                        return;
+                    }
+                    break;
+                }
+
+                // 消费者抛出异常时取消订阅，以该异常结束消费
+                try {
+                    consumer.accept(item);
+                } catch (Throwable ex) {
+                    fail(ex);
+                    return;
+                }
+
+                // 阻塞策略每消费补充水位数量的元素，向发布者补充同样数量的申请
+                if (overflow == Overflow.BLOCK && ++consumed == limit) {
+                    consumed = 0;
+                    subscriptionRef.get().request(limit);
+                }
+
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * 队列满时的处理策略，同时决定向发布者补充申请的时机
+     */
+    public enum Overflow {
+
+        /**
+         * 申请随消费补充，消费者变慢时暂停申请，遵守申请数量的发布者不会填满队列；
+         * 发布者不遵守申请数量使队列满时，阻塞发布者线程直到队列有空位
+         */
+        BLOCK,
+
+        /**
+         * 申请随接收补充，队列满时丢弃队列中最早的元素
+         */
+        DROP_OLDEST,
+
+        /**
+         * 申请随接收补充，队列满时取消订阅，以{@link IllegalStateException}结束消费
+         */
+        ERROR
+
+    }
+
+    /**
+     * 构建带缓冲的消费流订阅者
+     *
+     * @param <T> 元素类型
+     * @return 构建器
+     */
+    public static <T> Builder<T> newBuilder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 带缓冲的消费流订阅者构建器
+     *
+     * @param <T> 元素类型
+     */
+    public static class Builder<T> {
+
+        private Consumer<T> consumer;
+        private Executor executor;
+        private int prefetch = 32;
+        private int capacity = 256;
+        private Overflow overflow = Overflow.BLOCK;
+
+        /**
+         * 设置消费者
+         *
+         * @param consumer 消费者
+         * @return this
+         */
+        public Builder<T> consumer(Consumer<T> consumer) {
+            this.consumer = requireNonNull(consumer);
+            return this;
+        }
+
+        /**
+         * 设置消费线程池
+         *
+         * @param executor 消费线程池
+         * @return this
+         */
+        public Builder<T> executor(Executor executor) {
+            this.executor = requireNonNull(executor);
+            return this;
+        }
+
+        /**
+         * 设置批量申请数量，默认32，不能超过队列容量
+         *
+         * @param prefetch 批量申请数量
+         * @return this
+         */
+        public Builder<T> prefetch(int prefetch) {
+            if (prefetch <= 0) {
+                throw new IllegalArgumentException("prefetch must be positive");
+            }
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        /**
+         * 设置队列容量，默认256
+         *
+         * @param capacity 队列容量
+         * @return this
+         */
+        public Builder<T> capacity(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * 设置队列满时的处理策略，默认{@link Overflow#BLOCK}
+         *
+         * @param overflow 处理策略
+         * @return this
+         */
+        public Builder<T> overflow(Overflow overflow) {
+            this.overflow = requireNonNull(overflow);
+            return this;
+        }
+
+        /**
+         * 构建
+         *
+         * @return 带缓冲的消费流订阅者
+         */
+        public BufferedConsumeFlowSubscriber<T> build() {
+            requireNonNull(consumer, "consumer is required");
+            requireNonNull(executor, "executor is required");
+            if (prefetch > capacity) {
+                throw new IllegalArgumentException("prefetch must not exceed capacity");
+            }
+            return new BufferedConsumeFlowSubscriber<>(this);
+        }
+
+    }
+
+}
@@ -5,6 +5,8 @@ import java.util.concurrent.Flow;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * 消费流订阅者
  *
@@ -27,22 +29,37 @@ public class ConsumeFlowSubscriber<T> implements Flow.Subscriber<T> {
 
     @Override
     public void onSubscribe(Flow.Subscription subscription) {
+        requireNonNull(subscription);
+
+        // 已有订阅时取消新的订阅
         if (!subscriptionRef.compareAndSet(null, subscription)) {
             subscription.cancel();
-            throw new IllegalStateException("already subscribed");
+            return;
         }
         subscription.request(1);
     }
 
     @Override
     public void onNext(T item) {
-        consumer.accept(item);
+        requireNonNull(item);
+        if (completed.isDone()) {
+            return;
+        }
+
+        // 消费者抛出异常时取消订阅，以该异常结束消费
+        try {
+            consumer.accept(item);
+        } catch (Throwable ex) {
+            subscriptionRef.get().cancel();
+            completed.completeExceptionally(ex);
+            return;
+        }
         subscriptionRef.get().request(1);
     }
 
     @Override
     public void onError(Throwable ex) {
-        completed.completeExceptionally(ex);
+        completed.completeExceptionally(requireNonNull(ex));
     }
 
     @Override
@@ -1,36 +1,95 @@
 package io.github.oldmanpushcart.dashscope4j.util;
 
-import java.util.LinkedList;
+import io.github.oldmanpushcart.internal.dashscope4j.util.FlowUtils;
+import io.github.oldmanpushcart.internal.dashscope4j.util.SpscArrayQueue;
+
 import java.util.List;
-import java.util.Queue;
 import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * 流处理转换器
+ * <p>
+ * 发布端的元素先放入单生产者单消费者的环形队列，由排水循环在订阅端有需求时取出、转换并下发。
+ * 向发布端的申请按批进行：首次申请{@code prefetch}个，此后每消费掉{@code prefetch}的四分之三再补充同样数量，
+ * 因此队列中的元素不会超过{@code prefetch}个。
+ * </p>
  *
  * @param <T> 输入类型
  * @param <R> 输出类型
  */
 public class TransformFlowProcessor<T, R> implements Flow.Processor<T, R> {
 
-    // 订阅端引用锁
-    private final AtomicReference<Flow.Subscriber<? super R>> subscriberRef = new AtomicReference<>();
+    // 默认预取数量
+    private static final int DEFAULT_PREFETCH = 16;
+
+    // 订阅端是否已订阅
+    private final AtomicBoolean subscribed = new AtomicBoolean();
 
     // 发布端引用锁
     private final AtomicReference<Flow.Subscription> subscriptionRef = new AtomicReference<>();
 
-    // 变速箱
-    private final Gearbox<R> gearbox = new Gearbox<>();
-
     // 转换器
     private final Function<T, List<R>> transformer;
 
+    // 预取数量和补充水位
+    private final int prefetch;
+    private final int limit;
+
+    // 发布端元素队列：onNext为生产者，排水循环为消费者
+    private final SpscArrayQueue<T> queue;
+
+    // 保证同一时刻只有一个线程在排水
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // 订阅端尚未满足的需求
+    private final AtomicLong requested = new AtomicLong();
+
+    // 是否已向发布端发出首次申请
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    // 完成onSubscribe后的订阅端，在此之前不下发任何信号
+    private volatile Flow.Subscriber<? super R> downstream;
+
+    // 是否已结束，结束前先写入错误，只保留第一个错误
+    private volatile boolean done;
+    private final AtomicReference<Throwable> errorRef = new AtomicReference<>();
+
+    // 订阅端取消或已下发终止信号
+    private volatile boolean cancelled;
+
+    // 当前正在下发的转换结果，只在排水循环中访问
+    private List<R> batch;
+    private int index;
+
+    // 自上次补充以来消费的发布端元素数量，只在排水循环中访问
+    private int consumed;
+
     public TransformFlowProcessor(Function<T, List<R>> transformer) {
+        this(transformer, DEFAULT_PREFETCH);
+    }
+
+    /**
+     * 构造流处理转换器
+     *
+     * @param transformer 转换器
+     * @param prefetch    向发布端预取的数量
+     * @since 1.2.2
+     */
+    public TransformFlowProcessor(Function<T, List<R>> transformer, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch must be positive");
+        }
         this.transformer = transformer;
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        this.queue = new SpscArrayQueue<>(prefetch);
     }
 
     /**
@@ -41,10 +100,12 @@ public class TransformFlowProcessor<T, R> implements Flow.Processor<T, R> {
      */
     @Override
     public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        requireNonNull(subscriber);
 
-        // 检查processor发布端是否已经被订阅
-        if (!subscriberRef.compareAndSet(null, subscriber)) {
-            throw new IllegalStateException("processor publisher already subscribed");
+        // 检查processor发布端是否已经被订阅，拒绝时先onSubscribe再onError
+        if (!subscribed.compareAndSet(false, true)) {
+            FlowUtils.reject(subscriber, new IllegalStateException("processor publisher already subscribed"));
+            return;
         }
 
         // 订阅processor
@@ -52,136 +113,271 @@ public class TransformFlowProcessor<T, R> implements Flow.Processor<T, R> {
             @Override
             public void request(long n) {
 
+                // 非正数的申请以错误终止，并取消发布端
                 if (n <= 0) {
-                    throw new IllegalArgumentException("non-positive request: %s".formatted(n));
-                }
-
-                // 优先消费变速箱中的数据
-                final var count = gearbox.polling(n, subscriber::onNext);
-
-                // 变速箱中的数据就已经满足订阅端的需求，则直接返回
-                if (count > 0 && count == n) {
+                    final var subscription = subscriptionRef.get();
+                    if (null != subscription) {
+                        subscription.cancel();
+                    }
+                    fail(new IllegalArgumentException("non-positive request: %s".formatted(n)));
                     return;
                 }
 
-                // 限流器放开订阅端申请剩余数量
-                gearbox.increase(n - count);
-
-                // 向发布端逐个申请数据
-                subscriptionRef.get().request(1);
+                // 累加需求，溢出时视为无界
+                requested.getAndAccumulate(n, FlowUtils::addCap);
+                drain();
 
             }
 
             @Override
             public void cancel() {
-                subscriptionRef.get().cancel();
+                TransformFlowProcessor.this.cancel();
             }
 
         });
 
+        // onSubscribe完成后才允许下发信号，期间已取消则不再持有订阅端
+        if (!cancelled) {
+            downstream = subscriber;
+        }
+        start();
+        drain();
+
     }
 
     @Override
     public void onSubscribe(Flow.Subscription subscription) {
+        requireNonNull(subscription);
 
         // 检查processor订阅端是否已经被订阅
         if (!subscriptionRef.compareAndSet(null, subscription)) {
             subscription.cancel();
-            throw new IllegalStateException("processor subscriber already subscribed");
+            return;
         }
 
+        // 订阅端在发布端就绪前已经取消
+        if (cancelled) {
+            subscription.cancel();
+            return;
+        }
+
+        start();
+
     }
 
     @Override
     public void onNext(T item) {
-
-        // 转换结果先存储到队列中
-        transformer.apply(item).forEach(gearbox::offer);
-
-        // 消费队列中的数据，直到变速箱限速
-        while (!gearbox.isLimit()) {
-
-            // 如果队列中有数据，则直接消耗队列中的数据
-            if (gearbox.polling(1L, subscriberRef.get()::onNext) == 0L) {
-                return;
+        requireNonNull(item);
+
+        // 快速路径：没有其他线程在排水且队列为空时，元素不经过队列直接交给排水循环
+        if (wip.get() == 0 && wip.compareAndSet(0, 1)) {
+            if (null != downstream && queue.isEmpty()) {
+                drain(1, item);
+            } else {
+                offer(item);
+                drain(1, null);
             }
+            return;
+        }
 
-            // 队列中没有数据，则继续向[订阅端]申请数据
-            subscriptionRef.get().request(1);
+        offer(item);
+        drain();
+    }
 
+    // 放入队列，发布端下发超过申请的数量时以错误终止
+    private void offer(T item) {
+        if (!queue.offer(item)) {
+            subscriptionRef.get().cancel();
+            errorRef.compareAndSet(null, new IllegalStateException("queue is full, publisher does not respect backpressure"));
+            done = true;
         }
-
     }
 
     @Override
     public void onError(Throwable ex) {
-        subscriberRef.get().onError(ex);
+        fail(requireNonNull(ex));
+    }
+
+    // 以错误结束
+    private void fail(Throwable ex) {
+        errorRef.compareAndSet(null, ex);
+        done = true;
+        drain();
     }
 
     @Override
     public void onComplete() {
-        subscriberRef.get().onComplete();
+        done = true;
+        drain();
+    }
+
+    // 发布端和订阅端都就绪后，向发布端发出首次申请
+    private void start() {
+        final var subscription = subscriptionRef.get();
+        if (null != subscription && null != downstream && started.compareAndSet(false, true)) {
+            subscription.request(prefetch);
+        }
+    }
+
+    // 订阅端取消
+    private void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        downstream = null;
+        final var subscription = subscriptionRef.get();
+        if (null != subscription) {
+            subscription.cancel();
+        }
+
+        // 没有线程在排水时由当前线程清理队列，否则交给排水循环
+        drain();
+    }
+
+    // 排水循环：同一时刻只有一个线程执行，执行期间到达的信号由该线程补充处理
+    private void drain() {
+        if (wip.getAndIncrement() == 0) {
+            drain(1, null);
+        }
+    }
+
+    private void drain(int missed, T fused) {
+        do {
+            final var subscriber = downstream;
+            if (null != subscriber) {
+                drainLoop(subscriber, fused);
+                fused = null;
+            } else if (cancelled) {
+                queue.clear();
+                batch = null;
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
     }
 
     /**
-     * 变速箱
-     * <p>用于协调发布端和订阅端因为转换过程中的消费速率不一致</p>
-     * <p>
-     * 变速箱的核心原理是通过令牌桶算法来控制发布端和订阅端的数据交换速率，
-     * 允许发布端不停地向变速箱中放入数据，但订阅端只有在有足够的令牌时才能从变速箱中取出数据。
-     * </p>
+     * 排水
      *
-     * @param <E> 变速箱中的元素类型
+     * @param subscriber 订阅端
+     * @param fused      快速路径中尚未入队的元素，早于队列中的所有元素
      */
-    private static class Gearbox<E> {
-
-        private final AtomicLong tokensRef = new AtomicLong(0);
-        private final Queue<E> queue = new LinkedList<>();
-
-        /**
-         * 是否限速
-         * <p>令牌耗尽</p>
-         *
-         * @return TRUE | FALSE
-         */
-        public boolean isLimit() {
-            return tokensRef.get() <= 0;
-        }
-
-        /**
-         * 追加令牌
-         *
-         * @param tokens 追加的令牌数量
-         */
-        public void increase(long tokens) {
-            tokensRef.addAndGet(tokens);
-        }
-
-        /**
-         * 放入元素
-         *
-         * @param e 元素
-         */
-        public void offer(E e) {
-            queue.offer(e);
-        }
-
-        /**
-         * 消费元素
-         *
-         * @param limit    令牌数量消耗限制
-         * @param consumer 消费者
-         * @return 消费数量
-         */
-        public int polling(long limit, Consumer<E> consumer) {
-            int count = 0;
-            for (; count < limit && !isLimit() && !queue.isEmpty(); count++) {
-                consumer.accept(queue.poll());
-                tokensRef.decrementAndGet();
+    private void drainLoop(Flow.Subscriber<? super R> subscriber, T fused) {
+
+        // 已取消或已终止，丢弃剩余数据
+        if (cancelled) {
+            terminate();
+            return;
+        }
+
+        // 发布端出错立即通知，不再下发剩余数据
+        if (done && null != errorRef.get()) {
+            terminate();
+            subscriber.onError(errorRef.get());
+            return;
+        }
+
+        final var r = requested.get();
+        var e = 0L;
+
+        // 循环中使用局部变量，退出时写回
+        var results = batch;
+        var i = index;
+
+        while (true) {
+
+            // 已取消或已终止，丢弃剩余数据
+            if (cancelled) {
+                terminate();
+                return;
             }
-            return count;
+
+            // 当前转换结果已下发完，取下一个元素转换
+            if (null == results) {
+                final var item = null != fused ? fused : queue.poll();
+                fused = null;
+
+                if (null == item) {
+
+                    // 发布端已结束：结束前的元素对当前线程可见，队列确认为空后才完成
+                    if (done) {
+                        final var error = errorRef.get();
+                        if (null != error) {
+                            terminate();
+                            subscriber.onError(error);
+                            return;
+                        }
+                        if (queue.isEmpty()) {
+                            terminate();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        continue;
+                    }
+                    break;
+                }
+                replenish();
+
+                try {
+                    results = transformer.apply(item);
+                } catch (Throwable ex) {
+                    terminate();
+                    subscriptionRef.get().cancel();
+                    subscriber.onError(ex);
+                    return;
+                }
+
+                // 本次转换没有产出，继续转换下一个元素
+                if (results.isEmpty()) {
+                    results = null;
+                } else {
+                    i = 0;
+                }
+                continue;
+            }
+
+            // 订阅端需求已满足
+            if (e == r) {
+                break;
+            }
+
+            final var result = results.get(i++);
+            if (i == results.size()) {
+                results = null;
+            }
+            subscriber.onNext(result);
+            e++;
+
         }
 
+        batch = results;
+        index = i;
+
+        // 订阅端需求不足时，快速路径中的元素放回队列等待下次排水
+        if (null != fused) {
+            offer(fused);
+        }
+
+        if (e != 0 && r != Long.MAX_VALUE) {
+            requested.addAndGet(-e);
+        }
+
+    }
+
+    // 每消费到补充水位，向发布端补充同样数量的申请
+    private void replenish() {
+        if (++consumed == limit) {
+            consumed = 0;
+            subscriptionRef.get().request(limit);
+        }
+    }
+
+    // 标记终止，丢弃剩余数据并释放订阅端
+    private void terminate() {
+        cancelled = true;
+        downstream = null;
+        queue.clear();
+        batch = null;
     }
 
     /**
@@ -1,8 +1,15 @@
 package io.github.oldmanpushcart.internal.dashscope4j;
 
 import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiKeyPool;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.base.api.ConnectionPool;
+import io.github.oldmanpushcart.dashscope4j.base.api.EndpointPolicy;
+import io.github.oldmanpushcart.dashscope4j.base.api.HedgePolicy;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.base.api.RateLimit;
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
 import io.github.oldmanpushcart.dashscope4j.base.task.Task;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
@@ -10,12 +17,20 @@ import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingRequest;
 import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingResponse;
 import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageRequest;
 import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageResponse;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
 import io.github.oldmanpushcart.internal.dashscope4j.base.api.ApiExecutor;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.ApiKeyPoolImpl;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.ApiRateLimits;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.ApiTimeouts;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.Hedger;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.ConnectionPoolImpl;
 import io.github.oldmanpushcart.internal.dashscope4j.chat.ChatResponseOpAsyncHandler;
 import io.github.oldmanpushcart.internal.dashscope4j.chat.ChatResponseOpFlowHandler;
 
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
@@ -29,21 +44,60 @@ import static java.util.Optional.ofNullable;
  */
 public class DashScopeClientImpl implements DashScopeClient {
 
+    private final Executor executor;
     private final ApiExecutor apiExecutor;
+    private final Hedger hedger;
 
     public DashScopeClientImpl(Builder builder) {
+        this.executor = requireNonNull(builder.executor);
         this.apiExecutor = new ApiExecutor(
-                requireNonBlankString(builder.ak),
-                newHttpClient(builder),
-                requireNonNull(builder.executor)
+                newApiKeyPool(builder),
+                builder.endpointPolicy,
+                newHttpTransport(builder),
+                executor,
+                new ApiTimeouts(builder.timeout, builder.firstByteTimeout, builder.idleTimeout),
+                builder.taskPollsPerSecond,
+                new ApiRateLimits(builder.rateLimits, builder.rateLimitQueueTimeout),
+                builder.retryPolicy,
+                builder.metrics
         );
+        this.hedger = null == builder.hedgePolicy ? null : new Hedger(builder.hedgePolicy, executor);
+    }
+
+    // 未设置AK池时以单个AK构建
+    private static ApiKeyPoolImpl newApiKeyPool(Builder builder) {
+        if (null != builder.akPool) {
+            return builder.akPool;
+        }
+        final var keys = new ApiKeyPoolImpl.Builder();
+        keys.key(requireNonBlankString(builder.ak));
+        return keys.build();
+    }
+
+    // 构建HTTP传输，配置了连接池时在此预热
+    private HttpTransport newHttpTransport(Builder builder) {
+        final var pool = builder.connectionPool;
+        final var transport = null != builder.transport
+                ? builder.transport
+                : HttpTransport.ofHttpClient(newHttpClient(builder, pool));
+        if (null == pool) {
+            return transport;
+        }
+        final var endpointPolicy = null != builder.endpointPolicy
+                ? builder.endpointPolicy
+                : EndpointPolicy.of(ApiExecutor.DEFAULT_BASE_URI);
+        return pool.bind(transport, endpointPolicy.endpoints());
     }
 
     // 构建HTTP客户端
-    private HttpClient newHttpClient(Builder builder) {
+    private HttpClient newHttpClient(Builder builder, ConnectionPoolImpl pool) {
         final var httpBuilder = HttpClient.newBuilder();
         ofNullable(builder.connectTimeout).ifPresent(httpBuilder::connectTimeout);
         ofNullable(builder.executor).ifPresent(httpBuilder::executor);
+        if (null != pool) {
+            httpBuilder.version(pool.version());
+            httpBuilder.sslContext(pool.sslContext());
+        }
         return httpBuilder.build();
     }
 
@@ -52,14 +106,17 @@ public class DashScopeClientImpl implements DashScopeClient {
         return new OpAsyncOpFlow<>() {
             @Override
             public CompletableFuture<ChatResponse> async() {
-                return apiExecutor.async(request)
-                        .thenCompose(new ChatResponseOpAsyncHandler(DashScopeClientImpl.this, request));
+                final var future = null == hedger
+                        ? apiExecutor.async(request)
+                        : hedger.hedge(request.model().name(), () -> apiExecutor.async(request));
+                return future
+                        .thenCompose(new ChatResponseOpAsyncHandler(DashScopeClientImpl.this, executor, request));
             }
 
             @Override
             public CompletableFuture<Flow.Publisher<ChatResponse>> flow() {
                 return apiExecutor.flow(request)
-                        .thenApply(new ChatResponseOpFlowHandler(DashScopeClientImpl.this, request));
+                        .thenApply(new ChatResponseOpFlowHandler(DashScopeClientImpl.this, executor, request));
             }
         };
     }
@@ -101,12 +158,36 @@ public class DashScopeClientImpl implements DashScopeClient {
     public static class Builder implements DashScopeClient.Builder {
 
         private String ak;
+        private ApiKeyPoolImpl akPool;
         private Executor executor;
         private Duration connectTimeout;
+        private Duration timeout;
+        private Duration firstByteTimeout;
+        private Duration idleTimeout;
+        private int taskPollsPerSecond;
+        private final Map<String, RateLimit> rateLimits = new HashMap<>();
+        private Duration rateLimitQueueTimeout;
+        private RetryPolicy retryPolicy;
+        private HedgePolicy hedgePolicy;
+        private ApiMetrics metrics = ApiMetrics.NONE;
+        private HttpTransport transport;
+        private EndpointPolicy endpointPolicy;
+        private ConnectionPoolImpl connectionPool;
 
         @Override
         public DashScopeClient.Builder ak(String ak) {
             this.ak = requireNonBlankString(ak);
+            this.akPool = null;
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder akPool(ApiKeyPool akPool) {
+            if (!(requireNonNull(akPool) instanceof ApiKeyPoolImpl impl)) {
+                throw new IllegalArgumentException("akPool must be built by ApiKeyPool.of() or ApiKeyPool.newBuilder()");
+            }
+            this.akPool = impl;
+            this.ak = null;
             return this;
         }
 
@@ -122,6 +203,84 @@ public class DashScopeClientImpl implements DashScopeClient {
             return this;
         }
 
+        @Override
+        public DashScopeClient.Builder timeout(Duration timeout) {
+            this.timeout = requireNonNull(timeout);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder firstByteTimeout(Duration firstByteTimeout) {
+            this.firstByteTimeout = requireNonNull(firstByteTimeout);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = requireNonNull(idleTimeout);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder taskPollsPerSecond(int pollsPerSecond) {
+            if (pollsPerSecond <= 0) {
+                throw new IllegalArgumentException("pollsPerSecond must be positive");
+            }
+            this.taskPollsPerSecond = pollsPerSecond;
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder rateLimit(String model, RateLimit limit) {
+            this.rateLimits.put(requireNonBlankString(model), requireNonNull(limit));
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder rateLimitQueueTimeout(Duration queueTimeout) {
+            this.rateLimitQueueTimeout = requireNonNull(queueTimeout);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = requireNonNull(retryPolicy);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder hedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = requireNonNull(hedgePolicy);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder metrics(ApiMetrics metrics) {
+            this.metrics = requireNonNull(metrics);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder transport(HttpTransport transport) {
+            this.transport = requireNonNull(transport);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder endpointPolicy(EndpointPolicy endpointPolicy) {
+            this.endpointPolicy = requireNonNull(endpointPolicy);
+            return this;
+        }
+
+        @Override
+        public DashScopeClient.Builder connectionPool(ConnectionPool connectionPool) {
+            if (!(requireNonNull(connectionPool) instanceof ConnectionPoolImpl impl)) {
+                throw new IllegalArgumentException("connectionPool must be built by ConnectionPool.newBuilder()");
+            }
+            this.connectionPool = impl;
+            return this;
+        }
+
         @Override
         public DashScopeClient build() {
             return new DashScopeClientImpl(this);
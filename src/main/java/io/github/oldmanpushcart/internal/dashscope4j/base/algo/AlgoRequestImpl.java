@@ -9,7 +9,10 @@ import io.github.oldmanpushcart.internal.dashscope4j.util.JacksonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
 import java.net.http.HttpRequest;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.function.Function;
 
@@ -39,11 +42,14 @@ public abstract class AlgoRequestImpl<R extends AlgoResponse<?>> implements Algo
     public HttpRequest newHttpRequest() {
         final var body = JacksonUtils.toJson(this);
         logger.debug("{}/{} => {}", this, model().name(), body);
-        return HttpRequest.newBuilder()
+        final var builder = HttpRequest.newBuilder()
                 .uri(model().remote())
                 .header(HEADER_CONTENT_TYPE, MIME_APPLICATION_JSON)
-                .POST(HttpRequest.BodyPublishers.ofString(body))
-                .build();
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (null != timeout) {
+            builder.timeout(timeout);
+        }
+        return builder.build();
     }
 
     @Override
@@ -54,6 +60,22 @@ public abstract class AlgoRequestImpl<R extends AlgoResponse<?>> implements Algo
         };
     }
 
+    @Override
+    public Function<InputStream, R> responseStreamDeserializer(Charset charset) {
+
+        // 调试模式下需要输出应答报文，回退为字符串反序列化
+        if (logger.isDebugEnabled()) {
+            return AlgoRequest.super.responseStreamDeserializer(charset);
+        }
+
+        // 字节流按UTF-8解析，其他字符集回退为字符串反序列化
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            return AlgoRequest.super.responseStreamDeserializer(charset);
+        }
+
+        return input -> JacksonUtils.toObject(input, responseType);
+    }
+
     @JsonProperty("model")
     @Override
     public Model model() {
@@ -4,31 +4,40 @@ import io.github.oldmanpushcart.dashscope4j.Constants;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
 import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.EndpointPolicy;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
 import io.github.oldmanpushcart.dashscope4j.base.task.Task;
-import io.github.oldmanpushcart.dashscope4j.base.task.TaskException;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
 import io.github.oldmanpushcart.dashscope4j.util.TransformFlowProcessor;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.ByteBuffersBodySubscriber;
 import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpHeader;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEvent;
 import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEventProcessor;
-import io.github.oldmanpushcart.internal.dashscope4j.base.task.TaskCancelRequest;
 import io.github.oldmanpushcart.internal.dashscope4j.base.task.TaskGetRequest;
-import io.github.oldmanpushcart.internal.dashscope4j.base.task.TaskGetResponse;
 import io.github.oldmanpushcart.internal.dashscope4j.base.task.TaskHalfResponse;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
 import io.github.oldmanpushcart.internal.dashscope4j.util.JacksonUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.github.oldmanpushcart.internal.dashscope4j.util.PeekFlowPublisher;
 
-import java.net.http.HttpClient;
+import java.net.URI;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
 import java.util.function.Consumer;
-import java.util.function.Function;
+import java.util.function.Supplier;
 
-import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
+import static io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException.Phase.FIRST_BYTE;
+import static io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException.Phase.TOTAL;
 import static io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpHeader.HEADER_AUTHORIZATION;
 import static io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpHeader.HEADER_X_DASHSCOPE_CLIENT;
 import static java.util.concurrent.CompletableFuture.failedFuture;
@@ -40,34 +49,105 @@ import static java.util.function.Function.identity;
 public class ApiExecutor {
 
     private static final String CLIENT_INFO = "dashscope4j/%s".formatted(Constants.VERSION);
-    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
 
-    private final String ak;
-    private final HttpClient http;
+    /**
+     * 默认的服务根地址，模型和任务的地址都以此为前缀
+     */
+    public static final URI DEFAULT_BASE_URI = URI.create("https://dashscope.aliyuncs.com");
+
+    private final ApiKeyPoolImpl keys;
+    private final EndpointResolver endpoints;
+    private final HttpTransport http;
     private final Executor executor;
+    private final ApiTimeouts timeouts;
+    private final TaskPoller poller;
+    private final RateLimiter limiter;
+    private final Retrier retrier;
+    private final ApiMetrics metrics;
 
     /**
      * 构造API执行器
      *
-     * @param ak       AK
-     * @param http     HTTP客户端
-     * @param executor 线程池
+     * @param keys           AK池
+     * @param endpointPolicy 服务地址策略，{@code null}表示使用{@link #DEFAULT_BASE_URI}
+     * @param http           HTTP传输
+     * @param executor       线程池
+     * @param timeouts       超时配置
+     * @param pollsPerSecond 任务轮询的全局每秒预算，小于等于0表示不限制
+     * @param rateLimits     限流配置
+     * @param retryPolicy    重试策略，{@code null}表示不重试
+     * @param metrics        度量
      */
-    public ApiExecutor(String ak, HttpClient http, Executor executor) {
-        this.ak = ak;
+    public ApiExecutor(ApiKeyPoolImpl keys, EndpointPolicy endpointPolicy, HttpTransport http, Executor executor, ApiTimeouts timeouts, int pollsPerSecond, ApiRateLimits rateLimits, RetryPolicy retryPolicy, ApiMetrics metrics) {
+        this.keys = keys;
+        this.endpoints = new EndpointResolver(endpointPolicy);
         this.http = http;
         this.executor = executor;
+        this.timeouts = timeouts;
+        this.metrics = metrics;
+        this.poller = new TaskPoller(this, pollsPerSecond, metrics);
+        this.limiter = new RateLimiter(rateLimits, executor);
+        this.retrier = new Retrier(retryPolicy, executor);
     }
 
     // 委派API请求
-    private HttpRequest delegateHttpRequest(HttpRequest request, Consumer<HttpRequest.Builder> consumer) {
+    private HttpRequest delegateHttpRequest(HttpRequest request, Route route, Duration timeout, Consumer<HttpRequest.Builder> consumer) {
         final var builder = HttpRequest.newBuilder(request, (k, v) -> true)
-                .header(HEADER_AUTHORIZATION, "Bearer %s".formatted(ak))
+                .uri(route.endpoint().resolve(request.uri()))
+                .header(HEADER_AUTHORIZATION, "Bearer %s".formatted(route.key().ak()))
                 .headers(HEADER_X_DASHSCOPE_CLIENT, CLIENT_INFO);
+
+        // HTTP客户端的超时只作用到收到应答头为止，取总超时和首字节超时中较小者
+        final var firstByteTimeout = timeouts.firstByteTimeout();
+        if (null != firstByteTimeout && (null == timeout || firstByteTimeout.compareTo(timeout) < 0)) {
+            builder.timeout(firstByteTimeout);
+        } else if (null != timeout) {
+            builder.timeout(timeout);
+        }
+
         consumer.accept(builder);
         return builder.build();
     }
 
+    /**
+     * 限定请求总超时
+     * <p>超时或被调用方取消时，同时取消底层的HTTP交互；超时在线程池中完成，后续阶段不在调度线程上执行</p>
+     *
+     * @param future   应答
+     * @param timeout  请求总超时
+     * @param exchange HTTP交互
+     * @param <T>      应答类型
+     * @return 应答
+     */
+    private <T> CompletableFuture<T> deadline(CompletableFuture<T> future, Duration timeout, CompletableFuture<?> exchange) {
+        final var deadline = future.exceptionallyCompose(ex -> failedFuture(translateTimeout(ex, timeout)));
+        final var scheduled = null == timeout
+                ? null
+                : DelayScheduler.schedule(timeout, executor, () -> deadline.completeExceptionally(new ApiTimeoutException(TOTAL, timeout)));
+        deadline.whenComplete((v, ex) -> {
+            if (null != scheduled) {
+                scheduled.cancel(false);
+            }
+            if (null != ex && !exchange.isDone()) {
+                exchange.cancel(true);
+            }
+        });
+        return deadline;
+    }
+
+    // 将HTTP客户端的应答超时转换为API超时
+    private Throwable translateTimeout(Throwable ex, Duration timeout) {
+        final var cause = ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+        if (!(cause instanceof HttpTimeoutException) || cause instanceof HttpConnectTimeoutException) {
+            return ex;
+        }
+        final var firstByteTimeout = timeouts.firstByteTimeout();
+        if (null != firstByteTimeout && (null == timeout || firstByteTimeout.compareTo(timeout) < 0)) {
+            return new ApiTimeoutException(FIRST_BYTE, firstByteTimeout);
+        }
+        return null != timeout ? new ApiTimeoutException(TOTAL, timeout) : ex;
+    }
+
     /**
      * 异步执行API请求
      *
@@ -75,29 +155,87 @@ public class ApiExecutor {
      * @return 异步应答
      */
     public <R extends ApiResponse<?>> CompletableFuture<R> async(ApiRequest<R> request) {
-        final var delegateHttpRequest = delegateHttpRequest(request.newHttpRequest(), builder -> builder
+        return async(request, null);
+    }
+
+    /**
+     * 异步执行API请求
+     *
+     * @param request 请求
+     * @param pinned  固定的根地址和AK，{@code null}表示按策略选择
+     * @return 异步应答
+     */
+    <R extends ApiResponse<?>> CompletableFuture<R> async(ApiRequest<R> request, Route pinned) {
+        return retrier.retry(() -> limiter.admit(request, permit -> {
+            final var future = doAsync(request, pinned);
+            future.whenComplete((response, ex) -> permit.release(null == response ? null : response.usage()));
+            return future;
+        }));
+    }
+
+    private <R extends ApiResponse<?>> CompletableFuture<R> doAsync(ApiRequest<R> request, Route pinned) {
+        final var timeout = timeouts.timeout(request);
+        final var endpoint = null != pinned ? pinned.endpoint() : endpoints.select();
+        final var lease = keys.acquire(null != pinned ? pinned.key() : null);
+        final var delegateHttpRequest = delegateHttpRequest(request.newHttpRequest(), new Route(endpoint, lease.key()), timeout, builder -> builder
                 .header(HttpHeader.HEADER_X_DASHSCOPE_SSE, "disable"));
-        return http.sendAsync(delegateHttpRequest, HttpResponse.BodyHandlers.ofString())
-                .thenApplyAsync(identity(), executor)
+        final var meter = ApiMeter.start(metrics, request, ApiMetrics.Mode.ASYNC, delegateHttpRequest);
+        final var sample = endpoint.begin();
+        final var exchange = http.send(delegateHttpRequest, lease.observe(sample.observe(meter.observeHeaders(ByteBuffersBodySubscriber.handler(meter::bytesReceived)))));
+        final var future = deadline(exchange.thenApplyAsync(identity(), executor)
                 .thenApply(httpResponse -> {
-                    final var response = request.responseDeserializer().apply(httpResponse.body());
+                    final var charset = HttpHeader.ContentType.parse(httpResponse.headers()).charset();
+                    final var response = request.responseStreamDeserializer(charset).apply(httpResponse.body());
                     if (!response.ret().isSuccess()) {
-                        throw new ApiException(httpResponse.statusCode(), response);
+                        throw new ApiException(httpResponse.statusCode(), response, HttpHeader.parseRetryAfter(httpResponse.headers()));
                     }
                     return response;
-                });
+                }), timeout, exchange);
+        future.whenComplete((response, ex) -> {
+            if (null != response) {
+                meter.usage(response.usage());
+            }
+            meter.completed(ex);
+            sample.completed(ex);
+            lease.release(null == response ? null : response.usage(), ex);
+        });
+        return future;
     }
 
     /**
      * 流式处理API请求
+     * <p>限流许可在事件流结束或被取消时才归还</p>
+     * <p>配置了重试时，应答在第一个事件到达后才交出，第一个事件之前的失败(包括SSE错误事件)按策略重试</p>
      *
      * @param request 请求
      * @return 流式应答
      */
     public <R extends ApiResponse<?>> CompletableFuture<Flow.Publisher<R>> flow(ApiRequest<R> request) {
-        final var delegateHttpRequest = delegateHttpRequest(request.newHttpRequest(), builder -> builder
+        final Supplier<CompletableFuture<Flow.Publisher<R>>> attempt = () -> limiter.admit(request, permit -> {
+            final var future = doFlow(request);
+            future.whenComplete((publisher, ex) -> {
+                if (null != ex) {
+                    permit.release(null);
+                }
+            });
+            return future.thenApply(permit::releaseOnTerminate);
+        });
+        return retrier.isEnabled()
+                ? retrier.retry(() -> attempt.get().thenCompose(PeekFlowPublisher::peek))
+                : attempt.get();
+    }
+
+    private <R extends ApiResponse<?>> CompletableFuture<Flow.Publisher<R>> doFlow(ApiRequest<R> request) {
+        final var begin = System.nanoTime();
+        final var timeout = timeouts.timeout(request);
+        final var endpoint = endpoints.select();
+        final var lease = keys.acquire(null);
+        final var delegateHttpRequest = delegateHttpRequest(request.newHttpRequest(), new Route(endpoint, lease.key()), timeout, builder -> builder
                 .header(HttpHeader.HEADER_X_DASHSCOPE_SSE, "enable"));
-        return http.sendAsync(delegateHttpRequest, HttpResponse.BodyHandlers.ofPublisher())
+        final var meter = ApiMeter.start(metrics, request, ApiMetrics.Mode.FLOW, delegateHttpRequest);
+        final var sample = endpoint.begin();
+        final var exchange = http.send(delegateHttpRequest, lease.observe(sample.observe(meter.observeHeaders(HttpResponse.BodyHandlers.ofPublisher()))));
+        final var future = deadline(exchange, timeout, exchange)
                 .thenApplyAsync(identity(), executor)
 
                 // 从HTTP响应数据流转换为SSE事件流
@@ -116,12 +254,22 @@ public class ApiExecutor {
 
                             // 开始处理SSE事件流
                             return HttpSsEventProcessor
-                                    .fromByteBuffers(HttpHeader.ContentType.parse(httpResponse.headers()).charset(), 10240)
-                                    .transform(httpResponse.body());
+                                    .fromByteBuffers(ct.charset())
+                                    .transform(meter.observeBody(httpResponse.body()));
 
                         }
                 )
 
+                // 监控SSE事件流的剩余总超时和空闲超时
+                .thenApply(ssePublisher -> {
+                    final var idleTimeout = timeouts.idleTimeout();
+                    if (null == timeout && null == idleTimeout) {
+                        return ssePublisher;
+                    }
+                    final var remaining = null == timeout ? null : timeout.minusNanos(System.nanoTime() - begin);
+                    return new DeadlineFlowProcessor<HttpSsEvent>(remaining, idleTimeout, executor).transform(ssePublisher);
+                })
+
                 // 从SSE事件流中转换为API应答流
                 .thenApply(ssePublisher -> TransformFlowProcessor.transform(ssePublisher, event ->
                         switch (event.type()) {
@@ -138,7 +286,20 @@ public class ApiExecutor {
                             case "result" -> List.of(request.responseDeserializer().apply(event.data()));
                             default -> throw new RuntimeException("Unsupported event type: %s".formatted(event.type()));
                         })
-                );
+                )
+
+                // 度量事件流，事件流结束时请求才结束，AK在事件流结束时归还
+                .thenApply(meter::observeEvents)
+                .thenApply(lease::releaseOnTerminate);
+
+        future.whenComplete((publisher, ex) -> {
+            if (null != ex) {
+                meter.completed(ex);
+                lease.release(null, ex);
+            }
+            sample.completed(ex);
+        });
+        return future;
     }
 
     /**
@@ -149,92 +310,81 @@ public class ApiExecutor {
      * @return 任务应答
      */
     public <R extends ApiResponse<?>> CompletableFuture<Task.Half<R>> task(ApiRequest<R> request) {
-        final var delegateHttpRequest = delegateHttpRequest(request.newHttpRequest(), builder -> builder
+
+        // 限流和重试只作用于任务提交，任务轮询由轮询器的全局预算控制；提交不是幂等的，只在服务端确定没有受理时重试
+        return retrier.retry(() -> limiter.admit(request, permit -> {
+            final var future = doTask(request);
+            future.whenComplete((half, ex) -> permit.release(null));
+            return future;
+        }), RetryPolicy::isRejected);
+    }
+
+    private <R extends ApiResponse<?>> CompletableFuture<Task.Half<R>> doTask(ApiRequest<R> request) {
+        final var timeout = timeouts.timeout(request);
+        final var endpoint = endpoints.select();
+        final var lease = keys.acquire(null);
+        final var pinned = new Route(endpoint, lease.key());
+        final var delegateHttpRequest = delegateHttpRequest(request.newHttpRequest(), pinned, timeout, builder -> builder
                 .header(HttpHeader.HEADER_X_DASHSCOPE_SSE, "disable")
                 .header(HttpHeader.HEADER_X_DASHSCOPE_ASYNC, "enable"));
-        return http.sendAsync(delegateHttpRequest, HttpResponse.BodyHandlers.ofString())
+        final var meter = ApiMeter.start(metrics, request, ApiMetrics.Mode.TASK, delegateHttpRequest);
+        final var sample = endpoint.begin();
+        final var exchange = http.send(delegateHttpRequest, lease.observe(sample.observe(meter.observeHeaders(ByteBuffersBodySubscriber.handler(meter::bytesReceived)))));
+        final CompletableFuture<Task.Half<R>> submit = deadline(exchange, timeout, exchange)
                 .thenApplyAsync(identity(), executor)
 
                 // 解析HTTP响应为任务半应答
                 .thenApply(httpResponse -> {
                     final TaskHalfResponse response = JacksonUtils.toObject(httpResponse.body(), TaskHalfResponse.class);
                     if (!response.ret().isSuccess()) {
-                        throw new ApiException(httpResponse.statusCode(), response);
+                        throw new ApiException(httpResponse.statusCode(), response, HttpHeader.parseRetryAfter(httpResponse.headers()));
                     }
                     return response;
                 })
 
                 // 任务滚动执行直至完成
-                .thenApply(response -> strategy -> rollingTask(
-                        new TaskGetRequest.Builder()
-                                .taskId(response.output().taskId())
-                                .building(builder -> Optional.ofNullable(request.timeout()).ifPresent(builder::timeout))
-                                .build(),
-                        strategy,
-                        request.responseDeserializer()
-                ));
+                .thenApply(response -> {
+                    final var taskGetRequest = new TaskGetRequest.Builder()
+                            .taskId(response.output().taskId())
+                            .building(builder -> Optional.ofNullable(request.timeout()).ifPresent(builder::timeout))
+                            .build();
+                    final var finisher = request.responseDeserializer();
+                    return strategy -> {
+                        // 任务只存在于提交它的根地址和AK下
+                        final var polling = poller.poll(taskGetRequest, strategy, pinned);
+                        final var future = polling.thenApply(taskGetResponse -> {
+                            final var finished = finisher.apply(taskGetResponse.raw());
+                            meter.usage(finished.usage());
+                            return finished;
+                        });
+
+                        // 调用方取消时停止轮询
+                        future.whenComplete((v, ex) -> {
+                            if (future.isCancelled()) {
+                                polling.cancel(true);
+                            }
+                        });
+                        return future;
+                    };
+                });
+
+        // 任务请求在提交后结束，任务完成后再记录用量
+        submit.whenComplete((half, ex) -> {
+            meter.completed(ex);
+            sample.completed(ex);
+            lease.release(null, ex);
+        });
+        return submit;
     }
 
     /**
-     * 滚动任务执行，直至完结（成功、取消、失败）
+     * 请求路由
      *
-     * @param request  获取任务请求
-     * @param strategy 滚动等待策略
-     * @param finisher 任务结束处理器
-     * @param <R>      应答类型
-     * @return 任务应答
+     * @param endpoint 根地址
+     * @param key      AK
      */
-    private <R> CompletableFuture<R> rollingTask(TaskGetRequest request, Task.WaitStrategy strategy, Function<String, R> finisher) {
-        return _rollingTask(request, strategy)
-                .thenApply(response -> finisher.apply(response.raw()));
-    }
-
-    // 滚动任务执行，直至完结（成功、取消、失败）
-    private CompletableFuture<TaskGetResponse> _rollingTask(TaskGetRequest taskGetRequest, Task.WaitStrategy strategy) {
-        return async(taskGetRequest)
-                .thenCompose(taskGetResponse -> {
+    record Route(EndpointResolver.Endpoint endpoint, ApiKeyPoolImpl.Key key) {
 
-                    // 获取任务
-                    final var task = taskGetResponse.output().task();
-
-                    // 任务取消
-                    if (task.status() == Task.Status.CANCELED) {
-                        throw new TaskException.TaskCancelledException(task.id());
-                    }
-
-                    // 任务失败
-                    if (task.status() == Task.Status.FAILED) {
-                        throw new TaskException.TaskFailedException(task.id(), taskGetResponse.ret());
-                    }
-
-                    // 任务成功
-                    if (task.status() == Task.Status.SUCCEEDED) {
-                        return CompletableFuture.completedFuture(taskGetResponse);
-                    }
-
-                    // 任务继续
-                    return strategy.performWait(task)
-
-                            // 失败则取消任务
-                            .exceptionallyCompose(ex -> {
-
-                                if (!task.isCancelable()) {
-                                    return failedFuture(ex);
-                                }
-
-                                final var taskCancelRequest = new TaskCancelRequest.Builder()
-                                        .taskId(task.id())
-                                        .building(builder -> Optional.ofNullable(taskGetRequest.timeout()).ifPresent(builder::timeout))
-                                        .build();
-                                return async(taskCancelRequest)
-                                        .whenComplete((cv, cex) -> logger.warn("dashscope://task/cancel completed: task={};", task.id(), cex))
-                                        .thenCompose(cv -> failedFuture(ex));
-
-                            })
-
-                            // 继续轮询
-                            .thenCompose(unused -> _rollingTask(taskGetRequest, strategy));
-                });
     }
 
 }
@@ -0,0 +1,391 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiKeyPool;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.base.api.RateLimit;
+import io.github.oldmanpushcart.internal.dashscope4j.util.ObserveFlowPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
+import static io.github.oldmanpushcart.internal.dashscope4j.util.CommonUtils.requireNonBlankString;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * AK池实现
+ * <p>
+ * 选择在池的锁内进行，只扫描一遍所有AK；统计计数无锁累加。
+ * 每秒请求数和每分钟令牌数按固定窗口计数，只用于判断AK是否饱和，不排队等待——排队由按模型配置的限流负责。
+ * </p>
+ */
+public class ApiKeyPoolImpl implements ApiKeyPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final List<Key> keys;
+    private final Duration cooldown;
+    private final Duration authCooldown;
+
+    // 负载相同时从上次选中的下一个开始，把请求摊开
+    private int cursor;
+
+    private ApiKeyPoolImpl(Builder builder) {
+        this.keys = builder.keys.stream()
+                .map(entry -> new Key(entry.ak(), entry.limit()))
+                .toList();
+        this.cooldown = builder.cooldown;
+        this.authCooldown = builder.authCooldown;
+    }
+
+    @Override
+    public List<KeyStats> stats() {
+        final var now = System.nanoTime();
+        return keys.stream()
+                .map(key -> key.stats(now))
+                .toList();
+    }
+
+    /**
+     * 租用AK
+     *
+     * @param pinned 固定的AK，{@code null}表示选择负载最低的AK
+     * @return 租约，请求结束时必须归还
+     */
+    Lease acquire(Key pinned) {
+        final var key = null != pinned ? pinned : select();
+        key.inflight.incrementAndGet();
+        key.requests.increment();
+        return new Lease(key);
+    }
+
+    private synchronized Key select() {
+        final var now = System.nanoTime();
+        final var size = keys.size();
+        Key best = null;
+        boolean bestSaturated = true;
+        double bestLoad = Double.MAX_VALUE;
+        for (int offset = 0; offset < size; offset++) {
+            final var index = (cursor + offset) % size;
+            final var key = keys.get(index);
+            if (key.isCooling(now)) {
+                continue;
+            }
+            final var saturated = key.isSaturated(now);
+            final var load = key.load();
+
+            // 未饱和的AK优先，其次负载最低
+            if (null == best || (bestSaturated && !saturated) || (bestSaturated == saturated && load < bestLoad)) {
+                best = key;
+                bestSaturated = saturated;
+                bestLoad = load;
+            }
+        }
+
+        // 全部在冷却时选最早恢复的
+        if (null == best) {
+            for (final var key : keys) {
+                if (null == best || key.coolUntilNanos - best.coolUntilNanos < 0) {
+                    best = key;
+                }
+            }
+        }
+
+        cursor = (keys.indexOf(best) + 1) % size;
+        best.count(now);
+        return best;
+    }
+
+    // 脱敏：只保留前3位和后4位
+    private static String mask(String ak) {
+        return ak.length() <= 8
+                ? "*".repeat(ak.length())
+                : "%s****%s".formatted(ak.substring(0, 3), ak.substring(ak.length() - 4));
+    }
+
+    /**
+     * AK及其状态
+     */
+    class Key {
+
+        private final String ak;
+        private final String name;
+        private final RateLimit limit;
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder unauthorized = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Map<String, LongAdder> usage = new ConcurrentHashMap<>();
+        private volatile long coolUntilNanos;
+
+        // 固定窗口计数：每秒请求数只在池的锁内访问，每分钟令牌数在AK的锁内访问
+        private long secondStartNanos;
+        private int secondRequests;
+        private long minuteStartNanos;
+        private long minuteTokens;
+
+        private Key(String ak, RateLimit limit) {
+            this.ak = ak;
+            this.name = mask(ak);
+            this.limit = limit;
+            this.coolUntilNanos = System.nanoTime();
+            this.secondStartNanos = coolUntilNanos;
+            this.minuteStartNanos = coolUntilNanos;
+        }
+
+        /**
+         * @return AK
+         */
+        String ak() {
+            return ak;
+        }
+
+        private boolean isCooling(long now) {
+            return now - coolUntilNanos < 0;
+        }
+
+        private double load() {
+            final var maxConcurrency = null == limit ? 0 : limit.maxConcurrency();
+            return maxConcurrency > 0 ? (double) inflight.get() / maxConcurrency : inflight.get();
+        }
+
+        private boolean isSaturated(long now) {
+            if (null == limit) {
+                return false;
+            }
+            if (limit.maxConcurrency() > 0 && inflight.get() >= limit.maxConcurrency()) {
+                return true;
+            }
+            if (limit.requestsPerSecond() > 0 && now - secondStartNanos < NANOS_PER_SECOND && secondRequests >= limit.requestsPerSecond()) {
+                return true;
+            }
+            synchronized (this) {
+                return limit.tokensPerMinute() > 0 && now - minuteStartNanos < NANOS_PER_MINUTE && minuteTokens >= limit.tokensPerMinute();
+            }
+        }
+
+        // 计入每秒请求数窗口
+        private void count(long now) {
+            if (now - secondStartNanos >= NANOS_PER_SECOND) {
+                secondStartNanos = now;
+                secondRequests = 0;
+            }
+            secondRequests++;
+        }
+
+        // 计入用量和每分钟令牌数窗口
+        private void consume(Usage usage) {
+            if (null == usage || null == usage.items()) {
+                return;
+            }
+            usage.items().forEach(item -> this.usage.computeIfAbsent(item.name(), k -> new LongAdder()).add(item.cost()));
+            final var tokens = RateLimiter.tokens(usage);
+            if (tokens > 0) {
+                synchronized (this) {
+                    final var now = System.nanoTime();
+                    if (now - minuteStartNanos >= NANOS_PER_MINUTE) {
+                        minuteStartNanos = now;
+                        minuteTokens = 0;
+                    }
+                    minuteTokens += tokens;
+                }
+            }
+        }
+
+        // 按失败原因计数并冷却，被调用方取消的不计
+        private void fail(Throwable ex, int status) {
+            final var cause = ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            final var apiStatus = cause instanceof ApiException apiEx ? apiEx.status() : status;
+            if (apiStatus == 429) {
+                throttled.increment();
+                final var retryAfter = cause instanceof ApiException apiEx ? apiEx.retryAfter() : null;
+                cool(null != retryAfter && retryAfter.compareTo(cooldown) > 0 ? retryAfter : cooldown);
+            } else if (apiStatus == 401 || apiStatus == 403) {
+                unauthorized.increment();
+                cool(authCooldown);
+                logger.warn("dashscope://ak/unauthorized ak={};status={};cooldown={};", name, apiStatus, authCooldown);
+            } else {
+                failed.increment();
+            }
+        }
+
+        private void cool(Duration duration) {
+            final var until = System.nanoTime() + duration.toNanos();
+            if (until - coolUntilNanos > 0) {
+                coolUntilNanos = until;
+            }
+        }
+
+        private KeyStats stats(long now) {
+            final var usage = new TreeMap<String, Long>();
+            this.usage.forEach((item, adder) -> usage.put(item, adder.sum()));
+            return new KeyStats(
+                    name,
+                    inflight.get(),
+                    requests.sum(),
+                    throttled.sum(),
+                    unauthorized.sum(),
+                    failed.sum(),
+                    Map.copyOf(usage),
+                    isCooling(now) ? Duration.ofNanos(coolUntilNanos - now) : Duration.ZERO
+            );
+        }
+
+        @Override
+        public String toString() {
+            return "Key[%s]".formatted(name);
+        }
+
+    }
+
+    /**
+     * AK租约
+     * <p>一次请求尝试持有一个租约，结束时归还并记录用量或失败；重复归还只生效一次</p>
+     */
+    class Lease {
+
+        private final Key key;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile int status;
+
+        private Lease(Key key) {
+            this.key = key;
+        }
+
+        /**
+         * @return 租用的AK
+         */
+        Key key() {
+            return key;
+        }
+
+        /**
+         * 观察应答头，记录HTTP状态用于判断失败原因
+         *
+         * @param handler 应答体处理器
+         * @param <T>     应答体类型
+         * @return 观察后的应答体处理器
+         */
+        <T> HttpResponse.BodyHandler<T> observe(HttpResponse.BodyHandler<T> handler) {
+            return info -> {
+                status = info.statusCode();
+                return handler.apply(info);
+            };
+        }
+
+        /**
+         * 归还租约
+         *
+         * @param usage 用量，未知时为{@code null}
+         * @param ex    失败原因，成功时为{@code null}
+         */
+        void release(Usage usage, Throwable ex) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            key.inflight.decrementAndGet();
+            key.consume(usage);
+            if (null != ex) {
+                key.fail(ex, status);
+            }
+        }
+
+        /**
+         * 在事件流结束或被取消时归还租约，以最后一个应答的用量计算消耗
+         *
+         * @param publisher 事件流
+         * @param <R>       应答类型
+         * @return 事件流
+         */
+        <R extends ApiResponse<?>> Flow.Publisher<R> releaseOnTerminate(Flow.Publisher<R> publisher) {
+            final var usage = new AtomicReference<Usage>();
+            return ObserveFlowPublisher.observe(
+                    publisher,
+                    item -> {
+                        if (null != item.usage()) {
+                            usage.set(item.usage());
+                        }
+                    },
+                    ex -> release(usage.get(), ex)
+            );
+        }
+
+    }
+
+    /**
+     * AK池构建器实现
+     */
+    public static class Builder implements ApiKeyPool.Builder {
+
+        private final List<Entry> keys = new ArrayList<>();
+        private Duration cooldown = Duration.ofSeconds(10);
+        private Duration authCooldown = Duration.ofMinutes(5);
+
+        private record Entry(String ak, RateLimit limit) {
+
+        }
+
+        @Override
+        public ApiKeyPool.Builder key(String ak) {
+            keys.add(new Entry(requireNonBlankString(ak), null));
+            return this;
+        }
+
+        @Override
+        public ApiKeyPool.Builder key(String ak, RateLimit limit) {
+            keys.add(new Entry(requireNonBlankString(ak), requireNonNull(limit)));
+            return this;
+        }
+
+        @Override
+        public ApiKeyPool.Builder cooldown(Duration cooldown) {
+            if (requireNonNull(cooldown).isNegative()) {
+                throw new IllegalArgumentException("cooldown must not be negative");
+            }
+            this.cooldown = cooldown;
+            return this;
+        }
+
+        @Override
+        public ApiKeyPool.Builder authCooldown(Duration authCooldown) {
+            if (requireNonNull(authCooldown).isNegative()) {
+                throw new IllegalArgumentException("authCooldown must not be negative");
+            }
+            this.authCooldown = authCooldown;
+            return this;
+        }
+
+        @Override
+        public ApiKeyPoolImpl build() {
+            if (keys.isEmpty()) {
+                throw new IllegalArgumentException("at least one key is required");
+            }
+            return new ApiKeyPoolImpl(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
+import io.github.oldmanpushcart.dashscope4j.metrics.FlowTiming;
+import io.github.oldmanpushcart.internal.dashscope4j.util.ObserveFlowPublisher;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单次请求的度量
+ * <p>
+ * 记录一次HTTP请求从发出到结束的各个阶段并回调{@link ApiMetrics}；
+ * 只度量带有模型的算法请求，其他请求或未配置度量时得到{@link #NONE}，所有记录都不做任何事。
+ * </p>
+ */
+class ApiMeter {
+
+    // 不做任何度量
+    static final ApiMeter NONE = new ApiMeter(ApiMetrics.NONE, null);
+
+    private final ApiMetrics metrics;
+    private final ApiMetrics.Key key;
+    private final long begin = System.nanoTime();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile long firstByte;
+
+    private ApiMeter(ApiMetrics metrics, ApiMetrics.Key key) {
+        this.metrics = metrics;
+        this.key = key;
+    }
+
+    /**
+     * 开始度量一次请求
+     *
+     * @param metrics     度量
+     * @param request     API请求
+     * @param mode        请求方式
+     * @param httpRequest 发出的HTTP请求
+     * @return 请求的度量
+     */
+    static ApiMeter start(ApiMetrics metrics, ApiRequest<?> request, ApiMetrics.Mode mode, HttpRequest httpRequest) {
+        if (ApiMetrics.NONE == metrics || !(request instanceof AlgoRequest<?> algo) || null == algo.model()) {
+            return NONE;
+        }
+        final var meter = new ApiMeter(metrics, new ApiMetrics.Key(algo.model().name(), mode));
+        metrics.requestStarted(meter.key, httpRequest.bodyPublisher()
+                .map(HttpRequest.BodyPublisher::contentLength)
+                .orElse(-1L));
+        return meter;
+    }
+
+    /**
+     * 观察HTTP应答头的到达，记录首字节耗时
+     *
+     * @param handler 应答体处理器
+     * @param <T>     应答体类型
+     * @return 应答体处理器
+     */
+    <T> HttpResponse.BodyHandler<T> observeHeaders(HttpResponse.BodyHandler<T> handler) {
+        if (this == NONE) {
+            return handler;
+        }
+        return info -> {
+            final var now = System.nanoTime();
+            firstByte = now;
+            metrics.firstByte(key, now - begin);
+            return handler.apply(info);
+        };
+    }
+
+    /**
+     * 记录收到的应答字节数
+     *
+     * @param bytes 字节数
+     */
+    void bytesReceived(long bytes) {
+        if (this != NONE && bytes > 0) {
+            metrics.bytesReceived(key, bytes);
+        }
+    }
+
+    /**
+     * 记录请求的用量
+     *
+     * @param usage 用量，未知时为{@code null}
+     */
+    void usage(Usage usage) {
+        if (this != NONE && null != usage) {
+            metrics.usage(key, usage);
+        }
+    }
+
+    /**
+     * 记录请求结束，只记录一次
+     *
+     * @param ex 失败原因，成功时为{@code null}
+     */
+    void completed(Throwable ex) {
+        if (this != NONE && completed.compareAndSet(false, true)) {
+            metrics.requestCompleted(key, System.nanoTime() - begin, ex);
+        }
+    }
+
+    /**
+     * 观察HTTP应答体数据流，记录收到的字节数
+     *
+     * @param publisher 应答体数据流
+     * @return 应答体数据流
+     */
+    Flow.Publisher<List<ByteBuffer>> observeBody(Flow.Publisher<List<ByteBuffer>> publisher) {
+        if (this == NONE) {
+            return publisher;
+        }
+        return ObserveFlowPublisher.observe(
+                publisher,
+                buffers -> {
+                    var bytes = 0L;
+                    for (final var buffer : buffers) {
+                        bytes += buffer.remaining();
+                    }
+                    bytesReceived(bytes);
+                },
+                ex -> {
+                }
+        );
+    }
+
+    /**
+     * 观察流式应答，记录首个事件耗时、事件间隔和最后一个应答的用量，流正常结束时汇总耗时，流结束或被取消时记录请求结束
+     *
+     * @param publisher 应答流
+     * @param <R>       应答类型
+     * @return 应答流
+     */
+    <R extends ApiResponse<?>> Flow.Publisher<R> observeEvents(Flow.Publisher<R> publisher) {
+        if (this == NONE) {
+            return publisher;
+        }
+
+        // 事件按序串行到达，以下状态只在回调中访问
+        final var state = new Object() {
+            long first;
+            long last;
+            long maxGap;
+            int events;
+            String uuid;
+            Usage usage;
+        };
+        return ObserveFlowPublisher.observe(
+                publisher,
+                response -> {
+                    final var now = System.nanoTime();
+                    if (0 == state.events++) {
+                        state.first = now;
+                        metrics.firstEvent(key, now - begin);
+                    } else {
+                        final var gap = now - state.last;
+                        state.maxGap = Math.max(state.maxGap, gap);
+                        metrics.nextEvent(key, gap);
+                    }
+                    state.last = now;
+                    state.uuid = response.uuid();
+                    if (null != response.usage()) {
+                        state.usage = response.usage();
+                    }
+                },
+                ex -> {
+                    usage(state.usage);
+                    if (null == ex) {
+                        metrics.flowCompleted(new FlowTiming(
+                                key,
+                                state.uuid,
+                                begin,
+                                firstByte,
+                                state.first,
+                                state.last,
+                                System.nanoTime(),
+                                state.events,
+                                state.maxGap,
+                                state.usage
+                        ));
+                    }
+                    completed(ex);
+                }
+        );
+    }
+
+}
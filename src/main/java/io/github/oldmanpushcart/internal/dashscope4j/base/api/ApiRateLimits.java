@@ -0,0 +1,25 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.RateLimit;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * API限流配置
+ *
+ * @param limits       各模型的限流配置，以模型名称为键
+ * @param queueTimeout 排队超时，{@code null}表示一直等待
+ */
+public record ApiRateLimits(Map<String, RateLimit> limits, Duration queueTimeout) {
+
+    /**
+     * 不限流
+     */
+    public static final ApiRateLimits NONE = new ApiRateLimits(Map.of(), null);
+
+    public ApiRateLimits {
+        limits = Map.copyOf(limits);
+    }
+
+}
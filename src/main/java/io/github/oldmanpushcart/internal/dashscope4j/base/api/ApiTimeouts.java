@@ -0,0 +1,31 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
+
+import java.time.Duration;
+
+/**
+ * API超时配置
+ *
+ * @param timeout          请求总超时，仅在请求未设置超时时生效
+ * @param firstByteTimeout 首字节超时
+ * @param idleTimeout      空闲超时
+ */
+public record ApiTimeouts(Duration timeout, Duration firstByteTimeout, Duration idleTimeout) {
+
+    /**
+     * 不超时
+     */
+    public static final ApiTimeouts NONE = new ApiTimeouts(null, null, null);
+
+    /**
+     * 获取请求总超时
+     *
+     * @param request 请求
+     * @return 请求总超时，{@code null}表示不超时
+     */
+    public Duration timeout(ApiRequest<?> request) {
+        return null != request.timeout() ? request.timeout() : timeout;
+    }
+
+}
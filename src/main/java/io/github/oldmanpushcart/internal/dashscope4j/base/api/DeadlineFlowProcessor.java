@@ -0,0 +1,256 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
+import io.github.oldmanpushcart.internal.dashscope4j.util.FlowUtils;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 流式应答超时看门狗
+ * <p>
+ * 原样透传元素，同时监控流的总超时和空闲超时。超时后取消上游(从而取消底层的HTTP交互)，并向下游发出{@link ApiTimeoutException}。
+ * </p>
+ * <p>
+ * 空闲时间只在下游有未满足的需求时计算，下游消费缓慢不会被误判为空闲；
+ * 每条流只持有一个定时任务，到期检查后按剩余时间重新调度，不会为每个元素创建定时任务。
+ * 到期检查转交给线程池执行，取消上游和向下游发出超时都不占用全局共享的调度线程。
+ * </p>
+ *
+ * @param <T> 元素类型
+ */
+class DeadlineFlowProcessor<T> implements Flow.Processor<T, T> {
+
+    // 元素投递中时的重试检查间隔
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Duration timeout;
+    private final long deadline;
+    private final Duration idleTimeout;
+    private final long idle;
+    private final Executor executor;
+
+    // 保证向下游发送的信号串行
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // 下游未满足的需求
+    private final AtomicLong demand = new AtomicLong();
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super T> downstream;
+    private volatile ScheduledFuture<?> timer;
+    private volatile boolean ready;
+    private volatile long lastActivity;
+    private volatile boolean terminated;
+
+    // 超时异常，等待下游就绪后投递
+    private final AtomicReference<ApiTimeoutException> failure = new AtomicReference<>();
+
+    /**
+     * 构造看门狗
+     *
+     * @param timeout     剩余的总超时，{@code null}表示不限制
+     * @param idleTimeout 空闲超时，{@code null}表示不限制
+     * @param executor    执行到期检查的线程池
+     */
+    DeadlineFlowProcessor(Duration timeout, Duration idleTimeout, Executor executor) {
+        final var now = System.nanoTime();
+        this.timeout = timeout;
+        this.deadline = null == timeout ? 0L : now + timeout.toNanos();
+        this.idleTimeout = idleTimeout;
+        this.idle = null == idleTimeout ? 0L : idleTimeout.toNanos();
+        this.executor = executor;
+        this.lastActivity = now;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+
+        requireNonNull(subscriber);
+        if (null != downstream) {
+            FlowUtils.reject(subscriber, new IllegalStateException("processor publisher already subscribed"));
+            return;
+        }
+        downstream = subscriber;
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+
+            @Override
+            public void request(long n) {
+
+                // 非正数的申请以错误终止，并取消上游
+                if (n <= 0) {
+                    upstream.cancel();
+                    if (terminate()) {
+                        subscriber.onError(new IllegalArgumentException("non-positive request: %s".formatted(n)));
+                    }
+                    return;
+                }
+
+                if (demand.getAndAccumulate(n, FlowUtils::addCap) <= 0) {
+                    lastActivity = System.nanoTime();
+                }
+                upstream.request(n);
+            }
+
+            @Override
+            public void cancel() {
+                terminate();
+                upstream.cancel();
+            }
+
+        });
+
+        // 订阅期间可能已经超时
+        ready = true;
+        deliverFailure();
+
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        requireNonNull(subscription);
+        if (null != upstream) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        schedule(nextCheck(System.nanoTime()));
+    }
+
+    @Override
+    public void onNext(T item) {
+        lock.lock();
+        try {
+            if (terminated) {
+                return;
+            }
+            lastActivity = System.nanoTime();
+            demand.decrementAndGet();
+            downstream.onNext(item);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onError(Throwable ex) {
+        if (terminate()) {
+            downstream.onError(ex);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (terminate()) {
+            downstream.onComplete();
+        }
+    }
+
+    // 标记终止并取消定时任务，返回是否由本次调用终止
+    private boolean terminate() {
+        lock.lock();
+        try {
+            if (terminated) {
+                return false;
+            }
+            terminated = true;
+        } finally {
+            lock.unlock();
+        }
+        final var scheduled = timer;
+        if (null != scheduled) {
+            scheduled.cancel(false);
+        }
+        return true;
+    }
+
+    // 投递超时异常，保证只投递一次且在onSubscribe之后
+    private void deliverFailure() {
+        if (!ready) {
+            return;
+        }
+        final var ex = failure.getAndSet(null);
+        if (null != ex) {
+            downstream.onError(ex);
+        }
+    }
+
+    // 计算下次检查的延时
+    private long nextCheck(long now) {
+        var next = Long.MAX_VALUE;
+        if (null != timeout) {
+            next = deadline - now;
+        }
+        if (idle > 0) {
+            next = Math.min(next, demand.get() > 0 ? lastActivity + idle - now : idle);
+        }
+        return next;
+    }
+
+    private void schedule(long delayNanos) {
+        if (!terminated && (null != timeout || idle > 0)) {
+            timer = DelayScheduler.schedule(delayNanos, executor, this::check);
+        }
+    }
+
+    // 到期检查
+    private void check() {
+
+        if (terminated) {
+            return;
+        }
+
+        final var now = System.nanoTime();
+        final ApiTimeoutException ex;
+        if (null != timeout && now - deadline >= 0) {
+            ex = new ApiTimeoutException(ApiTimeoutException.Phase.TOTAL, timeout);
+        } else if (idle > 0 && demand.get() > 0 && now - lastActivity >= idle) {
+            ex = new ApiTimeoutException(ApiTimeoutException.Phase.IDLE, idleTimeout);
+        } else {
+            schedule(nextCheck(now));
+            return;
+        }
+
+        // 有元素正在向下游投递，说明流并不空闲，稍后再检查
+        if (!lock.tryLock()) {
+            schedule(RETRY_NANOS);
+            return;
+        }
+
+        try {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            failure.set(ex);
+        } finally {
+            lock.unlock();
+        }
+
+        upstream.cancel();
+        deliverFailure();
+
+    }
+
+    /**
+     * 监控{@link Flow.Publisher}
+     *
+     * @param source 源
+     * @return 目标
+     */
+    Flow.Publisher<T> transform(Flow.Publisher<T> source) {
+        source.subscribe(this);
+        return this;
+    }
+
+}
@@ -0,0 +1,262 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.EndpointPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
+
+/**
+ * 服务地址解析器
+ * <p>
+ * 按{@link EndpointPolicy}为每个请求选出根地址，并把默认根地址下的请求地址改写到选中的根地址；
+ * 每个根地址在收到应答头时记录耗时，在收到应答头之前失败或收到{@code 5xx}、{@code 429}应答时记录错误。
+ * </p>
+ * <p>
+ * 错误率超过上限的根地址冷却一段时间，冷却结束后只放行一个探测请求(探测期间再冷却一轮)，探测成功后才恢复正常路由。
+ * </p>
+ */
+class EndpointResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final EndpointPolicy policy;
+    private final List<Endpoint> endpoints;
+
+    /**
+     * 构造服务地址解析器
+     *
+     * @param policy 服务地址策略，{@code null}表示只使用默认根地址
+     */
+    EndpointResolver(EndpointPolicy policy) {
+        this.policy = null == policy ? EndpointPolicy.of(ApiExecutor.DEFAULT_BASE_URI) : policy;
+        this.endpoints = this.policy.endpoints().stream()
+                .map(Endpoint::new)
+                .toList();
+    }
+
+    /**
+     * 选择根地址
+     * <p>闲置超过探测间隔的健康根地址和冷却结束的根地址优先被选中一次，其余按耗时最低选择</p>
+     *
+     * @return 根地址
+     */
+    Endpoint select() {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+        final var now = System.nanoTime();
+        final var probeIntervalNanos = policy.probeInterval().toNanos();
+        Endpoint best = null;
+        for (final var endpoint : endpoints) {
+            if (endpoint.isDown(now)) {
+                continue;
+            }
+            if (endpoint.tryProbe(now, probeIntervalNanos)) {
+                return endpoint;
+            }
+
+            // 冷却结束但尚未恢复，只接受探测请求
+            if (endpoint.down) {
+                continue;
+            }
+            if (null == best || endpoint.rank() < best.rank()) {
+                best = endpoint;
+            }
+        }
+
+        // 全部不健康时选最早恢复的
+        if (null == best) {
+            for (final var endpoint : endpoints) {
+                if (null == best || endpoint.downUntilNanos < best.downUntilNanos) {
+                    best = endpoint;
+                }
+            }
+        }
+
+        best.lastUsedNanos.set(now);
+        return best;
+    }
+
+    /**
+     * 根地址
+     */
+    class Endpoint {
+
+        private final URI base;
+        private final String prefix;
+        private final AtomicLong lastUsedNanos;
+
+        // 统计只在同步块内更新，选择时无锁读取；耗时在第一个成功样本之前未知
+        private volatile double latencyNanos = Double.NaN;
+        private volatile double errorRate;
+        private volatile long downUntilNanos;
+        private volatile boolean sampled;
+        private volatile boolean down;
+
+        private Endpoint(URI base) {
+            final var text = base.toString();
+            this.base = base;
+            this.prefix = text.endsWith("/") ? text.substring(0, text.length() - 1) : text;
+            this.lastUsedNanos = new AtomicLong(System.nanoTime());
+            this.downUntilNanos = lastUsedNanos.get();
+        }
+
+        /**
+         * @return 根地址
+         */
+        URI base() {
+            return base;
+        }
+
+        /**
+         * 将默认根地址下的请求地址改写到本根地址，其他地址保持不变
+         *
+         * @param uri 请求地址
+         * @return 改写后的地址
+         */
+        URI resolve(URI uri) {
+            final var defaultBase = ApiExecutor.DEFAULT_BASE_URI;
+            if (base == defaultBase
+                    || !defaultBase.getScheme().equalsIgnoreCase(uri.getScheme())
+                    || !defaultBase.getRawAuthority().equalsIgnoreCase(uri.getRawAuthority())) {
+                return uri;
+            }
+            return URI.create("%s%s%s".formatted(
+                    prefix,
+                    null == uri.getRawPath() ? "" : uri.getRawPath(),
+                    null == uri.getRawQuery() ? "" : "?" + uri.getRawQuery()
+            ));
+        }
+
+        /**
+         * 开始一次采样
+         *
+         * @return 采样
+         */
+        Sample begin() {
+            return new Sample(this, System.nanoTime());
+        }
+
+        private boolean isDown(long now) {
+            return now - downUntilNanos < 0;
+        }
+
+        // 冷却结束但尚未恢复时只放行一个探测请求，探测期间再冷却一轮；健康但闲置超过探测间隔时只放行一个请求
+        private boolean tryProbe(long now, long probeIntervalNanos) {
+            if (down) {
+                synchronized (this) {
+                    if (!down || isDown(now)) {
+                        return false;
+                    }
+                    downUntilNanos = now + policy.cooldown().toNanos();
+                    lastUsedNanos.set(now);
+                    return true;
+                }
+            }
+            final var last = lastUsedNanos.get();
+            return now - last > probeIntervalNanos && lastUsedNanos.compareAndSet(last, now);
+        }
+
+        // 选择时的排序：未采样的优先以测量耗时，只有错误样本的耗时未知，排在最后
+        private double rank() {
+            if (!sampled) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            final var latency = latencyNanos;
+            return Double.isNaN(latency) ? Double.POSITIVE_INFINITY : latency;
+        }
+
+        private synchronized void record(long latency, boolean error) {
+            final var alpha = policy.alpha();
+            if (!error) {
+                latencyNanos = Double.isNaN(latencyNanos) ? latency : latencyNanos + alpha * (latency - latencyNanos);
+            }
+            if (!sampled) {
+                sampled = true;
+                errorRate = error ? 1.0 : 0.0;
+            } else {
+                errorRate += alpha * ((error ? 1.0 : 0.0) - errorRate);
+            }
+
+            final var now = System.nanoTime();
+            if (error && errorRate > policy.maxErrorRate()) {
+                if (!isDown(now) && endpoints.size() > 1) {
+                    logger.warn("dashscope://endpoint/down endpoint={};errorRate={};cooldown={};", base, errorRate, policy.cooldown());
+                }
+                downUntilNanos = now + policy.cooldown().toNanos();
+                down = true;
+            } else if (!error && down) {
+                down = false;
+                logger.info("dashscope://endpoint/up endpoint={};errorRate={};", base, errorRate);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Endpoint[base=%s, latency=%.3fms, errorRate=%.3f]".formatted(base, latencyNanos / 1e6, errorRate);
+        }
+
+    }
+
+    /**
+     * 一次请求的采样
+     */
+    static class Sample {
+
+        private final Endpoint endpoint;
+        private final long beginNanos;
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private Sample(Endpoint endpoint, long beginNanos) {
+            this.endpoint = endpoint;
+            this.beginNanos = beginNanos;
+        }
+
+        /**
+         * 观察应答头，收到时记录耗时或错误
+         *
+         * @param handler 应答体处理器
+         * @param <T>     应答体类型
+         * @return 观察后的应答体处理器
+         */
+        <T> HttpResponse.BodyHandler<T> observe(HttpResponse.BodyHandler<T> handler) {
+            return info -> {
+                if (recorded.compareAndSet(false, true)) {
+                    final var status = info.statusCode();
+                    endpoint.record(System.nanoTime() - beginNanos, status >= 500 || status == 429);
+                }
+                return handler.apply(info);
+            };
+        }
+
+        /**
+         * 请求结束
+         * <p>收到应答头之前失败时记录错误，被调用方取消的不记录</p>
+         *
+         * @param ex 失败原因，成功时为{@code null}
+         */
+        void completed(Throwable ex) {
+            if (null == ex) {
+                return;
+            }
+            final var cause = ex instanceof CompletionException && null != ex.getCause() ? ex.getCause() : ex;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (recorded.compareAndSet(false, true)) {
+                endpoint.record(System.nanoTime() - beginNanos, true);
+            }
+        }
+
+    }
+
+}
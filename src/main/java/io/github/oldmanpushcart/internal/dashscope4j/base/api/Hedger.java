@@ -0,0 +1,241 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.HedgePolicy;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 对冲器
+ * <p>
+ * 按{@link HedgePolicy}对请求做对冲：每个键(模型名称)维护一个最近请求耗时的样本窗口，
+ * 请求超过窗口的分位耗时仍未完成时，在对冲额度允许的情况下再发出一个相同的请求，取先成功完成者并取消另一个。
+ * </p>
+ * <p>
+ * 失败不触发对冲(失败由重试处理)：对冲请求发出前的失败直接作为结果，发出后只有两个请求都失败才以后一个失败为结果。
+ * </p>
+ * <p>
+ * 样本只记录成功完成的请求。对冲请求胜出时，被取消的主请求以取消时已经过的耗时记为一个样本：
+ * 它的真实耗时只会更长，若只记录胜出者，长尾请求会被更快的对冲请求替代，分位耗时逐渐偏低，对冲越来越早、越来越多。
+ * </p>
+ */
+public class Hedger {
+
+    // 一次对冲消耗的额度
+    private static final long CREDIT = 1000L;
+
+    private final HedgePolicy policy;
+    private final Executor executor;
+
+    // 对冲额度：每个请求积攒比例上限的额度，最多积攒一个样本窗口的量
+    private final long creditPerRequest;
+    private final long maxCredits;
+    private final AtomicLong credits = new AtomicLong();
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    /**
+     * 构造对冲器
+     *
+     * @param policy   对冲策略
+     * @param executor 发出对冲请求的线程池
+     */
+    public Hedger(HedgePolicy policy, Executor executor) {
+        this.policy = policy;
+        this.executor = executor;
+        this.creditPerRequest = Math.round(policy.maxHedgeRatio() * CREDIT);
+        this.maxCredits = Math.max(CREDIT, Math.round(policy.maxHedgeRatio() * policy.window()) * CREDIT);
+    }
+
+    /**
+     * 对冲
+     *
+     * @param key    统计耗时的键
+     * @param action 发出一个请求
+     * @param <T>    结果类型
+     * @return 先成功完成的请求的结果；取消时同时取消所有请求
+     */
+    public <T> CompletableFuture<T> hedge(String key, Supplier<CompletableFuture<T>> action) {
+        credits.getAndUpdate(c -> Math.min(maxCredits, c + creditPerRequest));
+        final var stats = samples.computeIfAbsent(key, k -> new Samples(policy.window()));
+        final var delayNanos = stats.delayNanos();
+
+        // 样本不足以估计长尾，不对冲
+        if (delayNanos < 0) {
+            return launch(stats, action);
+        }
+
+        final var race = new Race<>(stats, action);
+        race.start(delayNanos);
+        return race.result;
+    }
+
+    // 发出请求，成功完成时记录耗时
+    private <T> CompletableFuture<T> launch(Samples stats, Supplier<CompletableFuture<T>> action) {
+        final var begin = System.nanoTime();
+        final var future = action.get();
+        future.whenComplete((v, ex) -> {
+            if (null == ex) {
+                stats.record(System.nanoTime() - begin);
+            }
+        });
+        return future;
+    }
+
+    // 尝试消耗一次对冲的额度
+    private boolean acquire() {
+        long current;
+        do {
+            current = credits.get();
+            if (current < CREDIT) {
+                return false;
+            }
+        } while (!credits.compareAndSet(current, current - CREDIT));
+        return true;
+    }
+
+    // 一次请求的主请求和对冲请求
+    private class Race<T> {
+
+        private final Samples stats;
+        private final Supplier<CompletableFuture<T>> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        // 尚未完成的请求数，归零后不再发出对冲请求
+        private final AtomicInteger remaining = new AtomicInteger(1);
+
+        private volatile CompletableFuture<T> primary;
+        private volatile CompletableFuture<T> secondary;
+
+        Race(Samples stats, Supplier<CompletableFuture<T>> action) {
+            this.stats = stats;
+            this.action = action;
+        }
+
+        void start(long delayNanos) {
+
+            final var begin = System.nanoTime();
+            final CompletableFuture<T> future;
+            try {
+                future = launch(stats, action);
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            primary = future;
+            future.whenComplete(this::onComplete);
+
+            // 到期仍未完成则对冲
+            final var scheduled = DelayScheduler.schedule(delayNanos, () -> {
+                try {
+                    executor.execute(this::hedge);
+                } catch (RejectedExecutionException ex) {
+                    // 线程池拒绝时放弃对冲，主请求照常进行
+                }
+            });
+
+            // 结束时取消定时器和未完成的请求，对冲请求胜出时主请求按已经过的耗时记录
+            result.whenComplete((v, ex) -> {
+                scheduled.cancel(false);
+                if (null == ex && !primary.isDone()) {
+                    stats.record(System.nanoTime() - begin);
+                }
+                cancel(primary);
+                cancel(secondary);
+            });
+
+        }
+
+        private void hedge() {
+            if (result.isDone() || !acquire()) {
+                return;
+            }
+
+            // 主请求已经失败则不再对冲
+            if (remaining.getAndUpdate(r -> r == 0 ? 0 : r + 1) == 0) {
+                credits.addAndGet(CREDIT);
+                return;
+            }
+
+            final CompletableFuture<T> future;
+            try {
+                future = launch(stats, action);
+            } catch (Throwable ex) {
+                onComplete(null, ex);
+                return;
+            }
+            secondary = future;
+            future.whenComplete(this::onComplete);
+
+            // 发出期间已有结果
+            if (result.isDone()) {
+                cancel(future);
+            }
+        }
+
+        private void onComplete(T value, Throwable ex) {
+            if (null == ex) {
+                result.complete(value);
+            } else if (remaining.decrementAndGet() == 0) {
+                result.completeExceptionally(ex);
+            }
+        }
+
+        private void cancel(CompletableFuture<T> future) {
+            if (null != future && !future.isDone()) {
+                future.cancel(true);
+            }
+        }
+
+    }
+
+    /**
+     * 耗时样本窗口
+     * <p>记录最近的请求耗时，每积累一定数量的新样本重新计算一次分位耗时</p>
+     */
+    private class Samples {
+
+        private final long[] ring;
+        private final int refresh;
+        private int count;
+        private int index;
+        private int fresh;
+
+        // 对冲等待时间，样本不足时为-1
+        private volatile long delayNanos = -1L;
+
+        Samples(int window) {
+            this.ring = new long[window];
+            this.refresh = Math.max(1, window / 16);
+        }
+
+        long delayNanos() {
+            return delayNanos;
+        }
+
+        synchronized void record(long nanos) {
+            ring[index] = nanos;
+            index = (index + 1) % ring.length;
+            count = Math.min(count + 1, ring.length);
+
+            // 样本刚好足够时立即计算，此后定期刷新
+            if (count >= policy.minSamples() && (delayNanos < 0 || ++fresh >= refresh)) {
+                fresh = 0;
+                final var sorted = Arrays.copyOf(ring, count);
+                Arrays.sort(sorted);
+                final var rank = (int) Math.ceil(policy.percentile() / 100 * count) - 1;
+                delayNanos = Math.max(policy.minDelay().toNanos(), sorted[Math.max(0, rank)]);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,359 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.base.algo.AlgoRequest;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.RateLimit;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
+import io.github.oldmanpushcart.internal.dashscope4j.util.ObserveFlowPublisher;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException.Phase.QUEUE;
+
+/**
+ * 限流器
+ * <p>
+ * 按模型名称对算法请求做准入控制：每个配置了{@link RateLimit}的模型有一个闸门，
+ * 请求先在闸门的等待队列中登记，由派发循环在每秒请求数、进行中的请求数和每分钟令牌数都允许时依次放行。
+ * 没有配置限流的模型和非算法请求(如任务查询)直接放行。
+ * </p>
+ * <p>
+ * 等待期间不占用线程：预算耗尽时挂在全局共享的{@link DelayScheduler}上补充，
+ * 并发已满时由进行中的请求结束后唤醒；放行后的请求转交给线程池发出，不占用调度线程。
+ * </p>
+ */
+class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final Executor executor;
+    private final Duration queueTimeout;
+    private final Map<String, Gate> gates;
+
+    /**
+     * 构造限流器
+     *
+     * @param limits   限流配置
+     * @param executor 放行请求的线程池
+     */
+    RateLimiter(ApiRateLimits limits, Executor executor) {
+        this.executor = executor;
+        this.queueTimeout = limits.queueTimeout();
+        final var gates = new HashMap<String, Gate>();
+        limits.limits().forEach((model, limit) -> gates.put(model, new Gate(limit)));
+        this.gates = Map.copyOf(gates);
+    }
+
+    /**
+     * 准入
+     * <p>获得许可后才执行动作；动作负责在请求结束时归还许可</p>
+     *
+     * @param request 请求
+     * @param action  动作
+     * @param <T>     结果类型
+     * @return 动作的结果
+     */
+    <T> CompletableFuture<T> admit(ApiRequest<?> request, Function<Permit, CompletableFuture<T>> action) {
+
+        // 不限流的请求直接执行
+        final var gate = gate(request);
+        if (null == gate) {
+            return action.apply(Permit.NONE);
+        }
+
+        final var future = new CompletableFuture<T>();
+        final var waiter = gate.acquire();
+
+        // 调用方取消时撤回等待
+        future.whenComplete((v, ex) -> {
+            if (future.isCancelled()) {
+                waiter.cancel(false);
+            }
+        });
+
+        waiter.whenComplete((permit, ex) -> {
+
+            // 排队超时
+            if (null != ex) {
+                future.completeExceptionally(ex);
+                return;
+            }
+
+            // 等待期间调用方已取消
+            if (future.isDone()) {
+                permit.release(null);
+                return;
+            }
+
+            final CompletableFuture<T> result;
+            try {
+                result = action.apply(permit);
+            } catch (Throwable cause) {
+                permit.release(null);
+                future.completeExceptionally(cause);
+                return;
+            }
+
+            // 调用方取消时同时取消请求
+            future.whenComplete((v, cex) -> {
+                if (future.isCancelled()) {
+                    result.cancel(true);
+                }
+            });
+            result.whenComplete((v, cex) -> {
+                if (null != cex) {
+                    future.completeExceptionally(cex);
+                } else {
+                    future.complete(v);
+                }
+            });
+
+        });
+
+        return future;
+    }
+
+    // 算法请求按模型名称匹配闸门
+    private Gate gate(ApiRequest<?> request) {
+        if (gates.isEmpty() || !(request instanceof AlgoRequest<?> algo) || null == algo.model()) {
+            return null;
+        }
+        return gates.get(algo.model().name());
+    }
+
+    // 从用量中计算消耗的令牌数：优先取总数，否则累加所有令牌项
+    static long tokens(Usage usage) {
+        if (null == usage) {
+            return 0L;
+        }
+        final var total = usage.total(item -> "total_tokens".equals(item.name()));
+        return total > 0 ? total : usage.total(item -> item.name().endsWith("_tokens"));
+    }
+
+    /**
+     * 许可
+     * <p>请求结束时归还，只归还一次</p>
+     */
+    static class Permit {
+
+        // 不限流的请求使用的许可
+        static final Permit NONE = new Permit(null);
+
+        private final Gate gate;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Gate gate) {
+            this.gate = gate;
+        }
+
+        /**
+         * 归还许可
+         *
+         * @param usage 请求消耗的用量，未知时为{@code null}
+         */
+        void release(Usage usage) {
+            if (null != gate && released.compareAndSet(false, true)) {
+                gate.release(tokens(usage));
+            }
+        }
+
+        /**
+         * 在事件流结束或被取消时归还许可，以最后一个应答的用量计算消耗
+         *
+         * @param publisher 事件流
+         * @param <R>       应答类型
+         * @return 事件流
+         */
+        <R extends ApiResponse<?>> Flow.Publisher<R> releaseOnTerminate(Flow.Publisher<R> publisher) {
+            if (null == gate) {
+                return publisher;
+            }
+
+            // 流式应答的用量是累计值，最后一个即为总消耗
+            final var usage = new AtomicReference<Usage>();
+            return ObserveFlowPublisher.observe(
+                    publisher,
+                    item -> {
+                        if (null != item.usage()) {
+                            usage.set(item.usage());
+                        }
+                    },
+                    ex -> release(usage.get())
+            );
+        }
+
+    }
+
+    // 单个模型的闸门
+    private class Gate {
+
+        private final long nanosPerRequest;
+        private final int maxConcurrency;
+        private final int tokensPerMinute;
+
+        // 等待队列：等待许可的请求
+        private final Queue<CompletableFuture<Permit>> waiters = new ConcurrentLinkedQueue<>();
+
+        // 保证同一时刻只有一个线程在派发
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // 预算耗尽时的补充定时器是否已挂起
+        private final AtomicBoolean armed = new AtomicBoolean();
+
+        // 进行中的请求数
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        // 已结束请求报告的、尚未从令牌预算中扣除的消耗
+        private final AtomicLong consumed = new AtomicLong();
+
+        // 请求令牌桶：下一个许可的可用时刻，只在派发循环中访问
+        private long nextPermitNanos;
+
+        // 每分钟令牌预算：当前余额和上次补充时刻，只在派发循环中访问
+        private double tokens;
+        private long refilledNanos;
+
+        Gate(RateLimit limit) {
+            final var now = System.nanoTime();
+            this.nanosPerRequest = limit.requestsPerSecond() > 0 ? NANOS_PER_SECOND / limit.requestsPerSecond() : 0L;
+            this.maxConcurrency = limit.maxConcurrency();
+            this.tokensPerMinute = limit.tokensPerMinute();
+            this.nextPermitNanos = now;
+            this.tokens = tokensPerMinute;
+            this.refilledNanos = now;
+        }
+
+        // 登记等待，排队超时后在线程池中以超时异常结束
+        CompletableFuture<Permit> acquire() {
+            final var waiter = new CompletableFuture<Permit>();
+            if (null != queueTimeout) {
+                final var scheduled = DelayScheduler.schedule(queueTimeout, executor, () ->
+                        waiter.completeExceptionally(new ApiTimeoutException(QUEUE, queueTimeout)));
+                waiter.whenComplete((v, ex) -> scheduled.cancel(false));
+            }
+            waiters.offer(waiter);
+            drain();
+            return waiter;
+        }
+
+        // 归还许可并扣除消耗，唤醒等待的请求
+        void release(long tokens) {
+            inflight.decrementAndGet();
+            if (tokens > 0 && tokensPerMinute > 0) {
+                consumed.addAndGet(tokens);
+            }
+            drain();
+        }
+
+        // 派发循环：依次放行等待的请求，直到某项限制不允许
+        private void drain() {
+
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                CompletableFuture<Permit> waiter;
+                while (null != (waiter = waiters.peek())) {
+
+                    // 已排队超时或被调用方取消
+                    if (waiter.isDone()) {
+                        waiters.poll();
+                        continue;
+                    }
+
+                    // 并发已满，等待进行中的请求结束
+                    if (maxConcurrency > 0 && inflight.get() >= maxConcurrency) {
+                        break;
+                    }
+
+                    // 预算耗尽，等待补充
+                    final var now = System.nanoTime();
+                    final var delayNanos = Math.max(awaitTokens(now), awaitRequest(now));
+                    if (delayNanos > 0) {
+                        arm(delayNanos);
+                        break;
+                    }
+
+                    waiters.poll();
+                    nextPermitNanos += nanosPerRequest;
+                    inflight.incrementAndGet();
+                    dispatch(waiter, new Permit(this));
+
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+
+        }
+
+        // 每秒请求数：返回需要等待的纳秒数，空闲期间积攒的许可最多只保留1秒，避免突发
+        private long awaitRequest(long now) {
+            if (nanosPerRequest <= 0) {
+                return 0L;
+            }
+            if (now - nextPermitNanos > NANOS_PER_SECOND) {
+                nextPermitNanos = now - NANOS_PER_SECOND;
+            }
+            return Math.max(0L, nextPermitNanos - now);
+        }
+
+        // 每分钟令牌数：补充余额并扣除已报告的消耗，余额为正即可放行，否则返回偿还透支需要等待的纳秒数
+        private long awaitTokens(long now) {
+            if (tokensPerMinute <= 0) {
+                return 0L;
+            }
+            tokens = Math.min(tokensPerMinute, tokens + (double) (now - refilledNanos) * tokensPerMinute / NANOS_PER_MINUTE);
+            tokens -= consumed.getAndSet(0L);
+            refilledNanos = now;
+            if (tokens > 0) {
+                return 0L;
+            }
+            return (long) Math.ceil((1 - tokens) * NANOS_PER_MINUTE / tokensPerMinute);
+        }
+
+        // 挂起补充定时器，同一时刻最多只有一个
+        private void arm(long delayNanos) {
+            if (armed.compareAndSet(false, true)) {
+                DelayScheduler.schedule(delayNanos, () -> {
+                    armed.set(false);
+                    drain();
+                });
+            }
+        }
+
+        // 在线程池中放行，等待期间已结束的请求立即归还许可
+        private void dispatch(CompletableFuture<Permit> waiter, Permit permit) {
+            try {
+                executor.execute(() -> {
+                    if (!waiter.complete(permit)) {
+                        permit.release(null);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                permit.release(null);
+                waiter.completeExceptionally(ex);
+            }
+        }
+
+    }
+
+}
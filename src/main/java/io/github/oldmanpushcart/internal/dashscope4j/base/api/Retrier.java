@@ -0,0 +1,156 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
+
+/**
+ * 重试器
+ * <p>
+ * 按{@link RetryPolicy}重复发起请求：每次尝试失败后判断是否可重试，在全局共享的{@link DelayScheduler}上等待退避时间，
+ * 再转交给线程池发起下一次尝试。调用方取消时同时取消正在进行的尝试或等待。
+ * </p>
+ */
+class Retrier {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final RetryPolicy policy;
+    private final Executor executor;
+
+    /**
+     * 构造重试器
+     *
+     * @param policy   重试策略，{@code null}表示不重试
+     * @param executor 发起重试的线程池
+     */
+    Retrier(RetryPolicy policy, Executor executor) {
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    /**
+     * @return 是否会重试
+     */
+    boolean isEnabled() {
+        return null != policy && policy.maxAttempts() > 1;
+    }
+
+    /**
+     * 重试
+     *
+     * @param attempt 发起一次尝试
+     * @param <T>     结果类型
+     * @return 最后一次尝试的结果
+     */
+    <T> CompletableFuture<T> retry(Supplier<CompletableFuture<T>> attempt) {
+        return retry(attempt, ex -> true);
+    }
+
+    /**
+     * 重试
+     *
+     * @param attempt   发起一次尝试
+     * @param retryable 在重试策略之外附加的可重试判断
+     * @param <T>       结果类型
+     * @return 最后一次尝试的结果
+     */
+    <T> CompletableFuture<T> retry(Supplier<CompletableFuture<T>> attempt, Predicate<Throwable> retryable) {
+        if (!isEnabled()) {
+            return attempt.get();
+        }
+        final var attempts = new Attempts<>(attempt, retryable);
+        attempts.next(1);
+        return attempts.future;
+    }
+
+    // 一次请求的所有尝试
+    private class Attempts<T> {
+
+        private final Supplier<CompletableFuture<T>> attempt;
+        private final Predicate<Throwable> retryable;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        // 正在进行的尝试或退避等待
+        private volatile CompletableFuture<?> current;
+
+        Attempts(Supplier<CompletableFuture<T>> attempt, Predicate<Throwable> retryable) {
+            this.attempt = attempt;
+            this.retryable = retryable;
+            future.whenComplete((v, ex) -> {
+                if (future.isCancelled()) {
+                    cancelCurrent();
+                }
+            });
+        }
+
+        // 发起第n次尝试
+        void next(int n) {
+
+            if (future.isDone()) {
+                return;
+            }
+
+            final CompletableFuture<T> stage;
+            try {
+                stage = attempt.get();
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+                return;
+            }
+            track(stage);
+
+            stage.whenComplete((v, ex) -> {
+
+                if (null == ex) {
+                    future.complete(v);
+                    return;
+                }
+
+                // 不可重试或次数已用完
+                if (future.isDone() || n >= policy.maxAttempts() || !policy.isRetryable(ex) || !retryable.test(ex)) {
+                    future.completeExceptionally(ex);
+                    return;
+                }
+
+                final var backoff = policy.backoff(n, ex);
+                logger.warn("dashscope://api/retry: attempt={};backoff={};cause={};", n, backoff, ex.toString());
+
+                final var waiting = DelayScheduler.delay(backoff);
+                track(waiting);
+                waiting.thenRunAsync(() -> next(n + 1), executor)
+                        .exceptionally(cause -> {
+                            future.completeExceptionally(cause);
+                            return null;
+                        });
+
+            });
+
+        }
+
+        // 记录正在进行的阶段，调用方已取消则立即取消
+        private void track(CompletableFuture<?> stage) {
+            current = stage;
+            if (future.isCancelled()) {
+                cancelCurrent();
+            }
+        }
+
+        private void cancelCurrent() {
+            final var stage = current;
+            if (null != stage) {
+                stage.cancel(true);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,233 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.base.task.Task;
+import io.github.oldmanpushcart.dashscope4j.base.task.TaskException;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
+import io.github.oldmanpushcart.internal.dashscope4j.base.task.TaskCancelRequest;
+import io.github.oldmanpushcart.internal.dashscope4j.base.task.TaskGetRequest;
+import io.github.oldmanpushcart.internal.dashscope4j.base.task.TaskGetResponse;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+
+/**
+ * 任务轮询器
+ * <p>
+ * 客户端内所有未完结的任务集中在此轮询：每个任务按自己的等待策略到期后进入就绪队列，
+ * 由轮询器统一按全局的每秒轮询预算发出{@link TaskGetRequest}，超出预算的任务顺延到下一个令牌可用时，
+ * 而不是每个任务各自维护一条独立的轮询链。
+ * </p>
+ * <p>
+ * 等待期间不占用线程，所有的延时都挂在全局共享的{@link DelayScheduler}上；
+ * 任务应答的Future被调用方取消后，任务在下一次轮询前被移出就绪队列。
+ * </p>
+ */
+class TaskPoller {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final ApiExecutor apiExecutor;
+    private final ApiMetrics metrics;
+    private final long nanosPerPermit;
+    private final long maxBurstNanos;
+
+    // 就绪队列：已到期等待轮询的任务
+    private final Queue<Entry> ready = new ConcurrentLinkedQueue<>();
+
+    // 保证同一时刻只有一个线程在派发
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // 预算耗尽时的补充定时器是否已挂起
+    private final AtomicBoolean armed = new AtomicBoolean();
+
+    // 令牌桶：下一个令牌的可用时刻，只在派发循环中访问
+    private long nextPermitNanos;
+
+    /**
+     * 构造任务轮询器
+     *
+     * @param apiExecutor    API执行器
+     * @param pollsPerSecond 全局每秒轮询预算，小于等于0表示不限制
+     * @param metrics        度量
+     */
+    TaskPoller(ApiExecutor apiExecutor, int pollsPerSecond, ApiMetrics metrics) {
+        this.apiExecutor = apiExecutor;
+        this.metrics = metrics;
+        this.nanosPerPermit = pollsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / pollsPerSecond : 0L;
+        this.maxBurstNanos = TimeUnit.SECONDS.toNanos(1);
+        this.nextPermitNanos = System.nanoTime();
+    }
+
+    /**
+     * 登记任务，轮询直至完结（成功、取消、失败）
+     *
+     * @param request  获取任务请求
+     * @param strategy 等待策略
+     * @param route    提交任务的根地址和AK，轮询和取消都使用此路由
+     * @return 任务完结时的应答
+     */
+    CompletableFuture<TaskGetResponse> poll(TaskGetRequest request, Task.WaitStrategy strategy, ApiExecutor.Route route) {
+        final var entry = new Entry(request, strategy, route);
+
+        // 首次查询立即进行
+        enqueue(entry);
+        return entry.future;
+    }
+
+    private void enqueue(Entry entry) {
+        ready.offer(entry);
+        drain();
+    }
+
+    // 派发循环：在预算内依次发出就绪任务的查询
+    private void drain() {
+
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            Entry entry;
+            while (null != (entry = ready.peek())) {
+
+                // 已被调用方取消的任务不再轮询
+                if (entry.future.isDone()) {
+                    ready.poll();
+                    continue;
+                }
+
+                // 预算耗尽，等待下一个令牌
+                final var delayNanos = acquire();
+                if (delayNanos > 0) {
+                    arm(delayNanos);
+                    break;
+                }
+
+                ready.poll();
+                fetch(entry);
+
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+
+    }
+
+    // 尝试获取令牌：成功返回0，否则返回需要等待的纳秒数
+    private long acquire() {
+        if (nanosPerPermit <= 0) {
+            return 0L;
+        }
+        final var now = System.nanoTime();
+
+        // 空闲期间积攒的令牌最多只保留1秒，避免突发
+        if (now - nextPermitNanos > maxBurstNanos) {
+            nextPermitNanos = now - maxBurstNanos;
+        }
+
+        final var waitNanos = nextPermitNanos - now;
+        if (waitNanos > 0) {
+            return waitNanos;
+        }
+        nextPermitNanos += nanosPerPermit;
+        return 0L;
+    }
+
+    // 挂起补充定时器，同一时刻最多只有一个
+    private void arm(long delayNanos) {
+        if (armed.compareAndSet(false, true)) {
+            DelayScheduler.schedule(delayNanos, () -> {
+                armed.set(false);
+                drain();
+            });
+        }
+    }
+
+    // 查询任务并根据状态决定完结或继续等待
+    private void fetch(Entry entry) {
+        final var request = entry.request;
+        metrics.taskPolled();
+        apiExecutor.async(request, entry.route)
+                .thenCompose(response -> {
+
+                    // 获取任务
+                    final var task = response.output().task();
+
+                    // 任务取消
+                    if (task.status() == Task.Status.CANCELED) {
+                        throw new TaskException.TaskCancelledException(task.id());
+                    }
+
+                    // 任务失败
+                    if (task.status() == Task.Status.FAILED) {
+                        throw new TaskException.TaskFailedException(task.id(), response.ret());
+                    }
+
+                    // 任务成功
+                    if (task.status() == Task.Status.SUCCEEDED) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+
+                    // 任务继续，等待策略到期后重新进入就绪队列
+                    return entry.strategy.performWait(task)
+                            .exceptionallyCompose(ex -> cancel(entry, task, ex))
+                            .thenApply(unused -> (TaskGetResponse) null);
+
+                })
+                .whenComplete((response, ex) -> {
+                    if (null != ex) {
+                        entry.future.completeExceptionally(ex);
+                    } else if (null != response) {
+                        entry.future.complete(response);
+                    } else {
+                        enqueue(entry);
+                    }
+                });
+    }
+
+    // 等待失败则取消任务
+    private <T> CompletableFuture<T> cancel(Entry entry, Task task, Throwable ex) {
+        final var request = entry.request;
+
+        if (!task.isCancelable()) {
+            return failedFuture(ex);
+        }
+
+        final var taskCancelRequest = new TaskCancelRequest.Builder()
+                .taskId(task.id())
+                .building(builder -> Optional.ofNullable(request.timeout()).ifPresent(builder::timeout))
+                .build();
+        return apiExecutor.async(taskCancelRequest, entry.route)
+                .whenComplete((cv, cex) -> logger.warn("dashscope://task/cancel completed: task={};", task.id(), cex))
+                .thenCompose(cv -> failedFuture(ex));
+
+    }
+
+    // 轮询项
+    private static class Entry {
+
+        private final TaskGetRequest request;
+        private final Task.WaitStrategy strategy;
+        private final ApiExecutor.Route route;
+        private final CompletableFuture<TaskGetResponse> future = new CompletableFuture<>();
+
+        Entry(TaskGetRequest request, Task.WaitStrategy strategy, ApiExecutor.Route route) {
+            this.request = request;
+            this.strategy = strategy;
+            this.route = route;
+        }
+
+    }
+
+}
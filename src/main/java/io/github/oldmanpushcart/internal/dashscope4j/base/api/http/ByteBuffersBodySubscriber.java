@@ -0,0 +1,135 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api.http;
+
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.LongConsumer;
+
+/**
+ * HTTP应答体订阅者
+ * <p>
+ * 直接保留HTTP客户端交付的数据块，应答体接收完整后以字节流的形式交付，
+ * 避免像{@link HttpResponse.BodySubscribers#ofString}那样先拼接为完整字节数组再解码为字符串。
+ * </p>
+ */
+public class ByteBuffersBodySubscriber implements HttpResponse.BodySubscriber<InputStream> {
+
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private final CompletableFuture<InputStream> body = new CompletableFuture<>();
+    private final LongConsumer onReceived;
+    private long received;
+
+    private ByteBuffersBodySubscriber(LongConsumer onReceived) {
+        this.onReceived = onReceived;
+    }
+
+    /**
+     * @return 应答体处理器
+     */
+    public static HttpResponse.BodyHandler<InputStream> handler() {
+        return handler(bytes -> {
+        });
+    }
+
+    /**
+     * @param onReceived 应答体接收完整时回调收到的字节数
+     * @return 应答体处理器
+     */
+    public static HttpResponse.BodyHandler<InputStream> handler(LongConsumer onReceived) {
+        return info -> new ByteBuffersBodySubscriber(onReceived);
+    }
+
+    @Override
+    public CompletionStage<InputStream> getBody() {
+        return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        for (final var item : items) {
+            received += item.remaining();
+        }
+        buffers.addAll(items);
+    }
+
+    @Override
+    public void onError(Throwable ex) {
+        buffers.clear();
+        body.completeExceptionally(ex);
+    }
+
+    @Override
+    public void onComplete() {
+        onReceived.accept(received);
+        body.complete(new ByteBuffersInputStream(buffers));
+    }
+
+    /**
+     * 数据块字节流
+     */
+    private static class ByteBuffersInputStream extends InputStream {
+
+        private final List<ByteBuffer> buffers;
+        private int index = 0;
+
+        ByteBuffersInputStream(List<ByteBuffer> buffers) {
+            this.buffers = buffers;
+        }
+
+        // 定位到下一个有剩余数据的数据块，已读完的数据块及时释放
+        private ByteBuffer current() {
+            while (index < buffers.size()) {
+                final var buffer = buffers.get(index);
+                if (buffer.hasRemaining()) {
+                    return buffer;
+                }
+                buffers.set(index++, null);
+            }
+            return null;
+        }
+
+        @Override
+        public int read() {
+            final var buffer = current();
+            return null == buffer ? -1 : buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            final var buffer = current();
+            if (null == buffer) {
+                return -1;
+            }
+            final var count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            final var buffer = current();
+            return null == buffer ? 0 : buffer.remaining();
+        }
+
+        @Override
+        public void close() {
+            buffers.clear();
+            index = 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,412 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api.http;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.ConnectionPool;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 连接池实现
+ * <p>
+ * JDK的{@link HttpClient}不暴露连接，新建的连接通过包装的{@link SSLContext}统计：每个TLS连接创建一次{@link SSLEngine}。
+ * 请求数和闲置时间通过包装的{@link HttpTransport}统计，闲置时间按客户端分别记录，保活只补足本客户端的连接。
+ * 只统计绑定时登记的根地址，发往其他主机(如文件上传地址)的请求和连接不计入。
+ * </p>
+ */
+public class ConnectionPoolImpl implements ConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final HttpClient.Version version;
+    private final int warmConnections;
+    private final Duration keepAliveInterval;
+    private final Duration warmupTimeout;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Entry> ordered = new CopyOnWriteArrayList<>();
+
+    private ConnectionPoolImpl(Builder builder) {
+        this.version = builder.version;
+        this.warmConnections = builder.warmConnections;
+        this.keepAliveInterval = builder.keepAliveInterval;
+        this.warmupTimeout = builder.warmupTimeout;
+    }
+
+    @Override
+    public List<EndpointStats> stats() {
+        return ordered.stream()
+                .map(Entry::stats)
+                .toList();
+    }
+
+    /**
+     * @return HTTP协议版本
+     */
+    public HttpClient.Version version() {
+        return version;
+    }
+
+    /**
+     * 创建统计新建连接的{@link SSLContext}
+     *
+     * @return SSL上下文，包装JVM默认的SSL上下文
+     */
+    public SSLContext sslContext() {
+        try {
+            final var delegate = SSLContext.getDefault();
+            return new CountingSSLContext(new CountingSSLContextSpi(delegate), delegate);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("default SSLContext is unavailable", ex);
+        }
+    }
+
+    /**
+     * 绑定传输
+     * <p>返回统计请求的传输，同时预热每个根地址并开始保活；在预热完成或超时后返回</p>
+     *
+     * @param transport 传输
+     * @param endpoints 根地址列表
+     * @return 绑定后的传输
+     */
+    public HttpTransport bind(HttpTransport transport, List<URI> endpoints) {
+        endpoints.forEach(endpoint -> register(endpoint.getScheme(), endpoint.getHost(), endpoint.getPort()));
+        final var bound = new BoundTransport(transport);
+        if (warmConnections > 0) {
+            warmup(bound, endpoints);
+        }
+        if (null != keepAliveInterval) {
+            final var reference = new WeakReference<>(bound);
+            DelayScheduler.schedule(keepAliveInterval, () -> keepAlive(reference, endpoints));
+        }
+        return bound;
+    }
+
+    // 并发预热每个根地址
+    private void warmup(BoundTransport bound, List<URI> endpoints) {
+        final var futures = endpoints.stream()
+                .map(endpoint -> warmup(bound, endpoint))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(futures)
+                    .get(warmupTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            logger.warn("dashscope://connection/warmup timeout={};", warmupTimeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            // 失败已在每个请求完成时记录
+        }
+    }
+
+    // HTTP/2下一个连接即可承载全部请求，先预热一个连接，协商回退到HTTP/1.1时再补足其余连接
+    private CompletableFuture<?> warmup(BoundTransport bound, URI endpoint) {
+        if (version != HttpClient.Version.HTTP_2) {
+            return exchanges(bound, endpoint, warmConnections, warmupTimeout, true);
+        }
+        final var entry = lookup(endpoint.getScheme(), endpoint.getHost(), endpoint.getPort());
+        return exchange(bound, endpoint, warmupTimeout, true)
+                .thenCompose(unused -> entry.version == HttpClient.Version.HTTP_1_1
+                        ? exchanges(bound, endpoint, warmConnections - 1, warmupTimeout, true)
+                        : CompletableFuture.completedFuture(null));
+    }
+
+    // 客户端不可达后停止保活
+    private void keepAlive(WeakReference<BoundTransport> reference, List<URI> endpoints) {
+        final var bound = reference.get();
+        if (null == bound) {
+            return;
+        }
+        final var now = System.nanoTime();
+        for (final var endpoint : endpoints) {
+            if (bound.idleNanos(lookup(endpoint.getScheme(), endpoint.getHost(), endpoint.getPort()), now) < keepAliveInterval.toNanos()) {
+                continue;
+            }
+            exchanges(bound, endpoint, connections(endpoint), keepAliveInterval, false);
+        }
+        DelayScheduler.schedule(keepAliveInterval, () -> keepAlive(reference, endpoints));
+    }
+
+    // 保活的连接数：协商为HTTP/2时只需一个，HTTP/1.1下按预热的连接数
+    private int connections(URI endpoint) {
+        final var entry = lookup(endpoint.getScheme(), endpoint.getHost(), endpoint.getPort());
+        return entry.version == HttpClient.Version.HTTP_2 ? 1 : Math.max(1, warmConnections);
+    }
+
+    // 并发发出多个预热或保活请求，HTTP/1.1下每个请求各占一个连接
+    private CompletableFuture<?> exchanges(BoundTransport bound, URI endpoint, int count, Duration timeout, boolean warmup) {
+        final var futures = new ArrayList<CompletableFuture<?>>(count);
+        for (int index = 0; index < count; index++) {
+            futures.add(exchange(bound, endpoint, timeout, warmup));
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+    }
+
+    // 预热和保活请求：不带AK，只为建立和保持连接
+    private CompletableFuture<?> exchange(BoundTransport bound, URI endpoint, Duration timeout, boolean warmup) {
+        final var entry = lookup(endpoint.getScheme(), endpoint.getHost(), endpoint.getPort());
+        final var request = HttpRequest.newBuilder(endpoint.resolve("/"))
+                .timeout(timeout)
+                .GET()
+                .build();
+        return bound.send(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, ex) -> {
+                    if (null != ex) {
+                        entry.failed.increment();
+                        if (warmup) {
+                            logger.warn("dashscope://connection/warmup endpoint={};error={};", endpoint, ex.toString());
+                        } else {
+                            logger.debug("dashscope://connection/ping endpoint={};error={};", endpoint, ex.toString());
+                        }
+                    } else if (warmup) {
+                        entry.warmups.increment();
+                    } else {
+                        entry.pings.increment();
+                    }
+                });
+    }
+
+    private static String key(String scheme, String host, int port) {
+        final var effectivePort = port >= 0 ? port : "https".equalsIgnoreCase(scheme) ? 443 : 80;
+        return "%s:%d".formatted(null == host ? "" : host.toLowerCase(), effectivePort);
+    }
+
+    // 登记根地址
+    private Entry register(String scheme, String host, int port) {
+        return entries.computeIfAbsent(key(scheme, host, port), k -> {
+            final var entry = new Entry(URI.create("%s://%s%s".formatted(
+                    scheme.toLowerCase(),
+                    host,
+                    port >= 0 ? ":" + port : ""
+            )));
+            ordered.add(entry);
+            return entry;
+        });
+    }
+
+    // 查找已登记的根地址，未登记时返回null
+    private Entry lookup(String scheme, String host, int port) {
+        return entries.get(key(scheme, host, port));
+    }
+
+    /**
+     * 根地址的统计
+     */
+    private static class Entry {
+
+        private final URI endpoint;
+        private final LongAdder exchanges = new LongAdder();
+        private final LongAdder connections = new LongAdder();
+        private final LongAdder warmups = new LongAdder();
+        private final LongAdder pings = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private volatile HttpClient.Version version;
+
+        private Entry(URI endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private EndpointStats stats() {
+            return new EndpointStats(
+                    endpoint,
+                    version,
+                    exchanges.sum(),
+                    connections.sum(),
+                    warmups.sum(),
+                    pings.sum(),
+                    failed.sum()
+            );
+        }
+
+    }
+
+    /**
+     * 统计请求的传输
+     */
+    private class BoundTransport implements HttpTransport {
+
+        private final HttpTransport delegate;
+        private final Map<Entry, AtomicLong> lastUsedNanos = new ConcurrentHashMap<>();
+
+        private BoundTransport(HttpTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            final var uri = request.uri();
+            final var entry = lookup(uri.getScheme(), uri.getHost(), uri.getPort());
+            if (null == entry) {
+                return delegate.send(request, handler);
+            }
+            entry.exchanges.increment();
+            lastUsedNanos.computeIfAbsent(entry, k -> new AtomicLong()).set(System.nanoTime());
+            return delegate.send(request, info -> {
+                entry.version = info.version();
+                return handler.apply(info);
+            });
+        }
+
+        private long idleNanos(Entry entry, long now) {
+            final var lastUsed = lastUsedNanos.get(entry);
+            return null == lastUsed ? Long.MAX_VALUE : now - lastUsed.get();
+        }
+
+    }
+
+    /**
+     * 统计新建连接的SSL上下文
+     */
+    private static class CountingSSLContext extends SSLContext {
+
+        private CountingSSLContext(SSLContextSpi spi, SSLContext delegate) {
+            super(spi, delegate.getProvider(), delegate.getProtocol());
+        }
+
+    }
+
+    /**
+     * 统计新建连接的SSL上下文实现，除创建引擎时计数外全部委派
+     */
+    private class CountingSSLContextSpi extends SSLContextSpi {
+
+        private final SSLContext delegate;
+
+        private CountingSSLContextSpi(SSLContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+            throw new KeyManagementException("already initialized");
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            return delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            final var entry = lookup("https", host, port);
+            if (null != entry) {
+                entry.connections.increment();
+            }
+            return delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+
+    }
+
+    /**
+     * 连接池构建器实现
+     */
+    public static class Builder implements ConnectionPool.Builder {
+
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private int warmConnections;
+        private Duration keepAliveInterval;
+        private Duration warmupTimeout = Duration.ofSeconds(5);
+
+        @Override
+        public ConnectionPool.Builder version(HttpClient.Version version) {
+            this.version = requireNonNull(version);
+            return this;
+        }
+
+        @Override
+        public ConnectionPool.Builder warmConnections(int warmConnections) {
+            if (warmConnections < 0) {
+                throw new IllegalArgumentException("warmConnections must not be negative");
+            }
+            this.warmConnections = warmConnections;
+            return this;
+        }
+
+        @Override
+        public ConnectionPool.Builder keepAliveInterval(Duration keepAliveInterval) {
+            if (requireNonNull(keepAliveInterval).isNegative() || keepAliveInterval.isZero()) {
+                throw new IllegalArgumentException("keepAliveInterval must be positive");
+            }
+            this.keepAliveInterval = keepAliveInterval;
+            return this;
+        }
+
+        @Override
+        public ConnectionPool.Builder warmupTimeout(Duration warmupTimeout) {
+            if (requireNonNull(warmupTimeout).isNegative() || warmupTimeout.isZero()) {
+                throw new IllegalArgumentException("warmupTimeout must be positive");
+            }
+            this.warmupTimeout = warmupTimeout;
+            return this;
+        }
+
+        @Override
+        public ConnectionPool build() {
+            return new ConnectionPoolImpl(this);
+        }
+
+    }
+
+}
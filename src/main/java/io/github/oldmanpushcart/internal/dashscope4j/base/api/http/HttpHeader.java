@@ -4,6 +4,10 @@ import io.github.oldmanpushcart.internal.dashscope4j.util.FeatureCodec;
 
 import java.net.http.HttpHeaders;
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Map;
 
 import static java.util.Collections.emptyMap;
@@ -43,6 +47,41 @@ public class HttpHeader {
      */
     public static final String HEADER_X_DASHSCOPE_PLUGIN = "X-DashScope-Plugin";
 
+    /**
+     * HTTP-HEADER: Retry-After
+     */
+    public static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    /**
+     * 解析Retry-After
+     * <p>支持秒数和HTTP日期两种格式，已过期的日期视为立即重试</p>
+     *
+     * @param headers HTTP头
+     * @return 重试等待时间，没有或无法解析时为{@code null}
+     */
+    public static Duration parseRetryAfter(HttpHeaders headers) {
+        return headers.firstValue(HEADER_RETRY_AFTER)
+                .map(String::trim)
+                .map(value -> {
+
+                    // delay-seconds
+                    if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+                        return Duration.ofSeconds(Long.parseLong(value));
+                    }
+
+                    // HTTP-date
+                    try {
+                        final var date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                        final var delay = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                        return delay.isNegative() ? Duration.ZERO : delay;
+                    } catch (DateTimeParseException ex) {
+                        return null;
+                    }
+
+                })
+                .orElse(null);
+    }
+
     /**
      * HTTP Content-Type
      *
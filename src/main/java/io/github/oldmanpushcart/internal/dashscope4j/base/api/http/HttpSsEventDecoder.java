@@ -0,0 +1,225 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * HTTP-SSE增量解码器
+ * <p>
+ * 直接在{@link ByteBuffer}上逐行扫描SSE边界（{@code \n\n}或{@code \r\n\r\n}），字段值通过偏移量在原缓冲区上切片解码，
+ * 只有跨越多个缓冲区的残行才会被拷贝到行缓冲中。
+ * </p>
+ * <p>与SSE规范一致，数据流在事件的空行之前结束时，未完成的事件被丢弃</p>
+ * <p>解码器是有状态的，不是线程安全的，一个解码器只能服务于一条SSE数据流</p>
+ */
+public class HttpSsEventDecoder {
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+    private static final byte COLON = ':';
+
+    private static final byte[] FIELD_ID = {'i', 'd'};
+    private static final byte[] FIELD_EVENT = {'e', 'v', 'e', 'n', 't'};
+    private static final byte[] FIELD_DATA = {'d', 'a', 't', 'a'};
+
+    private final Charset charset;
+
+    // 行缓冲：仅用于暂存跨越缓冲区边界的残行
+    private byte[] line = new byte[256];
+    private int lineLength = 0;
+    private ByteBuffer lineView = ByteBuffer.wrap(line);
+
+    // 解码暂存：用于无法直接访问底层数组的缓冲区
+    private byte[] scratch = new byte[256];
+
+    // 当前正在解析的事件
+    private String id;
+    private String type;
+    private String data;
+    private Set<String> meta;
+
+    /**
+     * 构造SSE增量解码器
+     *
+     * @param charset 字符集
+     */
+    public HttpSsEventDecoder(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * 解码
+     *
+     * @param buffers 数据块
+     * @return 本次解码完成的SSE事件
+     */
+    public List<HttpSsEvent> decode(List<ByteBuffer> buffers) {
+        List<HttpSsEvent> events = null;
+        for (final var buffer : buffers) {
+            events = decode(buffer, events);
+        }
+        return null == events ? Collections.emptyList() : events;
+    }
+
+    /**
+     * 解码
+     *
+     * @param buffer 数据块
+     * @return 本次解码完成的SSE事件
+     */
+    public List<HttpSsEvent> decode(ByteBuffer buffer) {
+        final var events = decode(buffer, null);
+        return null == events ? Collections.emptyList() : events;
+    }
+
+    private List<HttpSsEvent> decode(ByteBuffer buffer, List<HttpSsEvent> events) {
+        final var limit = buffer.limit();
+        var start = buffer.position();
+        for (int index = start; index < limit; index++) {
+            if (buffer.get(index) != LF) {
+                continue;
+            }
+
+            // 没有残行，直接在原缓冲区上解析本行
+            final HttpSsEvent event;
+            if (lineLength == 0) {
+                event = onLine(buffer, start, index);
+            }
+
+            // 存在残行，拼接后在行缓冲上解析
+            else {
+                append(buffer, start, index);
+                event = onLine(lineView, 0, lineLength);
+                lineLength = 0;
+            }
+
+            if (null != event) {
+                if (null == events) {
+                    events = new ArrayList<>();
+                }
+                events.add(event);
+            }
+            start = index + 1;
+        }
+
+        // 剩余的残行暂存到行缓冲，等待下一个数据块
+        if (start < limit) {
+            append(buffer, start, limit);
+        }
+
+        buffer.position(limit);
+        return events;
+    }
+
+    // 解析一行，遇到空行时完成一个事件
+    private HttpSsEvent onLine(ByteBuffer buffer, int from, int to) {
+
+        // 兼容CRLF换行
+        if (to > from && buffer.get(to - 1) == CR) {
+            to--;
+        }
+
+        // 空行：事件边界
+        if (from == to) {
+            return dispatch();
+        }
+
+        // 注释行：作为元数据，如 :HTTP_STATUS/200
+        if (buffer.get(from) == COLON) {
+            if (null == meta) {
+                meta = new LinkedHashSet<>();
+            }
+            meta.add(decodeTrim(buffer, from + 1, to));
+            return null;
+        }
+
+        // 字段行：<field>:<value>
+        var colon = from;
+        while (colon < to && buffer.get(colon) != COLON) {
+            colon++;
+        }
+        final var valueFrom = Math.min(colon + 1, to);
+        if (isField(buffer, from, colon, FIELD_DATA)) {
+            final var value = decodeTrim(buffer, valueFrom, to);
+            data = null == data ? value : data + "\n" + value;
+        } else if (isField(buffer, from, colon, FIELD_EVENT)) {
+            type = decodeTrim(buffer, valueFrom, to);
+        } else if (isField(buffer, from, colon, FIELD_ID)) {
+            id = decodeTrim(buffer, valueFrom, to);
+        }
+        return null;
+    }
+
+    // 完成当前事件
+    private HttpSsEvent dispatch() {
+        if (null == id && null == type && null == data && null == meta) {
+            return null;
+        }
+        final var event = new HttpSsEvent(
+                id,
+                type,
+                data,
+                null == meta ? Collections.emptySet() : Collections.unmodifiableSet(meta)
+        );
+        id = type = data = null;
+        meta = null;
+        return event;
+    }
+
+    private static boolean isField(ByteBuffer buffer, int from, int to, byte[] field) {
+        if (to - from != field.length) {
+            return false;
+        }
+        for (int index = 0; index < field.length; index++) {
+            if (buffer.get(from + index) != field[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    // 去除首尾空白后解码为字符串
+    private String decodeTrim(ByteBuffer buffer, int from, int to) {
+        while (from < to && isWhitespace(buffer.get(from))) {
+            from++;
+        }
+        while (to > from && isWhitespace(buffer.get(to - 1))) {
+            to--;
+        }
+        final var length = to - from;
+        if (length == 0) {
+            return "";
+        }
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + from, length, charset);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length << 1)];
+        }
+        buffer.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, charset);
+    }
+
+    // 追加残行
+    private void append(ByteBuffer buffer, int from, int to) {
+        final var length = to - from;
+        if (line.length < lineLength + length) {
+            final var grown = new byte[Math.max(lineLength + length, line.length << 1)];
+            System.arraycopy(line, 0, grown, 0, lineLength);
+            line = grown;
+            lineView = ByteBuffer.wrap(line);
+        }
+        buffer.get(from, line, lineLength, length);
+        lineLength += length;
+    }
+
+}
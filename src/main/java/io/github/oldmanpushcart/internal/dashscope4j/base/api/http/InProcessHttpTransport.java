@@ -0,0 +1,144 @@
+package io.github.oldmanpushcart.internal.dashscope4j.base.api.http;
+
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.internal.dashscope4j.util.DelayScheduler;
+
+import javax.net.ssl.SSLSession;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * 进程内HTTP传输
+ * <p>
+ * 收集完请求体后交给处理器，按处理器的应答驱动应答体订阅者，不经过网络；
+ * 请求设置了超时时，超时前没有得到应答头则以{@link HttpTimeoutException}失败，与JDK的HTTP客户端一致。
+ * </p>
+ */
+public class InProcessHttpTransport implements HttpTransport {
+
+    private final Handler handler;
+
+    public InProcessHttpTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        final var replying = collect(request).thenCompose(body -> handler.handle(request, body));
+
+        // 应答头超时
+        final var scheduled = request.timeout()
+                .map(timeout -> DelayScheduler.schedule(timeout, () -> replying.completeExceptionally(new HttpTimeoutException("request timed out"))))
+                .orElse(null);
+
+        final var response = replying.thenCompose(reply -> {
+            if (null != scheduled) {
+                scheduled.cancel(false);
+            }
+            final var info = new Info(reply.status(), HttpHeaders.of(reply.headers(), (k, v) -> true));
+            final var subscriber = bodyHandler.apply(info);
+            reply.body().subscribe(subscriber);
+            return subscriber.getBody()
+                    .toCompletableFuture()
+                    .<HttpResponse<T>>thenApply(body -> new Response<>(request, info, body));
+        });
+
+        // 调用方取消或超时时停止处理
+        response.whenComplete((v, ex) -> {
+            if (null != ex) {
+                replying.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    // 收集完整的请求体
+    private static CompletableFuture<ByteBuffer> collect(HttpRequest request) {
+        final var publisher = request.bodyPublisher().orElse(null);
+        if (null == publisher) {
+            return CompletableFuture.completedFuture(ByteBuffer.allocate(0).asReadOnlyBuffer());
+        }
+        final var future = new CompletableFuture<ByteBuffer>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+
+            private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                final var bytes = new byte[item.remaining()];
+                item.get(bytes);
+                output.writeBytes(bytes);
+            }
+
+            @Override
+            public void onError(Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(ByteBuffer.wrap(output.toByteArray()).asReadOnlyBuffer());
+            }
+
+        });
+        return future;
+    }
+
+    private record Info(int statusCode, HttpHeaders headers) implements HttpResponse.ResponseInfo {
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+
+    }
+
+    private record Response<T>(HttpRequest request, Info info, T body) implements HttpResponse<T> {
+
+        @Override
+        public int statusCode() {
+            return info.statusCode();
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return info.headers();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return info.version();
+        }
+
+    }
+
+}
@@ -24,10 +24,13 @@ public record TaskCancelRequest(String taskId, Duration timeout) implements ApiR
     @Override
     public HttpRequest newHttpRequest() {
         logger.debug("dashscope://task/cancel => {}", taskId);
-        return HttpRequest.newBuilder()
+        final var builder = HttpRequest.newBuilder()
                 .uri(URI.create("https://dashscope.aliyuncs.com/api/v1/tasks/%s/cancel".formatted(taskId)))
-                .POST(HttpRequest.BodyPublishers.ofString(""))
-                .build();
+                .POST(HttpRequest.BodyPublishers.ofString(""));
+        if (null != timeout) {
+            builder.timeout(timeout);
+        }
+        return builder.build();
     }
 
     @Override
@@ -24,10 +24,13 @@ public record TaskGetRequest(String taskId, Duration timeout) implements ApiRequ
     @Override
     public HttpRequest newHttpRequest() {
         logger.debug("dashscope://task/get => {}", taskId);
-        return HttpRequest.newBuilder()
+        final var builder = HttpRequest.newBuilder()
                 .uri(URI.create("https://dashscope.aliyuncs.com/api/v1/tasks/%s".formatted(taskId)))
-                .GET()
-                .build();
+                .GET();
+        if (null != timeout) {
+            builder.timeout(timeout);
+        }
+        return builder.build();
     }
 
     @Override
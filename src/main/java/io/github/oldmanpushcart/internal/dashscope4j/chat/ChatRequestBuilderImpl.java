@@ -5,6 +5,7 @@ import io.github.oldmanpushcart.dashscope4j.chat.ChatPlugin;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
 import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunction;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionRegistry;
 import io.github.oldmanpushcart.internal.dashscope4j.base.algo.AlgoRequestBuilderImpl;
 
 import java.util.ArrayList;
@@ -17,6 +18,7 @@ public class ChatRequestBuilderImpl extends AlgoRequestBuilderImpl<ChatModel, Ch
 
     private final List<ChatPlugin> plugins = new ArrayList<>();
     private final List<ChatFunction<?,?>> functions = new ArrayList<>();
+    private final List<ChatFunctionRegistry> registries = new ArrayList<>();
     private final List<Message> messages = new ArrayList<>();
 
     @Override
@@ -31,6 +33,12 @@ public class ChatRequestBuilderImpl extends AlgoRequestBuilderImpl<ChatModel, Ch
         return this;
     }
 
+    @Override
+    public ChatRequest.Builder functions(ChatFunctionRegistry registry) {
+        this.registries.add(requireNonNull(registry));
+        return this;
+    }
+
     @Override
     public ChatRequest.Builder messages(List<Message> messages) {
         this.messages.addAll(messages);
@@ -46,7 +54,7 @@ public class ChatRequestBuilderImpl extends AlgoRequestBuilderImpl<ChatModel, Ch
                 timeout(),
                 unmodifiableList(messages),
                 unmodifiableList(plugins),
-                unmodifiableList(functions)
+                FunctionToolRegistry.merge(registries, functions)
         );
     }
 
@@ -1,17 +1,19 @@
 package io.github.oldmanpushcart.internal.dashscope4j.chat;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.github.oldmanpushcart.dashscope4j.Option;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatOptions;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatPlugin;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
-import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunction;
 import io.github.oldmanpushcart.internal.dashscope4j.base.algo.AlgoRequestImpl;
 import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpHeader;
 import io.github.oldmanpushcart.internal.dashscope4j.chat.message.MessageImpl;
+import io.github.oldmanpushcart.internal.dashscope4j.chat.message.MessageJsonSerializer;
 import io.github.oldmanpushcart.internal.dashscope4j.util.JacksonUtils;
 
 import java.net.http.HttpRequest;
@@ -24,18 +26,19 @@ final class ChatRequestImpl extends AlgoRequestImpl<ChatResponse> implements Cha
 
     private final List<Message> messages;
     private final List<ChatPlugin> plugins;
-    private final List<FunctionTool> functionTools;
+    private final FunctionToolRegistry functionToolRegistry;
 
-    ChatRequestImpl(ChatModel model, Option option, Duration timeout, List<Message> messages, List<ChatPlugin> plugins, List<FunctionTool> functionTools) {
+    ChatRequestImpl(ChatModel model, Option option, Duration timeout, List<Message> messages, List<ChatPlugin> plugins, FunctionToolRegistry functionToolRegistry) {
         super(model, new Input(messages), option, timeout, ChatResponseImpl.class);
         this.messages = messages;
         this.plugins = plugins;
-        this.functionTools = functionTools;
+        this.functionToolRegistry = functionToolRegistry;
     }
 
 
     private record Input(
             @JsonProperty("messages")
+            @JsonSerialize(contentUsing = MessageJsonSerializer.class)
             List<Message> messages
     ) {
 
@@ -50,7 +53,18 @@ final class ChatRequestImpl extends AlgoRequestImpl<ChatResponse> implements Cha
     }
 
     public List<FunctionTool> functionTools() {
-        return functionTools;
+        return functionToolRegistry.tools();
+    }
+
+    public FunctionToolRegistry functionToolRegistry() {
+        return functionToolRegistry;
+    }
+
+    /**
+     * @return 是否开启了增量输出
+     */
+    public boolean isIncremental() {
+        return super.option().has(ChatOptions.ENABLE_INCREMENTAL_OUTPUT, true);
     }
 
     @Override
@@ -74,9 +88,9 @@ final class ChatRequestImpl extends AlgoRequestImpl<ChatResponse> implements Cha
         }
 
         // 工具必选参数
-        if (!functionTools.isEmpty()) {
+        if (!functionToolRegistry.isEmpty()) {
             clone.option("result_format", "message");
-            clone.option("tools", functionTools);
+            clone.option("tools", functionToolRegistry.tools());
         }
 
         return clone;
@@ -136,16 +150,8 @@ final class ChatRequestImpl extends AlgoRequestImpl<ChatResponse> implements Cha
         return builder.build();
     }
 
-    public static ChatRequestImpl of(ChatModel model, Option option, Duration timeout, List<Message> messages, List<ChatPlugin> plugins, List<ChatFunction<?, ?>> functions) {
-
-        // 转换为函数工具
-        final var functionTools = functions.stream()
-                .map(FunctionTool::of)
-                .toList();
-
-        // 构造对话请求
-        return new ChatRequestImpl(model, option, timeout, messages, plugins, functionTools);
-
+    public static ChatRequestImpl of(ChatModel model, Option option, Duration timeout, List<Message> messages, List<ChatPlugin> plugins, FunctionToolRegistry functionToolRegistry) {
+        return new ChatRequestImpl(model, option, timeout, messages, plugins, functionToolRegistry);
     }
 
 }
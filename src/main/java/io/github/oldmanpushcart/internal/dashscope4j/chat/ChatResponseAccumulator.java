@@ -0,0 +1,172 @@
+package io.github.oldmanpushcart.internal.dashscope4j.chat;
+
+import io.github.oldmanpushcart.dashscope4j.Ret;
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+import io.github.oldmanpushcart.dashscope4j.chat.message.ToolCallMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.Tool;
+import io.github.oldmanpushcart.internal.dashscope4j.chat.message.MessageImpl;
+import io.github.oldmanpushcart.internal.dashscope4j.chat.message.ToolCallMessageImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * 增量应答累加器
+ * <p>
+ * 累加器本身也是一个对话应答，其应答数据是累加到目前为止的完整应答，
+ * 因此可以直接作为{@link io.github.oldmanpushcart.internal.dashscope4j.util.JoinFlowPublisher}的累积结果，
+ * 让工具调用在增量输出时也能拿到完整的调用参数。
+ * </p>
+ */
+public class ChatResponseAccumulator implements ChatResponse.Accumulator, ChatResponse {
+
+    private final List<Slot> slots = new ArrayList<>();
+    private String uuid;
+    private Ret ret;
+    private Usage usage;
+
+    @Override
+    public ChatResponseAccumulator accept(ChatResponse response) {
+        uuid = response.uuid();
+        ret = response.ret();
+        if (null != response.usage()) {
+            usage = response.usage();
+        }
+        if (null != response.output() && null != response.output().choices()) {
+            final var choices = response.output().choices();
+            for (int index = 0; index < choices.size(); index++) {
+                if (index == slots.size()) {
+                    slots.add(new Slot());
+                }
+                slots.get(index).accept(choices.get(index));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ChatResponse result() {
+        if (null == ret) {
+            return null;
+        }
+        return new ChatResponseImpl(uuid, ret, usage, output());
+    }
+
+    @Override
+    public String uuid() {
+        return uuid;
+    }
+
+    @Override
+    public Ret ret() {
+        return ret;
+    }
+
+    @Override
+    public Usage usage() {
+        return usage;
+    }
+
+    @Override
+    public Output output() {
+        return new OutputImpl(slots.stream()
+                .map(Slot::choice)
+                .toList());
+    }
+
+    /**
+     * 单个应答选择的累加状态
+     */
+    private static class Slot {
+
+        private final StringBuilder text = new StringBuilder();
+        private final List<Content<?>> others = new ArrayList<>();
+        private final TreeMap<Integer, CallSlot> calls = new TreeMap<>();
+        private Message.Role role;
+        private Finish finish = Finish.NONE;
+
+        // 插件等多消息的选择无法按片段拼接，保留最后一次的选择
+        private Choice fallback;
+
+        void accept(Choice choice) {
+            if (null != choice.finish()) {
+                finish = choice.finish();
+            }
+
+            final var message = choice.message();
+            if (choice.history().size() > 1 || (message.getClass() != MessageImpl.class && message.getClass() != ToolCallMessageImpl.class)) {
+                fallback = choice;
+                return;
+            }
+
+            if (null == role) {
+                role = message.role();
+            }
+            for (final var content : message.contents()) {
+                if (Content.Type.TEXT == content.type()) {
+                    if (null != content.data()) {
+                        text.append(content.data());
+                    }
+                } else {
+                    others.add(content);
+                }
+            }
+            if (message instanceof ToolCallMessage toolCallMessage) {
+                for (final var call : toolCallMessage.calls()) {
+                    if (call instanceof FunctionTool.Call functionCall) {
+                        calls.computeIfAbsent(functionCall.index(), CallSlot::new).accept(functionCall);
+                    }
+                }
+            }
+        }
+
+        Choice choice() {
+            if (null != fallback) {
+                return new ChoiceImpl(finish, new ArrayList<>(fallback.history()));
+            }
+            if (!calls.isEmpty()) {
+                final var toolCalls = new ArrayList<Tool.Call>(calls.size());
+                calls.values().forEach(call -> toolCalls.add(call.call()));
+                return new ChoiceImpl(finish, new ToolCallMessageImpl(text.toString(), toolCalls));
+            }
+            final var contents = new ArrayList<Content<?>>(others.size() + 1);
+            contents.add(Content.ofText(text.toString()));
+            contents.addAll(others);
+            return new ChoiceImpl(finish, new MessageImpl(null == role ? Message.Role.AI : role, contents));
+        }
+
+    }
+
+    /**
+     * 单个函数调用的累加状态
+     */
+    private static class CallSlot {
+
+        private final int index;
+        private final StringBuilder arguments = new StringBuilder();
+        private String name;
+
+        CallSlot(int index) {
+            this.index = index;
+        }
+
+        void accept(FunctionTool.Call call) {
+            if (null == name && null != call.name() && !call.name().isEmpty()) {
+                name = call.name();
+            }
+            if (null != call.arguments()) {
+                arguments.append(call.arguments());
+            }
+        }
+
+        FunctionTool.Call call() {
+            return new FunctionTool.Call(index, name, arguments.toString());
+        }
+
+    }
+
+}
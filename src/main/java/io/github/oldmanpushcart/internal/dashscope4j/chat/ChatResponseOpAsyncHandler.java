@@ -6,15 +6,18 @@ import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
 import io.github.oldmanpushcart.internal.dashscope4j.chat.message.ToolCallMessageImpl;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 public class ChatResponseOpAsyncHandler implements Function<ChatResponse, CompletableFuture<ChatResponse>> {
 
     private final DashScopeClient client;
+    private final Executor executor;
     private final ChatRequest request;
 
-    public ChatResponseOpAsyncHandler(DashScopeClient client, ChatRequest request) {
+    public ChatResponseOpAsyncHandler(DashScopeClient client, Executor executor, ChatRequest request) {
         this.client = client;
+        this.executor = executor;
         this.request = request;
     }
 
@@ -30,7 +33,7 @@ public class ChatResponseOpAsyncHandler implements Function<ChatResponse, Comple
                     && choice.finish() == ChatResponse.Finish.TOOL_CALLS
                     && choice.message() instanceof ToolCallMessageImpl messageImpl) {
                 return new OpToolCall(requestImpl, messageImpl)
-                        .op(client)
+                        .op(client, executor)
                         .thenCompose(DashScopeClient.OpAsync::async);
             }
 
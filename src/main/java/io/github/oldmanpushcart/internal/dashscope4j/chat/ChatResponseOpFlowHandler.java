@@ -7,22 +7,26 @@ import io.github.oldmanpushcart.internal.dashscope4j.chat.message.ToolCallMessag
 import io.github.oldmanpushcart.internal.dashscope4j.util.JoinFlowPublisher;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 
 public class ChatResponseOpFlowHandler implements Function<Flow.Publisher<ChatResponse>, Flow.Publisher<ChatResponse>> {
 
     private final DashScopeClient client;
+    private final Executor executor;
     private final ChatRequest request;
 
-    public ChatResponseOpFlowHandler(DashScopeClient client, ChatRequest request) {
+    public ChatResponseOpFlowHandler(DashScopeClient client, Executor executor, ChatRequest request) {
         this.client = client;
+        this.executor = executor;
         this.request = request;
     }
 
     @Override
     public Flow.Publisher<ChatResponse> apply(Flow.Publisher<ChatResponse> source) {
-        return new JoinFlowPublisher<>(source, (a, b) -> b, response -> {
+        return new JoinFlowPublisher<>(source, accumulator(), response -> {
 
             // 只能处理自己内部实现的对话请求
             if (request instanceof ChatRequestImpl requestImpl) {
@@ -33,7 +37,7 @@ public class ChatResponseOpFlowHandler implements Function<Flow.Publisher<ChatRe
                         && choice.finish() == ChatResponse.Finish.TOOL_CALLS
                         && choice.message() instanceof ToolCallMessageImpl messageImpl) {
                     return new OpToolCall(requestImpl, messageImpl)
-                            .op(client)
+                            .op(client, executor)
                             .thenCompose(DashScopeClient.OpFlow::flow);
                 }
 
@@ -44,4 +48,17 @@ public class ChatResponseOpFlowHandler implements Function<Flow.Publisher<ChatRe
         });
     }
 
+    /**
+     * 应答累积方式
+     * <p>全量输出时最后一个应答即为完整应答；增量输出时需要拼接所有应答，否则工具调用只能拿到最后一个参数片段</p>
+     *
+     * @return 累积方式
+     */
+    private BinaryOperator<ChatResponse> accumulator() {
+        if (request instanceof ChatRequestImpl requestImpl && requestImpl.isIncremental()) {
+            return (a, b) -> (a instanceof ChatResponseAccumulator accumulator ? accumulator : new ChatResponseAccumulator()).accept(b);
+        }
+        return (a, b) -> b;
+    }
+
 }
@@ -3,7 +3,7 @@ package io.github.oldmanpushcart.internal.dashscope4j.chat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonValue;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFn;
 import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunction;
 import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionTool;
@@ -40,22 +40,80 @@ public record FunctionTool(Meta meta, ChatFunction<?, ?> function) implements Ch
 
     }
 
-    public record TypeSchema(Type type) {
+    /**
+     * 类型及其json-schema
+     * <p>json-schema随实例缓存，生命周期与持有它的函数工具、注册表一致，不会长期占用类型及其类加载器</p>
+     */
+    public static final class TypeSchema {
 
+        private final Type type;
+
+        // 序列化后的json-schema，首次使用时生成
+        private volatile RawValue schema;
+
+        public TypeSchema(Type type) {
+            this.type = type;
+        }
+
+        /**
+         * @return 类型
+         */
+        public Type type() {
+            return type;
+        }
+
+        /**
+         * 生成json-schema
+         * <p>序列化时直接输出缓存的json-schema文本，不再重复生成、序列化和修正json-schema；并发生成时结果相同，无需加锁</p>
+         *
+         * @return json-schema文本
+         */
         @JsonValue
-        JsonNode extract() {
-            return JacksonUtils.schema(type());
+        RawValue extract() {
+            var current = schema;
+            if (null == current) {
+                schema = current = new RawValue(JacksonUtils.toJson(JacksonUtils.schema(type)));
+            }
+            return current;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || obj instanceof TypeSchema other && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return type.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "TypeSchema[type=%s]".formatted(type);
         }
 
     }
 
+    /**
+     * 函数调用
+     *
+     * @param index     工具调用中的序号，增量输出时用于拼接同一个调用的多个片段
+     * @param name      函数名称
+     * @param arguments 函数参数(json)
+     */
     public record Call(
+            @JsonIgnore
+            int index,
             @JsonProperty(value = "name", access = JsonProperty.Access.WRITE_ONLY)
             String name,
             @JsonProperty(value = "arguments", access = JsonProperty.Access.WRITE_ONLY)
             String arguments
     ) implements ChatFunctionTool.Call {
 
+        public Call(String name, String arguments) {
+            this(0, name, arguments);
+        }
+
         @JsonProperty("type")
         @Override
         public Classify classify() {
@@ -0,0 +1,121 @@
+package io.github.oldmanpushcart.internal.dashscope4j.chat;
+
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunction;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * 函数工具注册表
+ * <p>按函数名称索引函数工具，创建时预先生成参数的json-schema</p>
+ */
+public class FunctionToolRegistry implements ChatFunctionRegistry {
+
+    /**
+     * 空注册表
+     */
+    public static final FunctionToolRegistry EMPTY = new FunctionToolRegistry(List.of());
+
+    private final List<FunctionTool> tools;
+    private final Map<String, FunctionTool> index;
+
+    private FunctionToolRegistry(List<FunctionTool> tools) {
+        final var index = new HashMap<String, FunctionTool>();
+        tools.forEach(tool -> {
+            if (null != index.putIfAbsent(tool.meta().name(), tool)) {
+                throw new IllegalArgumentException("duplicate function name: %s".formatted(tool.meta().name()));
+            }
+
+            // 预先生成参数的json-schema
+            tool.meta().parameterTs().extract();
+
+        });
+        this.tools = List.copyOf(tools);
+        this.index = unmodifiableMap(index);
+    }
+
+    @Override
+    public List<ChatFunction<?, ?>> functions() {
+        return tools.stream()
+                .<ChatFunction<?, ?>>map(FunctionTool::function)
+                .toList();
+    }
+
+    @Override
+    public ChatFunction<?, ?> function(String name) {
+        final var tool = index.get(name);
+        return null == tool ? null : tool.function();
+    }
+
+    /**
+     * @return 函数工具
+     */
+    public List<FunctionTool> tools() {
+        return tools;
+    }
+
+    /**
+     * 根据函数名称获取函数工具
+     *
+     * @param name 函数名称
+     * @return 函数工具，不存在时返回{@code null}
+     */
+    public FunctionTool tool(String name) {
+        return index.get(name);
+    }
+
+    /**
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return tools.isEmpty();
+    }
+
+    /**
+     * 创建函数工具注册表
+     *
+     * @param functions 函数
+     * @return 函数工具注册表
+     */
+    public static FunctionToolRegistry of(List<ChatFunction<?, ?>> functions) {
+        return functions.isEmpty()
+                ? EMPTY
+                : new FunctionToolRegistry(functions.stream().map(FunctionTool::of).toList());
+    }
+
+    /**
+     * 合并注册表和函数
+     * <p>只有一个注册表且没有额外函数时直接复用该注册表，已注册的函数工具不会被重新解析</p>
+     *
+     * @param registries 注册表
+     * @param functions  额外的函数
+     * @return 函数工具注册表
+     */
+    public static FunctionToolRegistry merge(List<? extends ChatFunctionRegistry> registries, List<ChatFunction<?, ?>> functions) {
+
+        if (registries.isEmpty()) {
+            return of(functions);
+        }
+
+        if (registries.size() == 1 && functions.isEmpty() && registries.get(0) instanceof FunctionToolRegistry registry) {
+            return registry;
+        }
+
+        final var tools = new ArrayList<FunctionTool>();
+        registries.forEach(registry -> {
+            if (registry instanceof FunctionToolRegistry impl) {
+                tools.addAll(impl.tools());
+            } else {
+                registry.functions().stream().map(FunctionTool::of).forEach(tools::add);
+            }
+        });
+        functions.stream().map(FunctionTool::of).forEach(tools::add);
+        return new FunctionToolRegistry(tools);
+    }
+
+}
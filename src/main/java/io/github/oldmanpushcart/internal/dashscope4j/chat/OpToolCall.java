@@ -13,12 +13,14 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Flow;
 
 import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
 import static io.github.oldmanpushcart.internal.dashscope4j.util.JacksonUtils.compact;
+import static java.util.function.Function.identity;
 
 /**
  * 工具调用操作
@@ -37,47 +39,53 @@ class OpToolCall {
 
     /**
      * 操作工具调用
+     * <p>一条工具调用消息中的多个函数调用会在线程池中并发执行，全部完成后按调用顺序追加函数应答消息，只发起一次后续对话请求</p>
      *
-     * @param client DashScope客户端
+     * @param client   DashScope客户端
+     * @param executor 线程池
      * @return 异步操作
      */
-    public CompletableFuture<OpAsyncOpFlow<ChatResponse>> op(DashScopeClient client) {
+    public CompletableFuture<OpAsyncOpFlow<ChatResponse>> op(DashScopeClient client, Executor executor) {
 
         // 检查工具调用中是否只有函数调用，当前只支持函数调用
         if (!message.calls().stream().allMatch(call -> call instanceof FunctionTool.Call)) {
             throw new IllegalArgumentException("only support function call in tool call.");
         }
 
-        // 检查函数调用是否有多个，当前只支持单一函数调用
-        if (message.calls().size() != 1) {
-            throw new IllegalArgumentException("only support single function call in tool call.");
+        // 检查工具调用中是否有函数调用
+        if (message.calls().isEmpty()) {
+            throw new IllegalArgumentException("required function call in tool call.");
         }
 
-        // 获取函数调用
-        final var functionCall = (FunctionTool.Call) message.calls().get(0);
-
-        // 找到函数工具
-        final var functionTool = request.functionTools().stream()
-                .filter(tool -> Objects.equals(tool.meta().name(), functionCall.name()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("not found tool by name: %s".formatted(functionCall.name())));
-
-        if (logger.isDebugEnabled()) {
-            logger.debug("{}/function/{} <= {}", request, functionCall.name(), compact(functionCall.arguments()));
+        // 获取函数调用，在调用前找到所有的函数工具，任意一个找不到则不进行任何调用
+        final var functionCalls = message.calls().stream()
+                .map(call -> (FunctionTool.Call) call)
+                .toList();
+        final var functionTools = functionCalls.stream()
+                .map(functionCall -> Optional.ofNullable(request.functionToolRegistry().tool(functionCall.name()))
+                        .orElseThrow(() -> new IllegalArgumentException("not found tool by name: %s".formatted(functionCall.name()))))
+                .toList();
+
+        // 并发进行函数调用
+        final var resultFutures = new ArrayList<CompletableFuture<String>>(functionCalls.size());
+        for (int index = 0; index < functionCalls.size(); index++) {
+            final var functionTool = functionTools.get(index);
+            final var functionCall = functionCalls.get(index);
+            resultFutures.add(CompletableFuture
+                    .supplyAsync(() -> callingFunction(functionTool, functionCall), executor)
+                    .thenCompose(identity()));
         }
 
-        // 进行函数调用
-        return callingFunction(functionTool, functionCall)
-                .thenApply(resultJson -> {
-
-                    if (logger.isDebugEnabled()) {
-                        logger.debug("{}/function/{} => {}", request, functionCall.name(), compact(resultJson));
-                    }
+        // 等待全部函数调用完成
+        return CompletableFuture.allOf(resultFutures.toArray(CompletableFuture[]::new))
+                .thenApply(unused -> {
 
                     // 工具调用的对话历史，需要在最后的response中透出
                     final var history = new ArrayList<Message>();
                     history.add(message);
-                    history.add(new ToolMessageImpl(resultJson, functionCall.name()));
+                    for (int index = 0; index < functionCalls.size(); index++) {
+                        history.add(new ToolMessageImpl(resultFutures.get(index).join(), functionCalls.get(index).name()));
+                    }
 
                     // 工具调用应答消息，由本次请求中的消息和本次工具调用的对话历史构成
                     final var messages = new ArrayList<Message>();
@@ -91,7 +99,7 @@ class OpToolCall {
                             request.timeout(),
                             messages,
                             request.plugins(),
-                            request.functionTools()
+                            request.functionToolRegistry()
                     );
 
                     /*
@@ -105,12 +113,25 @@ class OpToolCall {
 
     // 函数调用
     private CompletableFuture<String> callingFunction(FunctionTool tool, FunctionTool.Call call) {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("{}/function/{} <= {}", request, call.name(), compact(call.arguments()));
+        }
+
+        final CompletableFuture<?> future;
         try {
-            return tool.function().call(JacksonUtils.toObject(call.arguments(), tool.meta().parameterTs().type()))
-                    .thenApply(JacksonUtils::toJson);
+            future = tool.function().call(JacksonUtils.toObject(call.arguments(), tool.meta().parameterTs().type()));
         } catch (Throwable cause) {
             throw new RuntimeException("function: %s call error!".formatted(call.name()), cause);
         }
+
+        return future
+                .thenApply(JacksonUtils::toJson)
+                .whenComplete((resultJson, ex) -> {
+                    if (null == ex && logger.isDebugEnabled()) {
+                        logger.debug("{}/function/{} => {}", request, call.name(), compact(resultJson));
+                    }
+                });
     }
 
     // 代理操作
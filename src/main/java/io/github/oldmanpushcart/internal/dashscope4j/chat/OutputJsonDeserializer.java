@@ -2,9 +2,12 @@ package io.github.oldmanpushcart.internal.dashscope4j.chat;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
@@ -14,13 +17,29 @@ import io.github.oldmanpushcart.internal.dashscope4j.chat.message.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
+/**
+ * 对话应答数据反序列化
+ * <p>
+ * 流式应答的每个事件都要反序列化一次，因此文本格式和消息格式直接从解析器的token流构建应答，不生成中间的JSON树；
+ * 消息中出现插件、工具等字段时，只把这一条消息读成JSON树，交给按树反序列化的逻辑处理。
+ * </p>
+ */
 public class OutputJsonDeserializer extends JsonDeserializer<ChatResponse.Output> {
 
+    // 枚举的json名称 -> 枚举值，流式解析时直接查表
+    private static final Map<String, ChatResponse.Finish> finishes = jsonNames(ChatResponse.Finish.class);
+    private static final Map<String, Message.Role> roles = jsonNames(Message.Role.class);
+
     @Override
     public ChatResponse.Output deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.isExpectedStartObjectToken()) {
+            return streamOutput(parser, context);
+        }
         final var node = context.readTree(parser);
         for (final var deserializer : deserializers) {
             final var output = deserializer.deserialize(context, node);
@@ -31,6 +50,213 @@ public class OutputJsonDeserializer extends JsonDeserializer<ChatResponse.Output
         return null;
     }
 
+    // 流式解析应答数据：有 choices 字段为消息格式，否则为文本格式
+    private static ChatResponse.Output streamOutput(JsonParser parser, DeserializationContext context) throws IOException {
+        ChatResponse.Finish finish = null;
+        String text = null;
+        List<ChatResponse.Choice> choices = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "finish_reason" -> finish = streamFinish(parser, context);
+                case "text" -> text = parser.getValueAsString();
+                case "choices" -> choices = streamChoices(parser, context);
+                default -> parser.skipChildren();
+            }
+        }
+        return null != choices
+                ? new OutputImpl(choices)
+                : new OutputImpl(new ChoiceImpl(finish, Message.ofAi(text)));
+    }
+
+    private static ChatResponse.Finish streamFinish(JsonParser parser, DeserializationContext context) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL
+                ? null
+                : jsonValue(context, finishes, parser.getValueAsString(), ChatResponse.Finish.class);
+    }
+
+    // 按json名称查找枚举值，查不到时交给Jackson处理，保持与按树解析一致的报错
+    private static <E extends Enum<E>> E jsonValue(DeserializationContext context, Map<String, E> values, String name, Class<E> type) throws IOException {
+        if (null == name) {
+            return null;
+        }
+        final var value = values.get(name);
+        return null != value ? value : context.readTreeAsValue(context.getNodeFactory().textNode(name), type);
+    }
+
+    private static <E extends Enum<E>> Map<String, E> jsonNames(Class<E> type) {
+        final var names = new HashMap<String, E>();
+        for (final var value : type.getEnumConstants()) {
+            try {
+                final var property = type.getField(value.name()).getAnnotation(JsonProperty.class);
+                names.put(null != property ? property.value() : value.name(), value);
+            } catch (NoSuchFieldException cause) {
+                throw new IllegalStateException(cause);
+            }
+        }
+        return Map.copyOf(names);
+    }
+
+    private static List<ChatResponse.Choice> streamChoices(JsonParser parser, DeserializationContext context) throws IOException {
+        final var choices = new ArrayList<ChatResponse.Choice>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return choices;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            final var choice = streamChoice(parser, context);
+            if (null != choice) {
+                choices.add(choice);
+            }
+        }
+        return choices;
+    }
+
+    private static ChatResponse.Choice streamChoice(JsonParser parser, DeserializationContext context) throws IOException {
+        ChatResponse.Finish finish = null;
+        Message message = null;
+        List<Message> messages = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "finish_reason" -> finish = streamFinish(parser, context);
+                case "message" -> message = streamMessage(parser, context);
+
+                // 多消息：见于plugin场景，按树解析
+                case "messages" -> {
+                    messages = new ArrayList<>();
+                    for (final var messageNode : context.readTree(parser)) {
+                        messages.add(treeMessage(context, messageNode));
+                    }
+                }
+
+                default -> parser.skipChildren();
+            }
+        }
+        if (null != message) {
+            return new ChoiceImpl(finish, message);
+        }
+        if (null != messages) {
+            return new ChoiceImpl(finish, messages);
+        }
+        return null;
+    }
+
+    private static Message streamMessage(JsonParser parser, DeserializationContext context) throws IOException {
+        String role = null;
+        String text = null;
+        List<ContentImpl<?>> contents = null;
+
+        // 插件、工具等需要按树解析的字段
+        ObjectNode extras = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "role" -> role = parser.getValueAsString();
+                case "content" -> {
+                    if (parser.currentToken() == JsonToken.START_ARRAY) {
+                        contents = context.readValue(parser, contentsType(context));
+                    } else {
+                        text = parser.getValueAsString();
+                    }
+                }
+                case "name", "status", "plugin_call", "tool_calls" -> {
+                    if (null == extras) {
+                        extras = context.getNodeFactory().objectNode();
+                    }
+                    extras.set(name, context.readTree(parser));
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        final var messageRole = jsonValue(context, roles, role, Message.Role.class);
+
+        // 处理多模态内容
+        if (null != contents) {
+            return new MessageImpl(messageRole, new ArrayList<>(contents));
+        }
+
+        // 处理普通文本消息
+        if (null == extras) {
+            return new MessageImpl(messageRole, List.of(Content.ofText(text)));
+        }
+
+        // 其余消息按树解析
+        extras.put("role", role);
+        extras.put("content", text);
+        return treeMessage(context, extras);
+    }
+
+    private static JavaType contentsType(DeserializationContext context) {
+        return context.getTypeFactory().constructCollectionType(List.class, ContentImpl.class);
+    }
+
+    private static Message treeMessage(DeserializationContext context, JsonNode messageNode) throws IOException {
+        final var inTextMessage = context.readTreeAsValue(messageNode, InnerTextMessage.class);
+
+        // 处理插件应答消息
+        if (inTextMessage.role() == Message.Role.PLUGIN) {
+            final var text = inTextMessage.text();
+            final var name = messageNode.get("name").asText();
+            final var status = context.readTreeAsValue(messageNode.get("status"), Plugin.Status.class);
+            return new PluginMessageImpl(text, name, status);
+        }
+
+        // 处理插件请求消息
+        else if (inTextMessage.role() == Message.Role.AI && messageNode.has("plugin_call")) {
+            final var text = inTextMessage.text();
+            final var call = context.readTreeAsValue(messageNode.get("plugin_call"), Plugin.Call.class);
+            return new PluginCallMessageImpl(text, call);
+        }
+
+        // 处理工具应答消息
+        else if (inTextMessage.role() == Message.Role.TOOL) {
+            final var text = inTextMessage.text();
+            final var name = messageNode.get("name").asText();
+            return new ToolMessageImpl(text, name);
+        }
+
+        // 处理工具请求消息
+        else if (inTextMessage.role() == Message.Role.AI && messageNode.has("tool_calls")) {
+            final var text = inTextMessage.text();
+            final var toolCallsNode = messageNode.get("tool_calls");
+            final var toolCalls = new ArrayList<Tool.Call>();
+            for (final var toolCallNode : toolCallsNode) {
+
+                // 增量输出时同一个调用的后续片段可能不带类型，有函数节点即视为函数调用
+                final var type = toolCallNode.has("type")
+                        ? context.readTreeAsValue(toolCallNode.get("type"), Tool.Classify.class)
+                        : toolCallNode.has("function") ? Tool.Classify.FUNCTION : null;
+                if (type == Tool.Classify.FUNCTION) {
+                    final var functionNode = toolCallNode.path("function");
+                    toolCalls.add(new FunctionTool.Call(
+                            toolCallNode.path("index").asInt(toolCalls.size()),
+                            functionNode.path("name").asText(null),
+                            functionNode.path("arguments").asText(null)
+                    ));
+                }
+            }
+            return new ToolCallMessageImpl(text, toolCalls);
+        }
+
+        // 处理普通消息
+        else {
+            final var role = inTextMessage.role();
+            final var text = inTextMessage.text();
+            return new MessageImpl(role, List.of(Content.ofText(text)));
+        }
+
+    }
+
     @FunctionalInterface
     private interface OutputDeserializer {
 
@@ -97,9 +323,7 @@ public class OutputJsonDeserializer extends JsonDeserializer<ChatResponse.Output
 
                     // 处理文本内容
                     else {
-                        final var inTextMessage = context.readTreeAsValue(messageNode, InnerTextMessage.class);
-                        final var message = deserializeMessage(context, messageNode, inTextMessage);
-                        choices.add(new ChoiceImpl(finish, message));
+                        choices.add(new ChoiceImpl(finish, treeMessage(context, messageNode)));
                     }
 
                 }
@@ -109,9 +333,7 @@ public class OutputJsonDeserializer extends JsonDeserializer<ChatResponse.Output
                     final var messagesNode = choiceNode.get("messages");
                     final var messages = new ArrayList<Message>();
                     for (final var messageNode : messagesNode) {
-                        final var inTextMessage = context.readTreeAsValue(messageNode, InnerTextMessage.class);
-                        final var message = deserializeMessage(context, messageNode, inTextMessage);
-                        messages.add(message);
+                        messages.add(treeMessage(context, messageNode));
                     }
                     choices.add(new ChoiceImpl(finish, messages));
                 }
@@ -122,54 +344,6 @@ public class OutputJsonDeserializer extends JsonDeserializer<ChatResponse.Output
             return new OutputImpl(choices);
         }
 
-        private Message deserializeMessage(DeserializationContext context, JsonNode messageNode, InnerTextMessage inTextMessage) throws IOException {
-
-            // 处理插件应答消息
-            if (inTextMessage.role() == Message.Role.PLUGIN) {
-                final var text = inTextMessage.text();
-                final var name = messageNode.get("name").asText();
-                final var status = context.readTreeAsValue(messageNode.get("status"), Plugin.Status.class);
-                return new PluginMessageImpl(text, name, status);
-            }
-
-            // 处理插件请求消息
-            else if (inTextMessage.role() == Message.Role.AI && messageNode.has("plugin_call")) {
-                final var text = inTextMessage.text();
-                final var call = context.readTreeAsValue(messageNode.get("plugin_call"), Plugin.Call.class);
-                return new PluginCallMessageImpl(text, call);
-            }
-
-            // 处理工具应答消息
-            else if (inTextMessage.role() == Message.Role.TOOL) {
-                final var text = inTextMessage.text();
-                final var name = messageNode.get("name").asText();
-                return new ToolMessageImpl(text, name);
-            }
-
-            // 处理工具请求消息
-            else if (inTextMessage.role() == Message.Role.AI && messageNode.has("tool_calls")) {
-                final var text = inTextMessage.text();
-                final var toolCallsNode = messageNode.get("tool_calls");
-                final var toolCalls = new ArrayList<Tool.Call>();
-                for (final var toolCallNode : toolCallsNode) {
-                    final var type = context.readTreeAsValue(toolCallNode.get("type"), Tool.Classify.class);
-                    if (type == Tool.Classify.FUNCTION) {
-                        final var call = context.readTreeAsValue(toolCallNode.get("function"), FunctionTool.Call.class);
-                        toolCalls.add(call);
-                    }
-                }
-                return new ToolCallMessageImpl(text, toolCalls);
-            }
-
-            // 处理普通消息
-            else {
-                final var role = inTextMessage.role();
-                final var text = inTextMessage.text();
-                return new MessageImpl(role, List.of(Content.ofText(text)));
-            }
-
-        }
-
         private record InnerMultiMessage(
                 @JsonProperty("role")
                 Message.Role role,
@@ -179,16 +353,16 @@ public class OutputJsonDeserializer extends JsonDeserializer<ChatResponse.Output
 
         }
 
-        private record InnerTextMessage(
-                @JsonProperty("role")
-                Message.Role role,
-                @JsonProperty("content")
-                String text
-        ) {
+    };
 
-        }
+    private record InnerTextMessage(
+            @JsonProperty("role")
+            Message.Role role,
+            @JsonProperty("content")
+            String text
+    ) {
 
-    };
+    }
 
     private static final OutputDeserializer[] deserializers = new OutputDeserializer[]{
             textOutput,
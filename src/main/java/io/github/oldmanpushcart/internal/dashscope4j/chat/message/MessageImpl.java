@@ -3,6 +3,7 @@ package io.github.oldmanpushcart.internal.dashscope4j.chat.message;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+import io.github.oldmanpushcart.internal.dashscope4j.util.JacksonUtils;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -12,10 +13,14 @@ import java.util.stream.Collectors;
  */
 public class MessageImpl implements Message {
 
-    private Format format;
+    // 消息格式在构造请求时设置，可能在其他线程中序列化
+    private volatile Format format;
     private final Message.Role role;
     private final List<Content<?>> contents;
 
+    // 已序列化的消息片段，消息格式变化后失效
+    private volatile Fragment fragment;
+
     public MessageImpl(Role role, List<Content<?>> contents) {
         this.role = role;
         this.contents = contents;
@@ -58,6 +63,26 @@ public class MessageImpl implements Message {
         this.format = format;
     }
 
+    /**
+     * 获取序列化后的消息片段
+     * <p>消息除格式外不可变，同一格式下只序列化一次，工具调用多轮请求时历史消息直接复用已序列化的片段</p>
+     *
+     * @return 消息片段(json)
+     */
+    public String fragment() {
+        final var current = fragment;
+        if (null != current && current.format() == format) {
+            return current.json();
+        }
+        final var json = JacksonUtils.toJson(this);
+        fragment = new Fragment(format, json);
+        return json;
+    }
+
+    private record Fragment(Format format, String json) {
+
+    }
+
     /**
      * 消息格式
      */
@@ -0,0 +1,25 @@
+package io.github.oldmanpushcart.internal.dashscope4j.chat.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+
+import java.io.IOException;
+
+/**
+ * 消息序列化器
+ * <p>内置消息直接输出缓存的消息片段，避免多轮请求中反复序列化历史消息；其他实现按默认方式序列化</p>
+ */
+public class MessageJsonSerializer extends JsonSerializer<Message> {
+
+    @Override
+    public void serialize(Message message, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (message instanceof MessageImpl impl) {
+            generator.writeRawValue(impl.fragment());
+        } else {
+            provider.defaultSerializeValue(message, generator);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package io.github.oldmanpushcart.internal.dashscope4j.util;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 延时调度器
+ * <p>全局共享的守护线程调度器，只负责在到期时触发动作；动作本身应尽快完成，耗时的工作需要转交给其他线程池</p>
+ * <p>被取消的定时任务会立即从队列中移除，不会因为大量长延时任务而滞留内存</p>
+ */
+public class DelayScheduler {
+
+    private static final ScheduledThreadPoolExecutor scheduler;
+
+    static {
+        final var sequence = new AtomicInteger();
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final var thread = new Thread(runnable, "dashscope4j-scheduler-%d".formatted(sequence.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 延时执行
+     *
+     * @param delay  延时
+     * @param action 动作
+     * @return 定时任务
+     */
+    public static ScheduledFuture<?> schedule(Duration delay, Runnable action) {
+        return scheduler.schedule(action, Math.max(0L, delay.toNanos()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 延时执行
+     *
+     * @param delayNanos 延时(纳秒)
+     * @param action     动作
+     * @return 定时任务
+     */
+    public static ScheduledFuture<?> schedule(long delayNanos, Runnable action) {
+        return scheduler.schedule(action, Math.max(0L, delayNanos), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 延时后在线程池中执行
+     * <p>调度线程只负责转交，线程池拒绝时退回调度线程执行，保证动作不会丢失</p>
+     *
+     * @param delay    延时
+     * @param executor 执行动作的线程池
+     * @param action   动作
+     * @return 定时任务
+     */
+    public static ScheduledFuture<?> schedule(Duration delay, Executor executor, Runnable action) {
+        return schedule(delay, () -> handoff(executor, action));
+    }
+
+    /**
+     * 延时后在线程池中执行
+     * <p>调度线程只负责转交，线程池拒绝时退回调度线程执行，保证动作不会丢失</p>
+     *
+     * @param delayNanos 延时(纳秒)
+     * @param executor   执行动作的线程池
+     * @param action     动作
+     * @return 定时任务
+     */
+    public static ScheduledFuture<?> schedule(long delayNanos, Executor executor, Runnable action) {
+        return schedule(delayNanos, () -> handoff(executor, action));
+    }
+
+    private static void handoff(Executor executor, Runnable action) {
+        try {
+            executor.execute(action);
+        } catch (RejectedExecutionException ex) {
+            action.run();
+        }
+    }
+
+    /**
+     * 延时
+     * <p>返回的Future在延时到期后完成；提前取消或完成Future会同时取消定时任务</p>
+     *
+     * @param delay 延时
+     * @return 延时Future
+     */
+    public static CompletableFuture<Void> delay(Duration delay) {
+        final var future = new CompletableFuture<Void>();
+        final var scheduled = schedule(delay, () -> future.complete(null));
+        future.whenComplete((v, ex) -> scheduled.cancel(false));
+        return future;
+    }
+
+}
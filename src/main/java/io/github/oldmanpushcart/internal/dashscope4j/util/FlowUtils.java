@@ -0,0 +1,49 @@
+package io.github.oldmanpushcart.internal.dashscope4j.util;
+
+import java.util.concurrent.Flow;
+
+/**
+ * 流处理工具类
+ */
+public class FlowUtils {
+
+    /**
+     * 空订阅：忽略所有申请和取消
+     */
+    public static final Flow.Subscription EMPTY_SUBSCRIPTION = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+
+        }
+
+        @Override
+        public void cancel() {
+
+        }
+    };
+
+    /**
+     * 拒绝订阅
+     * <p>规范要求拒绝订阅也必须先{@code onSubscribe}再{@code onError}，而不是直接抛出异常</p>
+     *
+     * @param subscriber 订阅者
+     * @param ex         拒绝原因
+     */
+    public static void reject(Flow.Subscriber<?> subscriber, Throwable ex) {
+        subscriber.onSubscribe(EMPTY_SUBSCRIPTION);
+        subscriber.onError(ex);
+    }
+
+    /**
+     * 累加需求，溢出时视为无界
+     *
+     * @param a 需求
+     * @param b 需求
+     * @return 累加后的需求
+     */
+    public static long addCap(long a, long b) {
+        final var sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+}
@@ -9,6 +9,8 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.fasterxml.jackson.module.jsonSchema.JsonSchemaGenerator;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.LinkedHashSet;
 import java.util.TimeZone;
@@ -59,6 +61,22 @@ public class JacksonUtils {
         }
     }
 
+    /**
+     * {@code json -> T}
+     *
+     * @param input json字节流
+     * @param type  对象类型
+     * @param <T>   对象类型
+     * @return 目标对象
+     */
+    public static <T> T toObject(InputStream input, Class<T> type) {
+        try (input) {
+            return mapper.readValue(input, type);
+        } catch (IOException cause) {
+            throw new IllegalArgumentException("parse json to object failed!", cause);
+        }
+    }
+
     /**
      * {@code json -> T}
      *
@@ -2,118 +2,295 @@ package io.github.oldmanpushcart.internal.dashscope4j.util;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 接续发布器
+ * <p>
+ * 依次订阅一串发布器：当前发布器完成后，以其全部元素的累积结果调用{@code finisher}得到下一个发布器并接续订阅，
+ * 直到{@code finisher}返回{@code null}。订阅端只看到一条连续的流，未满足的需求自动转移到下一个发布器。
+ * </p>
+ * <p>只支持一个订阅者，在订阅时才订阅第一个发布器。</p>
+ *
+ * @param <T> 元素类型
+ */
 public class JoinFlowPublisher<T> implements Flow.Publisher<T> {
 
-    private volatile Flow.Subscription hold;
-    private volatile Flow.Subscriber<? super T> subscriber;
-    private final AtomicLong limitRef = new AtomicLong();
+    // 终止信号中的完成标记
+    private static final Throwable COMPLETED = new Throwable("completed", null, false, false) {
+    };
+
+    private final Flow.Publisher<T> source;
+    private final BinaryOperator<T> accumulator;
+    private final Function<T, CompletableFuture<Flow.Publisher<T>>> finisher;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
 
     public JoinFlowPublisher(Flow.Publisher<T> publisher, BinaryOperator<T> accumulator, Function<T, CompletableFuture<Flow.Publisher<T>>> finisher) {
-        join(publisher, accumulator, finisher);
+        this.source = publisher;
+        this.accumulator = accumulator;
+        this.finisher = finisher;
     }
 
     @Override
     public void subscribe(Flow.Subscriber<? super T> subscriber) {
-        this.subscriber = subscriber;
-        subscriber.onSubscribe(new Flow.Subscription() {
+        requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            FlowUtils.reject(subscriber, new IllegalStateException("publisher already subscribed"));
+            return;
+        }
+        final var join = new Join(subscriber);
+        subscriber.onSubscribe(join);
+        join.join(source);
+    }
 
-            @Override
-            public void request(long n) {
-                hold.request(n);
-                limitRef.addAndGet(n);
+    /**
+     * 接续订阅
+     * <p>
+     * 订阅端的需求和各个发布器的订阅之间做仲裁：新增的需求、已生产的数量和新的发布器订阅先记录下来，
+     * 再由同一时刻只有一个线程执行的排水循环统一结算，保证切换发布器时既不多申请也不丢失需求。
+     * </p>
+     */
+    private class Join implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> downstream;
+
+        // 下发串行化：onNext与终止信号互斥，终止信号只下发一次
+        private final AtomicInteger emitting = new AtomicInteger();
+        private final AtomicReference<Throwable> terminal = new AtomicReference<>();
+
+        // 仲裁：待结算的需求、生产数量和新订阅
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong missedRequested = new AtomicLong();
+        private final AtomicLong missedProduced = new AtomicLong();
+        private final AtomicReference<Flow.Subscription> missedSubscription = new AtomicReference<>();
+
+        // 仲裁结果，只在排水循环中访问
+        private long requested;
+        private Flow.Subscription current;
+
+        private volatile boolean cancelled;
+
+        Join(Flow.Subscriber<? super T> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void request(long n) {
+
+            // 非正数的申请以错误终止，并取消发布器
+            if (n <= 0) {
+                cancel();
+                terminate(new IllegalArgumentException("non-positive request: %s".formatted(n)));
+                return;
             }
 
-            @Override
-            public void cancel() {
-                hold.cancel();
+            missedRequested.getAndAccumulate(n, FlowUtils::addCap);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                drain();
             }
+        }
 
-        });
-    }
+        // 订阅下一个发布器
+        void join(Flow.Publisher<T> publisher) {
+            publisher.subscribe(new Segment());
+        }
 
-    public void join(Flow.Publisher<T> publisher, BinaryOperator<T> accumulator, Function<T, CompletableFuture<Flow.Publisher<T>>> finisher) {
-        publisher.subscribe(new Flow.Subscriber<>() {
+        // 排水循环：结算需求并向当前发布器申请
+        private void drain() {
 
-            private final AtomicReference<T> itemRef = new AtomicReference<>();
-            private volatile Flow.Subscription self;
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
 
-            @Override
-            public void onSubscribe(Flow.Subscription subscription) {
-                hold = self = subscription;
+            int missed = 1;
+            do {
+
+                // 先取新订阅再取生产数量：新订阅可见时，前一个发布器的生产数量一定可见
+                final var subscription = missedSubscription.getAndSet(null);
+                final var mr = missedRequested.getAndSet(0L);
+                final var mp = missedProduced.getAndSet(0L);
+
+                if (cancelled) {
+                    if (null != current) {
+                        current.cancel();
+                        current = null;
+                    }
+                    if (null != subscription) {
+                        subscription.cancel();
+                    }
+                } else {
+
+                    var r = requested;
+                    if (r != Long.MAX_VALUE) {
+                        r = FlowUtils.addCap(r, mr);
+                        if (r != Long.MAX_VALUE) {
+                            r = Math.max(0L, r - mp);
+                        }
+                        requested = r;
+                    }
+
+                    // 切换到新的发布器，未满足的需求全部转移
+                    if (null != subscription) {
+                        current = subscription;
+                        if (r > 0) {
+                            subscription.request(r);
+                        }
+                    }
+
+                    // 新增的需求申请给当前发布器
+                    else if (mr > 0 && null != current) {
+                        current.request(mr);
+                    }
+
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+
+        }
+
+        private void next(T item) {
+            if (emitting.get() == 0 && emitting.compareAndSet(0, 1)) {
+                downstream.onNext(item);
+
+                // 下发期间到达的终止信号由当前线程补发
+                if (emitting.decrementAndGet() != 0) {
+                    emitTerminal();
+                }
             }
+        }
 
-            private boolean isSelf() {
-                return hold == self;
+        // 以错误或完成({@code null})终止
+        private void terminate(Throwable ex) {
+            if (terminal.compareAndSet(null, null == ex ? COMPLETED : ex) && emitting.getAndIncrement() == 0) {
+                emitTerminal();
             }
+        }
 
-            private void checkSelf() {
-                if (!isSelf()) {
-                    throw new IllegalStateException("not self subscription.");
-                }
+        private void emitTerminal() {
+            final var ex = terminal.get();
+            if (ex == COMPLETED) {
+                downstream.onComplete();
+            } else {
+                downstream.onError(ex);
             }
+        }
 
-            private void clean() {
-                hold = null;
+        /**
+         * 单个发布器的订阅
+         * <p>同一时刻只有一个发布器在下发，前一个完成后才会订阅下一个</p>
+         */
+        private class Segment implements Flow.Subscriber<T> {
+
+            private Flow.Subscription self;
+            private T accumulated;
+            private long produced;
+            private boolean done;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                requireNonNull(subscription);
+                if (null != self) {
+                    subscription.cancel();
+                    return;
+                }
+                self = subscription;
+
+                // 前一个发布器可能在排水循环取走订阅之前就已完成，取消已完成的订阅没有副作用
+                final var previous = missedSubscription.getAndSet(subscription);
+                if (null != previous) {
+                    previous.cancel();
+                }
+                drain();
             }
 
             @Override
             public void onNext(T item) {
-                checkSelf();
-                limitRef.decrementAndGet();
+                requireNonNull(item);
+                if (done) {
+                    return;
+                }
+                produced++;
                 try {
-                    subscriber.onNext(item);
-                    itemRef.accumulateAndGet(item, accumulator);
+                    next(item);
+                    accumulated = accumulator.apply(accumulated, item);
                 } catch (Throwable ex) {
-                    onError(ex);
+                    done = true;
+                    cancel();
+                    terminate(ex);
                 }
             }
 
             @Override
             public void onError(Throwable ex) {
-                checkSelf();
-                clean();
-                subscriber.onError(ex);
+                requireNonNull(ex);
+                if (done) {
+                    return;
+                }
+                done = true;
+                terminate(ex);
             }
 
             @Override
             public void onComplete() {
-                checkSelf();
-                finisher.apply(itemRef.get()).whenComplete((publisher, ex) -> {
+                if (done) {
+                    return;
+                }
+                done = true;
+
+                // 结算本发布器的生产数量，剩余需求留给下一个发布器
+                missedProduced.getAndAccumulate(produced, FlowUtils::addCap);
+                drain();
+
+                if (cancelled) {
+                    return;
+                }
+
+                final CompletableFuture<Flow.Publisher<T>> future;
+                try {
+                    future = finisher.apply(accumulated);
+                } catch (Throwable ex) {
+                    terminate(ex);
+                    return;
+                }
+
+                future.whenComplete((publisher, ex) -> {
 
                     // 异常
                     if (null != ex) {
-                        onError(ex);
-                        return;
+                        terminate(ex);
                     }
 
-                    // 清理
-                    clean();
-
                     // 续订
-                    if (null != publisher) {
-                        join(publisher, accumulator, finisher);
-                    }
-
-                    // 续订成功，继续请求
-                    if (null != hold) {
-                        hold.request(limitRef.getAndSet(0L));
+                    else if (null != publisher) {
+                        if (!cancelled) {
+                            join(publisher);
+                        }
                     }
 
                     // 没有续订，直接完成
                     else {
-                        subscriber.onComplete();
+                        terminate(null);
                     }
 
                 });
 
             }
 
-        });
+        }
 
     }
 
@@ -0,0 +1,119 @@
+package io.github.oldmanpushcart.internal.dashscope4j.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static io.github.oldmanpushcart.dashscope4j.Constants.LOGGER_NAME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 观察发布器
+ * <p>
+ * 原样转发源发布器的信号，同时回调观察者：每个元素下发前回调{@code onNext}，
+ * 流结束时回调一次{@code onTerminate}，完成为{@code null}，出错为错误，被订阅者取消为{@link CancellationException}。
+ * 回调先于信号下发，订阅者看到结束时观察者已经处理完毕。
+ * </p>
+ * <p>观察者抛出的异常只记录日志，不影响信号的转发</p>
+ *
+ * @param <T> 元素类型
+ */
+public class ObserveFlowPublisher<T> implements Flow.Publisher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final Flow.Publisher<T> source;
+    private final Consumer<? super T> onNext;
+    private final Consumer<Throwable> onTerminate;
+
+    private ObserveFlowPublisher(Flow.Publisher<T> source, Consumer<? super T> onNext, Consumer<Throwable> onTerminate) {
+        this.source = source;
+        this.onNext = onNext;
+        this.onTerminate = onTerminate;
+    }
+
+    /**
+     * 观察发布器
+     *
+     * @param source      源发布器
+     * @param onNext      元素观察者
+     * @param onTerminate 结束观察者
+     * @param <T>         元素类型
+     * @return 发布器
+     */
+    public static <T> Flow.Publisher<T> observe(Flow.Publisher<T> source, Consumer<? super T> onNext, Consumer<Throwable> onTerminate) {
+        return new ObserveFlowPublisher<>(source, onNext, onTerminate);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        requireNonNull(subscriber);
+        source.subscribe(new Observer(subscriber));
+    }
+
+    private class Observer implements Flow.Subscriber<T> {
+
+        private final Flow.Subscriber<? super T> downstream;
+        private final AtomicBoolean terminated = new AtomicBoolean();
+
+        Observer(Flow.Subscriber<? super T> downstream) {
+            this.downstream = downstream;
+        }
+
+        private void terminate(Throwable ex) {
+            if (terminated.compareAndSet(false, true)) {
+                try {
+                    onTerminate.accept(ex);
+                } catch (Throwable cause) {
+                    logger.warn("dashscope://flow/observe stage=terminate;error={};", cause.toString(), cause);
+                }
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(new Flow.Subscription() {
+
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    terminate(new CancellationException());
+                }
+
+            });
+        }
+
+        @Override
+        public void onNext(T item) {
+            try {
+                onNext.accept(item);
+            } catch (Throwable cause) {
+                logger.warn("dashscope://flow/observe stage=next;error={};", cause.toString(), cause);
+            }
+            downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable ex) {
+            terminate(ex);
+            downstream.onError(ex);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+            downstream.onComplete();
+        }
+
+    }
+
+}
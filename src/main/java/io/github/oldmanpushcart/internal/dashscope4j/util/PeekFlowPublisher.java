@@ -0,0 +1,238 @@
+package io.github.oldmanpushcart.internal.dashscope4j.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 预取首个元素的发布器
+ * <p>
+ * 立即订阅源发布器并申请一个元素：首个元素到达(或源发布器直接完成)时才交出发布器，首个元素之前的错误则以失败交出。
+ * 调用方因此可以在任何元素下发之前决定是否重试，而交出的发布器对订阅者来说与源发布器没有区别：
+ * 预取的元素计入订阅者的第一次申请，此后的申请原样转交给源发布器。
+ * </p>
+ * <p>只支持一个订阅者</p>
+ *
+ * @param <T> 元素类型
+ */
+public class PeekFlowPublisher<T> implements Flow.Publisher<T> {
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final CompletableFuture<Flow.Publisher<T>> peeked = new CompletableFuture<>();
+
+    // 保证同一时刻只有一个线程在排水
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // 订阅者尚未转交的需求
+    private final AtomicLong requested = new AtomicLong();
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super T> downstream;
+
+    // 预取的元素，是否已到达
+    private T first;
+    private volatile boolean hasFirst;
+
+    // 源发布器是否已结束，结束前先写入错误
+    private volatile boolean done;
+    private Throwable error;
+
+    // 订阅者的非法申请
+    private volatile Throwable fatal;
+
+    // 订阅者取消或已下发终止信号
+    private volatile boolean cancelled;
+
+    // 预取的元素是否已下发，只在排水循环中访问
+    private boolean firstDelivered;
+
+    private PeekFlowPublisher() {
+    }
+
+    /**
+     * 预取首个元素
+     *
+     * @param source 源发布器
+     * @param <T>    元素类型
+     * @return 首个元素到达或源发布器完成时交出发布器，首个元素之前的错误以失败交出；取消时同时取消源发布器
+     */
+    public static <T> CompletableFuture<Flow.Publisher<T>> peek(Flow.Publisher<T> source) {
+        final var publisher = new PeekFlowPublisher<T>();
+        publisher.peeked.whenComplete((v, ex) -> {
+            if (publisher.peeked.isCancelled()) {
+                publisher.cancel();
+            }
+        });
+        source.subscribe(publisher.new Peek());
+        return publisher.peeked;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            FlowUtils.reject(subscriber, new IllegalStateException("publisher already subscribed"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fatal = new IllegalArgumentException("non-positive request: %s".formatted(n));
+                    PeekFlowPublisher.this.cancel();
+                    return;
+                }
+                requested.getAndAccumulate(n, FlowUtils::addCap);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                PeekFlowPublisher.this.cancel();
+            }
+
+        });
+        downstream = subscriber;
+        drain();
+    }
+
+    private void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        final var subscription = upstream;
+        if (null != subscription) {
+            subscription.cancel();
+        }
+        drain();
+    }
+
+    // 排水循环：先下发预取的元素，再转交需求和终止信号
+    private void drain() {
+
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            final var subscriber = downstream;
+            if (null != subscriber) {
+
+                // 非法申请立即以错误终止
+                final var ex = fatal;
+                if (null != ex) {
+                    terminate();
+                    subscriber.onError(ex);
+                    return;
+                }
+
+                if (cancelled) {
+                    terminate();
+                } else {
+
+                    // 预取的元素计入第一次申请
+                    if (hasFirst && !firstDelivered && requested.get() > 0) {
+                        firstDelivered = true;
+                        final var item = first;
+                        first = null;
+                        requested.decrementAndGet();
+                        subscriber.onNext(item);
+                    }
+
+                    // 预取的元素已下发(或源发布器没有元素)后，需求原样转交，终止信号原样下发
+                    if (!hasFirst || firstDelivered) {
+                        final var r = requested.getAndSet(0L);
+                        if (done) {
+                            terminate();
+                            if (null != error) {
+                                subscriber.onError(error);
+                            } else {
+                                subscriber.onComplete();
+                            }
+                            return;
+                        }
+                        if (r > 0) {
+                            upstream.request(r);
+                        }
+                    }
+
+                }
+
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+
+    }
+
+    // 标记终止并释放订阅者
+    private void terminate() {
+        cancelled = true;
+        downstream = null;
+        first = null;
+    }
+
+    // 源发布器的订阅
+    private class Peek implements Flow.Subscriber<T> {
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            requireNonNull(subscription);
+            if (null != upstream) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            if (cancelled) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(T item) {
+            requireNonNull(item);
+
+            // 首个元素暂存，交出发布器
+            if (!hasFirst) {
+                first = item;
+                hasFirst = true;
+                peeked.complete(PeekFlowPublisher.this);
+                drain();
+                return;
+            }
+
+            // 此后的元素只会在预取的元素下发之后、按转交的需求到达
+            final var subscriber = downstream;
+            if (null != subscriber && !cancelled) {
+                subscriber.onNext(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable ex) {
+            error = requireNonNull(ex);
+            done = true;
+            if (!hasFirst) {
+                peeked.completeExceptionally(ex);
+            }
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            peeked.complete(PeekFlowPublisher.this);
+            drain();
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package io.github.oldmanpushcart.internal.dashscope4j.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单生产者单消费者的无锁环形队列
+ * <p>
+ * 以槽位是否为空判断队列的满和空，生产者和消费者各自独占自己的下标，不需要CAS；
+ * 同一时刻只能有一个线程调用{@link #offer(Object)}，同一时刻只能有一个线程调用{@link #poll()}，
+ * 调用线程可以变化，但需要由调用方保证先后调用之间的happens-before关系。
+ * </p>
+ *
+ * @param <E> 元素类型
+ */
+public class SpscArrayQueue<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+
+    // 生产者下标，只由生产者访问
+    private long producerIndex;
+
+    // 消费者下标，只由消费者访问
+    private long consumerIndex;
+
+    /**
+     * 构造队列
+     *
+     * @param capacity 容量，会向上取整为2的幂
+     */
+    public SpscArrayQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        final var size = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 入队(生产者调用)
+     *
+     * @param e 元素
+     * @return 队列已满时返回{@code false}
+     */
+    public boolean offer(E e) {
+        final var offset = (int) producerIndex & mask;
+        if (null != buffer.getAcquire(offset)) {
+            return false;
+        }
+        buffer.setRelease(offset, e);
+        producerIndex++;
+        return true;
+    }
+
+    /**
+     * 出队(消费者调用)
+     *
+     * @return 队首元素，队列为空时返回{@code null}
+     */
+    public E poll() {
+        final var offset = (int) consumerIndex & mask;
+        final var e = buffer.getAcquire(offset);
+        if (null == e) {
+            return null;
+        }
+        buffer.setRelease(offset, null);
+        consumerIndex++;
+        return e;
+    }
+
+    /**
+     * 队列是否为空(消费者调用)
+     *
+     * @return TRUE | FALSE
+     */
+    public boolean isEmpty() {
+        return null == buffer.getAcquire((int) consumerIndex & mask);
+    }
+
+    /**
+     * 清空队列(消费者调用)
+     */
+    public void clear() {
+        while (null != poll()) {
+            // 丢弃
+        }
+    }
+
+}
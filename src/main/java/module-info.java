@@ -1,6 +1,6 @@
 open module dashscope4j {
 
-    requires java.net.http;
+    requires transitive java.net.http;
     requires org.slf4j;
 
     requires com.fasterxml.jackson.databind;
@@ -17,6 +17,7 @@ open module dashscope4j {
     exports io.github.oldmanpushcart.dashscope4j.chat.tool.function;
     exports io.github.oldmanpushcart.dashscope4j.image.generation;
     exports io.github.oldmanpushcart.dashscope4j.embedding;
+    exports io.github.oldmanpushcart.dashscope4j.metrics;
     exports io.github.oldmanpushcart.dashscope4j.util;
     exports io.github.oldmanpushcart.dashscope4j.chat.plugin;
 
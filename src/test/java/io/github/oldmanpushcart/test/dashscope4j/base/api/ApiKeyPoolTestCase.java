@@ -0,0 +1,169 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiKeyPool;
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
+import io.github.oldmanpushcart.dashscope4j.base.task.Task;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageModel;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageRequest;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
+import io.github.oldmanpushcart.test.dashscope4j.mock.MockDashScopeServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ApiKeyPoolTestCase {
+
+    private static final String AK_FIRST = "sk-first-0001";
+    private static final String AK_SECOND = "sk-second-0002";
+
+    private static final ChatRequest request = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_TURBO)
+            .user("你好")
+            .build();
+
+    private static DashScopeClient newClient(MockDashScopeServer server, ApiKeyPool pool) {
+        return DashScopeClient.newBuilder()
+                .akPool(pool)
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .baseUri(server.uri())
+                .retryPolicy(RetryPolicy.newBuilder()
+                        .maxAttempts(2)
+                        .initialBackoff(Duration.ofMillis(10))
+                        .build())
+                .build();
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$pool$spread() {
+        try (final var server = MockDashScopeServer.newBuilder().build()) {
+            final var pool = ApiKeyPool.of(AK_FIRST, AK_SECOND);
+            final var client = newClient(server, pool);
+
+            // 负载相同时轮流使用，请求均匀摊到每个AK
+            for (int index = 0; index < 10; index++) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            Assertions.assertEquals(5, server.requests(AK_FIRST));
+            Assertions.assertEquals(5, server.requests(AK_SECOND));
+
+            for (final var stats : pool.stats()) {
+                Assertions.assertEquals(0, stats.inflight());
+                Assertions.assertEquals(5, stats.requests());
+                Assertions.assertEquals(5 * 16, stats.usage().get("output_tokens").longValue());
+            }
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$pool$flow() {
+        try (final var server = MockDashScopeServer.newBuilder().build()) {
+            final var pool = ApiKeyPool.of(AK_FIRST);
+            final var client = newClient(server, pool);
+
+            // 事件流结束时归还AK，以最后一个应答的用量计算消耗
+            final var count = new AtomicInteger();
+            client.chat(request).flow()
+                    .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> count.incrementAndGet()))
+                    .join();
+            Assertions.assertEquals(16, count.get());
+            final var stats = pool.stats().get(0);
+            Assertions.assertEquals(0, stats.inflight());
+            Assertions.assertEquals(16, stats.usage().get("output_tokens").longValue());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$pool$throttled() {
+        try (final var server = MockDashScopeServer.newBuilder().throttledKeys(AK_FIRST).build()) {
+            final var pool = ApiKeyPool.of(AK_FIRST, AK_SECOND);
+            final var client = newClient(server, pool);
+
+            // 被限流的AK进入冷却，重试和后续请求都使用另一个AK
+            for (int index = 0; index < 10; index++) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            Assertions.assertEquals(1, server.requests(AK_FIRST));
+            Assertions.assertEquals(10, server.requests(AK_SECOND));
+
+            final var stats = pool.stats().get(0);
+            Assertions.assertEquals(1, stats.throttled());
+            Assertions.assertTrue(stats.cooldown().compareTo(Duration.ZERO) > 0);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$pool$unauthorized() {
+        try (final var server = MockDashScopeServer.newBuilder().invalidKeys(AK_FIRST).build()) {
+            final var pool = ApiKeyPool.of(AK_FIRST, AK_SECOND);
+            final var client = newClient(server, pool);
+
+            // 鉴权失败不重试，但该AK进入冷却，后续请求使用另一个AK
+            final var ex = Assertions.assertThrows(CompletionException.class, () -> client.chat(request).async().join());
+            Assertions.assertInstanceOf(ApiException.class, ex.getCause());
+            Assertions.assertEquals(401, ((ApiException) ex.getCause()).status());
+            for (int index = 0; index < 5; index++) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            Assertions.assertEquals(1, server.requests(AK_FIRST));
+            Assertions.assertEquals(5, server.requests(AK_SECOND));
+            Assertions.assertEquals(1, pool.stats().get(0).unauthorized());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$pool$task_pinned() {
+        try (final var server = MockDashScopeServer.newBuilder().build()) {
+            final var pool = ApiKeyPool.of(AK_FIRST, AK_SECOND);
+            final var client = newClient(server, pool);
+
+            // 模拟服务只允许提交任务的AK查询任务，轮询必须固定使用提交时的AK
+            final var response = client.genImage(GenImageRequest.newBuilder()
+                            .model(GenImageModel.WANX_V1)
+                            .prompt("一只猫")
+                            .build())
+                    .task(Task.WaitStrategies.perpetual(Duration.ofMillis(50)))
+                    .join();
+            DashScopeAssertions.assertGenImageResponse(response);
+            Assertions.assertTrue(server.requests(AK_FIRST) >= 2);
+            Assertions.assertEquals(0, server.requests(AK_SECOND));
+        }
+    }
+
+    @Test
+    public void test$pool$stats() {
+        final var stats = ApiKeyPool.of("sk-1234567890abcdef", "short").stats();
+        Assertions.assertEquals("sk-****cdef", stats.get(0).name());
+        Assertions.assertEquals("*****", stats.get(1).name());
+        Assertions.assertEquals(Duration.ZERO, stats.get(0).cooldown());
+        Assertions.assertTrue(stats.get(0).usage().isEmpty());
+    }
+
+    @Test
+    public void test$pool$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ApiKeyPool.newBuilder().build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ApiKeyPool.newBuilder().key(" "));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ApiKeyPool.newBuilder().cooldown(Duration.ofSeconds(-1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ApiKeyPool.newBuilder().authCooldown(Duration.ofSeconds(-1)));
+
+        // 只接受由ApiKeyPool构建的AK池
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DashScopeClient.newBuilder().akPool(List::of));
+    }
+
+}
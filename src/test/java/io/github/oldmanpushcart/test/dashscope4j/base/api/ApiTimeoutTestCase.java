@@ -0,0 +1,261 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class ApiTimeoutTestCase {
+
+    private static final ChatRequest request = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_TURBO)
+            .user("你好")
+            .build();
+
+    private static final String EVENT = """
+            id:1
+            event:result
+            :HTTP_STATUS/200
+            data:{"request_id":"test","output":{"choices":[{"finish_reason":"null","message":{"role":"assistant","content":"你"}}]},"usage":{"input_tokens":1,"output_tokens":1}}
+
+            """;
+
+    private static DashScopeClient newClient(HttpTransport transport, Consumer<DashScopeClient.Builder> consumer) {
+        final var builder = DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .transport(transport);
+        consumer.accept(builder);
+        return builder.build();
+    }
+
+    private static void assertTimeout(ApiTimeoutException.Phase phase, Duration timeout, CompletableFuture<?> future) {
+        final var ex = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertInstanceOf(ApiTimeoutException.class, ex.getCause());
+        final var timeoutEx = (ApiTimeoutException) ex.getCause();
+        Assertions.assertEquals(phase, timeoutEx.phase());
+        Assertions.assertEquals(timeout, timeoutEx.timeout());
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$timeout$first_byte() {
+        final var transport = new RecordingTransport((request, body) -> new CompletableFuture<>());
+        final var client = newClient(transport, builder -> builder
+                .timeout(Duration.ofSeconds(5))
+                .firstByteTimeout(Duration.ofMillis(100)));
+
+        // 首字节超时小于总超时，应答头未到达时按首字节超时失败
+        assertTimeout(ApiTimeoutException.Phase.FIRST_BYTE, Duration.ofMillis(100), client.chat(request).async());
+        Assertions.assertEquals(1, transport.exchanges.size());
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$timeout$total$async() {
+        final var body = new StallingBody(List.of());
+        final var transport = new RecordingTransport((request, buffer) -> CompletableFuture.completedFuture(
+                new HttpTransport.Reply(200, Map.of("content-type", List.of("application/json")), body)));
+        final var client = newClient(transport, builder -> builder
+                .timeout(Duration.ofMillis(200)));
+
+        // 应答头已到达但应答体迟迟不结束，按总超时失败并取消HTTP交互
+        assertTimeout(ApiTimeoutException.Phase.TOTAL, Duration.ofMillis(200), client.chat(request).async());
+        Assertions.assertThrows(CancellationException.class, () -> transport.exchanges.get(0).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$timeout$total$flow() {
+        final var body = new StallingBody(List.of(EVENT));
+        final var transport = new RecordingTransport((request, buffer) -> CompletableFuture.completedFuture(
+                new HttpTransport.Reply(200, Map.of("content-type", List.of("text/event-stream")), body)));
+        final var client = newClient(transport, builder -> builder
+                .timeout(Duration.ofMillis(300)));
+
+        // 事件流在总超时内没有结束，收到的事件先投递，随后以总超时失败并取消上游
+        final var received = new AtomicInteger();
+        final var future = client.chat(request).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> received.incrementAndGet()));
+        final var ex = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertInstanceOf(ApiTimeoutException.class, ex.getCause());
+        final var timeoutEx = (ApiTimeoutException) ex.getCause();
+        Assertions.assertEquals(ApiTimeoutException.Phase.TOTAL, timeoutEx.phase());
+
+        // 事件流的总超时是应答头到达时剩余的时间
+        Assertions.assertTrue(timeoutEx.timeout().compareTo(Duration.ofMillis(300)) <= 0);
+        Assertions.assertEquals(1, received.get());
+        Assertions.assertTrue(body.cancelled);
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$timeout$idle() {
+        final var body = new StallingBody(List.of(EVENT, EVENT));
+        final var transport = new RecordingTransport((request, buffer) -> CompletableFuture.completedFuture(
+                new HttpTransport.Reply(200, Map.of("content-type", List.of("text/event-stream")), body)));
+        final var client = newClient(transport, builder -> builder
+                .timeout(Duration.ofSeconds(5))
+                .idleTimeout(Duration.ofMillis(150)));
+
+        // 事件之间的间隔超过空闲超时，以空闲超时失败并取消上游
+        final var received = new AtomicInteger();
+        final var begin = System.nanoTime();
+        final var future = client.chat(request).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> received.incrementAndGet()));
+        assertTimeout(ApiTimeoutException.Phase.IDLE, Duration.ofMillis(150), future);
+        Assertions.assertTrue(Duration.ofNanos(System.nanoTime() - begin).compareTo(Duration.ofSeconds(5)) < 0);
+        Assertions.assertEquals(2, received.get());
+        Assertions.assertTrue(body.cancelled);
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$timeout$idle$slow_consumer() {
+        final var body = new StallingBody(List.of(EVENT, EVENT, EVENT));
+        final var transport = new RecordingTransport((request, buffer) -> CompletableFuture.completedFuture(
+                new HttpTransport.Reply(200, Map.of("content-type", List.of("text/event-stream")), body)));
+        final var client = newClient(transport, builder -> builder
+                .idleTimeout(Duration.ofMillis(150)));
+
+        // 消费者处理缓慢时没有未满足的需求，不计入空闲时间
+        final var received = new AtomicInteger();
+        final var future = client.chat(request).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> {
+                    sleep(Duration.ofMillis(250));
+                    received.incrementAndGet();
+                }));
+        assertTimeout(ApiTimeoutException.Phase.IDLE, Duration.ofMillis(150), future);
+        Assertions.assertEquals(3, received.get());
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$timeout$off_scheduler() {
+        final var transport = new RecordingTransport((request, buffer) -> CompletableFuture.completedFuture(
+                new HttpTransport.Reply(200, Map.of("content-type", List.of("application/json")), new StallingBody(List.of()))));
+        final var client = newClient(transport, builder -> builder
+                .timeout(Duration.ofMillis(100)));
+
+        // 总超时在线程池中完成，调用方的后续阶段不在全局共享的调度线程上执行
+        final var asyncThread = new AtomicReference<String>();
+        final var async = client.api(request).async()
+                .whenComplete((v, ex) -> asyncThread.set(Thread.currentThread().getName()));
+        assertTimeout(ApiTimeoutException.Phase.TOTAL, Duration.ofMillis(100), async);
+        Assertions.assertFalse(asyncThread.get().startsWith("dashscope4j-scheduler"), asyncThread.get());
+
+        // 事件流超时时订阅者的onError同样不在调度线程上执行
+        final var streaming = newClient(new RecordingTransport((request, buffer) -> CompletableFuture.completedFuture(
+                new HttpTransport.Reply(200, Map.of("content-type", List.of("text/event-stream")), new StallingBody(List.of(EVENT))))), builder -> builder
+                .idleTimeout(Duration.ofMillis(100)));
+        final var flowThread = new AtomicReference<String>();
+        final var flow = streaming.api(request).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> {
+                }))
+                .whenComplete((v, ex) -> flowThread.set(Thread.currentThread().getName()));
+        assertTimeout(ApiTimeoutException.Phase.IDLE, Duration.ofMillis(100), flow);
+        Assertions.assertFalse(flowThread.get().startsWith("dashscope4j-scheduler"), flowThread.get());
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 记录每次HTTP交互的传输
+    private static class RecordingTransport implements HttpTransport {
+
+        private final HttpTransport delegate;
+        private final List<CompletableFuture<?>> exchanges = new CopyOnWriteArrayList<>();
+
+        private RecordingTransport(HttpTransport.Handler handler) {
+            this.delegate = HttpTransport.inProcess(handler);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            final var exchange = delegate.send(request, handler);
+            exchanges.add(exchange);
+            return exchange;
+        }
+
+    }
+
+    // 按需求下发给定的分块后不再下发也不结束，记录是否被取消
+    private static class StallingBody implements Flow.Publisher<List<ByteBuffer>> {
+
+        private final List<String> chunks;
+        private volatile boolean cancelled;
+
+        private StallingBody(List<String> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super List<ByteBuffer>> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+
+                private int index;
+                private long demand;
+                private boolean emitting;
+
+                @Override
+                public void request(long n) {
+                    synchronized (this) {
+                        demand += n;
+                        if (emitting) {
+                            return;
+                        }
+                        emitting = true;
+                    }
+                    while (true) {
+                        final String chunk;
+                        synchronized (this) {
+                            if (cancelled || demand == 0 || index >= chunks.size()) {
+                                emitting = false;
+                                return;
+                            }
+                            demand--;
+                            chunk = chunks.get(index++);
+                        }
+                        subscriber.onNext(List.of(ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+
+            });
+        }
+
+    }
+
+}
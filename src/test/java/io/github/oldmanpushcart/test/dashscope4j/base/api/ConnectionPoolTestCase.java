@@ -0,0 +1,235 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.dashscope4j.base.api.ConnectionPool;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
+import io.github.oldmanpushcart.test.dashscope4j.mock.MockDashScopeServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+public class ConnectionPoolTestCase {
+
+    private static final ChatRequest request = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_TURBO)
+            .user("你好")
+            .build();
+
+    private static DashScopeClient newClient(URI baseUri, ConnectionPool pool) {
+        return DashScopeClient.newBuilder()
+                .ak("mock")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .baseUri(baseUri)
+                .connectionPool(pool)
+                .build();
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$connection$warmup() {
+        try (final var server = MockDashScopeServer.newBuilder().build()) {
+            final var pool = ConnectionPool.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .warmConnections(2)
+                    .build();
+
+            // build()返回时预热已完成
+            final var client = newClient(server.uri(), pool);
+            var stats = pool.stats().get(0);
+            Assertions.assertEquals(server.uri(), stats.endpoint());
+            Assertions.assertEquals(HttpClient.Version.HTTP_1_1, stats.version());
+            Assertions.assertEquals(2, stats.warmups());
+            Assertions.assertEquals(2, stats.exchanges());
+            Assertions.assertEquals(0, stats.failed());
+
+            // 业务请求计入请求总数；明文http无法统计新建连接
+            for (int index = 0; index < 3; index++) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            stats = pool.stats().get(0);
+            Assertions.assertEquals(5, stats.exchanges());
+            Assertions.assertEquals(0, stats.connections());
+            Assertions.assertTrue(Double.isNaN(stats.reuseRate()));
+        }
+    }
+
+    // 以给定协议版本应答空内容的进程内传输
+    private static HttpTransport newTransport(HttpClient.Version version) {
+        final var delegate = HttpTransport.inProcess((r, buffer) -> CompletableFuture.completedFuture(
+                HttpTransport.Reply.ofString(200, "text/plain", "")));
+        return new HttpTransport() {
+
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+                return delegate.send(request, info -> handler.apply(new HttpResponse.ResponseInfo() {
+
+                    @Override
+                    public int statusCode() {
+                        return info.statusCode();
+                    }
+
+                    @Override
+                    public HttpHeaders headers() {
+                        return info.headers();
+                    }
+
+                    @Override
+                    public HttpClient.Version version() {
+                        return version;
+                    }
+
+                }));
+            }
+
+        };
+    }
+
+    private static ConnectionPool.EndpointStats warmup(HttpClient.Version version) {
+        final var pool = ConnectionPool.newBuilder()
+                .warmConnections(3)
+                .build();
+        DashScopeClient.newBuilder()
+                .ak("mock")
+                .executor(ForkJoinPool.commonPool())
+                .transport(newTransport(version))
+                .connectionPool(pool)
+                .build();
+        return pool.stats().get(0);
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$connection$warmup_http2() {
+
+        // HTTP/2下只预热一个连接
+        var stats = warmup(HttpClient.Version.HTTP_2);
+        Assertions.assertEquals(HttpClient.Version.HTTP_2, stats.version());
+        Assertions.assertEquals(1, stats.warmups());
+        Assertions.assertEquals(1, stats.exchanges());
+
+        // 协商回退到HTTP/1.1时补足其余连接
+        stats = warmup(HttpClient.Version.HTTP_1_1);
+        Assertions.assertEquals(HttpClient.Version.HTTP_1_1, stats.version());
+        Assertions.assertEquals(3, stats.warmups());
+        Assertions.assertEquals(3, stats.exchanges());
+        Assertions.assertEquals(0, stats.failed());
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$connection$keep_alive() throws InterruptedException {
+        try (final var server = MockDashScopeServer.newBuilder().build()) {
+            final var pool = ConnectionPool.newBuilder()
+                    .keepAliveInterval(Duration.ofMillis(100))
+                    .build();
+            final var client = newClient(server.uri(), pool);
+
+            // 闲置时每个间隔保活一次
+            Thread.sleep(1000);
+            final var pings = pool.stats().get(0).pings();
+            Assertions.assertTrue(pings >= 3, "pings=" + pings);
+
+            // 持续有请求时不保活
+            final var deadline = System.nanoTime() + Duration.ofMillis(300).toNanos();
+            final var before = pool.stats().get(0).pings() + pool.stats().get(0).failed();
+            while (System.nanoTime() < deadline) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            Assertions.assertTrue(pool.stats().get(0).pings() + pool.stats().get(0).failed() - before <= 1);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$connection$warmup_failed() {
+        final URI baseUri;
+        try (final var server = MockDashScopeServer.newBuilder().build()) {
+            baseUri = server.uri();
+        }
+
+        // 预热失败不影响构建
+        final var pool = ConnectionPool.newBuilder()
+                .warmConnections(1)
+                .warmupTimeout(Duration.ofSeconds(3))
+                .build();
+        Assertions.assertNotNull(newClient(baseUri, pool));
+        final var stats = pool.stats().get(0);
+        Assertions.assertEquals(0, stats.warmups());
+        Assertions.assertEquals(1, stats.failed());
+        Assertions.assertNull(stats.version());
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$connection$unregistered() {
+        try (final var server = MockDashScopeServer.newBuilder().build();
+             final var other = MockDashScopeServer.newBuilder().build()) {
+            final var pool = ConnectionPool.newBuilder().build();
+            final var client = newClient(server.uri(), pool);
+
+            // 发往根地址以外主机的请求不计入统计
+            final var delegate = request.newHttpRequest();
+            final var elsewhere = new ApiRequest<ChatResponse>() {
+
+                @Override
+                public Duration timeout() {
+                    return request.timeout();
+                }
+
+                @Override
+                public HttpRequest newHttpRequest() {
+                    return HttpRequest.newBuilder(delegate, (k, v) -> true)
+                            .uri(other.uri().resolve(delegate.uri().getRawPath()))
+                            .build();
+                }
+
+                @Override
+                public Function<String, ChatResponse> responseDeserializer() {
+                    return request.responseDeserializer();
+                }
+
+            };
+            DashScopeAssertions.assertChatResponse(client.api(elsewhere).async().join());
+            Assertions.assertEquals(1, other.requests());
+            Assertions.assertEquals(1, pool.stats().size());
+            Assertions.assertEquals(server.uri(), pool.stats().get(0).endpoint());
+            Assertions.assertEquals(0, pool.stats().get(0).exchanges());
+        }
+    }
+
+    @Test
+    public void test$connection$reuse_rate() {
+        final var endpoint = URI.create("https://dashscope.aliyuncs.com");
+        Assertions.assertEquals(0.0, new ConnectionPool.EndpointStats(endpoint, null, 0, 0, 0, 0, 0).reuseRate());
+        Assertions.assertEquals(0.75, new ConnectionPool.EndpointStats(endpoint, HttpClient.Version.HTTP_2, 4, 1, 1, 0, 0).reuseRate());
+    }
+
+    @Test
+    public void test$connection$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConnectionPool.newBuilder().warmConnections(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConnectionPool.newBuilder().keepAliveInterval(Duration.ZERO));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConnectionPool.newBuilder().warmupTimeout(Duration.ofSeconds(-1)));
+        Assertions.assertThrows(NullPointerException.class, () -> ConnectionPool.newBuilder().version(null));
+
+        // 只接受由ConnectionPool构建的连接池
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DashScopeClient.newBuilder().connectionPool(List::of));
+    }
+
+}
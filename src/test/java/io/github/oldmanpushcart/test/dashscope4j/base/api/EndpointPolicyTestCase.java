@@ -0,0 +1,159 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.EndpointPolicy;
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
+import io.github.oldmanpushcart.dashscope4j.base.task.Task;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageModel;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageRequest;
+import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
+import io.github.oldmanpushcart.test.dashscope4j.mock.MockDashScopeServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public class EndpointPolicyTestCase {
+
+    private static final ChatRequest request = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_TURBO)
+            .user("你好")
+            .build();
+
+    private static DashScopeClient newClient(EndpointPolicy policy, Consumer<DashScopeClient.Builder> consumer) {
+        final var builder = DashScopeClient.newBuilder()
+                .ak("mock")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .endpointPolicy(policy);
+        consumer.accept(builder);
+        return builder.build();
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$endpoint$fastest() {
+        try (final var slow = MockDashScopeServer.newBuilder().latency(Duration.ofMillis(100)).build();
+             final var fast = MockDashScopeServer.newBuilder().build()) {
+            final var client = newClient(EndpointPolicy.newBuilder()
+                    .endpoint(slow.uri())
+                    .endpoint(fast.uri())
+                    .build(), builder -> {
+            });
+
+            // 两个地址各被测量一次后，请求都路由到耗时低的地址
+            for (int index = 0; index < 20; index++) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            Assertions.assertEquals(1, slow.requests());
+            Assertions.assertEquals(19, fast.requests());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$endpoint$failover() {
+        try (final var broken = MockDashScopeServer.newBuilder().errorRate(1.0).build();
+             final var healthy = MockDashScopeServer.newBuilder().build()) {
+            final var client = newClient(EndpointPolicy.newBuilder()
+                    .endpoint(broken.uri())
+                    .endpoint(healthy.uri())
+                    .cooldown(Duration.ofMinutes(1))
+                    .build(), builder -> builder
+                    .retryPolicy(RetryPolicy.newBuilder()
+                            .maxAttempts(2)
+                            .initialBackoff(Duration.ofMillis(10))
+                            .build()));
+
+            // 出错的地址进入冷却，重试和后续请求都路由到健康的地址
+            for (int index = 0; index < 10; index++) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            Assertions.assertEquals(1, broken.requests());
+            Assertions.assertEquals(10, healthy.requests());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$endpoint$half_open() throws InterruptedException {
+        try (final var recovering = MockDashScopeServer.newBuilder().throttleFirst(1).latency(Duration.ofMillis(100)).build();
+             final var slow = MockDashScopeServer.newBuilder().latency(Duration.ofMillis(300)).build()) {
+            final var client = newClient(EndpointPolicy.newBuilder()
+                    .endpoint(recovering.uri())
+                    .endpoint(slow.uri())
+                    .cooldown(Duration.ofMillis(300))
+                    .probeInterval(Duration.ofMinutes(1))
+                    .build(), builder -> builder
+                    .retryPolicy(RetryPolicy.newBuilder()
+                            .maxAttempts(2)
+                            .initialBackoff(Duration.ofMillis(10))
+                            .build()));
+
+            // 第一个样本是错误，耗时未知，冷却期间请求都路由到另一个地址
+            DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            Assertions.assertEquals(1, recovering.requests());
+            Assertions.assertEquals(1, slow.requests());
+
+            // 冷却结束后只放行一个探测请求，探测完成前其余请求仍路由到另一个地址
+            Thread.sleep(400);
+            final var futures = new ArrayList<CompletableFuture<ChatResponse>>();
+            for (int index = 0; index < 4; index++) {
+                futures.add(client.chat(request).async());
+            }
+            futures.forEach(future -> DashScopeAssertions.assertChatResponse(future.join()));
+            Assertions.assertEquals(2, recovering.requests());
+            Assertions.assertEquals(4, slow.requests());
+
+            // 探测成功后恢复，按耗时路由
+            for (int index = 0; index < 3; index++) {
+                DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            }
+            Assertions.assertEquals(5, recovering.requests());
+            Assertions.assertEquals(4, slow.requests());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$endpoint$task_pinned() {
+        try (final var first = MockDashScopeServer.newBuilder().latency(Duration.ofMillis(50)).build();
+             final var second = MockDashScopeServer.newBuilder().build()) {
+            final var client = newClient(EndpointPolicy.newBuilder()
+                    .endpoint(first.uri())
+                    .endpoint(second.uri())
+                    .build(), builder -> {
+            });
+
+            // 任务提交到第一个地址后，未测量的第二个地址耗时更低，但轮询仍然发往第一个地址
+            final var response = client.genImage(GenImageRequest.newBuilder()
+                            .model(GenImageModel.WANX_V1)
+                            .prompt("一只猫")
+                            .build())
+                    .task(Task.WaitStrategies.perpetual(Duration.ofMillis(50)))
+                    .join();
+            DashScopeAssertions.assertGenImageResponse(response);
+            Assertions.assertTrue(first.requests() >= 2);
+            Assertions.assertEquals(0, second.requests());
+        }
+    }
+
+    @Test
+    public void test$endpoint$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EndpointPolicy.newBuilder().build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EndpointPolicy.newBuilder().endpoint(URI.create("/api")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EndpointPolicy.newBuilder().alpha(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EndpointPolicy.newBuilder().maxErrorRate(1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EndpointPolicy.newBuilder().probeInterval(Duration.ZERO));
+    }
+
+}
@@ -0,0 +1,209 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.HedgePolicy;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class HedgePolicyTestCase {
+
+    private static final String RESULT = """
+            {"request_id":"test","output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"你好"}}]},"usage":{"input_tokens":1,"output_tokens":1}}""";
+
+    private static final ChatRequest request = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_TURBO)
+            .user("你好")
+            .build();
+
+    private static DashScopeClient newClient(HedgePolicy policy, ScriptedTransport transport) {
+        return DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .hedgePolicy(policy)
+                .transport(transport)
+                .build();
+    }
+
+    // 依次完成若干个耗时为latency的请求，积累样本
+    private static void warmup(DashScopeClient client, ScriptedTransport transport, int count, Duration latency) throws InterruptedException {
+        for (int index = 0; index < count; index++) {
+            final var future = client.chat(request).async();
+            final var arrival = transport.next();
+            Thread.sleep(latency.toMillis());
+            arrival.ok();
+            DashScopeAssertions.assertChatResponse(future.join());
+            Assertions.assertTrue(transport.arrivals.isEmpty());
+        }
+    }
+
+    private static void assertCancelled(Arrival arrival) {
+        Assertions.assertThrows(CancellationException.class, () -> arrival.exchange().get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$hedge$percentile_delay() throws InterruptedException {
+        final var transport = new ScriptedTransport();
+        final var client = newClient(HedgePolicy.newBuilder()
+                .percentile(50)
+                .minDelay(Duration.ofMillis(10))
+                .minSamples(3)
+                .window(16)
+                .maxHedgeRatio(1.0)
+                .build(), transport);
+
+        // 样本不足时不对冲，慢请求也只发出一次
+        final var slow = client.chat(request).async();
+        final var slowArrival = transport.next();
+        Assertions.assertNull(transport.arrivals.poll(300, TimeUnit.MILLISECONDS));
+        slowArrival.ok();
+        DashScopeAssertions.assertChatResponse(slow.join());
+        warmup(client, transport, 2, Duration.ofMillis(200));
+
+        // 样本足够后，主请求超过分位耗时(约200毫秒)仍未完成才对冲，对冲请求胜出后取消主请求
+        final var future = client.chat(request).async();
+        final var primary = transport.next();
+        final var secondary = transport.next();
+        final var delay = Duration.ofNanos(secondary.nanos() - primary.nanos());
+        Assertions.assertTrue(delay.compareTo(Duration.ofMillis(180)) >= 0, "delay=" + delay);
+        secondary.ok();
+        DashScopeAssertions.assertChatResponse(future.join());
+        assertCancelled(primary);
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$hedge$cancel_secondary() throws InterruptedException {
+        final var transport = new ScriptedTransport();
+        final var client = newClient(HedgePolicy.newBuilder()
+                .minDelay(Duration.ofMillis(50))
+                .minSamples(1)
+                .window(16)
+                .maxHedgeRatio(1.0)
+                .build(), transport);
+        warmup(client, transport, 1, Duration.ZERO);
+
+        // 对冲请求发出后主请求先完成，取消对冲请求
+        final var future = client.chat(request).async();
+        final var primary = transport.next();
+        final var secondary = transport.next();
+        primary.ok();
+        DashScopeAssertions.assertChatResponse(future.join());
+        assertCancelled(secondary);
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$hedge$max_ratio() throws InterruptedException {
+        final var transport = new ScriptedTransport();
+        final var client = newClient(HedgePolicy.newBuilder()
+                .percentile(1)
+                .minDelay(Duration.ofMillis(50))
+                .minSamples(1)
+                .window(8)
+                .maxHedgeRatio(0.25)
+                .build(), transport);
+        warmup(client, transport, 1, Duration.ZERO);
+
+        // 每个请求积攒1/4次对冲的额度，连同预热请求，第4个请求才攒够一次
+        final var hedged = new ArrayList<Boolean>();
+        for (int index = 0; index < 4; index++) {
+            final var future = client.chat(request).async();
+            final var primary = transport.next();
+            final var secondary = transport.arrivals.poll(300, TimeUnit.MILLISECONDS);
+            hedged.add(null != secondary);
+            (null != secondary ? secondary : primary).ok();
+            DashScopeAssertions.assertChatResponse(future.join());
+        }
+        Assertions.assertEquals(List.of(false, false, true, false), hedged);
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$hedge$primary_failed() throws InterruptedException {
+        final var transport = new ScriptedTransport();
+        final var client = newClient(HedgePolicy.newBuilder()
+                .minDelay(Duration.ofMillis(200))
+                .minSamples(1)
+                .window(16)
+                .maxHedgeRatio(1.0)
+                .build(), transport);
+        warmup(client, transport, 1, Duration.ZERO);
+
+        // 对冲前主请求失败，直接以失败为结果，不再对冲
+        final var future = client.chat(request).async();
+        transport.next().reply().complete(HttpTransport.Reply.ofString(
+                500,
+                "application/json",
+                """
+                        {"request_id":"test","code":"InternalError","message":"internal error"}"""
+        ));
+        final var ex = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertInstanceOf(ApiException.class, ex.getCause());
+        Assertions.assertEquals(500, ((ApiException) ex.getCause()).status());
+        Assertions.assertNull(transport.arrivals.poll(400, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void test$hedge$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgePolicy.newBuilder().percentile(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgePolicy.newBuilder().percentile(100));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgePolicy.newBuilder().maxHedgeRatio(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgePolicy.newBuilder().maxHedgeRatio(1.5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgePolicy.newBuilder().window(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgePolicy.newBuilder().minSamples(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> HedgePolicy.newBuilder().window(8).minSamples(16).build());
+    }
+
+    // 到达传输的请求，由测试决定何时应答
+    private record Arrival(long nanos, CompletableFuture<HttpTransport.Reply> reply, CompletableFuture<?> exchange) {
+
+        void ok() {
+            reply.complete(HttpTransport.Reply.ofString(200, "application/json", RESULT));
+        }
+
+    }
+
+    // 记录每个请求的到达时刻和HTTP交互
+    private static class ScriptedTransport implements HttpTransport {
+
+        private final BlockingQueue<Arrival> arrivals = new LinkedBlockingQueue<>();
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+            final var nanos = System.nanoTime();
+            final var reply = new CompletableFuture<HttpTransport.Reply>();
+            final var exchange = HttpTransport.inProcess((r, buffer) -> reply).send(request, handler);
+            arrivals.offer(new Arrival(nanos, reply, exchange));
+            return exchange;
+        }
+
+        Arrival next() throws InterruptedException {
+            final var arrival = arrivals.poll(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(arrival);
+            return arrival;
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiRequest;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+public class HttpSsEventTestCase {
+
+    private static final ChatRequest request = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_TURBO)
+            .user("你好")
+            .build();
+
+    private static String result(String text, String finish) {
+        return """
+                {"request_id":"test","output":{"choices":[{"finish_reason":"%s","message":{"role":"assistant","content":"%s"}}]},"usage":{"input_tokens":1,"output_tokens":1}}"""
+                .formatted(finish, text);
+    }
+
+    // 以分块应答SSE事件流，记录每个事件的原始数据
+    private static List<String> consume(List<String> chunks, List<String> data) {
+        final var client = DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(1))
+                .transport(HttpTransport.inProcess((r, buffer) -> CompletableFuture.completedFuture(
+                        HttpTransport.Reply.ofChunks(200, "text/event-stream", chunks))))
+                .build();
+        final var recording = new ApiRequest<ChatResponse>() {
+
+            @Override
+            public Duration timeout() {
+                return request.timeout();
+            }
+
+            @Override
+            public HttpRequest newHttpRequest() {
+                return request.newHttpRequest();
+            }
+
+            @Override
+            public Function<String, ChatResponse> responseDeserializer() {
+                return body -> {
+                    data.add(body);
+                    return request.responseDeserializer().apply(body);
+                };
+            }
+
+        };
+
+        final var texts = new ArrayList<String>();
+        client.api(recording).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> texts.add(r.output().best().message().text())))
+                .join();
+        return texts;
+    }
+
+    @Test
+    public void test$sse$split() {
+
+        // 行在任意位置跨越数据块，CRLF中的CR和LF分属两个数据块，事件边界的空行也被拆开
+        final var first = result("你", "null");
+        final var second = result("好", "stop");
+        final var chunks = List.of(
+                "id:1\r\nev",
+                "ent:res",
+                "ult\r",
+                "\n:HTTP_STATUS/200\r\ndata:" + first.substring(0, 20),
+                first.substring(20) + "\r",
+                "\n\r",
+                "\nid:2\nevent:result\n",
+                "data:" + second + "\n",
+                "\n"
+        );
+
+        final var data = new CopyOnWriteArrayList<String>();
+        Assertions.assertEquals(List.of("你", "好"), consume(chunks, data));
+        Assertions.assertEquals(List.of(first, second), data);
+    }
+
+    @Test
+    public void test$sse$split_per_char() {
+
+        // 每个字符单独成块
+        final var text = "id:1\r\nevent:result\r\n:HTTP_STATUS/200\r\ndata:%s\r\n\r\n".formatted(result("你好", "stop"));
+        final var chunks = text.codePoints().mapToObj(Character::toString).toList();
+
+        final var data = new CopyOnWriteArrayList<String>();
+        Assertions.assertEquals(List.of("你好"), consume(chunks, data));
+        Assertions.assertEquals(List.of(result("你好", "stop")), data);
+    }
+
+    @Test
+    public void test$sse$multiline_data() {
+
+        // 多个data行以换行符拼接，字段值首尾空白被去除
+        final var chunks = List.of("""
+                id:1
+                event:result
+                data:{"request_id":"test",
+                data: "output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"你好"}}]},
+                data:"usage":{"input_tokens":1,"output_tokens":1}}
+
+                """);
+
+        final var data = new CopyOnWriteArrayList<String>();
+        Assertions.assertEquals(List.of("你好"), consume(chunks, data));
+        Assertions.assertEquals(List.of("""
+                {"request_id":"test",
+                "output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"你好"}}]},
+                "usage":{"input_tokens":1,"output_tokens":1}}"""), data);
+    }
+
+    @Test
+    public void test$sse$meta() {
+
+        // 注释行作为元数据，错误事件的HTTP状态从中解析
+        final var chunks = List.of(
+                "id:1\nevent:result\n:HTTP_STATUS/200\ndata:%s\n\n".formatted(result("你", "null")),
+                "id:2\nevent:error\n:HTTP_STATUS/429\ndata:%s\n\n".formatted("""
+                        {"request_id":"test","code":"Throttling","message":"too many requests"}""")
+        );
+
+        final var data = new CopyOnWriteArrayList<String>();
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> consume(chunks, data));
+        Assertions.assertInstanceOf(ApiException.class, ex.getCause());
+        Assertions.assertEquals(429, ((ApiException) ex.getCause()).status());
+        Assertions.assertEquals(2, data.size());
+    }
+
+    @Test
+    public void test$sse$trailing() {
+
+        // 数据流在最后一个事件的空行之前结束，未完成的事件按SSE规范丢弃，事件流正常结束
+        final var chunks = List.of(
+                "id:1\nevent:result\ndata:%s\n\n".formatted(result("你", "null")),
+                "id:2\nevent:result\ndata:%s\n".formatted(result("好", "stop"))
+        );
+
+        final var data = new CopyOnWriteArrayList<String>();
+        Assertions.assertEquals(List.of("你"), consume(chunks, data));
+        Assertions.assertEquals(List.of(result("你", "null")), data);
+    }
+
+}
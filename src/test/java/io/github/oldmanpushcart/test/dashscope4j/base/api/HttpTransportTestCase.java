@@ -0,0 +1,134 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class HttpTransportTestCase {
+
+    private static final ChatRequest request = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_TURBO)
+            .user("你好")
+            .build();
+
+    private static DashScopeClient newClient(HttpTransport.Handler handler) {
+        return DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(1))
+                .transport(HttpTransport.inProcess(handler))
+                .build();
+    }
+
+    private static String result(String text, String finish) {
+        return """
+                {"request_id":"test","output":{"choices":[{"finish_reason":"%s","message":{"role":"assistant","content":"%s"}}]},"usage":{"input_tokens":1,"output_tokens":1}}"""
+                .formatted(finish, text);
+    }
+
+    @Test
+    public void test$transport$async() {
+        final var body = new AtomicReference<String>();
+        final var client = newClient((request, buffer) -> {
+            body.set(StandardCharsets.UTF_8.decode(buffer).toString());
+            return CompletableFuture.completedFuture(HttpTransport.Reply.ofString(200, "application/json", result("你好!", "stop")));
+        });
+
+        final var response = client.chat(request).async().join();
+        Assertions.assertEquals("test", response.uuid());
+        Assertions.assertEquals("你好!", response.output().best().message().text());
+        Assertions.assertTrue(body.get().contains("\"qwen-turbo\""));
+    }
+
+    @Test
+    public void test$transport$charset() {
+
+        // 应答按Content-Type声明的字符集解码
+        final var charset = Charset.forName("GBK");
+        final var bytes = result("你好!", "stop").getBytes(charset);
+        final Flow.Publisher<List<ByteBuffer>> body = subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+
+            private boolean done;
+
+            @Override
+            public void request(long n) {
+                if (!done) {
+                    done = true;
+                    subscriber.onNext(List.of(ByteBuffer.wrap(bytes)));
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                done = true;
+            }
+
+        });
+        final var client = newClient((request, buffer) -> CompletableFuture.completedFuture(
+                new HttpTransport.Reply(200, Map.of("content-type", List.of("application/json;charset=GBK")), body)));
+
+        final var response = client.chat(request).async().join();
+        Assertions.assertEquals("你好!", response.output().best().message().text());
+    }
+
+    @Test
+    public void test$transport$flow() {
+        final var chunks = new ArrayList<String>();
+        for (final var text : List.of("你", "好", "!")) {
+            final var finish = "!".equals(text) ? "stop" : "null";
+            chunks.add("id:%d\nevent:result\n:HTTP_STATUS/200\ndata:%s\n\n".formatted(chunks.size() + 1, result(text, finish)));
+        }
+        final var client = newClient((request, buffer) -> {
+            Assertions.assertEquals("enable", request.headers().firstValue("X-DashScope-SSE").orElse(null));
+            return CompletableFuture.completedFuture(HttpTransport.Reply.ofChunks(200, "text/event-stream", chunks));
+        });
+
+        final var texts = new ArrayList<String>();
+        client.chat(request).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> texts.add(r.output().best().message().text())))
+                .join();
+        Assertions.assertEquals(List.of("你", "好", "!"), texts);
+    }
+
+    @Test
+    public void test$transport$error() {
+        final var client = newClient((request, buffer) -> CompletableFuture.completedFuture(HttpTransport.Reply.ofString(
+                400,
+                "application/json",
+                """
+                        {"request_id":"test","code":"InvalidParameter","message":"bad request"}"""
+        )));
+
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> client.chat(request).async().join());
+        Assertions.assertInstanceOf(ApiException.class, ex.getCause());
+        Assertions.assertEquals(400, ((ApiException) ex.getCause()).status());
+    }
+
+    @Test
+    public void test$transport$timeout() {
+        final var client = newClient((request, buffer) -> new CompletableFuture<>());
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> client.chat(request).async().join());
+        Assertions.assertInstanceOf(ApiTimeoutException.class, ex.getCause());
+    }
+
+}
@@ -0,0 +1,256 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.base.api.RateLimit;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
+import io.github.oldmanpushcart.test.dashscope4j.mock.MockDashScopeServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class RateLimitTestCase {
+
+    private static final String RESULT = """
+            {"request_id":"test","output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"你好"}}]},"usage":{"input_tokens":1,"output_tokens":1}}""";
+
+    private static final String EVENT = "id:1\nevent:result\n:HTTP_STATUS/200\ndata:%s\n\n".formatted(RESULT);
+
+    private static ChatRequest request(int index) {
+        return ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_TURBO)
+                .user("request-" + index)
+                .build();
+    }
+
+    private static DashScopeClient newClient(RateLimit limit, Consumer<DashScopeClient.Builder> consumer) {
+        final var builder = DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .rateLimit(ChatModel.QWEN_TURBO, limit);
+        consumer.accept(builder);
+        return builder.build();
+    }
+
+    private static HttpTransport.Reply reply(HttpTransportRequest request) {
+        return request.sse()
+                ? HttpTransport.Reply.ofChunks(200, "text/event-stream", List.of(EVENT, EVENT))
+                : HttpTransport.Reply.ofString(200, "application/json", RESULT);
+    }
+
+    // 记录到达传输的请求，由测试决定何时应答
+    private record HttpTransportRequest(String body, boolean sse, CompletableFuture<HttpTransport.Reply> reply) {
+
+    }
+
+    private static HttpTransport transport(BlockingQueue<HttpTransportRequest> arrived) {
+        return HttpTransport.inProcess((request, buffer) -> {
+            final var reply = new CompletableFuture<HttpTransport.Reply>();
+            arrived.offer(new HttpTransportRequest(
+                    StandardCharsets.UTF_8.decode(buffer).toString(),
+                    "enable".equals(request.headers().firstValue("X-DashScope-SSE").orElse(null)),
+                    reply
+            ));
+            return reply;
+        });
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$limit$order() throws InterruptedException {
+        final var arrived = new LinkedBlockingQueue<HttpTransportRequest>();
+        final var client = newClient(RateLimit.newBuilder().maxConcurrency(1).build(), builder -> builder
+                .transport(transport(arrived)));
+
+        final var futures = new ArrayList<CompletableFuture<ChatResponse>>();
+        for (int index = 0; index < 5; index++) {
+            futures.add(client.api(request(index)).async());
+        }
+
+        // 并发为1时排队的请求按提交顺序依次放行，前一个结束后才放行下一个
+        for (int index = 0; index < 5; index++) {
+            final var request = arrived.poll(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(request);
+            Assertions.assertTrue(request.body().contains("request-" + index), request.body());
+            Assertions.assertNull(arrived.poll(50, TimeUnit.MILLISECONDS));
+            Assertions.assertFalse(futures.get(index).isDone());
+            request.reply().complete(reply(request));
+            DashScopeAssertions.assertChatResponse(futures.get(index).join());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$limit$requests_per_second() {
+        try (final var server = MockDashScopeServer.newBuilder().build()) {
+            final var client = newClient(RateLimit.newBuilder().requestsPerSecond(5).build(), builder -> builder
+                    .baseUri(server.uri()));
+
+            // 每秒5个请求，6个并发请求中最后一个至少在1秒后才放行
+            final var begin = System.nanoTime();
+            final var futures = new ArrayList<CompletableFuture<ChatResponse>>();
+            for (int index = 0; index < 6; index++) {
+                futures.add(client.chat(request(index)).async());
+            }
+            futures.forEach(future -> DashScopeAssertions.assertChatResponse(future.join()));
+            final var elapsed = Duration.ofNanos(System.nanoTime() - begin);
+            Assertions.assertTrue(elapsed.compareTo(Duration.ofMillis(900)) >= 0, "elapsed=" + elapsed);
+            Assertions.assertEquals(6, server.requests());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$limit$concurrency() {
+        try (final var server = MockDashScopeServer.newBuilder()
+                .maxConcurrency(2)
+                .latency(Duration.ofMillis(100))
+                .build()) {
+            final var client = newClient(RateLimit.newBuilder().maxConcurrency(2).build(), builder -> builder
+                    .baseUri(server.uri()));
+
+            // 客户端并发不超过服务端上限，不会被服务端限流
+            final var futures = new ArrayList<CompletableFuture<ChatResponse>>();
+            for (int index = 0; index < 8; index++) {
+                futures.add(client.chat(request(index)).async());
+            }
+            futures.forEach(future -> DashScopeAssertions.assertChatResponse(future.join()));
+            Assertions.assertEquals(8, server.requests());
+            Assertions.assertEquals(0, server.throttled());
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$limit$queue_timeout() throws InterruptedException {
+        final var arrived = new LinkedBlockingQueue<HttpTransportRequest>();
+        final var client = newClient(RateLimit.newBuilder().maxConcurrency(1).build(), builder -> builder
+                .rateLimitQueueTimeout(Duration.ofMillis(100))
+                .transport(transport(arrived)));
+
+        // 第一个请求占住许可，第二个请求排队超时且从未发出
+        final var first = client.api(request(0)).async();
+        final var thread = new AtomicReference<String>();
+        final var queued = client.api(request(1)).async()
+                .whenComplete((v, cex) -> thread.set(Thread.currentThread().getName()));
+        final var ex = Assertions.assertThrows(CompletionException.class, queued::join);
+        Assertions.assertInstanceOf(ApiTimeoutException.class, ex.getCause());
+        Assertions.assertEquals(ApiTimeoutException.Phase.QUEUE, ((ApiTimeoutException) ex.getCause()).phase());
+        Assertions.assertEquals(Duration.ofMillis(100), ((ApiTimeoutException) ex.getCause()).timeout());
+        Assertions.assertEquals(1, arrived.size());
+
+        // 排队超时在线程池中完成，后续阶段不在全局共享的调度线程上执行
+        Assertions.assertFalse(thread.get().startsWith("dashscope4j-scheduler"), thread.get());
+
+        // 排队超时的请求不占用许可
+        final var request = arrived.take();
+        request.reply().complete(reply(request));
+        DashScopeAssertions.assertChatResponse(first.join());
+        final var next = client.api(request(2)).async();
+        final var nextRequest = arrived.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(nextRequest);
+        nextRequest.reply().complete(reply(nextRequest));
+        DashScopeAssertions.assertChatResponse(next.join());
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$limit$release_on_cancel() throws InterruptedException {
+        final var arrived = new LinkedBlockingQueue<HttpTransportRequest>();
+        final var client = newClient(RateLimit.newBuilder().maxConcurrency(1).build(), builder -> builder
+                .transport(transport(arrived)));
+
+        // 进行中的请求被取消后归还许可，排队的请求随即放行
+        final var first = client.api(request(0)).async();
+        Assertions.assertNotNull(arrived.poll(5, TimeUnit.SECONDS));
+        final var second = client.api(request(1)).async();
+        Assertions.assertNull(arrived.poll(50, TimeUnit.MILLISECONDS));
+        first.cancel(true);
+
+        final var request = arrived.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(request);
+        Assertions.assertTrue(request.body().contains("request-1"));
+        request.reply().complete(reply(request));
+        DashScopeAssertions.assertChatResponse(second.join());
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$limit$release_on_flow_terminate() throws InterruptedException {
+        final var arrived = new LinkedBlockingQueue<HttpTransportRequest>();
+        final var client = newClient(RateLimit.newBuilder().maxConcurrency(1).build(), builder -> builder
+                .transport(transport(arrived)));
+
+        // 事件流结束后归还许可
+        final var completed = client.api(request(0)).flow();
+        final var completedRequest = arrived.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(completedRequest);
+        completedRequest.reply().complete(reply(completedRequest));
+        final var count = new AtomicInteger();
+        completed.thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> count.incrementAndGet())).join();
+        Assertions.assertEquals(2, count.get());
+
+        // 事件流被订阅者取消后归还许可
+        final var cancelled = client.api(request(1)).flow();
+        final var cancelledRequest = arrived.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(cancelledRequest);
+        cancelledRequest.reply().complete(reply(cancelledRequest));
+        final var received = new CompletableFuture<ChatResponse>();
+        cancelled.join().subscribe(new Flow.Subscriber<>() {
+
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ChatResponse item) {
+                subscription.cancel();
+                received.complete(item);
+            }
+
+            @Override
+            public void onError(Throwable ex) {
+                received.completeExceptionally(ex);
+            }
+
+            @Override
+            public void onComplete() {
+
+            }
+
+        });
+        DashScopeAssertions.assertChatResponse(received.join());
+
+        final var next = client.api(request(2)).async();
+        final var nextRequest = arrived.poll(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(nextRequest);
+        nextRequest.reply().complete(reply(nextRequest));
+        DashScopeAssertions.assertChatResponse(next.join());
+    }
+
+}
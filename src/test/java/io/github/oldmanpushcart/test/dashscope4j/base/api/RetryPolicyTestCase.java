@@ -0,0 +1,139 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.api;
+
+import io.github.oldmanpushcart.dashscope4j.Ret;
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+public class RetryPolicyTestCase {
+
+    @Test
+    public void test$retry$classify() {
+
+        final var policy = RetryPolicy.newBuilder().build();
+
+        // 限流、服务端错误和传输错误可重试，包装后的异常同样识别
+        Assertions.assertTrue(policy.isRetryable(newApiException(429, "Throttling.RateQuota", null)));
+        Assertions.assertTrue(policy.isRetryable(newApiException(503, "ServiceUnavailable", null)));
+        Assertions.assertTrue(policy.isRetryable(newApiException(200, "InternalError.Algo", null)));
+        Assertions.assertTrue(policy.isRetryable(new CompletionException(new IOException("reset"))));
+
+        // 请求错误和超时不重试
+        Assertions.assertFalse(policy.isRetryable(newApiException(400, "InvalidParameter", null)));
+        Assertions.assertFalse(policy.isRetryable(newApiException(501, "NotImplemented", null)));
+        Assertions.assertFalse(policy.isRetryable(new ApiTimeoutException(ApiTimeoutException.Phase.TOTAL, Duration.ofSeconds(1))));
+
+        // 只有确定没有被受理的失败才允许重试非幂等的请求
+        Assertions.assertTrue(RetryPolicy.isRejected(newApiException(429, "Throttling", null)));
+        Assertions.assertTrue(RetryPolicy.isRejected(new CompletionException(new ConnectException("refused"))));
+        Assertions.assertFalse(RetryPolicy.isRejected(newApiException(500, "InternalError", null)));
+        Assertions.assertFalse(RetryPolicy.isRejected(new IOException("reset")));
+
+    }
+
+    @Test
+    public void test$retry$backoff() {
+
+        final var policy = RetryPolicy.newBuilder()
+                .initialBackoff(Duration.ofMillis(100))
+                .maxBackoff(Duration.ofMillis(350))
+                .multiplier(2.0)
+                .jitter(0)
+                .build();
+        final var ex = new IOException("reset");
+
+        // 按倍数增长，不超过上限
+        Assertions.assertEquals(Duration.ofMillis(100), policy.backoff(1, ex));
+        Assertions.assertEquals(Duration.ofMillis(200), policy.backoff(2, ex));
+        Assertions.assertEquals(Duration.ofMillis(350), policy.backoff(3, ex));
+
+    }
+
+    @Test
+    public void test$retry$backoff_jitter() {
+
+        final var policy = RetryPolicy.newBuilder()
+                .initialBackoff(Duration.ofMillis(100))
+                .jitter(0.5)
+                .build();
+
+        // 随机缩短至多一半
+        for (int i = 0; i < 100; i++) {
+            final var backoff = policy.backoff(1, new IOException());
+            Assertions.assertTrue(backoff.compareTo(Duration.ofMillis(50)) >= 0);
+            Assertions.assertTrue(backoff.compareTo(Duration.ofMillis(100)) <= 0);
+        }
+
+    }
+
+    @Test
+    public void test$retry$retry_after() {
+
+        final var policy = RetryPolicy.newBuilder()
+                .initialBackoff(Duration.ofMillis(100))
+                .maxBackoff(Duration.ofSeconds(1))
+                .jitter(0)
+                .build();
+
+        // 服务端要求的等待时间更长时以服务端为准，且不受退避上限限制
+        Assertions.assertEquals(Duration.ofSeconds(5), policy.backoff(1, newApiException(429, "Throttling", Duration.ofSeconds(5))));
+        Assertions.assertEquals(Duration.ofMillis(100), policy.backoff(1, newApiException(429, "Throttling", Duration.ZERO)));
+
+    }
+
+    @Test
+    public void test$retry$custom() {
+
+        final var policy = RetryPolicy.newBuilder()
+                .retryOn(ex -> ex instanceof IllegalStateException)
+                .build();
+
+        Assertions.assertTrue(policy.isRetryable(new CompletionException(new IllegalStateException())));
+        Assertions.assertFalse(policy.isRetryable(newApiException(429, "Throttling", null)));
+
+    }
+
+    @Test
+    public void test$retry$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RetryPolicy.newBuilder().maxAttempts(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RetryPolicy.newBuilder().multiplier(0.5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RetryPolicy.newBuilder().jitter(1.5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RetryPolicy.newBuilder().initialBackoff(Duration.ofMillis(-1)));
+    }
+
+    private static ApiException newApiException(int status, String code, Duration retryAfter) {
+        return new ApiException(status, new ApiResponse<>() {
+
+            @Override
+            public String uuid() {
+                return "test";
+            }
+
+            @Override
+            public Ret ret() {
+                return Ret.of(code, "test");
+            }
+
+            @Override
+            public Usage usage() {
+                return Usage.empty();
+            }
+
+            @Override
+            public Output output() {
+                return null;
+            }
+
+        }, retryAfter);
+    }
+
+}
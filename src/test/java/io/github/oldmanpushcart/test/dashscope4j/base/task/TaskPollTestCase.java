@@ -0,0 +1,72 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.task;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.task.Task;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageModel;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageRequest;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageResponse;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
+import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
+import io.github.oldmanpushcart.test.dashscope4j.mock.MockDashScopeServer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+public class TaskPollTestCase {
+
+    private static final GenImageRequest request = GenImageRequest.newBuilder()
+            .model(GenImageModel.WANX_V1)
+            .prompt("一只猫")
+            .build();
+
+    @Test
+    @Timeout(60)
+    public void test$poll$budget() {
+        final var pollsPerSecond = 20;
+        final var polled = new ConcurrentLinkedQueue<Long>();
+        try (final var server = MockDashScopeServer.newBuilder().taskDuration(Duration.ofMillis(500)).build()) {
+            final var client = DashScopeClient.newBuilder()
+                    .ak("mock")
+                    .executor(ForkJoinPool.commonPool())
+                    .timeout(Duration.ofSeconds(10))
+                    .baseUri(server.uri())
+                    .taskPollsPerSecond(pollsPerSecond)
+                    .metrics(new ApiMetrics() {
+                        @Override
+                        public void taskPolled() {
+                            polled.add(System.nanoTime());
+                        }
+                    })
+                    .build();
+
+            // 10个任务各自每50毫秒查询一次，合计远超每秒20次的预算
+            final var futures = new ArrayList<CompletableFuture<GenImageResponse>>();
+            for (int index = 0; index < 10; index++) {
+                futures.add(client.genImage(request).task(Task.WaitStrategies.perpetual(Duration.ofMillis(50))));
+            }
+
+            // 所有任务都完成
+            futures.forEach(future -> DashScopeAssertions.assertGenImageResponse(future.join()));
+            Assertions.assertEquals(10 + polled.size(), server.requests());
+        }
+
+        // 任意1秒内的查询数不超过预算(令牌桶起始时允许多1次)
+        final var times = List.copyOf(polled);
+        Assertions.assertTrue(times.size() >= 20, "polls=" + times.size());
+        for (int begin = 0, end = 0; begin < times.size(); begin++) {
+            while (end < times.size() && times.get(end) - times.get(begin) < TimeUnit.SECONDS.toNanos(1)) {
+                end++;
+            }
+            Assertions.assertTrue(end - begin <= pollsPerSecond + 1, "polls in 1s: " + (end - begin));
+        }
+    }
+
+}
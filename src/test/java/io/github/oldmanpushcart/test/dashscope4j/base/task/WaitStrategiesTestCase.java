@@ -0,0 +1,124 @@
+package io.github.oldmanpushcart.test.dashscope4j.base.task;
+
+import io.github.oldmanpushcart.dashscope4j.base.task.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.Date;
+
+public class WaitStrategiesTestCase {
+
+    // 调度延迟的容忍度，等待只会晚到不会早到
+    private static final Duration SLACK = Duration.ofMillis(150);
+
+    private static Date ago(long millis) {
+        return new Date(System.currentTimeMillis() - millis);
+    }
+
+    private static Task task(Date submit, Date scheduled, Task.Metrics metrics) {
+        return new Task("test", Task.Status.RUNNING, metrics, new Task.Timing(submit, scheduled, null));
+    }
+
+    private static Duration measure(Task.WaitStrategy strategy, Task task) {
+        final var begin = System.nanoTime();
+        strategy.performWait(task).join();
+        return Duration.ofNanos(System.nanoTime() - begin);
+    }
+
+    private static void assertWait(long minMillis, long maxMillis, Duration actual) {
+        Assertions.assertTrue(actual.compareTo(Duration.ofMillis(minMillis)) >= 0, "wait=" + actual);
+        Assertions.assertTrue(actual.compareTo(Duration.ofMillis(maxMillis).plus(SLACK)) <= 0, "wait=" + actual);
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$backoff$clamp() {
+        final var strategy = Task.WaitStrategies.backoff(Duration.ofMillis(100), Duration.ofMillis(300), 2.0d, 0.0d);
+
+        // 刚提交时不短于初始间隔
+        assertWait(100, 100, measure(strategy, task(new Date(), null, null)));
+
+        // 每轮等待已提交时长的(multiplier-1)倍
+        assertWait(200, 200, measure(strategy, task(ago(200), null, null)));
+
+        // 不长于最大间隔
+        assertWait(300, 300, measure(strategy, task(ago(10_000), null, null)));
+
+        // 提交时间缺失或晚于当前时间时视为刚提交
+        assertWait(100, 100, measure(strategy, task(null, null, null)));
+        assertWait(100, 100, measure(strategy, task(ago(-10_000), null, null)));
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$backoff$jitter() {
+
+        // 抖动只缩短间隔，至多缩短jitter比例
+        final var strategy = Task.WaitStrategies.backoff(Duration.ofMillis(100), Duration.ofMillis(200), 2.0d, 0.5d);
+        for (int index = 0; index < 5; index++) {
+            assertWait(100, 200, measure(strategy, task(ago(10_000), null, null)));
+        }
+
+        // 默认倍数2、抖动0.2
+        final var defaults = Task.WaitStrategies.backoff(Duration.ofMillis(100), Duration.ofMillis(200));
+        for (int index = 0; index < 5; index++) {
+            assertWait(160, 200, measure(defaults, task(ago(10_000), null, null)));
+        }
+    }
+
+    @Test
+    public void test$backoff$illegal() {
+        final var initial = Duration.ofMillis(100);
+        final var max = Duration.ofSeconds(1);
+        Assertions.assertThrows(NullPointerException.class, () -> Task.WaitStrategies.backoff(null, max));
+        Assertions.assertThrows(NullPointerException.class, () -> Task.WaitStrategies.backoff(initial, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Task.WaitStrategies.backoff(max, initial));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Task.WaitStrategies.backoff(initial, max, 1.0d, 0.2d));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Task.WaitStrategies.backoff(initial, max, 2.0d, -0.1d));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Task.WaitStrategies.backoff(initial, max, 2.0d, 1.1d));
+        Assertions.assertNotNull(Task.WaitStrategies.backoff(initial, initial, 2.0d, 1.0d));
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$progress$estimate() {
+        final var strategy = Task.WaitStrategies.progress(Duration.ofMillis(100), Duration.ofMillis(400));
+
+        // 无进度时等待已运行时长的一半
+        assertWait(200, 200, measure(strategy, task(ago(400), null, null)));
+        assertWait(200, 200, measure(strategy, task(ago(400), null, new Task.Metrics(4, 0, 0))));
+
+        // 已运行时长以调度时间为准
+        assertWait(150, 150, measure(strategy, task(ago(10_000), ago(300), null)));
+
+        // 有进度时按已完成子任务的平均耗时估算剩余时间，失败的子任务也计入已完成
+        assertWait(200, 200, measure(strategy, task(ago(600), null, new Task.Metrics(4, 2, 1))));
+    }
+
+    @Test
+    @Timeout(10)
+    public void test$progress$clamp() {
+        final var strategy = Task.WaitStrategies.progress(Duration.ofMillis(100), Duration.ofMillis(400));
+
+        // 不短于最小间隔
+        assertWait(100, 100, measure(strategy, task(new Date(), null, null)));
+        assertWait(100, 100, measure(strategy, task(ago(1_000), null, new Task.Metrics(4, 4, 0))));
+
+        // 不长于最大间隔
+        assertWait(400, 400, measure(strategy, task(ago(10_000), null, null)));
+        assertWait(400, 400, measure(strategy, task(ago(1_000), null, new Task.Metrics(4, 1, 0))));
+    }
+
+    @Test
+    public void test$progress$illegal() {
+        final var min = Duration.ofMillis(100);
+        final var max = Duration.ofSeconds(1);
+        Assertions.assertThrows(NullPointerException.class, () -> Task.WaitStrategies.progress(null, max));
+        Assertions.assertThrows(NullPointerException.class, () -> Task.WaitStrategies.progress(min, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Task.WaitStrategies.progress(max, min));
+        Assertions.assertNotNull(Task.WaitStrategies.progress(min, min));
+    }
+
+}
@@ -0,0 +1,127 @@
+package io.github.oldmanpushcart.test.dashscope4j.chat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionRegistry;
+import io.github.oldmanpushcart.test.dashscope4j.chat.function.ComputeAvgScoreFunction;
+import io.github.oldmanpushcart.test.dashscope4j.chat.function.EchoFunction;
+import io.github.oldmanpushcart.test.dashscope4j.chat.function.QueryScoreFunction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+public class ChatFunctionRegistryTestCase {
+
+    private static final String RESULT = """
+            {"request_id":"test","output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"完成"}}]},"usage":{"input_tokens":1,"output_tokens":1}}""";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // 发送对话请求，返回请求体
+    private static String send(ChatRequest request) {
+        final var bodies = new CopyOnWriteArrayList<String>();
+        final var client = DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .transport(HttpTransport.inProcess((r, buffer) -> {
+                    bodies.add(StandardCharsets.UTF_8.decode(buffer).toString());
+                    return CompletableFuture.completedFuture(HttpTransport.Reply.ofString(200, "application/json", RESULT));
+                }))
+                .build();
+        client.chat(request).async().join();
+        Assertions.assertEquals(1, bodies.size());
+        return bodies.get(0);
+    }
+
+    @Test
+    public void test$registry$function() {
+        final var query = new QueryScoreFunction();
+        final var avg = new ComputeAvgScoreFunction();
+        final var registry = ChatFunctionRegistry.of(query, avg);
+
+        // 按注册顺序保存函数，按名称索引
+        Assertions.assertEquals(List.of(query, avg), registry.functions());
+        Assertions.assertSame(query, registry.function("query_score"));
+        Assertions.assertSame(avg, registry.function("compute_avg_score"));
+        Assertions.assertNull(registry.function("not_exists"));
+        Assertions.assertNull(ChatFunctionRegistry.of().function("query_score"));
+    }
+
+    @Test
+    public void test$registry$duplicate() {
+
+        // 同名函数在注册时即被拒绝
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChatFunctionRegistry.of(new EchoFunction(), new EchoFunction()));
+
+        // 注册表与额外的函数合并时同样拒绝同名函数
+        final var registry = ChatFunctionRegistry.of(new EchoFunction());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_TURBO)
+                .functions(registry)
+                .functions(new EchoFunction())
+                .user("echo")
+                .build());
+    }
+
+    @Test
+    public void test$registry$schema() {
+        final var registry = ChatFunctionRegistry.of(new QueryScoreFunction(), new EchoFunction());
+
+        // 注册表中预先生成的json-schema与逐个声明函数时生成的一致，注册表可以被多个请求复用
+        final var expect = send(ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_TURBO)
+                .functions(new QueryScoreFunction(), new EchoFunction())
+                .user("echo")
+                .build());
+        for (int index = 0; index < 2; index++) {
+            Assertions.assertEquals(expect, send(ChatRequest.newBuilder()
+                    .model(ChatModel.QWEN_TURBO)
+                    .functions(registry)
+                    .user("echo")
+                    .build()));
+        }
+        Assertions.assertTrue(expect.contains("\"name\":\"echo\""), expect);
+        Assertions.assertTrue(expect.contains("\"parameters\":{"), expect);
+        Assertions.assertTrue(expect.contains("需要回显的文字"), expect);
+        Assertions.assertTrue(expect.contains("the student name to query"), expect);
+    }
+
+    // 发送对话请求，返回请求体中的工具
+    private static JsonNode tools(ChatRequest request) throws Exception {
+        return mapper.readTree(send(request)).at("/parameters/tools");
+    }
+
+    @Test
+    public void test$registry$schema_cache() throws Exception {
+        final var request = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_TURBO)
+                .functions(new QueryScoreFunction(), new EchoFunction())
+                .user("echo")
+                .build();
+
+        // 首次序列化时生成json-schema，再次序列化时输出缓存的json-schema，与新请求重新生成的一致
+        final var generated = tools(request);
+        final var cached = tools(request);
+        final var fresh = tools(ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_TURBO)
+                .functions(new QueryScoreFunction(), new EchoFunction())
+                .user("echo")
+                .build());
+        Assertions.assertEquals(generated, cached);
+        Assertions.assertEquals(fresh, cached);
+        Assertions.assertEquals(mapper.readTree("""
+                {"type":"object","properties":{"words":{"type":"string","description":"需要回显的文字"}}}"""), cached.at("/1/function/parameters"));
+    }
+
+}
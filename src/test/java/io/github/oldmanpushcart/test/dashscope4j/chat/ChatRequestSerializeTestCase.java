@@ -0,0 +1,110 @@
+package io.github.oldmanpushcart.test.dashscope4j.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+import io.github.oldmanpushcart.dashscope4j.chat.message.PluginCallMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.message.PluginMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.message.ToolCallMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.message.ToolMessage;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+public class ChatRequestSerializeTestCase {
+
+    private static final String RESULT = """
+            {"request_id":"test","output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"完成"}}]},"usage":{"input_tokens":1,"output_tokens":1}}""";
+
+    // 未注册消息片段序列化器的普通序列化，即缓存片段之前的输出
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .setPropertyNamingStrategy(new PropertyNamingStrategies.SnakeCaseStrategy());
+
+    // 从应答中解析出工具调用、插件调用等内置消息
+    private static List<Message> history(String messages) {
+        final var response = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_TURBO)
+                .user("hello")
+                .build()
+                .responseDeserializer()
+                .apply("""
+                        {"output":{"choices":[{"finish_reason":"stop","messages":[%s]}]},"request_id":"1"}"""
+                        .formatted(messages));
+        return response.output().best().history();
+    }
+
+    // 发送对话请求，返回请求体
+    private static String send(ChatModel model, List<Message> messages) {
+        final var bodies = new CopyOnWriteArrayList<String>();
+        final var client = DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .transport(HttpTransport.inProcess((r, buffer) -> {
+                    bodies.add(StandardCharsets.UTF_8.decode(buffer).toString());
+                    return CompletableFuture.completedFuture(HttpTransport.Reply.ofString(200, "application/json", RESULT));
+                }))
+                .build();
+        client.chat(ChatRequest.newBuilder()
+                        .model(model)
+                        .messages(messages)
+                        .build())
+                .async()
+                .join();
+        Assertions.assertEquals(1, bodies.size());
+        return bodies.get(0);
+    }
+
+    private static void assertPlain(String body, List<Message> messages) throws Exception {
+        final var expect = mapper.writeValueAsString(messages);
+        Assertions.assertEquals(mapper.readTree(expect), mapper.readTree(body).at("/input/messages"), body);
+        Assertions.assertTrue(body.contains("\"messages\":" + expect), body);
+    }
+
+    @Test
+    public void test$serialize$fragment() throws Exception {
+        final var messages = new ArrayList<Message>();
+        messages.add(Message.ofSystem("你是一个助手"));
+        messages.add(Message.ofUser("你好"));
+        messages.add(Message.ofUser(
+                Content.ofImage(URI.create("https://example.com/image.png")),
+                Content.ofText("图片里有什么？")
+        ));
+        messages.addAll(history("""
+                {"role":"assistant","content":"","tool_calls":[{"id":"call_0","type":"function","function":{"name":"echo","arguments":"{\\"words\\":\\"0\\"}"}}]},\
+                {"role":"tool","content":"{\\"words\\":\\"0\\"}","name":"echo"},\
+                {"role":"assistant","content":"","plugin_call":{"name":"calculator","arguments":"1+1"}},\
+                {"role":"plugin","content":"2","name":"calculator","status":{"code":200,"name":"Success","message":"ok"}},\
+                {"role":"assistant","content":"结果是2"}"""));
+        Assertions.assertInstanceOf(ToolCallMessage.class, messages.get(3));
+        Assertions.assertInstanceOf(ToolMessage.class, messages.get(4));
+        Assertions.assertInstanceOf(PluginCallMessage.class, messages.get(5));
+        Assertions.assertInstanceOf(PluginMessage.class, messages.get(6));
+
+        // 同一批消息在文本、多模态、文本格式之间切换，每次输出都与普通序列化一致
+        final var text = send(ChatModel.QWEN_TURBO, messages);
+        assertPlain(text, messages);
+        Assertions.assertTrue(text.contains("\"content\":\"图片里有什么？\""), text);
+
+        final var multimodal = send(ChatModel.QWEN_VL_PLUS, messages);
+        assertPlain(multimodal, messages);
+        Assertions.assertTrue(multimodal.contains("\"content\":[{\"image\":\"https://example.com/image.png\"}"), multimodal);
+
+        Assertions.assertEquals(text, send(ChatModel.QWEN_TURBO, messages));
+        assertPlain(text, messages);
+    }
+
+}
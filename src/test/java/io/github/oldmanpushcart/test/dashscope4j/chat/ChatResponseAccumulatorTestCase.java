@@ -0,0 +1,80 @@
+package io.github.oldmanpushcart.test.dashscope4j.chat;
+
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatOptions;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.dashscope4j.chat.message.ToolCallMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionTool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+
+public class ChatResponseAccumulatorTestCase {
+
+    private static final Function<String, ChatResponse> deserializer = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_PLUS)
+            .option(ChatOptions.ENABLE_INCREMENTAL_OUTPUT, true)
+            .user("hello")
+            .build()
+            .responseDeserializer();
+
+    @Test
+    public void test$accumulate$text() {
+
+        final var accumulator = ChatResponse.newAccumulator();
+        Assertions.assertNull(accumulator.result());
+
+        accumulator
+                .accept(deserializer.apply("""
+                        {"output":{"choices":[{"finish_reason":"null","message":{"role":"assistant","content":"你好"}}]},\
+                        "usage":{"total_tokens":11,"output_tokens":1,"input_tokens":10},"request_id":"1"}"""))
+                .accept(deserializer.apply("""
+                        {"output":{"choices":[{"finish_reason":"null","message":{"role":"assistant","content":"，世界"}}]},\
+                        "usage":{"total_tokens":12,"output_tokens":2,"input_tokens":10},"request_id":"1"}"""))
+                .accept(deserializer.apply("""
+                        {"output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"！"}}]},\
+                        "usage":{"total_tokens":13,"output_tokens":3,"input_tokens":10},"request_id":"1"}"""));
+
+        final var response = accumulator.result();
+        Assertions.assertEquals("1", response.uuid());
+        Assertions.assertTrue(response.ret().isSuccess());
+        Assertions.assertEquals(13, response.usage().total(item -> item.name().equals("total_tokens")));
+        Assertions.assertEquals(ChatResponse.Finish.NORMAL, response.output().best().finish());
+        Assertions.assertEquals("你好，世界！", response.output().best().message().text());
+
+    }
+
+    @Test
+    public void test$accumulate$tool_calls() {
+
+        final var response = ChatResponse.newAccumulator()
+                .accept(deserializer.apply("""
+                        {"output":{"choices":[{"finish_reason":"null","message":{"role":"assistant","content":"",\
+                        "tool_calls":[{"index":0,"id":"call_1","type":"function","function":{"name":"query_score","arguments":"{\\"na"}}]}}]},\
+                        "request_id":"2"}"""))
+                .accept(deserializer.apply("""
+                        {"output":{"choices":[{"finish_reason":"null","message":{"role":"assistant","content":"",\
+                        "tool_calls":[{"index":0,"function":{"arguments":"me\\":\\"张三\\"}"}}]}}]},\
+                        "request_id":"2"}"""))
+                .accept(deserializer.apply("""
+                        {"output":{"choices":[{"finish_reason":"tool_calls","message":{"role":"assistant","content":"",\
+                        "tool_calls":[{"index":1,"type":"function","function":{"name":"echo","arguments":"{}"}}]}}]},\
+                        "request_id":"2"}"""))
+                .result();
+
+        final var choice = response.output().best();
+        Assertions.assertEquals(ChatResponse.Finish.TOOL_CALLS, choice.finish());
+        Assertions.assertTrue(choice.message() instanceof ToolCallMessage);
+
+        final var calls = ((ToolCallMessage) choice.message()).calls();
+        Assertions.assertEquals(2, calls.size());
+        Assertions.assertEquals("query_score", ((ChatFunctionTool.Call) calls.get(0)).name());
+        Assertions.assertEquals("{\"name\":\"张三\"}", ((ChatFunctionTool.Call) calls.get(0)).arguments());
+        Assertions.assertEquals("echo", ((ChatFunctionTool.Call) calls.get(1)).name());
+        Assertions.assertEquals("{}", ((ChatFunctionTool.Call) calls.get(1)).arguments());
+
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.github.oldmanpushcart.test.dashscope4j.chat;
+
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatResponse;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+import io.github.oldmanpushcart.dashscope4j.chat.message.PluginCallMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.message.PluginMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.message.ToolCallMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionTool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.function.Function;
+
+public class ChatResponseDeserializeTestCase {
+
+    private static final Function<String, ChatResponse> deserializer = ChatRequest.newBuilder()
+            .model(ChatModel.QWEN_PLUS)
+            .user("hello")
+            .build()
+            .responseDeserializer();
+
+    @Test
+    public void test$deserialize$text() {
+        final var response = deserializer.apply("""
+                {"output":{"finish_reason":"stop","text":"你好"},"usage":{"output_tokens":1},"request_id":"1"}""");
+        final var choice = response.output().best();
+        Assertions.assertEquals(ChatResponse.Finish.NORMAL, choice.finish());
+        Assertions.assertEquals(Message.Role.AI, choice.message().role());
+        Assertions.assertEquals("你好", choice.message().text());
+    }
+
+    @Test
+    public void test$deserialize$message() {
+        final var response = deserializer.apply("""
+                {"output":{"choices":[{"finish_reason":"null","message":{"role":"assistant","content":"你好","extra":{"a":[1]}}}]},\
+                "request_id":"1"}""");
+        final var choice = response.output().best();
+        Assertions.assertEquals(ChatResponse.Finish.NONE, choice.finish());
+        Assertions.assertEquals(Message.Role.AI, choice.message().role());
+        Assertions.assertEquals("你好", choice.message().text());
+    }
+
+    @Test
+    public void test$deserialize$multimodal() {
+        final var response = deserializer.apply("""
+                {"output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant",\
+                "content":[{"text":"图片"},{"image":"https://example.com/a.png"}]}}]},"request_id":"1"}""");
+        final var contents = response.output().best().message().contents();
+        Assertions.assertEquals(2, contents.size());
+        Assertions.assertEquals(Content.Type.TEXT, contents.get(0).type());
+        Assertions.assertEquals("图片", contents.get(0).data());
+        Assertions.assertEquals(URI.create("https://example.com/a.png"), contents.get(1).data());
+    }
+
+    @Test
+    public void test$deserialize$tool_calls() {
+        final var response = deserializer.apply("""
+                {"output":{"choices":[{"finish_reason":"tool_calls","message":{"role":"assistant","content":"",\
+                "tool_calls":[{"type":"function","function":{"name":"query_score","arguments":"{}"}}]}}]},"request_id":"1"}""");
+        final var choice = response.output().best();
+        Assertions.assertEquals(ChatResponse.Finish.TOOL_CALLS, choice.finish());
+        final var call = (ChatFunctionTool.Call) ((ToolCallMessage) choice.message()).calls().get(0);
+        Assertions.assertEquals("query_score", call.name());
+        Assertions.assertEquals("{}", call.arguments());
+    }
+
+    @Test
+    public void test$deserialize$plugin() {
+        final var response = deserializer.apply("""
+                {"output":{"choices":[{"finish_reason":"stop","messages":[\
+                {"role":"assistant","content":"","plugin_call":{"name":"calculator","arguments":"1+1"}},\
+                {"role":"plugin","content":"2","name":"calculator","status":{"code":200,"name":"Success","message":"ok"}},\
+                {"role":"assistant","content":"结果是2"}]}]},"request_id":"1"}""");
+        final var history = response.output().best().history();
+        Assertions.assertEquals(3, history.size());
+        Assertions.assertEquals("calculator", ((PluginCallMessage) history.get(0)).call().name());
+        Assertions.assertEquals(200, ((PluginMessage) history.get(1)).status().code());
+        Assertions.assertEquals("结果是2", history.get(2).text());
+    }
+
+}
@@ -8,6 +8,7 @@ import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
 import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
 import io.github.oldmanpushcart.dashscope4j.chat.message.PluginCallMessage;
 import io.github.oldmanpushcart.dashscope4j.chat.message.PluginMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunctionRegistry;
 import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
 import io.github.oldmanpushcart.test.dashscope4j.CommonAssertions;
 import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
@@ -293,4 +294,35 @@ public class ChatTestCase implements LoadingEnv {
         Assertions.assertTrue(response.output().best().message().text().contains("80"));
     }
 
+    @Test
+    public void test$chat$function$parallel_function() {
+        final var request = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_PLUS)
+                .functions(new QueryScoreFunction())
+                .user("同时查询张三和李四的数学成绩")
+                .build();
+        final var response = client.chat(request)
+                .async()
+                .join();
+        final var text = response.output().best().message().text();
+        Assertions.assertTrue(text.contains("80"));
+        Assertions.assertTrue(text.contains("70"));
+    }
+
+    @Test
+    public void test$chat$function$registry() {
+        final var registry = ChatFunctionRegistry.of(new QueryScoreFunction(), new ComputeAvgScoreFunction());
+        Assertions.assertNotNull(registry.function("query_score"));
+        Assertions.assertNull(registry.function("not_exists"));
+        final var request = ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_PLUS)
+                .functions(registry)
+                .user("查询张三的数学成绩")
+                .build();
+        final var response = client.chat(request)
+                .async()
+                .join();
+        Assertions.assertTrue(response.output().best().message().text().contains("80"));
+    }
+
 }
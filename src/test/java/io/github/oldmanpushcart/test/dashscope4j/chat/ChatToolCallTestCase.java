@@ -0,0 +1,190 @@
+package io.github.oldmanpushcart.test.dashscope4j.chat;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Message;
+import io.github.oldmanpushcart.dashscope4j.chat.message.ToolCallMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.message.ToolMessage;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFn;
+import io.github.oldmanpushcart.dashscope4j.chat.tool.function.ChatFunction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChatToolCallTestCase {
+
+    private static final String RESULT = """
+            {"request_id":"test","output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"完成"}}]},"usage":{"input_tokens":1,"output_tokens":1}}""";
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void before() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    // 第一次请求应答给定的函数调用，之后的请求应答最终结果，记录每次请求的请求体
+    private DashScopeClient newClient(List<String> bodies, String... names) {
+        final var calls = new StringBuilder();
+        for (int index = 0; index < names.length; index++) {
+            if (index > 0) {
+                calls.append(',');
+            }
+            calls.append("""
+                    {"id":"call_%d","type":"function","function":{"name":"%s","arguments":"{\\"words\\":\\"%d\\"}"}}"""
+                    .formatted(index, names[index], index));
+        }
+        final var toolCalls = """
+                {"request_id":"test","output":{"choices":[{"finish_reason":"tool_calls","message":{"role":"assistant","content":"","tool_calls":[%s]}}]},"usage":{"input_tokens":1,"output_tokens":1}}"""
+                .formatted(calls);
+        return DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(executor)
+                .timeout(Duration.ofSeconds(10))
+                .transport(HttpTransport.inProcess((request, buffer) -> {
+                    bodies.add(StandardCharsets.UTF_8.decode(buffer).toString());
+                    final var body = bodies.size() == 1 ? toolCalls : RESULT;
+                    return CompletableFuture.completedFuture(HttpTransport.Reply.ofString(200, "application/json", body));
+                }))
+                .build();
+    }
+
+    private static ChatRequest request(ChatFunction<?, ?> function) {
+        return ChatRequest.newBuilder()
+                .model(ChatModel.QWEN_TURBO)
+                .functions(function)
+                .user("echo")
+                .build();
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$tool_call$concurrent() throws Exception {
+
+        // 两个函数调用都进入函数后才能越过屏障，串行执行时会等待超时；先调用的函数后完成
+        final var barrier = new CyclicBarrier(2);
+        final var function = new EchoFunction(words -> {
+            barrier.await(5, TimeUnit.SECONDS);
+            if ("0".equals(words)) {
+                Thread.sleep(100);
+            }
+            return words;
+        });
+        final var bodies = new CopyOnWriteArrayList<String>();
+        final var client = newClient(bodies, "echo", "echo");
+
+        final var response = client.chat(request(function)).async().join();
+        Assertions.assertEquals("完成", response.output().best().message().text());
+        Assertions.assertEquals(2, function.called.get());
+
+        // 函数应答按调用顺序追加在工具调用消息之后，只发起一次后续请求
+        final List<Message> history = response.output().best().history();
+        Assertions.assertEquals(4, history.size());
+        Assertions.assertInstanceOf(ToolCallMessage.class, history.get(0));
+        Assertions.assertEquals("echo", ((ToolMessage) history.get(1)).name());
+        Assertions.assertEquals("{\"words\":\"0\"}", history.get(1).text());
+        Assertions.assertEquals("{\"words\":\"1\"}", history.get(2).text());
+        Assertions.assertEquals(2, bodies.size());
+        final var messages = mapper.readTree(bodies.get(1)).at("/input/messages");
+        Assertions.assertEquals("{\"words\":\"0\"}", messages.get(2).get("content").asText());
+        Assertions.assertEquals("{\"words\":\"1\"}", messages.get(3).get("content").asText());
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$tool_call$function_failed() {
+
+        // 任意一个函数失败，整个工具调用失败，不再发起后续请求
+        final var function = new EchoFunction(words -> {
+            if ("1".equals(words)) {
+                throw new IllegalStateException("function failed");
+            }
+            return words;
+        });
+        final var bodies = new CopyOnWriteArrayList<String>();
+        final var client = newClient(bodies, "echo", "echo");
+
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> client.chat(request(function)).async().join());
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause().getCause());
+        Assertions.assertEquals(1, bodies.size());
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$tool_call$not_found() {
+
+        // 任意一个函数找不到，不进行任何函数调用
+        final var function = new EchoFunction(words -> words);
+        final var bodies = new CopyOnWriteArrayList<String>();
+        final var client = newClient(bodies, "echo", "not_exists");
+
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> client.chat(request(function)).async().join());
+        Assertions.assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        Assertions.assertEquals(0, function.called.get());
+        Assertions.assertEquals(1, bodies.size());
+    }
+
+    // 函数体
+    private interface Body {
+
+        String apply(String words) throws Exception;
+
+    }
+
+    @ChatFn(name = "echo", description = "回显文字")
+    private static class EchoFunction implements ChatFunction<EchoFunction.Echo, EchoFunction.Echo> {
+
+        private final Body body;
+        private final AtomicInteger called = new AtomicInteger();
+
+        private EchoFunction(Body body) {
+            this.body = body;
+        }
+
+        @Override
+        public CompletableFuture<Echo> call(Echo echo) {
+            called.incrementAndGet();
+            try {
+                return CompletableFuture.completedFuture(new Echo(body.apply(echo.words())));
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+
+        public record Echo(
+                @JsonPropertyDescription("需要回显的文字")
+                String words
+        ) {
+
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.github.oldmanpushcart.test.dashscope4j.metrics;
+
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
+import io.github.oldmanpushcart.dashscope4j.metrics.FlowTiming;
+import io.github.oldmanpushcart.dashscope4j.metrics.SimpleApiMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class FlowTimingTestCase {
+
+    private static final ApiMetrics.Key FLOW = new ApiMetrics.Key("qwen-turbo", ApiMetrics.Mode.FLOW);
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void test$timing() {
+
+        // 100ms收到应答头，300ms收到第一个事件，2300ms收到最后一个事件，共生成100个token
+        final var timing = new FlowTiming(
+                FLOW,
+                "test",
+                1_000 * MS,
+                1_100 * MS,
+                1_300 * MS,
+                3_300 * MS,
+                3_400 * MS,
+                10,
+                500 * MS,
+                new Usage(List.of(new Usage.Item("input_tokens", 20), new Usage.Item("output_tokens", 100)))
+        );
+
+        Assertions.assertEquals(Duration.ofMillis(100), timing.timeToFirstByte());
+        Assertions.assertEquals(Duration.ofMillis(300), timing.timeToFirstToken());
+        Assertions.assertEquals(Duration.ofMillis(2400), timing.duration());
+        Assertions.assertEquals(100, timing.outputTokens());
+        Assertions.assertEquals(50.0, timing.outputTokensPerSecond(), 0.001);
+
+    }
+
+    @Test
+    public void test$timing$without_events() {
+
+        final var timing = new FlowTiming(FLOW, null, 1_000 * MS, 1_100 * MS, 0, 0, 1_200 * MS, 0, 0, null);
+
+        Assertions.assertNull(timing.timeToFirstToken());
+        Assertions.assertEquals(Duration.ofMillis(200), timing.duration());
+        Assertions.assertEquals(0, timing.outputTokens());
+        Assertions.assertEquals(0.0, timing.outputTokensPerSecond());
+
+    }
+
+    @Test
+    public void test$timing$metrics() {
+
+        final var metrics = new SimpleApiMetrics();
+        metrics.firstByte(FLOW, 100 * MS);
+        metrics.flowCompleted(new FlowTiming(
+                FLOW,
+                "test",
+                0,
+                100 * MS,
+                200 * MS,
+                1_200 * MS,
+                1_200 * MS,
+                2,
+                1_000 * MS,
+                new Usage(List.of(new Usage.Item("output_tokens", 40)))
+        ));
+
+        final var stats = metrics.stats(FLOW);
+        Assertions.assertEquals(100 * MS, stats.firstByte().max());
+        Assertions.assertEquals(1, stats.outputTokensPerSecond().count());
+        Assertions.assertEquals(40, stats.outputTokensPerSecond().max());
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.github.oldmanpushcart.test.dashscope4j.metrics;
+
+import io.github.oldmanpushcart.dashscope4j.metrics.Histogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+public class HistogramTestCase {
+
+    @Test
+    public void test$histogram$exact() {
+
+        final var histogram = new Histogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        // 小于子桶数量的值精确记录
+        Assertions.assertEquals(10, histogram.count());
+        Assertions.assertEquals(55, histogram.sum());
+        Assertions.assertEquals(10, histogram.max());
+        Assertions.assertEquals(5.5, histogram.mean());
+        Assertions.assertEquals(1, histogram.percentile(0));
+        Assertions.assertEquals(5, histogram.percentile(50));
+        Assertions.assertEquals(9, histogram.percentile(90));
+        Assertions.assertEquals(10, histogram.percentile(100));
+
+    }
+
+    @Test
+    public void test$histogram$relative_error() {
+
+        final var histogram = new Histogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        // 分位值的相对误差不超过1/子桶数量
+        for (final var percentile : new double[]{50, 90, 99, 99.9}) {
+            final var expect = (long) (percentile / 100 * 100_000) * 1_000;
+            final var actual = histogram.percentile(percentile);
+            Assertions.assertTrue(actual >= expect, "p%s: %s < %s".formatted(percentile, actual, expect));
+            Assertions.assertTrue(actual <= expect + expect / Histogram.SUB_BUCKETS, "p%s: %s > %s".formatted(percentile, actual, expect));
+        }
+        Assertions.assertEquals(100_000_000L, histogram.percentile(100));
+        Assertions.assertEquals(100_000_000L, histogram.max());
+
+    }
+
+    @Test
+    public void test$histogram$edge() {
+
+        final var histogram = new Histogram();
+        Assertions.assertEquals(0, histogram.percentile(99));
+        Assertions.assertEquals(0.0, histogram.mean());
+
+        // 负数按0记录，最大值不溢出
+        histogram.record(-1);
+        histogram.record(Long.MAX_VALUE);
+        Assertions.assertEquals(0, histogram.percentile(50));
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.count());
+        Assertions.assertEquals(0, histogram.max());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+
+    }
+
+    @Test
+    public void test$histogram$concurrent() {
+
+        final var histogram = new Histogram();
+        final var executor = Executors.newFixedThreadPool(8);
+        try {
+            final var futures = new ArrayList<CompletableFuture<Void>>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        histogram.record(i);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        // 并发记录不丢失
+        Assertions.assertEquals(80_000, histogram.count());
+        Assertions.assertEquals(8L * (9_999L * 10_000 / 2), histogram.sum());
+        Assertions.assertEquals(9_999, histogram.max());
+
+    }
+
+}
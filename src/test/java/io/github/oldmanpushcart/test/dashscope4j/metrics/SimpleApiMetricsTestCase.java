@@ -0,0 +1,171 @@
+package io.github.oldmanpushcart.test.dashscope4j.metrics;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.Ret;
+import io.github.oldmanpushcart.dashscope4j.Usage;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiResponse;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiTimeoutException;
+import io.github.oldmanpushcart.dashscope4j.base.api.HttpTransport;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.metrics.FlowTiming;
+import io.github.oldmanpushcart.dashscope4j.metrics.ApiMetrics;
+import io.github.oldmanpushcart.dashscope4j.metrics.SimpleApiMetrics;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+public class SimpleApiMetricsTestCase {
+
+    private static final ApiMetrics.Key ASYNC = new ApiMetrics.Key("qwen-turbo", ApiMetrics.Mode.ASYNC);
+    private static final ApiMetrics.Key FLOW = new ApiMetrics.Key("qwen-turbo", ApiMetrics.Mode.FLOW);
+
+    @Test
+    public void test$metrics$stats() {
+
+        final var metrics = new SimpleApiMetrics();
+
+        metrics.requestStarted(ASYNC, 100);
+        metrics.bytesReceived(ASYNC, 200);
+        metrics.usage(ASYNC, new Usage(List.of(new Usage.Item("input_tokens", 10), new Usage.Item("output_tokens", 20))));
+        metrics.requestCompleted(ASYNC, 1_000, null);
+
+        metrics.requestStarted(ASYNC, 100);
+        metrics.requestCompleted(ASYNC, 2_000, new CompletionException(newApiException("Throttling.RateQuota")));
+
+        metrics.requestStarted(FLOW, -1);
+        metrics.firstEvent(FLOW, 300);
+        metrics.nextEvent(FLOW, 10);
+        metrics.nextEvent(FLOW, 20);
+
+        // 按度量键分别汇总
+        Assertions.assertEquals(Set.of(ASYNC, FLOW), metrics.keys());
+
+        final var async = metrics.stats(ASYNC);
+        Assertions.assertEquals(2, async.requests());
+        Assertions.assertEquals(0, async.inflight());
+        Assertions.assertEquals(Map.of("Throttling.RateQuota", 1L), async.errors());
+        Assertions.assertEquals(2, async.latency().count());
+        Assertions.assertEquals(200, async.bytesSent());
+        Assertions.assertEquals(200, async.bytesReceived());
+        Assertions.assertEquals(Map.of("input_tokens", 10L, "output_tokens", 20L), async.tokens());
+
+        final var flow = metrics.stats(FLOW);
+        Assertions.assertEquals(1, flow.inflight());
+        Assertions.assertEquals(0, flow.bytesSent());
+        Assertions.assertEquals(300, flow.firstEvent().max());
+        Assertions.assertEquals(2, flow.eventGap().count());
+
+    }
+
+    @Test
+    public void test$metrics$error_code() {
+        Assertions.assertEquals("InvalidParameter", ApiMetrics.errorCode(new CompletionException(newApiException("InvalidParameter"))));
+        Assertions.assertEquals("Timeout.TOTAL", ApiMetrics.errorCode(new ApiTimeoutException(ApiTimeoutException.Phase.TOTAL, Duration.ofSeconds(1))));
+        Assertions.assertEquals("IllegalStateException", ApiMetrics.errorCode(new IllegalStateException()));
+    }
+
+    @Test
+    public void test$metrics$compose() {
+
+        final var first = new SimpleApiMetrics();
+        final var second = new SimpleApiMetrics();
+        final var metrics = ApiMetrics.compose(first, second);
+
+        metrics.requestStarted(ASYNC, 1);
+        metrics.taskPolled();
+
+        Assertions.assertEquals(1, first.stats(ASYNC).requests());
+        Assertions.assertEquals(1, second.stats(ASYNC).requests());
+        Assertions.assertEquals(1, first.taskPolls());
+        Assertions.assertEquals(1, second.taskPolls());
+
+    }
+
+    @Test
+    public void test$metrics$faulty() {
+
+        final var event = """
+                id:1
+                event:result
+                :HTTP_STATUS/200
+                data:{"request_id":"test","output":{"choices":[{"finish_reason":"stop","message":{"role":"assistant","content":"你好"}}]},"usage":{"input_tokens":1,"output_tokens":1}}
+
+                """;
+        final var client = DashScopeClient.newBuilder()
+                .ak("test")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(1))
+                .transport(HttpTransport.inProcess((request, buffer) -> CompletableFuture.completedFuture(
+                        HttpTransport.Reply.ofChunks(200, "text/event-stream", List.of(event, event)))))
+                .metrics(new ApiMetrics() {
+
+                    @Override
+                    public void firstEvent(Key key, long ttftNanos) {
+                        throw new IllegalStateException("faulty");
+                    }
+
+                    @Override
+                    public void nextEvent(Key key, long gapNanos) {
+                        throw new IllegalStateException("faulty");
+                    }
+
+                    @Override
+                    public void bytesReceived(Key key, long bytes) {
+                        throw new IllegalStateException("faulty");
+                    }
+
+                    @Override
+                    public void flowCompleted(FlowTiming timing) {
+                        throw new IllegalStateException("faulty");
+                    }
+
+                })
+                .build();
+
+        // 度量回调抛出异常不影响事件流
+        final var texts = new ArrayList<String>();
+        client.chat(ChatRequest.newBuilder().model(ChatModel.QWEN_TURBO).user("你好").build()).flow()
+                .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> texts.add(r.output().best().message().text())))
+                .join();
+        Assertions.assertEquals(List.of("你好", "你好"), texts);
+
+    }
+
+    private static ApiException newApiException(String code) {
+        return new ApiException(400, new ApiResponse<>() {
+
+            @Override
+            public String uuid() {
+                return "test";
+            }
+
+            @Override
+            public Ret ret() {
+                return Ret.of(code, "test");
+            }
+
+            @Override
+            public Usage usage() {
+                return Usage.empty();
+            }
+
+            @Override
+            public Output output() {
+                return null;
+            }
+
+        });
+    }
+
+}
@@ -0,0 +1,521 @@
+package io.github.oldmanpushcart.test.dashscope4j.mock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地模拟的DashScope服务
+ * <p>
+ * 基于JDK内置的{@link HttpServer}，模拟文本和多模态对话(含SSE流式输出)、文本向量、异步任务提交和{@code /api/v1/tasks/{id}}轮询，
+ * 配合{@code DashScopeClient.Builder#baseUri(URI)}可以在没有AK的情况下端到端地压测客户端：
+ * </p>
+ * <ul>
+ *     <li>{@link Builder#latency(Duration)}：收到请求到返回应答头的延迟</li>
+ *     <li>{@link Builder#tokensPerSecond(int)}：输出速度，流式输出按此速度逐个下发事件，非流式输出在生成完后一次返回</li>
+ *     <li>{@link Builder#errorRate(double)}：按比例返回{@code 500 InternalError}</li>
+ *     <li>{@link Builder#maxConcurrency(int)}、{@link Builder#throttleFirst(int)}：超过并发或前若干个请求返回{@code 429 Throttling.RateQuota}</li>
+ *     <li>{@link Builder#invalidKeys(String...)}、{@link Builder#throttledKeys(String...)}：指定AK的请求返回{@code 401}或{@code 429}；异步任务只能由提交它的AK查询和取消</li>
+ * </ul>
+ * <pre>{@code
+ * try (final var server = MockDashScopeServer.newBuilder().tokensPerSecond(50).build()) {
+ *     final var client = DashScopeClient.newBuilder()
+ *             .ak("mock")
+ *             .executor(executor)
+ *             .baseUri(server.uri())
+ *             .build();
+ *     ...
+ * }
+ * }</pre>
+ */
+public class MockDashScopeServer implements AutoCloseable {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final String MIME_APPLICATION_JSON = "application/json";
+    private static final String MIME_TEXT_EVENT_STREAM = "text/event-stream";
+
+    private final Builder builder;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, MockTask> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger concurrency = new AtomicInteger();
+    private final AtomicInteger throttleRemaining;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<String, LongAdder> requestsByKey = new ConcurrentHashMap<>();
+
+    private MockDashScopeServer(Builder builder) throws IOException {
+        this.builder = builder;
+        this.throttleRemaining = new AtomicInteger(builder.throttleFirst);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            final var thread = new Thread(runnable, "mock-dashscope");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/v1/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @return 服务根地址
+     */
+    public URI uri() {
+        return URI.create("http://%s:%d".formatted(
+                server.getAddress().getHostString(),
+                server.getAddress().getPort()
+        ));
+    }
+
+    /**
+     * @return 收到的请求数
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * @param ak AK
+     * @return 该AK的请求数
+     */
+    public long requests(String ak) {
+        final var adder = requestsByKey.get(ak);
+        return null == adder ? 0 : adder.sum();
+    }
+
+    /**
+     * @return 被限流的请求数
+     */
+    public long throttled() {
+        return throttled.sum();
+    }
+
+    /**
+     * @return 注入错误的请求数
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        concurrency.incrementAndGet();
+        try (exchange) {
+            final var path = exchange.getRequestURI().getPath();
+            final var body = exchange.getRequestBody().readAllBytes();
+            final var sse = "enable".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("X-DashScope-SSE"));
+            final var uuid = UUID.randomUUID().toString();
+
+            // 鉴权
+            final var authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (null == authorization || !authorization.startsWith("Bearer ") || authorization.length() == "Bearer ".length()) {
+                replyError(exchange, sse, uuid, 401, "InvalidApiKey", "Invalid API-key provided.");
+                return;
+            }
+            final var ak = authorization.substring("Bearer ".length());
+            requestsByKey.computeIfAbsent(ak, k -> new LongAdder()).increment();
+            if (builder.invalidKeys.contains(ak)) {
+                replyError(exchange, sse, uuid, 401, "InvalidApiKey", "Invalid API-key provided.");
+                return;
+            }
+
+            // 限流
+            if (builder.throttledKeys.contains(ak)
+                    || throttleRemaining.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0
+                    || (builder.maxConcurrency > 0 && concurrency.get() > builder.maxConcurrency)) {
+                throttled.increment();
+                if (null != builder.retryAfter) {
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(Math.max(1, builder.retryAfter.toSeconds())));
+                }
+                replyError(exchange, sse, uuid, 429, "Throttling.RateQuota", "Requests rate limit exceeded, please try again later.");
+                return;
+            }
+
+            // 错误注入
+            if (builder.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < builder.errorRate) {
+                failed.increment();
+                replyError(exchange, sse, uuid, 500, "InternalError", "An internal error has occured, please try again later.");
+                return;
+            }
+
+            sleep(builder.latency);
+            if (path.endsWith("/text-generation/generation")) {
+                generation(exchange, sse, uuid, mapper.readTree(body), false);
+            } else if (path.endsWith("/multimodal-generation/generation")) {
+                generation(exchange, sse, uuid, mapper.readTree(body), true);
+            } else if (path.endsWith("/text-embedding/text-embedding")) {
+                embedding(exchange, uuid, mapper.readTree(body));
+            } else if (path.endsWith("/image-synthesis")) {
+                submit(exchange, uuid, ak, mapper.readTree(body));
+            } else if (path.startsWith("/api/v1/tasks/")) {
+                task(exchange, uuid, ak, path.substring("/api/v1/tasks/".length()));
+            } else {
+                replyError(exchange, sse, uuid, 404, "NotFound", "Not found: %s".formatted(path));
+            }
+        } finally {
+            concurrency.decrementAndGet();
+        }
+    }
+
+    // 对话：按输出速度逐个生成token
+    private void generation(HttpExchange exchange, boolean sse, String uuid, JsonNode request, boolean multimodal) throws IOException {
+        final var incremental = request.path("parameters").path("incremental_output").asBoolean(false);
+        final var inputTokens = Math.max(1, request.path("input").toString().length() / 4);
+        final var interval = builder.tokensPerSecond > 0 ? Duration.ofNanos(TimeUnit.SECONDS.toNanos(1) / builder.tokensPerSecond) : null;
+
+        // 非流式输出在全部生成后一次返回
+        if (!sse) {
+            sleep(null == interval ? null : interval.multipliedBy(builder.tokens));
+            replyJson(exchange, 200, generationResult(uuid, multimodal, builder.token.repeat(builder.tokens), builder.tokens, inputTokens, true));
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", MIME_TEXT_EVENT_STREAM + ";charset=UTF-8");
+        exchange.sendResponseHeaders(200, 0);
+        final var output = exchange.getResponseBody();
+        for (int index = 1; index <= builder.tokens; index++) {
+            sleep(interval);
+            final var text = incremental ? builder.token : builder.token.repeat(index);
+            writeEvent(output, index, "result", 200, generationResult(uuid, multimodal, text, index, inputTokens, index == builder.tokens));
+        }
+    }
+
+    private static ObjectNode generationResult(String uuid, boolean multimodal, String text, int outputTokens, int inputTokens, boolean finished) {
+        final var result = mapper.createObjectNode().put("request_id", uuid);
+        final var message = result.putObject("output")
+                .putArray("choices")
+                .addObject()
+                .put("finish_reason", finished ? "stop" : "null")
+                .putObject("message")
+                .put("role", "assistant");
+        if (multimodal) {
+            message.putArray("content").addObject().put("text", text);
+        } else {
+            message.put("content", text);
+        }
+        final var usage = result.putObject("usage")
+                .put("input_tokens", inputTokens)
+                .put("output_tokens", outputTokens);
+        if (!multimodal) {
+            usage.put("total_tokens", inputTokens + outputTokens);
+        }
+        return result;
+    }
+
+    // 文本向量：按文本内容生成确定的向量
+    private void embedding(HttpExchange exchange, String uuid, JsonNode request) throws IOException {
+        final var result = mapper.createObjectNode().put("request_id", uuid);
+        final var embeddings = result.putObject("output").putArray("embeddings");
+        var tokens = 0;
+        var index = 0;
+        for (final var text : request.path("input").path("texts")) {
+            final var random = new Random(text.asText().hashCode());
+            final var vector = embeddings.addObject()
+                    .put("text_index", index++)
+                    .putArray("embedding");
+            for (int dimension = 0; dimension < builder.dimension; dimension++) {
+                vector.add(random.nextFloat() * 2 - 1);
+            }
+            tokens += Math.max(1, text.asText().length());
+        }
+        result.putObject("usage").put("total_tokens", tokens);
+        replyJson(exchange, 200, result);
+    }
+
+    // 异步任务提交
+    private void submit(HttpExchange exchange, String uuid, String ak, JsonNode request) throws IOException {
+        if (!"enable".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("X-DashScope-Async"))) {
+            replyError(exchange, false, uuid, 403, "AccessDenied", "current user api does not support synchronous calls");
+            return;
+        }
+        final var task = new MockTask(UUID.randomUUID().toString(), ak, System.currentTimeMillis(), Math.max(1, request.path("parameters").path("n").asInt(1)));
+        tasks.put(task.id, task);
+        final var result = mapper.createObjectNode().put("request_id", uuid);
+        result.putObject("output")
+                .put("task_id", task.id)
+                .put("task_status", "PENDING");
+        replyJson(exchange, 200, result);
+    }
+
+    // 异步任务查询和取消：提交后在任务耗时内为运行中，之后成功
+    private void task(HttpExchange exchange, String uuid, String ak, String subPath) throws IOException {
+        final var cancel = subPath.endsWith("/cancel");
+        final var task = tasks.get(cancel ? subPath.substring(0, subPath.length() - "/cancel".length()) : subPath);
+        if (null == task || !task.ak.equals(ak)) {
+            replyError(exchange, false, uuid, 400, "InvalidParameter", "task can not be found.");
+            return;
+        }
+        final var finished = System.currentTimeMillis() - task.submit >= builder.taskDuration.toMillis();
+        if (cancel) {
+            if (finished || task.canceled) {
+                replyError(exchange, false, uuid, 400, "UnsupportedOperation", "Failed to cancel the task, please confirm if the task is in PENDING status.");
+                return;
+            }
+            task.canceled = true;
+            replyJson(exchange, 200, mapper.createObjectNode().put("request_id", uuid));
+            return;
+        }
+
+        final var format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        final var status = task.canceled ? "CANCELED" : finished ? "SUCCEEDED" : "RUNNING";
+        final var result = mapper.createObjectNode().put("request_id", uuid);
+        final var output = result.putObject("output")
+                .put("task_id", task.id)
+                .put("task_status", status)
+                .put("submit_time", format.format(new Date(task.submit)))
+                .put("scheduled_time", format.format(new Date(task.submit)));
+        output.putObject("task_metrics")
+                .put("TOTAL", task.images)
+                .put("SUCCEEDED", finished ? task.images : 0)
+                .put("FAILED", 0);
+        if ("SUCCEEDED".equals(status)) {
+            output.put("end_time", format.format(new Date(task.submit + builder.taskDuration.toMillis())));
+            final var results = output.putArray("results");
+            for (int index = 0; index < task.images; index++) {
+                results.addObject().put("url", "%s/images/%s/%d.png".formatted(uri(), task.id, index));
+            }
+            result.putObject("usage").put("image_count", task.images);
+        }
+        replyJson(exchange, 200, result);
+    }
+
+    private static void replyError(HttpExchange exchange, boolean sse, String uuid, int status, String code, String message) throws IOException {
+        final var error = mapper.createObjectNode()
+                .put("request_id", uuid)
+                .put("code", code)
+                .put("message", message);
+        if (!sse) {
+            replyJson(exchange, status, error);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", MIME_TEXT_EVENT_STREAM + ";charset=UTF-8");
+        exchange.sendResponseHeaders(status, 0);
+        writeEvent(exchange.getResponseBody(), 1, "error", status, error);
+    }
+
+    private static void replyJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        final var bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", MIME_APPLICATION_JSON + ";charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void writeEvent(OutputStream output, int id, String type, int status, JsonNode data) throws IOException {
+        output.write("id:%d\nevent:%s\n:HTTP_STATUS/%d\ndata:%s\n\n"
+                .formatted(id, type, status, mapper.writeValueAsString(data))
+                .getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    private static void sleep(Duration duration) {
+        if (null == duration || duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MockTask {
+
+        private final String id;
+        private final String ak;
+        private final long submit;
+        private final int images;
+        private volatile boolean canceled;
+
+        MockTask(String id, String ak, long submit, int images) {
+            this.id = id;
+            this.ak = ak;
+            this.submit = submit;
+            this.images = images;
+        }
+
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 模拟服务构建器
+     */
+    public static class Builder {
+
+        private int port;
+        private Duration latency;
+        private int tokens = 16;
+        private String token = "好";
+        private int tokensPerSecond;
+        private int dimension = 1536;
+        private Duration taskDuration = Duration.ofMillis(200);
+        private double errorRate;
+        private int maxConcurrency;
+        private int throttleFirst;
+        private Duration retryAfter;
+        private final Set<String> invalidKeys = new HashSet<>();
+        private final Set<String> throttledKeys = new HashSet<>();
+
+        /**
+         * @param port 监听端口，默认为0(随机端口)
+         * @return this
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * @param latency 收到请求到返回应答头的延迟
+         * @return this
+         */
+        public Builder latency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * @param tokens 每次对话输出的token数，默认16
+         * @return this
+         */
+        public Builder tokens(int tokens) {
+            this.tokens = tokens;
+            return this;
+        }
+
+        /**
+         * @param token 每个token的文本，默认为{@code 好}
+         * @return this
+         */
+        public Builder token(String token) {
+            this.token = token;
+            return this;
+        }
+
+        /**
+         * @param tokensPerSecond 每秒输出的token数，小于等于0表示不限速
+         * @return this
+         */
+        public Builder tokensPerSecond(int tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        /**
+         * @param dimension 向量维度，默认1536
+         * @return this
+         */
+        public Builder dimension(int dimension) {
+            this.dimension = dimension;
+            return this;
+        }
+
+        /**
+         * @param taskDuration 异步任务从提交到成功的耗时，默认200ms
+         * @return this
+         */
+        public Builder taskDuration(Duration taskDuration) {
+            this.taskDuration = taskDuration;
+            return this;
+        }
+
+        /**
+         * @param errorRate 返回{@code 500 InternalError}的比例，取值[0,1]
+         * @return this
+         */
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * @param maxConcurrency 最大并发，超过时返回{@code 429}，小于等于0表示不限制
+         * @return this
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * @param throttleFirst 前若干个请求返回{@code 429}
+         * @return this
+         */
+        public Builder throttleFirst(int throttleFirst) {
+            this.throttleFirst = throttleFirst;
+            return this;
+        }
+
+        /**
+         * @param retryAfter 限流时通过{@code Retry-After}头建议的重试间隔(按秒取整)，默认不返回
+         * @return this
+         */
+        public Builder retryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+            return this;
+        }
+
+        /**
+         * @param aks 鉴权失败的AK，请求返回{@code 401}
+         * @return this
+         */
+        public Builder invalidKeys(String... aks) {
+            this.invalidKeys.addAll(List.of(aks));
+            return this;
+        }
+
+        /**
+         * @param aks 配额耗尽的AK，请求返回{@code 429}
+         * @return this
+         */
+        public Builder throttledKeys(String... aks) {
+            this.throttledKeys.addAll(List.of(aks));
+            return this;
+        }
+
+        public MockDashScopeServer build() {
+            try {
+                return new MockDashScopeServer(this);
+            } catch (IOException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,178 @@
+package io.github.oldmanpushcart.test.dashscope4j.mock;
+
+import io.github.oldmanpushcart.dashscope4j.DashScopeClient;
+import io.github.oldmanpushcart.dashscope4j.base.api.ApiException;
+import io.github.oldmanpushcart.dashscope4j.base.api.RetryPolicy;
+import io.github.oldmanpushcart.dashscope4j.base.task.Task;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatModel;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatOptions;
+import io.github.oldmanpushcart.dashscope4j.chat.ChatRequest;
+import io.github.oldmanpushcart.dashscope4j.chat.message.Content;
+import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingModel;
+import io.github.oldmanpushcart.dashscope4j.embedding.EmbeddingRequest;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageModel;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageOptions;
+import io.github.oldmanpushcart.dashscope4j.image.generation.GenImageRequest;
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import io.github.oldmanpushcart.test.dashscope4j.CommonAssertions;
+import io.github.oldmanpushcart.test.dashscope4j.DashScopeAssertions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public class MockDashScopeServerTestCase {
+
+    private static DashScopeClient newClient(MockDashScopeServer server, Consumer<DashScopeClient.Builder> consumer) {
+        final var builder = DashScopeClient.newBuilder()
+                .ak("mock")
+                .executor(ForkJoinPool.commonPool())
+                .timeout(Duration.ofSeconds(10))
+                .baseUri(server.uri());
+        consumer.accept(builder);
+        return builder.build();
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$mock$chat() {
+        try (final var server = MockDashScopeServer.newBuilder().tokens(8).build()) {
+            final var client = newClient(server, builder -> {
+            });
+            final var request = ChatRequest.newBuilder()
+                    .model(ChatModel.QWEN_TURBO)
+                    .user("你好")
+                    .build();
+
+            final var response = client.chat(request).async().join();
+            DashScopeAssertions.assertChatResponse(response);
+            Assertions.assertEquals("好".repeat(8), response.output().best().message().text());
+            Assertions.assertEquals(1, server.requests());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$mock$chat$flow() {
+        try (final var server = MockDashScopeServer.newBuilder().tokens(8).tokensPerSecond(200).build()) {
+            final var client = newClient(server, builder -> {
+            });
+
+            // 全量输出：每个事件都是截至目前的全部文本
+            final var texts = new ArrayList<String>();
+            client.chat(ChatRequest.newBuilder()
+                            .model(ChatModel.QWEN_TURBO)
+                            .user("你好")
+                            .build())
+                    .flow()
+                    .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> texts.add(r.output().best().message().text())))
+                    .join();
+            Assertions.assertEquals(8, texts.size());
+            Assertions.assertEquals("好".repeat(8), texts.get(texts.size() - 1));
+
+            // 增量输出：每个事件只有新增的token
+            final var deltas = new ArrayList<String>();
+            client.chat(ChatRequest.newBuilder()
+                            .model(ChatModel.QWEN_VL_MAX)
+                            .option(ChatOptions.ENABLE_INCREMENTAL_OUTPUT, true)
+                            .user(
+                                    Content.ofImage(URI.create("https://example.com/image.png")),
+                                    Content.ofText("图片里有什么?")
+                            )
+                            .build())
+                    .flow()
+                    .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> deltas.add(r.output().best().message().text())))
+                    .join();
+            Assertions.assertEquals(8, deltas.size());
+            deltas.forEach(delta -> Assertions.assertEquals("好", delta));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$mock$embedding() {
+        try (final var server = MockDashScopeServer.newBuilder().dimension(16).build()) {
+            final var client = newClient(server, builder -> {
+            });
+            final var response = client.embedding(EmbeddingRequest.newBuilder()
+                            .model(EmbeddingModel.TEXT_EMBEDDING_V2)
+                            .documents("我爱北京天安门", "天安门上太阳升")
+                            .build())
+                    .async()
+                    .join();
+            DashScopeAssertions.assertEmbeddingResponse(response);
+            Assertions.assertEquals(2, response.output().embeddings().size());
+            Assertions.assertEquals(16, response.output().embeddings().get(0).vector().length);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$mock$image$gen() {
+        try (final var server = MockDashScopeServer.newBuilder().taskDuration(Duration.ofMillis(300)).build()) {
+            final var client = newClient(server, builder -> {
+            });
+            final var response = client.genImage(GenImageRequest.newBuilder()
+                            .model(GenImageModel.WANX_V1)
+                            .prompt("一只猫")
+                            .option(GenImageOptions.NUMBER, 2)
+                            .build())
+                    .task(Task.WaitStrategies.perpetual(Duration.ofMillis(100)))
+                    .join();
+            DashScopeAssertions.assertGenImageResponse(response);
+            Assertions.assertEquals(2, response.output().results().size());
+
+            // 提交一次，运行中至少轮询一次
+            Assertions.assertTrue(server.requests() >= 3);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$mock$throttle$retry() {
+        try (final var server = MockDashScopeServer.newBuilder().throttleFirst(2).build()) {
+            final var client = newClient(server, builder -> builder
+                    .retryPolicy(RetryPolicy.newBuilder()
+                            .maxAttempts(3)
+                            .initialBackoff(Duration.ofMillis(10))
+                            .build()));
+            final var request = ChatRequest.newBuilder()
+                    .model(ChatModel.QWEN_TURBO)
+                    .user("你好")
+                    .build();
+
+            DashScopeAssertions.assertChatResponse(client.chat(request).async().join());
+            Assertions.assertEquals(2, server.throttled());
+            Assertions.assertEquals(3, server.requests());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    public void test$mock$error() {
+        try (final var server = MockDashScopeServer.newBuilder().errorRate(1.0).build()) {
+            final var client = newClient(server, builder -> {
+            });
+            final var request = ChatRequest.newBuilder()
+                    .model(ChatModel.QWEN_TURBO)
+                    .user("你好")
+                    .build();
+
+            CommonAssertions.assertRootThrows(ApiException.class, () -> client.chat(request).async().join(), ex -> {
+                Assertions.assertEquals(500, ex.status());
+                Assertions.assertEquals("InternalError", ex.ret().code());
+            });
+            CommonAssertions.assertRootThrows(ApiException.class, () -> client.chat(request).flow()
+                    .thenCompose(publisher -> ConsumeFlowSubscriber.consumeCompose(publisher, r -> {
+                    }))
+                    .join(), ex -> Assertions.assertEquals(500, ex.status()));
+            Assertions.assertEquals(2, server.failed());
+        }
+    }
+
+}
@@ -0,0 +1,339 @@
+package io.github.oldmanpushcart.test.dashscope4j.util;
+
+import io.github.oldmanpushcart.dashscope4j.util.BufferedConsumeFlowSubscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+public class BufferedConsumeFlowSubscriberTestCase {
+
+    private ExecutorService executor;
+    private ExecutorService publisherExecutor;
+
+    @BeforeEach
+    public void before() {
+        executor = Executors.newSingleThreadExecutor();
+        publisherExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+        publisherExecutor.shutdownNow();
+    }
+
+    @Test
+    public void test$consume$order() throws Exception {
+
+        final var total = 10000;
+        final var received = new ArrayList<Integer>(total);
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(received::add)
+                .executor(executor)
+                .prefetch(16)
+                .capacity(32)
+                .build();
+
+        try (final var publisher = new SubmissionPublisher<Integer>()) {
+            publisher.subscribe(subscriber);
+            IntStream.range(0, total).forEach(publisher::submit);
+        }
+
+        subscriber.completed().get(30, TimeUnit.SECONDS);
+        Assertions.assertEquals(IntStream.range(0, total).boxed().toList(), received);
+        Assertions.assertEquals(0, subscriber.depth());
+
+    }
+
+    @Test
+    public void test$consume$prefetch() throws Exception {
+
+        final var blocker = new CountDownLatch(1);
+        final var upstream = new RecordingSubscription();
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> awaitQuietly(blocker))
+                .executor(executor)
+                .prefetch(8)
+                .capacity(8)
+                .build();
+        subscriber.onSubscribe(upstream);
+
+        // 消费者阻塞时收满一批也不补充申请，发布者线程不被阻塞
+        IntStream.range(0, 8).forEach(subscriber::onNext);
+        Assertions.assertEquals(List.of(8L), upstream.requests);
+
+        // 每消费批量的四分之三补充一次
+        blocker.countDown();
+        while (subscriber.depth() != 0) {
+            Thread.onSpinWait();
+        }
+        subscriber.onComplete();
+        subscriber.completed().get(30, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of(8L, 6L), upstream.requests);
+
+    }
+
+    @Test
+    public void test$consume$slow_consumer() throws Exception {
+
+        final var total = 200;
+        final var maxDepth = new AtomicInteger();
+        final var received = new CopyOnWriteArrayList<Integer>();
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> {
+                    sleepQuietly();
+                    received.add(item);
+                })
+                .executor(executor)
+                .prefetch(4)
+                .capacity(4)
+                .build();
+
+        // 发布者只按申请数量下发，队列深度不超过批量申请数量
+        publish(total, new Flow.Subscriber<>() {
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                subscriber.onNext(item);
+                maxDepth.accumulateAndGet(subscriber.depth(), Math::max);
+            }
+
+            @Override
+            public void onError(Throwable ex) {
+                subscriber.onError(ex);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+
+        });
+        subscriber.completed().get(30, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(IntStream.range(0, total).boxed().toList(), received);
+        Assertions.assertTrue(maxDepth.get() <= 4, "maxDepth=" + maxDepth.get());
+
+    }
+
+    @Test
+    public void test$consume$illegal() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> {
+
+                })
+                .executor(executor)
+                .prefetch(16)
+                .capacity(8)
+                .build());
+    }
+
+    @Test
+    public void test$consume$drop_oldest() throws Exception {
+
+        final var blocker = new CountDownLatch(1);
+        final var received = new CopyOnWriteArrayList<Integer>();
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> {
+                    awaitQuietly(blocker);
+                    received.add(item);
+                })
+                .executor(executor)
+                .prefetch(4)
+                .capacity(4)
+                .overflow(BufferedConsumeFlowSubscriber.Overflow.DROP_OLDEST)
+                .build();
+        subscriber.onSubscribe(new RecordingSubscription());
+
+        // 发布者不遵守申请数量，消费者阻塞在第一个元素上，队列满后丢弃最早的元素
+        subscriber.onNext(0);
+        while (subscriber.depth() != 0) {
+            Thread.onSpinWait();
+        }
+        IntStream.range(1, 10).forEach(subscriber::onNext);
+        Assertions.assertEquals(4, subscriber.depth());
+        Assertions.assertEquals(5, subscriber.dropped());
+
+        subscriber.onComplete();
+        blocker.countDown();
+        subscriber.completed().get(30, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of(0, 6, 7, 8, 9), received);
+
+    }
+
+    @Test
+    public void test$consume$drop_oldest$flow() throws Exception {
+
+        final var total = 1000;
+        final var received = new CopyOnWriteArrayList<Integer>();
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> {
+                    sleepQuietly();
+                    received.add(item);
+                })
+                .executor(executor)
+                .prefetch(4)
+                .capacity(4)
+                .overflow(BufferedConsumeFlowSubscriber.Overflow.DROP_OLDEST)
+                .build();
+
+        // 申请随接收补充，遵守申请数量的发布者不受慢消费者拖累，队列满后丢弃最早的元素
+        publish(total, subscriber);
+        subscriber.completed().get(30, TimeUnit.SECONDS);
+        Assertions.assertTrue(subscriber.dropped() > 0, "dropped=" + subscriber.dropped());
+        Assertions.assertEquals(total, received.size() + subscriber.dropped());
+        Assertions.assertEquals(total - 1, received.get(received.size() - 1));
+        for (int index = 1; index < received.size(); index++) {
+            Assertions.assertTrue(received.get(index - 1) < received.get(index));
+        }
+
+    }
+
+    @Test
+    public void test$consume$overflow_error() {
+
+        final var blocker = new CountDownLatch(1);
+        final var upstream = new RecordingSubscription();
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> awaitQuietly(blocker))
+                .executor(executor)
+                .prefetch(2)
+                .capacity(2)
+                .overflow(BufferedConsumeFlowSubscriber.Overflow.ERROR)
+                .build();
+        subscriber.onSubscribe(upstream);
+
+        subscriber.onNext(0);
+        while (subscriber.depth() != 0) {
+            Thread.onSpinWait();
+        }
+        IntStream.range(1, 4).forEach(subscriber::onNext);
+        blocker.countDown();
+
+        // 队列满时取消订阅并以错误结束
+        Assertions.assertTrue(upstream.cancelled);
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> subscriber.completed().join());
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+
+    }
+
+    @Test
+    public void test$consume$overflow_error$flow() throws Exception {
+
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> sleepQuietly())
+                .executor(executor)
+                .prefetch(4)
+                .capacity(4)
+                .overflow(BufferedConsumeFlowSubscriber.Overflow.ERROR)
+                .build();
+
+        // 申请随接收补充，遵守申请数量的发布者也会在慢消费者跟不上时填满队列
+        publish(1000, subscriber);
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> subscriber.completed().join());
+        Assertions.assertInstanceOf(IllegalStateException.class, ex.getCause());
+
+    }
+
+    @Test
+    public void test$consume$consumer_error() {
+
+        final var upstream = new RecordingSubscription();
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> {
+                    throw new IllegalArgumentException("consumer");
+                })
+                .executor(executor)
+                .build();
+        subscriber.onSubscribe(upstream);
+        subscriber.onNext(0);
+
+        // 消费者抛出异常时取消订阅，以该异常结束消费
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> subscriber.completed().join());
+        Assertions.assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        Assertions.assertTrue(upstream.cancelled);
+
+    }
+
+    @Test
+    public void test$consume$error_after_drain() throws Exception {
+
+        final var received = new CopyOnWriteArrayList<Integer>();
+        final var subscriber = BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(received::add)
+                .executor(executor)
+                .build();
+        subscriber.onSubscribe(new RecordingSubscription());
+        subscriber.onNext(1);
+        subscriber.onNext(2);
+        subscriber.onError(new RuntimeException("upstream"));
+
+        // 发布者出错前收到的元素先被消费完
+        final var ex = Assertions.assertThrows(CompletionException.class, () -> subscriber.completed().join());
+        Assertions.assertEquals("upstream", ex.getCause().getMessage());
+        Assertions.assertEquals(List.of(1, 2), received);
+
+    }
+
+    // 在独立线程上按申请数量下发元素后结束
+    private void publish(int total, Flow.Subscriber<Integer> subscriber) {
+        try (final var publisher = new SubmissionPublisher<Integer>(publisherExecutor, 1024)) {
+            publisher.subscribe(subscriber);
+            IntStream.range(0, total).forEach(publisher::submit);
+        }
+    }
+
+    private static void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 记录申请和取消的发布端订阅
+    private static class RecordingSubscription implements Flow.Subscription {
+
+        private final List<Long> requests = new CopyOnWriteArrayList<>();
+        private volatile boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requests.add(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,317 @@
+package io.github.oldmanpushcart.test.dashscope4j.util;
+
+import io.github.oldmanpushcart.dashscope4j.util.TransformFlowProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+public class TransformFlowProcessorTestCase {
+
+    @Test
+    public void test$transform$backpressure() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(List::of);
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+
+        // 订阅端尚未申请时，向发布端预取一批
+        Assertions.assertEquals(List.of(16L), upstream.requests);
+
+        IntStream.range(0, 16).forEach(processor::onNext);
+        Assertions.assertTrue(downstream.items.isEmpty());
+
+        // 只下发订阅端申请的数量
+        downstream.subscription.request(5);
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4), downstream.items);
+
+        // 消费到补充水位后，按批向发布端补充申请
+        downstream.subscription.request(7);
+        Assertions.assertEquals(12, downstream.items.size());
+        Assertions.assertEquals(List.of(16L, 12L), upstream.requests);
+
+    }
+
+    @Test
+    public void test$transform$expand() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(i -> i % 2 == 0 ? List.of() : List.of(i, i, i));
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+
+        IntStream.range(0, 4).forEach(processor::onNext);
+        processor.onComplete();
+
+        // 一个元素转换出多个结果时，跨多次申请依次下发
+        downstream.subscription.request(4);
+        Assertions.assertEquals(List.of(1, 1, 1, 3), downstream.items);
+        Assertions.assertFalse(downstream.completed);
+
+        downstream.subscription.request(2);
+        Assertions.assertEquals(List.of(1, 1, 1, 3, 3, 3), downstream.items);
+        Assertions.assertTrue(downstream.completed);
+
+    }
+
+    @Test
+    public void test$transform$complete_without_demand() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(i -> i < 0 ? List.of() : List.of(i));
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+        downstream.subscription.request(2);
+
+        // 末尾的元素没有产出，订阅端不再申请也应收到完成信号
+        processor.onNext(1);
+        processor.onNext(2);
+        processor.onNext(-1);
+        processor.onComplete();
+
+        Assertions.assertEquals(List.of(1, 2), downstream.items);
+        Assertions.assertTrue(downstream.completed);
+
+    }
+
+    @Test
+    public void test$transform$error() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(List::of);
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+
+        processor.onNext(1);
+        processor.onError(new RuntimeException("upstream"));
+
+        // 发布端出错立即通知，不等待订阅端申请
+        Assertions.assertTrue(downstream.items.isEmpty());
+        Assertions.assertEquals("upstream", downstream.error.getMessage());
+
+    }
+
+    @Test
+    public void test$transform$transformer_error() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(i -> {
+            if (i == 2) {
+                throw new IllegalArgumentException("transform");
+            }
+            return List.of(i);
+        });
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+        downstream.subscription.request(Long.MAX_VALUE);
+
+        processor.onNext(1);
+        processor.onNext(2);
+        processor.onNext(3);
+
+        // 转换失败取消发布端，并通知订阅端
+        Assertions.assertEquals(List.of(1), downstream.items);
+        Assertions.assertInstanceOf(IllegalArgumentException.class, downstream.error);
+        Assertions.assertTrue(upstream.cancelled);
+
+    }
+
+    @Test
+    public void test$transform$cancel() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(List::of);
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+        downstream.subscription.request(Long.MAX_VALUE);
+
+        processor.onNext(1);
+        downstream.subscription.cancel();
+        processor.onNext(2);
+        processor.onComplete();
+
+        // 取消后不再下发任何信号
+        Assertions.assertTrue(upstream.cancelled);
+        Assertions.assertEquals(List.of(1), downstream.items);
+        Assertions.assertFalse(downstream.completed);
+
+    }
+
+    @Test
+    public void test$transform$overflow() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(List::of, 4);
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+
+        // 发布端下发超过申请的数量，超出队列和当前转换结果能容纳的部分
+        IntStream.range(0, 6).forEach(processor::onNext);
+
+        Assertions.assertTrue(upstream.cancelled);
+        Assertions.assertInstanceOf(IllegalStateException.class, downstream.error);
+
+    }
+
+    @Test
+    public void test$transform$request_non_positive() {
+
+        final var upstream = new RecordingSubscription();
+        final var downstream = new RecordingSubscriber<Integer>();
+        final var processor = new TransformFlowProcessor<Integer, Integer>(List::of);
+        processor.onSubscribe(upstream);
+        processor.subscribe(downstream);
+
+        // 非正数的申请以错误终止，而不是抛出异常
+        downstream.subscription.request(0);
+
+        Assertions.assertTrue(upstream.cancelled);
+        Assertions.assertInstanceOf(IllegalArgumentException.class, downstream.error);
+
+    }
+
+    @Test
+    public void test$transform$subscribe_twice() {
+
+        final var processor = new TransformFlowProcessor<Integer, Integer>(List::of);
+        processor.onSubscribe(new RecordingSubscription());
+
+        final var first = new RecordingSubscriber<Integer>();
+        final var second = new RecordingSubscriber<Integer>();
+        processor.subscribe(first);
+        processor.subscribe(second);
+
+        // 第二个订阅者先收到onSubscribe，再收到onError
+        Assertions.assertNull(first.error);
+        Assertions.assertNotNull(second.subscription);
+        Assertions.assertInstanceOf(IllegalStateException.class, second.error);
+
+    }
+
+    @Test
+    public void test$transform$concurrent() throws Exception {
+
+        final var total = 100000;
+        final var received = new ArrayList<Integer>(total * 2);
+        final var completed = new CompletableFuture<Void>();
+
+        try (final var publisher = new SubmissionPublisher<Integer>()) {
+
+            // 订阅端在另一个线程中随机批量申请，与发布端线程并发排水
+            new TransformFlowProcessor<Integer, Integer>(i -> i % 3 == 0 ? List.of() : List.of(i, -i))
+                    .transform(publisher)
+                    .subscribe(new Flow.Subscriber<>() {
+
+                        private Flow.Subscription subscription;
+                        private long remaining;
+
+                        @Override
+                        public void onSubscribe(Flow.Subscription subscription) {
+                            this.subscription = subscription;
+                            request();
+                        }
+
+                        private void request() {
+                            final var n = ThreadLocalRandom.current().nextLong(1, 64);
+                            remaining = n;
+                            CompletableFuture.runAsync(() -> subscription.request(n));
+                        }
+
+                        @Override
+                        public void onNext(Integer item) {
+                            received.add(item);
+                            if (--remaining == 0) {
+                                request();
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable ex) {
+                            completed.completeExceptionally(ex);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            completed.complete(null);
+                        }
+
+                    });
+
+            IntStream.range(0, total).forEach(publisher::submit);
+        }
+
+        completed.get(30, TimeUnit.SECONDS);
+
+        final var expect = IntStream.range(0, total)
+                .filter(i -> i % 3 != 0)
+                .flatMap(i -> IntStream.of(i, -i))
+                .boxed()
+                .toList();
+        Assertions.assertEquals(expect, received);
+
+    }
+
+    // 记录申请和取消的发布端订阅
+    private static class RecordingSubscription implements Flow.Subscription {
+
+        private final List<Long> requests = new ArrayList<>();
+        private boolean cancelled;
+
+        @Override
+        public void request(long n) {
+            requests.add(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+    }
+
+    // 记录收到信号的订阅端
+    private static class RecordingSubscriber<E> implements Flow.Subscriber<E> {
+
+        private final List<E> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(E item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable ex) {
+            this.error = ex;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+
+    }
+
+}
@@ -2,6 +2,8 @@ open module test.dashscope4j {
 
     requires dashscope4j;
     requires com.fasterxml.jackson.annotation;
+    requires com.fasterxml.jackson.databind;
+    requires jdk.httpserver;
     requires org.junit.jupiter.api;
     requires org.junit.jupiter.params;
 
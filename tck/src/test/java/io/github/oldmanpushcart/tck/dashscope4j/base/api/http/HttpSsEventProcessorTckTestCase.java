@@ -0,0 +1,50 @@
+package io.github.oldmanpushcart.tck.dashscope4j.base.api.http;
+
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEvent;
+import io.github.oldmanpushcart.internal.dashscope4j.base.api.http.HttpSsEventProcessor;
+import io.github.oldmanpushcart.tck.dashscope4j.util.TckPublishers;
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowPublisherVerification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+public class HttpSsEventProcessorTckTestCase extends FlowPublisherVerification<HttpSsEvent> {
+
+    private ExecutorService executor;
+
+    public HttpSsEventProcessorTckTestCase() {
+        super(new TestEnvironment());
+    }
+
+    @BeforeClass
+    public void before() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    // 每个数据块包含一个完整事件和下一个事件的前半部分，解码出的事件数与数据块数相同
+    @Override
+    public Flow.Publisher<HttpSsEvent> createFlowPublisher(long elements) {
+        final Flow.Publisher<List<ByteBuffer>> source = TckPublishers.range(elements, i -> List.of(
+                ByteBuffer.wrap("data:%s\n\nid:".formatted(i).getBytes(StandardCharsets.UTF_8))
+        ), executor);
+        return HttpSsEventProcessor.fromByteBuffers(StandardCharsets.UTF_8).transform(source);
+    }
+
+    @Override
+    public Flow.Publisher<HttpSsEvent> createFailedFlowPublisher() {
+        return HttpSsEventProcessor.fromByteBuffers(StandardCharsets.UTF_8).transform(TckPublishers.failed());
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.github.oldmanpushcart.tck.dashscope4j.util;
+
+import io.github.oldmanpushcart.dashscope4j.util.BufferedConsumeFlowSubscriber;
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowSubscriberBlackboxVerification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+public class BufferedConsumeFlowSubscriberTckTestCase extends FlowSubscriberBlackboxVerification<Integer> {
+
+    private ExecutorService executor;
+
+    public BufferedConsumeFlowSubscriberTckTestCase() {
+        super(new TestEnvironment());
+    }
+
+    @BeforeClass
+    public void before() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Flow.Subscriber<Integer> createFlowSubscriber() {
+        return BufferedConsumeFlowSubscriber.<Integer>newBuilder()
+                .consumer(item -> {
+
+                })
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    public Integer createElement(int element) {
+        return element;
+    }
+
+}
@@ -0,0 +1,27 @@
+package io.github.oldmanpushcart.tck.dashscope4j.util;
+
+import io.github.oldmanpushcart.dashscope4j.util.ConsumeFlowSubscriber;
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowSubscriberBlackboxVerification;
+
+import java.util.concurrent.Flow;
+
+public class ConsumeFlowSubscriberTckTestCase extends FlowSubscriberBlackboxVerification<Integer> {
+
+    public ConsumeFlowSubscriberTckTestCase() {
+        super(new TestEnvironment());
+    }
+
+    @Override
+    public Flow.Subscriber<Integer> createFlowSubscriber() {
+        return new ConsumeFlowSubscriber<>(item -> {
+
+        });
+    }
+
+    @Override
+    public Integer createElement(int element) {
+        return element;
+    }
+
+}
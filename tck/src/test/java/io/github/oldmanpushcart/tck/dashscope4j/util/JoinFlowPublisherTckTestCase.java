@@ -0,0 +1,60 @@
+package io.github.oldmanpushcart.tck.dashscope4j.util;
+
+import io.github.oldmanpushcart.internal.dashscope4j.util.JoinFlowPublisher;
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowPublisherVerification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class JoinFlowPublisherTckTestCase extends FlowPublisherVerification<Integer> {
+
+    // 每段发布器的元素数量，使TCK的请求跨越多次接续
+    private static final long SEGMENT = 3;
+
+    private ExecutorService executor;
+
+    public JoinFlowPublisherTckTestCase() {
+        super(new TestEnvironment());
+    }
+
+    @BeforeClass
+    public void before() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Flow.Publisher<Integer> createFlowPublisher(long elements) {
+        final var remaining = new AtomicLong(elements);
+        return new JoinFlowPublisher<>(
+                segment(remaining),
+                (a, b) -> b,
+                last -> CompletableFuture.completedFuture(remaining.get() > 0 ? segment(remaining) : null)
+        );
+    }
+
+    // 从剩余数量中切出一段发布器，无限流则一直接续
+    private Flow.Publisher<Integer> segment(AtomicLong remaining) {
+        final var elements = Math.min(SEGMENT, remaining.get());
+        if (remaining.get() != Long.MAX_VALUE) {
+            remaining.addAndGet(-elements);
+        }
+        return TckPublishers.range(elements, i -> i, executor);
+    }
+
+    @Override
+    public Flow.Publisher<Integer> createFailedFlowPublisher() {
+        return new JoinFlowPublisher<>(TckPublishers.failed(), (a, b) -> b, last -> CompletableFuture.completedFuture(null));
+    }
+
+}
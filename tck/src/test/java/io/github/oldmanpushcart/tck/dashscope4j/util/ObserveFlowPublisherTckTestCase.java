@@ -0,0 +1,45 @@
+package io.github.oldmanpushcart.tck.dashscope4j.util;
+
+import io.github.oldmanpushcart.internal.dashscope4j.util.ObserveFlowPublisher;
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowPublisherVerification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+public class ObserveFlowPublisherTckTestCase extends FlowPublisherVerification<Integer> {
+
+    private ExecutorService executor;
+
+    public ObserveFlowPublisherTckTestCase() {
+        super(new TestEnvironment());
+    }
+
+    @BeforeClass
+    public void before() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Flow.Publisher<Integer> createFlowPublisher(long elements) {
+        return ObserveFlowPublisher.observe(TckPublishers.range(elements, i -> i, executor), item -> {
+        }, ex -> {
+        });
+    }
+
+    @Override
+    public Flow.Publisher<Integer> createFailedFlowPublisher() {
+        return ObserveFlowPublisher.observe(TckPublishers.failed(), item -> {
+        }, ex -> {
+        });
+    }
+
+}
@@ -0,0 +1,42 @@
+package io.github.oldmanpushcart.tck.dashscope4j.util;
+
+import io.github.oldmanpushcart.internal.dashscope4j.util.PeekFlowPublisher;
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowPublisherVerification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+public class PeekFlowPublisherTckTestCase extends FlowPublisherVerification<Integer> {
+
+    private ExecutorService executor;
+
+    public PeekFlowPublisherTckTestCase() {
+        super(new TestEnvironment());
+    }
+
+    @BeforeClass
+    public void before() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Flow.Publisher<Integer> createFlowPublisher(long elements) {
+        return PeekFlowPublisher.peek(TckPublishers.range(elements, i -> i, executor)).join();
+    }
+
+    // 首个元素之前的错误以失败交出，不会得到发布器
+    @Override
+    public Flow.Publisher<Integer> createFailedFlowPublisher() {
+        return null;
+    }
+
+}
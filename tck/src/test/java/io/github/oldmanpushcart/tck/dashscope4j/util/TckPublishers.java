@@ -0,0 +1,54 @@
+package io.github.oldmanpushcart.tck.dashscope4j.util;
+
+import org.reactivestreams.FlowAdapters;
+import org.reactivestreams.tck.flow.support.Function;
+import org.reactivestreams.tck.flow.support.HelperPublisher;
+import org.reactivestreams.tck.flow.support.InfiniteHelperPublisher;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * TCK验证用的上游发布器
+ */
+public class TckPublishers {
+
+    /**
+     * 异步发布{@code elements}个元素后完成，超过{@link Integer#MAX_VALUE}时视为无限
+     *
+     * @param elements 元素数量
+     * @param mapper   序号到元素的映射
+     * @param executor 发布线程池
+     * @param <T>      元素类型
+     * @return 发布器
+     */
+    public static <T> Flow.Publisher<T> range(long elements, Function<Integer, T> mapper, Executor executor) {
+        return elements > Integer.MAX_VALUE
+                ? FlowAdapters.toFlowPublisher(new InfiniteHelperPublisher<>(mapper, executor))
+                : FlowAdapters.toFlowPublisher(new HelperPublisher<>(0, (int) elements, mapper, executor));
+    }
+
+    /**
+     * 订阅后立即失败
+     *
+     * @param <T> 元素类型
+     * @return 发布器
+     */
+    public static <T> Flow.Publisher<T> failed() {
+        return subscriber -> {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+
+                }
+
+                @Override
+                public void cancel() {
+
+                }
+            });
+            subscriber.onError(new RuntimeException("tck failed publisher"));
+        };
+    }
+
+}
@@ -0,0 +1,58 @@
+package io.github.oldmanpushcart.tck.dashscope4j.util;
+
+import io.github.oldmanpushcart.dashscope4j.util.TransformFlowProcessor;
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.IdentityFlowProcessorVerification;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+public class TransformFlowProcessorTckTestCase extends IdentityFlowProcessorVerification<Integer> {
+
+    private ExecutorService executor;
+
+    public TransformFlowProcessorTckTestCase() {
+        super(new TestEnvironment());
+    }
+
+    @BeforeClass
+    public void before() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    protected Flow.Processor<Integer, Integer> createIdentityFlowProcessor(int bufferSize) {
+        return new TransformFlowProcessor<>(List::of, bufferSize);
+    }
+
+    @Override
+    protected Flow.Publisher<Integer> createFailedFlowPublisher() {
+        return new TransformFlowProcessor<Integer, Integer>(List::of).transform(TckPublishers.failed());
+    }
+
+    @Override
+    public ExecutorService publisherExecutorService() {
+        return executor;
+    }
+
+    @Override
+    public Integer createElement(int element) {
+        return element;
+    }
+
+    // 只支持一个订阅者
+    @Override
+    public long maxSupportedSubscribers() {
+        return 1;
+    }
+
+}